@@ -0,0 +1,70 @@
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark comparing one atomic batch against looping over register for a
+ * release of 500 plugins, while a reader thread keeps querying the registry.
+ */
+public class BatchRegisterBenchmark {
+
+    private static final int RELEASE_SIZE = 500;
+    private static final int ROUNDS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        // Warm up both paths
+        measure("loop", false, ROUNDS / 4);
+        measure("batch", true, ROUNDS / 4);
+
+        measure("loop", false, ROUNDS);
+        measure("batch", true, ROUNDS);
+    }
+
+    private static List<Plugin> release(int round) {
+        Class<?>[] classes = {String.class, Integer.class, StringBuilder.class, ArrayList.class};
+        List<Plugin> release = new ArrayList<>(RELEASE_SIZE);
+        for (int i = 0; i < RELEASE_SIZE; i++) {
+            release.add(new Plugin("plugin" + i, classes[(i + round) % classes.length]));
+        }
+        return release;
+    }
+
+    private static void measure(String label, boolean batched, int rounds) throws Exception {
+        List<List<Plugin>> releases = new ArrayList<>(rounds);
+        for (int round = 0; round < rounds; round++) {
+            releases.add(release(round));
+        }
+
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        Thread reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                registry.getPlugin("plugin" + (System.nanoTime() & 511));
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+
+        long start = System.nanoTime();
+        for (List<Plugin> release : releases) {
+            if (batched) {
+                PluginBatch batch = new PluginBatch();
+                release.forEach(batch::register);
+                registry.apply(batch);
+            } else {
+                for (Plugin plugin : release) {
+                    registry.register(plugin);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        reader.interrupt();
+        reader.join();
+
+        long items = (long) rounds * RELEASE_SIZE;
+        System.out.printf("%-6s %,10.0f registrations/s (%d ns/item)%n",
+            label, items * 1e9 / elapsed, elapsed / items);
+    }
+}
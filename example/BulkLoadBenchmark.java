@@ -0,0 +1,64 @@
+import org.vuong.dynamicmoduleloader.BulkLoadResult;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark comparing startup loads of a plugin directory tree: one
+ * {@code loadAndRegisterPlugin} call per file against {@code loadAll} with
+ * 1 to N threads.
+ * 
+ * Usage: java BulkLoadBenchmark [files] [maxParallelism]
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int maxParallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Path root = Files.createTempDirectory("bulk-load");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            Path directory = Files.createDirectories(root.resolve("group" + (i % 8)));
+            files.add(Files.writeString(directory.resolve("Bulk" + i + ".java"), source(i)));
+        }
+        try {
+            // Warm up javac and the validators once
+            new PluginLoadService().loadAll(root, "**.java", 1, null);
+
+            long start = System.nanoTime();
+            PluginLoadService sequential = new PluginLoadService();
+            for (Path file : files) {
+                sequential.loadAndRegisterPlugin(file.toString());
+            }
+            long sequentialNanos = System.nanoTime() - start;
+            System.out.printf("%d files, %d available processors%n", fileCount, Runtime.getRuntime().availableProcessors());
+            System.out.printf("loadAndRegisterPlugin per file  %,7d ms%n", sequentialNanos / 1_000_000);
+
+            for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+                BulkLoadResult result = new PluginLoadService().loadAll(root, "**.java", parallelism, null);
+                System.out.printf("loadAll, parallelism %-2d        %,7d ms  (%.1fx, %d loaded)%n", parallelism,
+                    result.elapsedNanos() / 1_000_000, (double) sequentialNanos / result.elapsedNanos(), result.loadedCount());
+            }
+        } finally {
+            try (Stream<Path> tree = Files.walk(root)) {
+                tree.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static String source(int index) {
+        return "public class Bulk" + index + " {\n"
+            + "    public int compute(int x) {\n"
+            + "        int y = x * " + (index + 1) + ";\n"
+            + "        for (int i = 0; i < x; i++) { y += i % 7; }\n"
+            + "        return y;\n"
+            + "    }\n"
+            + "}\n";
+    }
+}
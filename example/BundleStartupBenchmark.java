@@ -0,0 +1,91 @@
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundle;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of startup time with precompiled plugin bundles against
+ * compiling the same plugins from source.
+ * 
+ * Usage: java BundleStartupBenchmark [plugins] [rounds]
+ */
+public class BundleStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pluginCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        Path sources = Files.createTempDirectory("bundle-sources");
+        Path classes = Files.createTempDirectory("bundle-classes");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+        List<String> javacArguments = new ArrayList<>(List.of("-d", classes.toString(), "-proc:none"));
+        Map<String, String> plugins = new LinkedHashMap<>();
+        for (int i = 0; i < pluginCount; i++) {
+            Path file = sources.resolve("Bundled" + i + ".java");
+            Files.writeString(file, "public class Bundled" + i + " {\n"
+                + "    public int compute(int x) {\n"
+                + "        int y = x * " + (i + 1) + ";\n"
+                + "        for (int j = 0; j < x; j++) { y += j % 7; }\n"
+                + "        return y;\n"
+                + "    }\n"
+                + "}\n");
+            javacArguments.add(file.toString());
+            plugins.put("bundled" + i, "Bundled" + i);
+        }
+        try {
+            // What a CI build does once
+            long start = System.nanoTime();
+            ToolProvider.getSystemJavaCompiler().run(null, null, null, javacArguments.toArray(String[]::new));
+            PluginBundle.create(bundleFile, classes, plugins);
+            System.out.printf("%d plugins; building the bundle took %,d ms (%,d KB)%n",
+                pluginCount, (System.nanoTime() - start) / 1_000_000, Files.size(bundleFile) / 1024);
+
+            // Warm up both paths once
+            new PluginLoadService().loadAll(sources, "*.java", parallelism, null);
+            startFromBundle(bundleFile, true);
+
+            for (int round = 1; round <= rounds; round++) {
+                long fromSource = new PluginLoadService().loadAll(sources, "*.java", parallelism, null).elapsedNanos();
+                long registered = startFromBundle(bundleFile, false);
+                long resolved = startFromBundle(bundleFile, true);
+                System.out.printf("round %d: from source %,6d ms   bundle registered %,6.1f ms   bundle all resolved %,6.1f ms%n",
+                    round, fromSource / 1_000_000, registered / 1e6, resolved / 1e6);
+            }
+        } finally {
+            for (Path directory : List.of(sources, classes)) {
+                try (Stream<Path> tree = Files.walk(directory)) {
+                    tree.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+            Files.delete(bundleFile);
+        }
+    }
+
+    /**
+     * Opens the bundle in a new service and returns the time until its
+     * plugins are registered, or until every plugin class is defined.
+     */
+    private static long startFromBundle(Path bundleFile, boolean resolveAll) throws Exception {
+        long start = System.nanoTime();
+        PluginLoadService service = new PluginLoadService();
+        try (PluginBundle bundle = service.loadBundle(bundleFile)) {
+            if (resolveAll) {
+                for (Plugin plugin : service.getAllPlugins()) {
+                    plugin.getPluginClass();
+                }
+            }
+            return System.nanoTime() - start;
+        }
+    }
+}
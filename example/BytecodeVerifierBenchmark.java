@@ -0,0 +1,96 @@
+import org.vuong.dynamicmoduleloader.security.BytecodeSecurityVerifier;
+import org.vuong.dynamicmoduleloader.security.CodeSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Benchmark comparing constant-pool verification of compiled plugins with
+ * the source validators, over a corpus of generated plugins of varying size.
+ *
+ * Usage: java BytecodeVerifierBenchmark [plugins]
+ */
+public class BytecodeVerifierBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int plugins = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        // Generate and compile the corpus once
+        Path dir = Files.createTempDirectory("bytecode-bench-");
+        List<String> sources = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < plugins; i++) {
+            String source = source(i, 1 + i % 40);
+            sources.add(source);
+            Path file = dir.resolve("Corpus" + i + ".java");
+            Files.writeString(file, source);
+            paths.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-d", dir.toString()));
+        arguments.addAll(paths);
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Corpus did not compile");
+        }
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < plugins; i++) {
+            classFiles.add(Files.readAllBytes(dir.resolve("Corpus" + i + ".class")));
+        }
+        long sourceChars = sources.stream().mapToLong(String::length).sum();
+        long classBytes = classFiles.stream().mapToLong(bytes -> bytes.length).sum();
+        System.out.printf("Corpus: %d plugins, %,d source chars, %,d class file bytes%n", plugins, sourceChars, classBytes);
+
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false,
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+        EnhancedSecurityValidator enhanced = new EnhancedSecurityValidator(config);
+        TreeSecurityValidator tree = new TreeSecurityValidator(config);
+        BytecodeSecurityVerifier bytecode = new BytecodeSecurityVerifier(config);
+
+        run("CodeSecurityValidator", sources, CodeSecurityValidator::validate);
+        run("EnhancedSecurityValidator", sources, enhanced::validate);
+        run("TreeSecurityValidator (parse)", sources, tree::validate);
+        run("BytecodeSecurityVerifier", classFiles, bytecode::verify);
+    }
+
+    private static <T> void run(String label, List<T> corpus, Consumer<T> validator) {
+        int rounds = 20;
+        for (int round = 0; round < rounds; round++) {
+            corpus.forEach(item -> accept(validator, item));
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            corpus.forEach(item -> accept(validator, item));
+        }
+        long perPlugin = (System.nanoTime() - start) / rounds / corpus.size();
+        System.out.printf("%-30s %,9d ns per plugin%n", label, perPlugin);
+    }
+
+    private static <T> void accept(Consumer<T> validator, T item) {
+        try {
+            validator.accept(item);
+        } catch (SecurityException e) {
+            // The verdict does not matter here, only the time to reach it
+        }
+    }
+
+    private static String source(int index, int methods) {
+        StringBuilder source = new StringBuilder("public class Corpus").append(index).append(" {\n");
+        for (int m = 0; m < methods; m++) {
+            source.append("    public int compute").append(m).append("(int x) {\n")
+                .append("        int y = x * ").append(m + 1).append(";\n")
+                .append("        for (int i = 0; i < x; i++) { y += i % 7; }\n")
+                .append("        String label = \"step \" + y;\n")
+                .append("        return y + label.length();\n")
+                .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
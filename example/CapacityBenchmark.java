@@ -0,0 +1,48 @@
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.registry.CapacityPolicy;
+import org.vuong.dynamicmoduleloader.registry.CapacityStats;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Simulates tenant churn against a capacity-bounded registry and reports
+ * evictions, reloads and metaspace compared with an unbounded registry.
+ *
+ * Usage: java CapacityBenchmark [tenants] [capacity] [requests]
+ */
+public class CapacityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int tenants = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        run("unbounded", new InMemoryPluginRegistry(), tenants, requests);
+        run("bounded", new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(capacity)), tenants, requests);
+    }
+
+    private static void run(String label, InMemoryPluginRegistry registry, int tenants, int requests) throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService(registry);
+        for (int i = 0; i < tenants; i++) {
+            service.compileAndRegister("Tenant" + i, "public class Tenant" + i + " { public int id() { return " + i + "; } }");
+        }
+
+        // Skewed traffic: most requests go to a few hot tenants
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int tenant = (int) Math.min(tenants - 1, Math.abs(random.nextGaussian()) * tenants / 8);
+            service.getPlugin("tenant" + tenant).getPluginClass();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.gc();
+        CapacityStats stats = registry.getCapacityStats();
+        System.out.printf("%-9s requests: %d in %,d ms, resident: %d (%,d bytes est.), evictions: %d, reloads: %d, metaspace: %,d KB, classes unloaded so far: %d%n",
+            label, requests, elapsed / 1_000_000, stats.residentPlugins(), stats.residentBytes(),
+            stats.evictions(), stats.reloads(), stats.metaspaceUsedBytes() / 1024,
+            ManagementFactory.getClassLoadingMXBean().getUnloadedClassCount());
+    }
+}
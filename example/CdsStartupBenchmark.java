@@ -0,0 +1,162 @@
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.bundle.BundleBuildResult;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundle;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundleBuilder;
+import org.vuong.dynamicmoduleloader.cds.ArchiveDumpResult;
+import org.vuong.dynamicmoduleloader.cds.ClassDataSharing;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of JVM startup time and footprint with an application class
+ * data sharing archive of the library and a bundle of plugins, against
+ * the JDK's default archive only and against no sharing at all.
+ * 
+ * Every start is a new JVM that loads the bundle and resolves every
+ * plugin. The library must be packed as a JAR file, as the JVM only
+ * archives classes from JAR files.
+ * 
+ * Usage: java CdsStartupBenchmark &lt;library jar&gt; [plugins] [rounds]
+ */
+public class CdsStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--probe")) {
+            probe(Path.of(args[1]));
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: java CdsStartupBenchmark <library jar> [plugins] [rounds]");
+            return;
+        }
+        Path libraryJar = Path.of(args[0]).toAbsolutePath();
+        int pluginCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path work = Files.createTempDirectory("cds-benchmark");
+        try {
+            Path sources = Files.createDirectories(work.resolve("plugins"));
+            for (int i = 0; i < pluginCount; i++) {
+                Files.writeString(sources.resolve("Shared" + i + ".java"), "public class Shared" + i + " {\n"
+                    + "    public int compute(int x) {\n"
+                    + "        int y = x * " + (i + 1) + ";\n"
+                    + "        for (int j = 0; j < x; j++) { y += j % 7; }\n"
+                    + "        return y;\n"
+                    + "    }\n"
+                    + "    public String describe() { return \"plugin " + i + "\"; }\n"
+                    + "}\n");
+            }
+            Path bundleFile = work.resolve("plugins.jar");
+            BundleBuildResult build = new PluginBundleBuilder(SecurityConfig.strict(), Runtime.getRuntime().availableProcessors())
+                .build(sources, bundleFile);
+            String classPath = libraryJar + File.pathSeparator + probeJar(work.resolve("probe.jar"));
+            ArchiveDumpResult dump = ClassDataSharing.dump(work.resolve("plugins.jsa"), classPath, List.of(bundleFile));
+            System.out.printf("%d plugins; bundle %,d KB built in %,d ms; archive %,d KB dumped in %,d ms%n",
+                build.plugins().size(), Files.size(bundleFile) / 1024, build.elapsedNanos() / 1_000_000,
+                dump.sizeBytes() / 1024, dump.elapsedNanos() / 1_000_000);
+
+            Map<String, List<String>> configurations = new LinkedHashMap<>();
+            configurations.put("no sharing", List.of("-Xshare:off"));
+            configurations.put("JDK archive", List.of());
+            configurations.put("app archive", ClassDataSharing.jvmOptions(dump.archive()));
+            // Warm up the page cache for every configuration once
+            for (List<String> options : configurations.values()) {
+                start(options, classPath, bundleFile);
+            }
+            for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+                long[] wall = new long[rounds];
+                long[] rss = new long[rounds];
+                long[] metaspace = new long[rounds];
+                for (int round = 0; round < rounds; round++) {
+                    long[] sample = start(configuration.getValue(), classPath, bundleFile);
+                    wall[round] = sample[0];
+                    rss[round] = sample[1];
+                    metaspace[round] = sample[2];
+                }
+                System.out.printf("%-12s startup %,5d ms   RSS %,7d KB   metaspace %,7d KB   (medians of %d)%n",
+                    configuration.getKey(), median(wall) / 1_000_000, median(rss), median(metaspace), rounds);
+            }
+        } finally {
+            try (Stream<Path> tree = Files.walk(work)) {
+                tree.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Starts a JVM that loads the bundle, and returns its wall time, its
+     * resident set size and its metaspace use in KB.
+     */
+    private static long[] start(List<String> options, String classPath, Path bundleFile) throws Exception {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        command.addAll(options);
+        command.addAll(List.of("-cp", classPath, CdsStartupBenchmark.class.getName(), "--probe", bundleFile.toString()));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Probe failed: " + output);
+        }
+        long wall = System.nanoTime() - start;
+        String[] lines = output.split("\\R");
+        String[] values = lines[lines.length - 1].split(" ");
+        return new long[] {wall, Long.parseLong(values[0]), Long.parseLong(values[1])};
+    }
+
+    /**
+     * The body of every started JVM: loads the bundle, resolves and
+     * instantiates every plugin, then prints its footprint.
+     */
+    private static void probe(Path bundleFile) throws Exception {
+        PluginLoadService service = new PluginLoadService();
+        try (PluginBundle bundle = service.loadBundle(bundleFile, true)) {
+            for (Plugin plugin : service.getAllPlugins()) {
+                plugin.getPluginClass().getDeclaredConstructor().newInstance();
+            }
+        }
+        long rss = Files.readAllLines(Path.of("/proc/self/status")).stream()
+            .filter(line -> line.startsWith("VmRSS:"))
+            .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+            .findFirst().orElse(0);
+        long metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getName().equals("Metaspace"))
+            .mapToLong(pool -> pool.getUsage().getUsed() / 1024)
+            .findFirst().orElse(0);
+        System.out.println(rss + " " + metaspace);
+    }
+
+    /**
+     * Packs the classes of this benchmark into a JAR file, so the probe
+     * runs on a class path the JVM can archive.
+     */
+    private static Path probeJar(Path jar) throws Exception {
+        Path classes = Path.of(CdsStartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(CdsStartupBenchmark.class.getName() + ".class"));
+            out.write(Files.readAllBytes(classes.resolve(CdsStartupBenchmark.class.getName() + ".class")));
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
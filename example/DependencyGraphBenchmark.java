@@ -0,0 +1,133 @@
+import org.vuong.dynamicmoduleloader.graph.GraphDeployResult;
+import org.vuong.dynamicmoduleloader.graph.PluginDeclaration;
+import org.vuong.dynamicmoduleloader.graph.PluginGraphLoader;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of {@link PluginGraphLoader} on synthetic plugin graphs: a
+ * layered graph where each plugin uses two plugins of the layer below, a
+ * chain where each plugin uses the one before, and a wide graph of
+ * independent plugins used by one root.
+ * 
+ * For each graph it deploys every plugin with one compiler thread and with
+ * several, one per processor by default, then changes one plugin low in the
+ * graph and deploys it again, which recompiles only that plugin and its
+ * dependents.
+ * 
+ * Usage: java DependencyGraphBenchmark [plugins per graph] [compiler threads]
+ */
+public class DependencyGraphBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 48;
+        int processors = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path directory = Files.createTempDirectory("graph-benchmark");
+        try {
+            // Warm up javac and the loader
+            for (int round = 0; round < 3; round++) {
+                deploy(layered(size, 0), directory.resolve("warmup-1-" + round), 1);
+                deploy(layered(size, 0), directory.resolve("warmup-n-" + round), processors);
+            }
+
+            System.out.printf("%d plugins per graph, %d processors%n", size, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-8s %12s %12s %14s %10s%n", "graph", "full p=1", "full p=" + processors,
+                "incremental", "rebuilt");
+            for (String shape : List.of("layered", "chain", "wide")) {
+                List<PluginDeclaration> graph = graph(shape, size, 0);
+                long serial = deploy(graph, directory.resolve(shape + "-1"), 1).elapsedNanos();
+
+                InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+                PluginGraphLoader loader = new PluginGraphLoader(registry, SecurityConfig.permissive(),
+                    directory.resolve(shape + "-n"), processors);
+                long parallel = check(loader.deploy(graph)).elapsedNanos();
+                GraphDeployResult incremental = check(loader.deploy(List.of(graph(shape, size, 1).get(1))));
+
+                System.out.printf("%-8s %10.0f ms %10.0f ms %12.0f ms %6d/%d%n", shape, serial / 1e6, parallel / 1e6,
+                    incremental.elapsedNanos() / 1e6, incremental.compiled().size(), size);
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static GraphDeployResult deploy(List<PluginDeclaration> graph, Path output, int parallelism)
+            throws IOException {
+        return check(new PluginGraphLoader(new InMemoryPluginRegistry(), SecurityConfig.permissive(), output, parallelism)
+            .deploy(graph));
+    }
+
+    private static GraphDeployResult check(GraphDeployResult result) {
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException("Deployment failed: " + result.failures());
+        }
+        return result;
+    }
+
+    private static List<PluginDeclaration> graph(String shape, int size, int version) {
+        return switch (shape) {
+            case "layered" -> layered(size, version);
+            case "chain" -> chain(size, version);
+            default -> wide(size, version);
+        };
+    }
+
+    /**
+     * Layers of eight plugins, each using two plugins of the layer below.
+     */
+    private static List<PluginDeclaration> layered(int size, int version) {
+        List<PluginDeclaration> declarations = new ArrayList<>();
+        int width = 8;
+        for (int i = 0; i < size; i++) {
+            if (i < width) {
+                declarations.add(plugin(i, version, List.of()));
+            } else {
+                int below = i - width - i % width;
+                declarations.add(plugin(i, version, List.of(below + i % width, below + (i + 1) % width)));
+            }
+        }
+        return declarations;
+    }
+
+    private static List<PluginDeclaration> chain(int size, int version) {
+        List<PluginDeclaration> declarations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            declarations.add(plugin(i, version, i == 0 ? List.of() : List.of(i - 1)));
+        }
+        return declarations;
+    }
+
+    private static List<PluginDeclaration> wide(int size, int version) {
+        List<PluginDeclaration> declarations = new ArrayList<>();
+        List<Integer> leaves = new ArrayList<>();
+        for (int i = 0; i < size - 1; i++) {
+            declarations.add(plugin(i, version, List.of()));
+            leaves.add(i);
+        }
+        declarations.add(plugin(size - 1, version, leaves));
+        return declarations;
+    }
+
+    /**
+     * A plugin whose value adds up the values of the plugins it uses. Only
+     * plugin 1 changes between versions.
+     */
+    private static PluginDeclaration plugin(int index, int version, List<Integer> dependencies) {
+        StringBuilder value = new StringBuilder(index == 1 ? String.valueOf(version) : "0");
+        dependencies.forEach(dependency -> value.append(" + new G").append(dependency).append("().value()"));
+        String code = "package bench; public class G" + index + " { public int value() { return " + value + "; } }";
+        return new PluginDeclaration("bench.G" + index, code,
+            Set.copyOf(dependencies.stream().map(dependency -> "bench.G" + dependency).toList()));
+    }
+}
@@ -0,0 +1,79 @@
+import org.vuong.dynamicmoduleloader.PluginDirectoryWatcher;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.PluginReload;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Benchmark of hot reload latency: the time from saving a plugin file in a
+ * watched directory until the new version of the plugin is callable, with
+ * many other, unchanged plugins in the same directory.
+ * 
+ * Usage: java HotReloadBenchmark [plugins] [saves] [debounceMillis]
+ */
+public class HotReloadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int plugins = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int saves = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long debounceMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        Path directory = Files.createTempDirectory("hot-reload");
+        for (int i = 0; i < plugins; i++) {
+            write(directory, "Plugin" + i, 0);
+        }
+        PluginLoadService service = new PluginLoadService();
+        long start = System.nanoTime();
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), debounceMillis, 4)) {
+            System.out.printf("Initial load of %d plugins: %,d ms%n", plugins, (System.nanoTime() - start) / 1_000_000);
+            BlockingQueue<PluginReload> reloads = new LinkedBlockingQueue<>();
+            watcher.addReloadListener(reloads::add);
+
+            long[] saveToCallable = new long[saves];
+            long[] eventToSwap = new long[saves];
+            for (int i = 0; i < saves; i++) {
+                int version = i + 1;
+                long saved = System.nanoTime();
+                write(directory, "Plugin0", version);
+                // Poll as a caller would, until the new version answers
+                while (value(service.getPlugin("plugin0")) != version) {
+                    Thread.sleep(1);
+                }
+                saveToCallable[i] = System.nanoTime() - saved;
+                PluginReload reload = reloads.take();
+                eventToSwap[i] = reload.latencyNanos();
+            }
+            report("save to callable", saveToCallable);
+            report("first event to swap", eventToSwap);
+            System.out.printf("(debounce %d ms; one file recompiled per save, %d unchanged)%n", debounceMillis, plugins - 1);
+        } finally {
+            try (var files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-20s p50 %,6.1f ms  max %,6.1f ms%n",
+            label, sorted[sorted.length / 2] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static void write(Path directory, String className, int version) throws Exception {
+        Files.writeString(directory.resolve(className + ".java"),
+            "public class " + className + " { public int value() { return " + version + "; } }");
+    }
+
+    private static int value(Plugin plugin) throws Exception {
+        Class<?> clazz = plugin.getPluginClass();
+        return (int) clazz.getMethod("value").invoke(clazz.getDeclaredConstructor().newInstance());
+    }
+}
@@ -0,0 +1,53 @@
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.registry.LazyStats;
+
+/**
+ * Benchmark comparing startup time of eager and lazy plugin registration
+ * when only a fraction of the registered plugins is ever used.
+ *
+ * Usage: java LazyStartupBenchmark [pluginCount] [usedPercent]
+ */
+public class LazyStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pluginCount = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int usedPercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int used = Math.max(1, pluginCount * usedPercent / 100);
+
+        PluginRuntimeService eager = new PluginRuntimeService();
+        long start = System.nanoTime();
+        for (int i = 0; i < pluginCount; i++) {
+            eager.compileAndRegister("Tenant" + i, source(i));
+        }
+        long eagerStartup = System.nanoTime() - start;
+
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        PluginRuntimeService lazy = new PluginRuntimeService(registry);
+        start = System.nanoTime();
+        for (int i = 0; i < pluginCount; i++) {
+            lazy.registerLazy("Tenant" + i, source(i));
+        }
+        long lazyStartup = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < used; i++) {
+            lazy.getPlugin("tenant" + i);
+        }
+        long firstUse = System.nanoTime() - start;
+
+        LazyStats stats = registry.getLazyStats();
+        System.out.printf("Plugins: %d, used: %d%n", pluginCount, used);
+        System.out.printf("Eager startup: %,d ms%n", eagerStartup / 1_000_000);
+        System.out.printf("Lazy startup:  %,d ms (+%,d ms on first use of %d plugins)%n",
+            lazyStartup / 1_000_000, firstUse / 1_000_000, used);
+        System.out.printf("Resolved: %d, pending: %d, avg resolve: %,d ms%n",
+            stats.resolved(), stats.pending(),
+            stats.resolutions() == 0 ? 0 : stats.resolutionNanos() / stats.resolutions() / 1_000_000);
+    }
+
+    private static String source(int i) {
+        return "public class Tenant" + i + " { public int id() { return " + i + "; } }";
+    }
+}
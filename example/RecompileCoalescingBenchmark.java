@@ -0,0 +1,80 @@
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.RecompileStats;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Benchmark of a burst of edits to one plugin, as sent by an editor on every
+ * pause in typing.
+ * 
+ * Sends a new version of a plugin at a fixed interval and measures how long
+ * after the last edit the last version is registered, and how many versions
+ * were compiled: once by queueing every version for
+ * {@link PluginRuntimeService#compileAndRegister(String, String)} on one
+ * background thread, and once with {@link PluginRuntimeService#submit}.
+ * 
+ * Usage: java RecompileCoalescingBenchmark [edits] [milliseconds between edits]
+ */
+public class RecompileCoalescingBenchmark {
+
+    private static final String SOURCE = """
+        public class Editor {
+            public String text() { return "version %d"; }
+        }
+        """;
+
+    public static void main(String[] args) throws Exception {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        long pauseMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        // Warm up the compiler
+        PluginRuntimeService warmUp = new PluginRuntimeService(new InMemoryPluginRegistry(), SecurityConfig.permissive());
+        for (int i = 0; i < 5; i++) {
+            warmUp.compileAndRegister("Editor", SOURCE.formatted(i));
+        }
+
+        System.out.printf("%d edits, one every %d ms%n", edits, pauseMillis);
+
+        PluginRuntimeService queued = new PluginRuntimeService(new InMemoryPluginRegistry(), SecurityConfig.permissive());
+        ExecutorService compiler = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> last = null;
+            for (int i = 1; i <= edits; i++) {
+                String source = SOURCE.formatted(i);
+                last = compiler.submit(() -> queued.compileAndRegister("Editor", source));
+                Thread.sleep(pauseMillis);
+            }
+            long lastEdit = System.nanoTime() - pauseMillis * 1_000_000L;
+            last.get();
+            report("queued", System.nanoTime() - lastEdit, edits, queued.getPlugin("editor"));
+        } finally {
+            compiler.shutdown();
+        }
+
+        PluginRuntimeService coalescing = new PluginRuntimeService(new InMemoryPluginRegistry(), SecurityConfig.permissive());
+        CompletableFuture<Plugin> last = null;
+        for (int i = 1; i <= edits; i++) {
+            last = coalescing.submit("Editor", SOURCE.formatted(i));
+            Thread.sleep(pauseMillis);
+        }
+        long lastEdit = System.nanoTime() - pauseMillis * 1_000_000L;
+        last.get();
+        RecompileStats stats = coalescing.getRecompileStats();
+        report("coalesced", System.nanoTime() - lastEdit, stats.compiled(), coalescing.getPlugin("editor"));
+        System.out.printf("           %d compiles avoided, %d compiled but superseded%n", stats.compilesAvoided(),
+            stats.abandoned());
+    }
+
+    private static void report(String label, long nanos, long compiles, Plugin plugin) throws Exception {
+        Object text = plugin.getPluginClass().getMethod("text")
+            .invoke(plugin.getPluginClass().getDeclaredConstructor().newInstance());
+        System.out.printf("%-10s last version live %6.0f ms after the last edit, %3d compiles (%s)%n", label,
+            nanos / 1e6, compiles, text);
+    }
+}
@@ -0,0 +1,93 @@
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Benchmark comparing indexed registry queries with a reflective scan over
+ * 100k registered plugins.
+ */
+public class RegistryIndexBenchmark {
+
+    private static final int PLUGIN_COUNT = 100_000;
+    private static final int QUERIES = 200;
+
+    public interface Transformer {
+        String handle(String input);
+    }
+
+    public static class Upper implements Transformer {
+        public String handle(String input) { return input.toUpperCase(); }
+    }
+
+    public static class Lower implements Transformer {
+        public String handle(String input) { return input.toLowerCase(); }
+    }
+
+    public static class Counter {
+        public int count(String input) { return input.length(); }
+    }
+
+    public static void main(String[] args) {
+        Class<?>[] classes = {Upper.class, Lower.class, Counter.class, StringBuilder.class};
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < PLUGIN_COUNT; i++) {
+            registry.register(new Plugin("plugin" + i, classes[i % classes.length]));
+        }
+        System.out.printf("Registered %d plugins in %d ms%n", PLUGIN_COUNT, (System.nanoTime() - start) / 1_000_000);
+
+        run("scan by interface", r -> scanByInterface(r, Transformer.class), registry);
+        run("index by interface", r -> r.findByInterface(Transformer.class), registry);
+        run("scan by method", r -> scanByMethod(r, "handle", String.class), registry);
+        run("index by method", r -> r.findByMethod("handle", String.class), registry);
+
+        // Each replacement invalidates only the buckets of the old and new class
+        start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            registry.register(new Plugin("plugin" + i, classes[(i + 1) % classes.length]));
+            registry.findByInterface(Transformer.class);
+        }
+        System.out.printf("1000 replace+query cycles: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void run(String label, Function<InMemoryPluginRegistry, Set<Plugin>> query,
+                            InMemoryPluginRegistry registry) {
+        // Warm up before measuring
+        for (int i = 0; i < QUERIES; i++) {
+            query.apply(registry);
+        }
+        long start = System.nanoTime();
+        int matches = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            matches = query.apply(registry).size();
+        }
+        long perQuery = (System.nanoTime() - start) / QUERIES;
+        System.out.printf("%-20s %,12d ns/query (%d matches)%n", label, perQuery, matches);
+    }
+
+    private static Set<Plugin> scanByInterface(InMemoryPluginRegistry registry, Class<?> iface) {
+        Set<Plugin> result = new java.util.HashSet<>();
+        for (Plugin plugin : registry.getAllPlugins()) {
+            if (iface.isAssignableFrom(plugin.getPluginClass())) {
+                result.add(plugin);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Plugin> scanByMethod(InMemoryPluginRegistry registry, String name, Class<?>... params) {
+        Set<Plugin> result = new java.util.HashSet<>();
+        for (Plugin plugin : registry.getAllPlugins()) {
+            try {
+                plugin.getPluginClass().getMethod(name, params);
+                result.add(plugin);
+            } catch (NoSuchMethodException e) {
+                // not a match
+            }
+        }
+        return result;
+    }
+}
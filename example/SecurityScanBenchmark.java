@@ -0,0 +1,78 @@
+import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+/**
+ * Benchmark comparing the single-pass EnhancedSecurityValidator with one
+ * containment scan per pattern, on clean sources from 1 KB to 1 MB.
+ */
+public class SecurityScanBenchmark {
+
+    private static final String[] PATTERNS = {
+        "java.io.File", "java.nio.file.Files", "java.nio.file.Paths", "FileInputStream", "FileOutputStream",
+        "FileReader", "FileWriter", "java.net.Socket", "java.net.URL", "java.net.URLConnection",
+        "java.net.HttpURLConnection", "java.net.ServerSocket", "java.lang.reflect", "Class.forName",
+        "getDeclaredMethod", "getMethod", "invoke", "getDeclaredField", "getField", "setAccessible",
+        "newInstance", "Runtime.getRuntime", "ProcessBuilder", "System.exit", "System.halt", "System.gc",
+        "System.runFinalization", "java.sql.Connection", "java.sql.DriverManager", "java.sql.Statement",
+        "java.sql.PreparedStatement"
+    };
+
+    public static void main(String[] args) {
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false,
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config);
+
+        for (int size = 1024; size <= 1024 * 1024; size *= 4) {
+            String source = source(size);
+            int iterations = Math.max(5, 20_000_000 / size);
+
+            // Warm up both paths before timing
+            for (int i = 0; i < iterations; i++) {
+                validator.validate(source);
+                perPatternScan(source);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                validator.validate(source);
+            }
+            long singlePass = (System.nanoTime() - start) / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                perPatternScan(source);
+            }
+            long perPattern = (System.nanoTime() - start) / iterations;
+
+            System.out.printf("%,9d chars: single pass %,9d ns, per-pattern scans %,9d ns (%.1fx)%n",
+                source.length(), singlePass, perPattern, (double) perPattern / singlePass);
+        }
+    }
+
+    private static int perPatternScan(String source) {
+        int found = 0;
+        for (String pattern : PATTERNS) {
+            if (source.contains(pattern)) {
+                found++;
+            }
+        }
+        for (String member : new String[] {"public ", "private ", "protected "}) {
+            int index = 0;
+            while ((index = source.indexOf(member, index)) != -1) {
+                found++;
+                index += member.length();
+            }
+        }
+        return found;
+    }
+
+    private static String source(int size) {
+        StringBuilder source = new StringBuilder("public class Generated {\n");
+        int i = 0;
+        while (source.length() < size - 2) {
+            source.append("    private int field").append(i)
+                .append(" = java.util.Objects.hash(getValue(), Integer.valueOf(").append(i++).append("));\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
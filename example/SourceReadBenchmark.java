@@ -0,0 +1,103 @@
+import org.vuong.dynamicmoduleloader.compiler.MappedSourceFile;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of the I/O a plugin source goes through before javac parses
+ * it: reading it to digest it, then reading and decoding it again for javac
+ * and copying the decoded characters for the security check, against
+ * mapping it once with {@link MappedSourceFile}.
+ * 
+ * Reports the time and the heap allocated per pass over all files.
+ * 
+ * Usage: java SourceReadBenchmark [files] [kilobytes per file] [rounds]
+ */
+public class SourceReadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int kilobytes = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Path directory = Files.createTempDirectory("source-read");
+        List<Path> files = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        while (body.length() < kilobytes * 1024) {
+            body.append("    public int compute").append(body.length()).append("(int x) { return x * 31 + 7; } // Größe\n");
+        }
+        for (int i = 0; i < fileCount; i++) {
+            Path file = directory.resolve("Source" + i + ".java");
+            Files.writeString(file, "public class Source" + i + " {\n" + body + "}\n");
+            files.add(file);
+        }
+        try {
+            // Warm up both paths
+            long checksum = readTwice(files) + mapOnce(files);
+            for (int round = 1; round <= rounds; round++) {
+                long allocated = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                checksum += readTwice(files);
+                long readTwice = System.nanoTime() - start;
+                long readTwiceAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+                allocated = threads.getCurrentThreadAllocatedBytes();
+                start = System.nanoTime();
+                checksum += mapOnce(files);
+                long mapOnce = System.nanoTime() - start;
+                long mapOnceAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+                System.out.printf("round %d: read twice %,5d ms %,8d KB allocated   mapped once %,5d ms %,8d KB allocated%n",
+                    round, readTwice / 1_000_000, readTwiceAllocated / 1024, mapOnce / 1_000_000, mapOnceAllocated / 1024);
+            }
+            System.out.println("(" + fileCount + " files of " + kilobytes + " KB, checksum " + checksum + ")");
+        } finally {
+            try (Stream<Path> tree = Files.walk(directory)) {
+                tree.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * What each source went through before: read for its digest, read and
+     * decoded again by javac, and copied into a String for the check.
+     */
+    private static long readTwice(List<Path> files) throws Exception {
+        long checksum = 0;
+        for (Path file : files) {
+            String digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+            CharBuffer parsed = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+            String checked = parsed.toString();
+            checksum += digest.charAt(0) + parsed.length() + checked.length();
+        }
+        return checksum;
+    }
+
+    /**
+     * The same work on one mapping: digest from the mapped bytes, and one
+     * decoded buffer for both javac and the check.
+     */
+    private static long mapOnce(List<Path> files) throws Exception {
+        long checksum = 0;
+        for (Path file : files) {
+            MappedSourceFile source = MappedSourceFile.map(file);
+            String digest = source.digest();
+            CharSequence parsed = source.getCharContent(false);
+            CharSequence checked = source.getCharContent(true);
+            checksum += digest.charAt(0) + parsed.length() + checked.length();
+        }
+        return checksum;
+    }
+}
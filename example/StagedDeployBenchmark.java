@@ -0,0 +1,133 @@
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.StagedPlugin;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark of the serving path while a new plugin version is deployed.
+ * 
+ * A serving loop looks a plugin up and calls it continuously. Each round it
+ * deploys a new version of the plugin, once with
+ * {@link PluginRuntimeService#compileAndRegister(String, String)} on the
+ * serving thread, as a handler that deploys inline would, and once by
+ * staging the version and promoting it from the serving loop when it is
+ * ready. Reports the serving latencies while idle and during each kind of
+ * deployment.
+ * 
+ * Usage: java StagedDeployBenchmark [rounds]
+ */
+public class StagedDeployBenchmark {
+
+    private static final String SOURCE = """
+        public class Pricing {
+            public long price(long amount) { return amount * %d / 100; }
+        }
+        """;
+
+    private static final int WINDOW = 200_000;
+
+    private static int version;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        PluginRuntimeService service = new PluginRuntimeService(new InMemoryPluginRegistry(), SecurityConfig.permissive());
+        service.compileAndRegister("Pricing", SOURCE.formatted(version++));
+
+        // Warm up the compiler and the serving loop
+        for (int i = 0; i < 3; i++) {
+            inline(service);
+            staged(service);
+        }
+
+        long[] idle = new long[WINDOW];
+        long[] inline = new long[WINDOW];
+        long[] staged = new long[WINDOW];
+        int idleCount = 0;
+        int inlineCount = 0;
+        int stagedCount = 0;
+        long inlineNanos = 0;
+        long stagedNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            idleCount = serve(service, idle, idleCount, 20_000);
+
+            long start = System.nanoTime();
+            inlineCount = inline(service, inline, inlineCount);
+            inlineNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            stagedCount = staged(service, staged, stagedCount);
+            stagedNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("Serving latency, %d deployments of each kind%n", rounds);
+        report("idle", idle, idleCount, 0);
+        report("inline deploy", inline, inlineCount, inlineNanos / rounds);
+        report("staged deploy", staged, stagedCount, stagedNanos / rounds);
+    }
+
+    private static void inline(PluginRuntimeService service) throws Exception {
+        inline(service, new long[WINDOW], 0);
+    }
+
+    private static void staged(PluginRuntimeService service) throws Exception {
+        staged(service, new long[WINDOW], 0);
+    }
+
+    /**
+     * Serves a few calls, deploys on the serving thread, and serves a few
+     * more; the call that deploys pays for the compilation.
+     */
+    private static int inline(PluginRuntimeService service, long[] latencies, int count) throws Exception {
+        count = serve(service, latencies, count, 1_000);
+        long start = System.nanoTime();
+        service.compileAndRegister("Pricing", SOURCE.formatted(version++));
+        count = add(latencies, count, System.nanoTime() - start);
+        return serve(service, latencies, count, 1_000);
+    }
+
+    /**
+     * Stages a version and keeps serving until it is ready, then promotes it.
+     */
+    private static int staged(PluginRuntimeService service, long[] latencies, int count) throws Exception {
+        StagedPlugin next = service.stage("Pricing", SOURCE.formatted(version++));
+        while (!next.isDone()) {
+            count = serve(service, latencies, count, 100);
+        }
+        long start = System.nanoTime();
+        next.promote();
+        count = add(latencies, count, System.nanoTime() - start);
+        return serve(service, latencies, count, 1_000);
+    }
+
+    private static int serve(PluginRuntimeService service, long[] latencies, int count, int calls) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            Plugin plugin = service.getPlugin("pricing");
+            plugin.getPluginClass().getMethod("price", long.class)
+                .invoke(plugin.getPluginClass().getDeclaredConstructor().newInstance(), 1_000L + i);
+            count = add(latencies, count, System.nanoTime() - start);
+        }
+        return count;
+    }
+
+    private static int add(long[] latencies, int count, long latency) {
+        latencies[count % latencies.length] = latency;
+        return count + 1;
+    }
+
+    private static void report(String label, long[] latencies, int count, long deployNanos) {
+        long[] sorted = Arrays.copyOf(latencies, Math.min(count, latencies.length));
+        Arrays.sort(sorted);
+        System.out.printf("%-14s %8d calls  p50 %7.2f us  p99 %8.2f us  p99.9 %9.2f us  max %9.2f ms", label, count,
+            percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3, percentile(sorted, 0.999) / 1e3,
+            sorted[sorted.length - 1] / 1e6);
+        System.out.println(deployNanos > 0 ? String.format("  (deploy %.0f ms)", deployNanos / 1e6) : "");
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.ceil(fraction * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,76 @@
+import org.vuong.dynamicmoduleloader.BulkLoadResult;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of reloading an unchanged plugin tree, as after a restart: a new
+ * service loads every file again, once compiling everything and once with
+ * an output directory whose recorded classes are all up to date.
+ * 
+ * Usage: java UpToDateBenchmark [files] [rounds]
+ */
+public class UpToDateBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        Path root = Files.createTempDirectory("up-to-date");
+        Path output = Files.createTempDirectory("up-to-date-classes");
+        for (int i = 0; i < fileCount; i++) {
+            Path directory = Files.createDirectories(root.resolve("group" + (i % 10)));
+            Files.writeString(directory.resolve("Cached" + i + ".java"),
+                "public class Cached" + i + " {\n"
+                    + "    public int compute(int x) {\n"
+                    + "        int y = x * " + (i + 1) + ";\n"
+                    + "        for (int j = 0; j < x; j++) { y += j % 7; }\n"
+                    + "        return y;\n"
+                    + "    }\n"
+                    + "}\n");
+        }
+        try {
+            // Warm up, and record the output once
+            service(null).loadAll(root, "**.java", parallelism, null);
+            service(output).loadAll(root, "**.java", parallelism, null);
+
+            System.out.printf("%d unchanged files, parallelism %d%n", fileCount, parallelism);
+            for (int round = 1; round <= rounds; round++) {
+                long compiling = time(service(null), root, parallelism);
+                PluginLoadService cached = service(output);
+                long upToDate = time(cached, root, parallelism);
+                System.out.printf("round %d: compile all %,6d ms   up to date %,6d ms  (%.1fx, %d of %d skipped javac)%n",
+                    round, compiling / 1_000_000, upToDate / 1_000_000, (double) compiling / upToDate,
+                    cached.getBuildStats().upToDate(), fileCount);
+            }
+        } finally {
+            delete(root);
+            delete(output);
+        }
+    }
+
+    private static PluginLoadService service(Path output) {
+        return new PluginLoadService(new InMemoryPluginRegistry(), SecurityConfig.strict(), output);
+    }
+
+    private static long time(PluginLoadService service, Path root, int parallelism) throws Exception {
+        BulkLoadResult result = service.loadAll(root, "**.java", parallelism, null);
+        if (!result.failures().isEmpty()) {
+            throw new IllegalStateException("Load failed: " + result.failures().get(0).failure());
+        }
+        return result.elapsedNanos();
+    }
+
+    private static void delete(Path directory) throws Exception {
+        try (Stream<Path> tree = Files.walk(directory)) {
+            tree.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
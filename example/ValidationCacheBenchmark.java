@@ -0,0 +1,63 @@
+import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.ValidationCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Benchmark comparing cached and uncached validation of plugins that are
+ * validated again, as when the same sources are registered repeatedly.
+ *
+ * Usage: java ValidationCacheBenchmark [plugins]
+ */
+public class ValidationCacheBenchmark {
+
+    public static void main(String[] args) {
+        int plugins = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < plugins; i++) {
+            sources.add(source(i, 1 + i % 40));
+        }
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false,
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        run("EnhancedSecurityValidator", sources, new EnhancedSecurityValidator(config)::validate);
+        ValidationCache enhancedCache = new ValidationCache(plugins);
+        run("  cached", sources, new EnhancedSecurityValidator(config, enhancedCache)::validate);
+        System.out.println("  " + enhancedCache.getStats());
+
+        run("TreeSecurityValidator", sources, new TreeSecurityValidator(config)::validate);
+        ValidationCache treeCache = new ValidationCache(plugins);
+        run("  cached", sources, new TreeSecurityValidator(config, treeCache)::validate);
+        System.out.println("  " + treeCache.getStats());
+    }
+
+    private static void run(String label, List<String> sources, Consumer<String> validator) {
+        int rounds = 20;
+        for (int round = 0; round < rounds; round++) {
+            sources.forEach(validator);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            sources.forEach(validator);
+        }
+        long perPlugin = (System.nanoTime() - start) / rounds / sources.size();
+        System.out.printf("%-30s %,9d ns per plugin%n", label, perPlugin);
+    }
+
+    private static String source(int index, int methods) {
+        StringBuilder source = new StringBuilder("public class Corpus").append(index).append(" {\n");
+        for (int m = 0; m < methods; m++) {
+            source.append("    public int compute").append(m).append("(int x) {\n")
+                .append("        int y = x * ").append(m + 1).append(";\n")
+                .append("        for (int i = 0; i < x; i++) { y += i % 7; }\n")
+                .append("        String label = \"step \" + y;\n")
+                .append("        return y + label.length();\n")
+                .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,103 @@
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.registry.WarmingPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.warmup.LatencySummary;
+import org.vuong.dynamicmoduleloader.warmup.PluginWarmer;
+import org.vuong.dynamicmoduleloader.warmup.WarmUpResult;
+
+import java.lang.reflect.Method;
+
+/**
+ * Benchmark of the latency of the first calls into a newly compiled plugin
+ * version, swapped in directly or after a warm-up by a
+ * {@link WarmingPluginRegistry}.
+ * 
+ * Each round compiles a new version of a plugin, registers it, and then
+ * measures the first calls made to it, as traffic would right after a hot
+ * swap. Reports the latency distribution of those calls for both ways of
+ * registering, and the duration and cold and warm latencies of the warm-up.
+ * 
+ * Usage: java WarmUpBenchmark [calls per round] [rounds]
+ */
+public class WarmUpBenchmark {
+
+    private static final String SOURCE = """
+        public class Scoring {
+            public static Object[][] warmUpSamples() {
+                return new Object[][] {{"score", "warm-up sample"}};
+            }
+            public long score(String text) {
+                long score = %d;
+                for (int i = 0; i < text.length(); i++) {
+                    score = score * 31 + text.charAt(i) * (i %% 7 + 1);
+                    if ((score & 15) == 0) {
+                        score ^= score >>> 13;
+                    }
+                }
+                return score;
+            }
+        }
+        """;
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        PluginRegistry direct = new InMemoryPluginRegistry();
+        WarmingPluginRegistry warming = new WarmingPluginRegistry(new InMemoryPluginRegistry(), new PluginWarmer());
+        PluginRuntimeService directService = new PluginRuntimeService(direct, SecurityConfig.permissive());
+        PluginRuntimeService warmingService = new PluginRuntimeService(warming, SecurityConfig.permissive());
+        String text = "the quick brown fox jumps over the lazy dog, again and again";
+
+        // Warm up the compiler and the measuring loop itself
+        for (int version = 0; version < 3; version++) {
+            directService.compileAndRegister("Scoring", SOURCE.formatted(version));
+            traffic(direct, calls, text);
+        }
+
+        System.out.printf("First %d calls after each swap, %d rounds%n", calls, rounds);
+        for (int round = 1; round <= rounds; round++) {
+            directService.compileAndRegister("Scoring", SOURCE.formatted(round * 2));
+            LatencySummary cold = traffic(direct, calls, text);
+
+            long start = System.nanoTime();
+            warmingService.compileAndRegister("Scoring", SOURCE.formatted(round * 2 + 1));
+            long swapNanos = System.nanoTime() - start;
+            LatencySummary warm = traffic(warming, calls, text);
+            WarmUpResult warmUp = warming.getWarmer().getLastResult("scoring");
+
+            System.out.printf("round %d  direct:    p50 %6.2f us  p99 %7.2f us  max %8.2f us%n", round,
+                cold.p50Nanos() / 1e3, cold.p99Nanos() / 1e3, cold.maxNanos() / 1e3);
+            System.out.printf("         warmed up: p50 %6.2f us  p99 %7.2f us  max %8.2f us%n",
+                warm.p50Nanos() / 1e3, warm.p99Nanos() / 1e3, warm.maxNanos() / 1e3);
+            System.out.printf("         warm-up: %d calls in %.0f ms (swap took %.0f ms), converged %s,"
+                    + " p99 %.2f us -> %.2f us%n",
+                warmUp.invocations(), warmUp.elapsedNanos() / 1e6, swapNanos / 1e6, warmUp.converged(),
+                warmUp.cold().p99Nanos() / 1e3, warmUp.warm().p99Nanos() / 1e3);
+        }
+    }
+
+    /**
+     * Makes the first calls to the registered version and summarizes their
+     * latencies.
+     */
+    private static LatencySummary traffic(PluginRegistry registry, int calls, String text) throws Exception {
+        Plugin plugin = registry.getPlugin("scoring");
+        Object instance = plugin.getPluginClass().getDeclaredConstructor().newInstance();
+        Method score = plugin.getPluginClass().getMethod("score", String.class);
+        long[] latencies = new long[calls];
+        long sink = 0;
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            sink += (Long) score.invoke(instance, text);
+            latencies[i] = System.nanoTime() - start;
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        return LatencySummary.of(latencies, calls);
+    }
+}
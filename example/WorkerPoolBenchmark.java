@@ -0,0 +1,133 @@
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.worker.PluginWorkerPool;
+import org.vuong.dynamicmoduleloader.worker.WorkerPoolStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Benchmark of calls into plugins hosted by out-of-process workers: the
+ * round-trip latency of one call at a time, and the throughput of many
+ * callers and of pipelined calls.
+ * 
+ * Usage: java WorkerPoolBenchmark [workers] [callers]
+ */
+public class WorkerPoolBenchmark {
+
+    private static final String ECHO =
+        "public class Echo {"
+        + " public int add(int a, int b) { return a + b; }"
+        + " public String echo(String value) { return value; }"
+        + "}";
+
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int callers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        try (PluginWorkerPool pool = new PluginWorkerPool(workers, new SecurityConfig())) {
+            pool.deploy("Echo", ECHO);
+
+            latency(pool, "add(int, int)", 20_000, () -> pool.call("echo", "add", 1, 2));
+            String payload = "x".repeat(4096);
+            latency(pool, "echo(4 KB string)", 20_000, () -> pool.call("echo", "echo", payload));
+
+            throughput(pool, callers, 200_000);
+            pipelined(pool, 200_000);
+        }
+    }
+
+    private static void latency(PluginWorkerPool pool, String label, int calls, Call call) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            call.run();
+        }
+        long[] nanos = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("Round trip %-20s p50 %,7d ns  p99 %,8d ns%n",
+            label, nanos[calls / 2], nanos[calls * 99 / 100]);
+    }
+
+    private static void throughput(PluginWorkerPool pool, int callers, int calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            for (int round = 0; round < 2; round++) {
+                WorkerPoolStats before = pool.getStats();
+                long start = System.nanoTime();
+                List<Future<?>> done = new ArrayList<>();
+                for (int c = 0; c < callers; c++) {
+                    done.add(executor.submit(() -> {
+                        for (int i = 0; i < calls / callers; i++) {
+                            pool.call("echo", "add", i, 1);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : done) {
+                    future.get();
+                }
+                report(callers + " blocking callers", calls, System.nanoTime() - start, before, pool.getStats());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void pipelined(PluginWorkerPool pool, int calls) throws Exception {
+        int window = 256;
+        for (int round = 0; round < 2; round++) {
+            WorkerPoolStats before = pool.getStats();
+            long start = System.nanoTime();
+            List<CompletableFuture<Object>> inFlight = new ArrayList<>(window);
+            for (int i = 0; i < calls; i++) {
+                inFlight.add(pool.submit("echo", "add", i, 1));
+                if (inFlight.size() == window) {
+                    await(inFlight);
+                    inFlight.clear();
+                }
+            }
+            await(inFlight);
+            report("pipelined, window " + window, calls, System.nanoTime() - start, before, pool.getStats());
+        }
+        for (int round = 0; round < 2; round++) {
+            WorkerPoolStats before = pool.getStats();
+            long start = System.nanoTime();
+            List<Object[]> batch = new ArrayList<>(window);
+            for (int i = 0; i < calls; i++) {
+                batch.add(new Object[] {i, 1});
+                if (batch.size() == window) {
+                    await(pool.submitAll("echo", "add", batch));
+                    batch.clear();
+                }
+            }
+            await(pool.submitAll("echo", "add", batch));
+            report("submitAll, batch " + window, calls, System.nanoTime() - start, before, pool.getStats());
+        }
+    }
+
+    private static void await(List<CompletableFuture<Object>> results) throws Exception {
+        for (CompletableFuture<Object> result : results) {
+            result.get();
+        }
+    }
+
+    private static void report(String label, int calls, long nanos, WorkerPoolStats before, WorkerPoolStats after) {
+        long frames = after.framesSent() - before.framesSent();
+        long writes = after.writes() - before.writes();
+        System.out.printf("Throughput %-22s %,9.0f calls/s  %5.1f requests per write%n",
+            label, calls * 1e9 / nanos, (double) frames / writes);
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,108 @@
+package org.vuong.dynamicmoduleloader.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.vuong.dynamicmoduleloader.bundle.BundleBuildResult;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundleBuilder;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Validates and compiles a directory of plugin sources and writes them as
+ * an indexed, digest-stamped plugin bundle.
+ * 
+ * The build fails if any source is rejected by validation or does not
+ * compile, listing every such file.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+@CacheableTask
+public abstract class BundlePluginsTask extends DefaultTask {
+
+    /**
+     * Creates a new BundlePluginsTask. Gradle instantiates the task and
+     * implements its properties.
+     */
+    public BundlePluginsTask() {
+    }
+
+    /**
+     * Returns the directory of plugin sources.
+     * 
+     * @return the source directory
+     */
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getSourceDirectory();
+
+    /**
+     * Returns the bundle file to write.
+     * 
+     * @return the bundle file
+     */
+    @OutputFile
+    public abstract RegularFileProperty getBundleFile();
+
+    /**
+     * Returns the security preset to validate with.
+     * 
+     * @return the security preset
+     */
+    @Input
+    public abstract Property<String> getSecurity();
+
+    /**
+     * Returns the number of threads to validate and compile with. It does
+     * not change the bundle, so it is not an input.
+     * 
+     * @return the parallelism
+     */
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    /**
+     * Builds the bundle.
+     * 
+     * @throws IOException if a source cannot be read or the bundle written
+     */
+    @TaskAction
+    public void bundle() throws IOException {
+        Path bundleFile = getBundleFile().get().getAsFile().toPath();
+        Files.createDirectories(bundleFile.getParent());
+        PluginBundleBuilder builder = new PluginBundleBuilder(securityConfig(getSecurity().get()), getParallelism().get());
+        BundleBuildResult result = builder.build(getSourceDirectory().get().getAsFile().toPath(), bundleFile);
+
+        if (!result.isSuccessful()) {
+            StringBuilder message = new StringBuilder("Plugin sources were rejected:");
+            result.failures().forEach((file, reason) ->
+                message.append(System.lineSeparator()).append("  ").append(file).append(": ").append(reason.getMessage()));
+            throw new GradleException(message.toString());
+        }
+        getLogger().lifecycle("Bundled {} plugins into {} in {} ms",
+            result.plugins().size(), bundleFile.getFileName(), result.elapsedNanos() / 1_000_000);
+    }
+
+    private static SecurityConfig securityConfig(String preset) {
+        return switch (preset) {
+            case "strict" -> SecurityConfig.strict();
+            case "moderate" -> SecurityConfig.moderate();
+            case "permissive" -> SecurityConfig.permissive();
+            default -> throw new GradleException("Unknown security preset '" + preset + "', use strict, moderate or permissive");
+        };
+    }
+}
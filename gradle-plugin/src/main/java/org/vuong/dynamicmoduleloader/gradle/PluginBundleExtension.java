@@ -0,0 +1,60 @@
+package org.vuong.dynamicmoduleloader.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * The {@code pluginBundle} extension that configures ahead-of-time plugin
+ * compilation.
+ * 
+ * <pre>
+ * pluginBundle {
+ *     sourceDirectory = file('src/plugins/java')
+ *     security = 'strict'
+ * }
+ * </pre>
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public abstract class PluginBundleExtension {
+
+    /**
+     * Creates a new PluginBundleExtension. Gradle instantiates the extension
+     * and implements its properties.
+     */
+    public PluginBundleExtension() {
+    }
+
+    /**
+     * Returns the directory of plugin sources, {@code src/plugins/java} by default.
+     * 
+     * @return the source directory
+     */
+    public abstract DirectoryProperty getSourceDirectory();
+
+    /**
+     * Returns the bundle file to write, {@code build/plugin-bundles/<project>-plugins.jar} by default.
+     * 
+     * @return the bundle file
+     */
+    public abstract RegularFileProperty getBundleFile();
+
+    /**
+     * Returns the security preset to validate with: {@code strict} (the
+     * default), {@code moderate} or {@code permissive}. Runtime nodes must
+     * use the same preset to trust the bundle.
+     * 
+     * @return the security preset
+     */
+    public abstract Property<String> getSecurity();
+
+    /**
+     * Returns the number of threads to validate and compile with, one per
+     * available processor by default.
+     * 
+     * @return the parallelism
+     */
+    public abstract Property<Integer> getParallelism();
+}
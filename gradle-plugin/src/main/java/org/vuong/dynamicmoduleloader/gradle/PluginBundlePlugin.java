@@ -0,0 +1,52 @@
+package org.vuong.dynamicmoduleloader.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+/**
+ * Gradle plugin that compiles dynamic module loader plugins ahead of time.
+ * 
+ * Applying it adds the {@code pluginBundle} extension and a
+ * {@code bundlePlugins} task, which {@code assemble} depends on when the
+ * project has one. Runtime nodes load the resulting bundle with
+ * {@code PluginLoadService.loadBundle} and neither validate nor compile
+ * the plugins again.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginBundlePlugin implements Plugin<Project> {
+
+    /**
+     * The name of the task that builds the bundle.
+     */
+    public static final String TASK_NAME = "bundlePlugins";
+
+    /**
+     * Creates a new PluginBundlePlugin. Gradle instantiates the plugin when
+     * it is applied.
+     */
+    public PluginBundlePlugin() {
+    }
+
+    @Override
+    public void apply(Project project) {
+        PluginBundleExtension extension = project.getExtensions().create("pluginBundle", PluginBundleExtension.class);
+        extension.getSourceDirectory().convention(project.getLayout().getProjectDirectory().dir("src/plugins/java"));
+        extension.getBundleFile().convention(
+            project.getLayout().getBuildDirectory().file("plugin-bundles/" + project.getName() + "-plugins.jar"));
+        extension.getSecurity().convention("strict");
+        extension.getParallelism().convention(Runtime.getRuntime().availableProcessors());
+
+        project.getTasks().register(TASK_NAME, BundlePluginsTask.class, task -> {
+            task.setGroup("build");
+            task.setDescription("Validates and compiles plugin sources into an indexed bundle.");
+            task.getSourceDirectory().set(extension.getSourceDirectory());
+            task.getBundleFile().set(extension.getBundleFile());
+            task.getSecurity().set(extension.getSecurity());
+            task.getParallelism().set(extension.getParallelism());
+        });
+        project.getPluginManager().withPlugin("base", base ->
+            project.getTasks().named("assemble").configure(assemble -> assemble.dependsOn(TASK_NAME)));
+    }
+}
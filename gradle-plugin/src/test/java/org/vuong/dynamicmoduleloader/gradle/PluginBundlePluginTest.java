@@ -0,0 +1,62 @@
+package org.vuong.dynamicmoduleloader.gradle;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundle;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginBundlePluginTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void bundlePlugins_buildsABundleTheRuntimeLoadsWithoutJavac() throws Exception {
+        Files.writeString(projectDir.resolve("settings.gradle"), "rootProject.name = 'plugins'");
+        Files.writeString(projectDir.resolve("build.gradle"), "plugins { id 'org.vuong.plugin-bundle' }");
+        Path sources = Files.createDirectories(projectDir.resolve("src/plugins/java/acme"));
+        Files.writeString(sources.resolve("Greeter.java"),
+            "package acme; public class Greeter { public String greet(String name) { return \"Hello \" + name; } }");
+
+        BuildResult result = GradleRunner.create()
+            .withProjectDir(projectDir.toFile())
+            .withPluginClasspath()
+            .withArguments(PluginBundlePlugin.TASK_NAME)
+            .build();
+
+        assertEquals(TaskOutcome.SUCCESS, result.task(":" + PluginBundlePlugin.TASK_NAME).getOutcome());
+        Path bundleFile = projectDir.resolve("build/plugin-bundles/plugins-plugins.jar");
+        PluginLoadService service = new PluginLoadService();
+        try (PluginBundle bundle = service.loadBundle(bundleFile, true)) {
+            Class<?> greeter = service.getPlugin("greeter").getPluginClass();
+            Object instance = greeter.getDeclaredConstructor().newInstance();
+            assertEquals("Hello Gradle", greeter.getMethod("greet", String.class).invoke(instance, "Gradle"));
+        }
+        assertEquals(0, service.getBuildStats().compiled());
+    }
+
+    @Test
+    void bundlePlugins_failsTheBuildForRejectedSources() throws Exception {
+        Files.writeString(projectDir.resolve("settings.gradle"), "rootProject.name = 'plugins'");
+        Files.writeString(projectDir.resolve("build.gradle"), "plugins { id 'org.vuong.plugin-bundle' }");
+        Path sources = Files.createDirectories(projectDir.resolve("src/plugins/java"));
+        Files.writeString(sources.resolve("Runner.java"),
+            "public class Runner { public void run() throws Exception { Runtime.getRuntime().exec(\"ls\"); } }");
+
+        BuildResult result = GradleRunner.create()
+            .withProjectDir(projectDir.toFile())
+            .withPluginClasspath()
+            .withArguments(PluginBundlePlugin.TASK_NAME)
+            .buildAndFail();
+
+        assertTrue(result.getOutput().contains("Runner.java"));
+    }
+}
@@ -0,0 +1,15 @@
+package org.vuong.dynamicmoduleloader;
+
+/**
+ * Progress of a {@link PluginLoadService#loadAll} operation, reported as each
+ * file finishes.
+ * 
+ * @param completed the number of files finished so far, including this one
+ * @param total the number of files discovered
+ * @param outcome the outcome of the file that just finished
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record BulkLoadProgress(int completed, int total, PluginLoadOutcome outcome) {
+}
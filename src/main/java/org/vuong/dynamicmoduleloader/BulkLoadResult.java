@@ -0,0 +1,33 @@
+package org.vuong.dynamicmoduleloader;
+
+import java.util.List;
+
+/**
+ * The result of a {@link PluginLoadService#loadAll} operation.
+ * 
+ * @param outcomes the outcome of every discovered file, in path order
+ * @param elapsedNanos the time the whole operation took
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record BulkLoadResult(List<PluginLoadOutcome> outcomes, long elapsedNanos) {
+
+    /**
+     * Returns the number of files that were loaded and registered.
+     * 
+     * @return the number of loaded files
+     */
+    public int loadedCount() {
+        return (int) outcomes.stream().filter(PluginLoadOutcome::isLoaded).count();
+    }
+
+    /**
+     * Returns the outcomes of the files that failed.
+     * 
+     * @return the failed outcomes, in path order
+     */
+    public List<PluginLoadOutcome> failures() {
+        return outcomes.stream().filter(outcome -> !outcome.isLoaded()).toList();
+    }
+}
@@ -0,0 +1,22 @@
+package org.vuong.dynamicmoduleloader;
+
+/**
+ * Point-in-time execution statistics of one plugin under a {@link PluginExecutionGuard}.
+ * 
+ * @param calls the number of invocations started
+ * @param cpuViolations the number of invocations that exceeded their CPU-time budget
+ * @param allocationViolations the number of invocations that exceeded their allocation budget
+ * @param abandonedCalls the number of invocations failed while still running
+ * @param runawayThreads the number of abandoned invocations whose thread is still running
+ * @param quarantined whether the plugin is quarantined
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record ExecutionStats(long calls,
+                             long cpuViolations,
+                             long allocationViolations,
+                             long abandonedCalls,
+                             int runawayThreads,
+                             boolean quarantined) {
+}
@@ -0,0 +1,352 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Watches plugin directories and reloads the Java files that change in them.
+ * 
+ * File events are debounced: a reload starts once no event has arrived for
+ * the debounce interval, so the burst of events of one save, or of a checkout
+ * touching many files, becomes a single reload. A file counts as changed only
+ * if the digest of its content differs from the one last loaded, so events
+ * that do not change content, such as a touch, recompile nothing. Changed
+ * files are compiled in parallel on a bounded pool, and their plugins are
+ * swapped into the registry in one atomic batch, together with the removal
+ * of plugins whose files were deleted. A file that fails to compile is
+ * reported, and its previous plugin stays registered.
+ * 
+ * Directories are watched without their subdirectories. Watchers are created
+ * by {@link PluginLoadService#watch}.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginDirectoryWatcher implements AutoCloseable {
+
+    /**
+     * The time without file events after which a reload starts by default, in milliseconds.
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    /**
+     * The number of debounce intervals a reload is postponed at most while events keep arriving.
+     */
+    private static final int MAX_DEBOUNCE_INTERVALS = 10;
+
+    private final PluginLoadService loadService;
+    private final PluginRegistry pluginRegistry;
+    private final long debounceNanos;
+    private final WatchService watchService;
+    private final ExecutorService compilers;
+    private final ScheduledExecutorService reloader;
+    private final List<Consumer<PluginReload>> reloadListeners = new CopyOnWriteArrayList<>();
+    // Only used by the reloading thread, after the initial load
+    private final Map<Path, LoadedFile> loadedFiles = new HashMap<>();
+    // Guarded by this
+    private final Set<Path> pendingFiles = new LinkedHashSet<>();
+    private final Set<Path> pendingRescans = new LinkedHashSet<>();
+    private long firstEventNanos;
+    private ScheduledFuture<?> scheduledReload;
+    private volatile PluginReload lastReload;
+
+    /**
+     * Creates a watcher, loads the Java files present in the directories and
+     * starts watching them.
+     */
+    PluginDirectoryWatcher(PluginLoadService loadService, PluginRegistry pluginRegistry, List<Path> directories,
+                           long debounceMillis, int compileThreads) throws IOException {
+        if (directories == null || directories.isEmpty()) {
+            throw new IllegalArgumentException("Plugin directories cannot be null or empty");
+        }
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce interval cannot be negative");
+        }
+        if (compileThreads <= 0) {
+            throw new IllegalArgumentException("Compile threads must be positive");
+        }
+        for (Path directory : directories) {
+            if (directory == null || !Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("Plugin directory does not exist: " + directory);
+            }
+        }
+        this.loadService = loadService;
+        this.pluginRegistry = pluginRegistry;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.watchService = directories.get(0).getFileSystem().newWatchService();
+
+        AtomicInteger compilerCount = new AtomicInteger();
+        this.compilers = Executors.newFixedThreadPool(compileThreads,
+            task -> daemon(task, "plugin-reload-compiler-" + compilerCount.incrementAndGet()));
+        this.reloader = Executors.newSingleThreadScheduledExecutor(task -> daemon(task, "plugin-reload"));
+        try {
+            // Watch before scanning, so that a change during the initial load is not missed
+            Set<Path> files = new LinkedHashSet<>();
+            for (Path directory : directories) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                files.addAll(javaFiles(directory));
+            }
+            lastReload = reload(files, System.nanoTime());
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        daemon(this::watch, "plugin-watch").start();
+    }
+
+    /**
+     * Adds a listener that is called after every reload. Listeners run on the
+     * reloading thread and should return quickly.
+     * 
+     * @param listener the listener to call with each reload
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addReloadListener(Consumer<PluginReload> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Reload listener cannot be null");
+        }
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Returns the outcome of the latest reload, or of the initial load if no
+     * file has changed since.
+     * 
+     * @return the latest reload
+     */
+    public PluginReload getLastReload() {
+        return lastReload;
+    }
+
+    /**
+     * Stops watching. Plugins that were loaded stay registered.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+        reloader.shutdownNow();
+        compilers.shutdownNow();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost; compare the whole directory with what is loaded
+                        queue(null, directory);
+                    } else {
+                        Path file = directory.resolve((Path) event.context());
+                        if (isJavaFile(file)) {
+                            queue(file, null);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Queues a file, or a directory to rescan, and postpones the reload until
+     * events stop, but not beyond the maximum delay.
+     */
+    private synchronized void queue(Path file, Path rescan) {
+        long now = System.nanoTime();
+        if (pendingFiles.isEmpty() && pendingRescans.isEmpty()) {
+            firstEventNanos = now;
+        }
+        if (file != null) {
+            pendingFiles.add(file);
+        } else {
+            pendingRescans.add(rescan);
+        }
+        if (scheduledReload != null) {
+            scheduledReload.cancel(false);
+        }
+        long deadline = firstEventNanos + debounceNanos * MAX_DEBOUNCE_INTERVALS;
+        long delay = Math.max(0, Math.min(debounceNanos, deadline - now));
+        scheduledReload = reloader.schedule(this::reloadPending, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void reloadPending() {
+        Set<Path> files;
+        long startNanos;
+        synchronized (this) {
+            files = new LinkedHashSet<>(pendingFiles);
+            for (Path directory : pendingRescans) {
+                loadedFiles.keySet().stream().filter(file -> directory.equals(file.getParent())).forEach(files::add);
+                try {
+                    files.addAll(javaFiles(directory));
+                } catch (IOException e) {
+                    // The directory is gone; its loaded files are removed below
+                }
+            }
+            pendingFiles.clear();
+            pendingRescans.clear();
+            startNanos = firstEventNanos;
+        }
+        PluginReload reload = reload(files, startNanos);
+        lastReload = reload;
+        for (Consumer<PluginReload> listener : reloadListeners) {
+            listener.accept(reload);
+        }
+    }
+
+    /**
+     * Compiles the changed files among the given ones, and swaps the plugins
+     * of all changed and deleted files into the registry at once.
+     */
+    private PluginReload reload(Set<Path> files, long startNanos) {
+        Map<Path, Exception> failures = new LinkedHashMap<>();
+        Map<Path, byte[]> digests = new HashMap<>();
+        Map<Path, Future<Plugin>> compiling = new LinkedHashMap<>();
+        List<Path> deleted = new ArrayList<>();
+        int unchanged = 0;
+        for (Path file : files) {
+            LoadedFile loaded = loadedFiles.get(file);
+            byte[] digest;
+            try {
+                digest = digest(file);
+            } catch (NoSuchFileException e) {
+                if (loaded != null) {
+                    deleted.add(file);
+                }
+                continue;
+            } catch (IOException e) {
+                failures.put(file, e);
+                continue;
+            }
+            if (loaded != null && Arrays.equals(loaded.digest(), digest)) {
+                unchanged++;
+                continue;
+            }
+            digests.put(file, digest);
+            compiling.put(file, compilers.submit(() -> loadService.loadPlugin(file.toString())));
+        }
+
+        // Removals go first, so that a plugin that moved to another file is not removed
+        PluginBatch batch = new PluginBatch();
+        List<String> removed = new ArrayList<>();
+        for (Path file : deleted) {
+            String name = loadedFiles.remove(file).pluginName();
+            batch.remove(name);
+            removed.add(name);
+        }
+        List<Plugin> plugins = new ArrayList<>();
+        for (Map.Entry<Path, Future<Plugin>> entry : compiling.entrySet()) {
+            try {
+                Plugin plugin = entry.getValue().get();
+                LoadedFile previous = loadedFiles.put(entry.getKey(), new LoadedFile(digests.get(entry.getKey()), plugin.getName()));
+                if (previous != null && !previous.pluginName().equals(plugin.getName())) {
+                    batch.remove(previous.pluginName());
+                    removed.add(previous.pluginName());
+                }
+                plugins.add(plugin);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failures.put(entry.getKey(), cause instanceof Exception exception ? exception : new Exception(cause));
+            } catch (InterruptedException e) {
+                // Closed while compiling; leave the registry as it is
+                Thread.currentThread().interrupt();
+                return new PluginReload(List.of(), List.of(), failures, unchanged, System.nanoTime() - startNanos);
+            }
+        }
+        List<String> loaded = new ArrayList<>();
+        for (Plugin plugin : plugins) {
+            batch.register(plugin);
+            loaded.add(plugin.getName());
+        }
+        if (!batch.isEmpty()) {
+            pluginRegistry.apply(batch);
+        }
+        return new PluginReload(loaded, removed, failures, unchanged, System.nanoTime() - startNanos);
+    }
+
+    private static List<Path> javaFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.java")) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static boolean isJavaFile(Path file) {
+        return file.getFileName().toString().endsWith(".java");
+    }
+
+    private static byte[] digest(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The content digest of a loaded file, and the plugin it was loaded as.
+     */
+    private record LoadedFile(byte[] digest, String pluginName) {
+    }
+}
@@ -0,0 +1,412 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.security.ExecutionBudget;
+import org.vuong.dynamicmoduleloader.security.ExecutionBudgetExceededException;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs plugin invocations under per-plugin CPU-time and allocation budgets.
+ * 
+ * Each invocation runs on a worker thread of the guard. A sampler reads the
+ * CPU time and allocated bytes of every running invocation from the
+ * {@code ThreadMXBean} at a fixed interval, and every invocation is checked
+ * once more when it returns. An invocation over budget fails with an
+ * {@link ExecutionBudgetExceededException}: its caller is released at once,
+ * and its worker thread is interrupted. A thread that ignores the interrupt
+ * cannot be stopped; it is abandoned and counted as a runaway until it ends.
+ * After as many violations as its budget allows, a plugin is quarantined: it
+ * is removed from the registry and further invocations are refused until it
+ * is released.
+ * 
+ * Budgets are enforced with the precision of the sample interval, so a
+ * plugin can overshoot by what it uses in one interval.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginExecutionGuard implements AutoCloseable {
+
+    /**
+     * The interval at which running invocations are sampled by default, in milliseconds.
+     */
+    public static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 10;
+
+    private final PluginRegistry pluginRegistry;
+    private final ExecutionBudget defaultBudget;
+    private final Map<String, ExecutionBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Map<String, Quarantine> quarantined = new ConcurrentHashMap<>();
+    private final Set<Invocation<?>> running = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<ExecutionBudgetExceededException>> violationListeners = new CopyOnWriteArrayList<>();
+    private final com.sun.management.ThreadMXBean threads;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * Creates a new PluginExecutionGuard that samples at the default interval.
+     * 
+     * @param pluginRegistry the registry to quarantine plugins in
+     * @param defaultBudget the budget of plugins without a budget of their own
+     * @throws IllegalArgumentException if pluginRegistry or defaultBudget is null
+     * @throws IllegalStateException if the JVM cannot measure per-thread CPU time and allocation
+     */
+    public PluginExecutionGuard(PluginRegistry pluginRegistry, ExecutionBudget defaultBudget) {
+        this(pluginRegistry, defaultBudget, DEFAULT_SAMPLE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new PluginExecutionGuard.
+     * 
+     * @param pluginRegistry the registry to quarantine plugins in
+     * @param defaultBudget the budget of plugins without a budget of their own
+     * @param sampleIntervalMillis the interval at which running invocations are sampled
+     * @throws IllegalArgumentException if pluginRegistry or defaultBudget is null, or the interval is not positive
+     * @throws IllegalStateException if the JVM cannot measure per-thread CPU time and allocation
+     */
+    public PluginExecutionGuard(PluginRegistry pluginRegistry, ExecutionBudget defaultBudget, long sampleIntervalMillis) {
+        if (pluginRegistry == null) {
+            throw new IllegalArgumentException("Plugin registry cannot be null");
+        }
+        if (defaultBudget == null) {
+            throw new IllegalArgumentException("Execution budget cannot be null");
+        }
+        if (sampleIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Sample interval must be positive");
+        }
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadCpuTimeSupported() || !bean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM cannot measure per-thread CPU time and allocation");
+        }
+        bean.setThreadCpuTimeEnabled(true);
+        bean.setThreadAllocatedMemoryEnabled(true);
+        this.threads = bean;
+        this.pluginRegistry = pluginRegistry;
+        this.defaultBudget = defaultBudget;
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(task -> daemon(task, "plugin-execution-" + workerCount.incrementAndGet()));
+        this.sampler = Executors.newSingleThreadScheduledExecutor(task -> daemon(task, "plugin-execution-sampler"));
+        sampler.scheduleAtFixedRate(this::sample, sampleIntervalMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the budget of one plugin, replacing the default budget for it.
+     * 
+     * @param pluginName the name of the plugin
+     * @param budget the budget for its invocations
+     * @throws IllegalArgumentException if pluginName is null or empty, or budget is null
+     */
+    public void setBudget(String pluginName, ExecutionBudget budget) {
+        requireName(pluginName);
+        if (budget == null) {
+            throw new IllegalArgumentException("Execution budget cannot be null");
+        }
+        budgets.put(pluginName, budget);
+    }
+
+    /**
+     * Adds a listener that is called for every budget violation, for example
+     * to export it as a metric. Listeners run on the thread that detected the
+     * violation and should return quickly.
+     * 
+     * @param listener the listener to call with each violation
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addViolationListener(Consumer<ExecutionBudgetExceededException> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Violation listener cannot be null");
+        }
+        violationListeners.add(listener);
+    }
+
+    /**
+     * Invokes a plugin under its execution budget.
+     * 
+     * @param pluginName the name of the plugin the invocation runs code of
+     * @param invocation the call into the plugin
+     * @param <T> the result type
+     * @return the result of the invocation
+     * @throws ExecutionBudgetExceededException if the invocation exceeded its budget
+     * @throws SecurityException if the plugin is quarantined
+     * @throws Exception whatever the invocation throws
+     * @throws IllegalArgumentException if pluginName is null or empty, or invocation is null
+     */
+    public <T> T call(String pluginName, Callable<T> invocation) throws Exception {
+        requireName(pluginName);
+        if (invocation == null) {
+            throw new IllegalArgumentException("Invocation cannot be null");
+        }
+        if (quarantined.containsKey(pluginName)) {
+            throw new SecurityException("Plugin is quarantined: " + pluginName);
+        }
+
+        Invocation<T> call = new Invocation<>(pluginName, budgets.getOrDefault(pluginName, defaultBudget), invocation);
+        countersOf(pluginName).calls.increment();
+        workers.execute(call);
+        try {
+            return call.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            // The caller gave up; stop the invocation as well
+            Thread worker = call.thread;
+            if (worker != null) {
+                worker.interrupt();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a plugin is quarantined.
+     * 
+     * @param pluginName the name of the plugin
+     * @return true if the plugin is quarantined
+     * @throws IllegalArgumentException if pluginName is null or empty
+     */
+    public boolean isQuarantined(String pluginName) {
+        requireName(pluginName);
+        return quarantined.containsKey(pluginName);
+    }
+
+    /**
+     * Releases a plugin from quarantine and resets its violation count. The
+     * plugin is registered again unless another plugin has taken its name.
+     * 
+     * @param pluginName the name of the plugin
+     * @return true if the plugin was quarantined
+     * @throws IllegalArgumentException if pluginName is null or empty
+     */
+    public boolean release(String pluginName) {
+        requireName(pluginName);
+        Quarantine quarantine = quarantined.remove(pluginName);
+        if (quarantine == null) {
+            return false;
+        }
+        countersOf(pluginName).violationsSinceRelease.set(0);
+        if (quarantine.plugin() != null && !pluginRegistry.containsPlugin(pluginName)) {
+            pluginRegistry.register(quarantine.plugin());
+        }
+        return true;
+    }
+
+    /**
+     * Returns the execution statistics of one plugin.
+     * 
+     * @param pluginName the name of the plugin
+     * @return the statistics, all zero for a plugin that was never invoked
+     * @throws IllegalArgumentException if pluginName is null or empty
+     */
+    public ExecutionStats getStats(String pluginName) {
+        requireName(pluginName);
+        Counters stats = counters.get(pluginName);
+        if (stats == null) {
+            return new ExecutionStats(0, 0, 0, 0, 0, isQuarantined(pluginName));
+        }
+        return new ExecutionStats(stats.calls.sum(), stats.cpuViolations.sum(), stats.allocationViolations.sum(),
+            stats.abandoned.sum(), stats.runaway.get(), isQuarantined(pluginName));
+    }
+
+    /**
+     * Stops sampling and interrupts all running invocations.
+     */
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void sample() {
+        for (Invocation<?> call : running) {
+            long cpu = threads.getThreadCpuTime(call.threadId) - call.startCpu;
+            long allocated = threads.getThreadAllocatedBytes(call.threadId) - call.startAllocated;
+            // A thread that has just ended reports -1 and is skipped
+            call.check(cpu, allocated, true);
+        }
+    }
+
+    private void violate(Invocation<?> call, ExecutionBudgetExceededException violation, boolean abandon) {
+        Counters stats = countersOf(call.pluginName);
+        if (violation.getResource() == ExecutionBudget.Resource.CPU_TIME) {
+            stats.cpuViolations.increment();
+        } else {
+            stats.allocationViolations.increment();
+        }
+        if (abandon && call.abandon()) {
+            stats.abandoned.increment();
+            stats.runaway.incrementAndGet();
+        }
+        for (Consumer<ExecutionBudgetExceededException> listener : violationListeners) {
+            listener.accept(violation);
+        }
+        if (stats.violationsSinceRelease.incrementAndGet() >= call.budget.getMaxViolations()) {
+            quarantined.computeIfAbsent(call.pluginName, name -> new Quarantine(pluginRegistry.removePlugin(name)));
+        }
+    }
+
+    private Counters countersOf(String pluginName) {
+        Counters stats = counters.get(pluginName);
+        return stats != null ? stats : counters.computeIfAbsent(pluginName, name -> new Counters());
+    }
+
+    private static void requireName(String pluginName) {
+        if (pluginName == null || pluginName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * One invocation, from submission until its worker thread returns.
+     */
+    private final class Invocation<T> implements Runnable {
+
+        private final String pluginName;
+        private final ExecutionBudget budget;
+        private final Callable<T> invocation;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Thread thread;
+        // Guarded by this invocation
+        private boolean settled;
+        private boolean abandoned;
+        private boolean finished;
+        private long threadId;
+        private long startCpu;
+        private long startAllocated;
+
+        Invocation(String pluginName, ExecutionBudget budget, Callable<T> invocation) {
+            this.pluginName = pluginName;
+            this.budget = budget;
+            this.invocation = invocation;
+        }
+
+        @Override
+        public void run() {
+            threadId = Thread.currentThread().threadId();
+            startCpu = threads.getCurrentThreadCpuTime();
+            startAllocated = threads.getCurrentThreadAllocatedBytes();
+            thread = Thread.currentThread();
+            // Published to the sampler only once the baselines are set
+            running.add(this);
+            try {
+                T value = invocation.call();
+                // Invocations shorter than one sample interval are checked here
+                check(threads.getCurrentThreadCpuTime() - startCpu,
+                    threads.getCurrentThreadAllocatedBytes() - startAllocated, false);
+                if (settle()) {
+                    result.complete(value);
+                }
+            } catch (Throwable t) {
+                if (settle()) {
+                    result.completeExceptionally(t);
+                }
+            } finally {
+                running.remove(this);
+                if (finish()) {
+                    countersOf(pluginName).runaway.decrementAndGet();
+                }
+                // Do not hand a pending interrupt on to the next invocation of this thread
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Claims the outcome of the invocation, so that a violation is fully
+         * accounted for before its caller is released.
+         * 
+         * @return false if the outcome has already been claimed
+         */
+        synchronized boolean settle() {
+            boolean first = !settled;
+            settled = true;
+            return first;
+        }
+
+        /**
+         * Marks a running invocation as abandoned by its caller and interrupts
+         * its thread. The interrupt is sent while the invocation cannot
+         * finish, so it never reaches the next invocation of the same thread.
+         * 
+         * @return false if the invocation has already finished
+         */
+        synchronized boolean abandon() {
+            abandoned = !finished;
+            if (abandoned) {
+                thread.interrupt();
+            }
+            return abandoned;
+        }
+
+        /**
+         * Marks the invocation as finished.
+         * 
+         * @return true if it was abandoned while it ran
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return abandoned;
+        }
+
+        /**
+         * Fails the invocation if it is over budget. Only the first violation
+         * of an invocation counts.
+         */
+        void check(long cpu, long allocated, boolean abandon) {
+            ExecutionBudgetExceededException violation = null;
+            if (cpu > budget.getMaxCpuTimeNanos()) {
+                violation = new ExecutionBudgetExceededException(pluginName, ExecutionBudget.Resource.CPU_TIME,
+                    cpu, budget.getMaxCpuTimeNanos());
+            } else if (allocated > budget.getMaxAllocatedBytes()) {
+                violation = new ExecutionBudgetExceededException(pluginName, ExecutionBudget.Resource.ALLOCATED_BYTES,
+                    allocated, budget.getMaxAllocatedBytes());
+            }
+            if (violation != null && settle()) {
+                violate(this, violation, abandon);
+                result.completeExceptionally(violation);
+            }
+        }
+    }
+
+    private static final class Counters {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder cpuViolations = new LongAdder();
+        private final LongAdder allocationViolations = new LongAdder();
+        private final LongAdder abandoned = new LongAdder();
+        private final AtomicInteger runaway = new AtomicInteger();
+        private final AtomicInteger violationsSinceRelease = new AtomicInteger();
+    }
+
+    /**
+     * A quarantined plugin, or null if it was not registered when quarantined.
+     */
+    private record Quarantine(Plugin plugin) {
+    }
+}
@@ -0,0 +1,27 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of loading one file in {@link PluginLoadService#loadAll}.
+ * 
+ * @param file the source file
+ * @param plugin the plugin loaded from the file, or null if it failed
+ * @param failure the reason the file failed, or null if it was loaded
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record PluginLoadOutcome(Path file, Plugin plugin, Exception failure) {
+
+    /**
+     * Checks whether the file was loaded.
+     * 
+     * @return true if a plugin was loaded from the file
+     */
+    public boolean isLoaded() {
+        return failure == null;
+    }
+}
@@ -1,17 +1,43 @@
 package org.vuong.dynamicmoduleloader;
 
+import org.vuong.dynamicmoduleloader.bundle.PluginBundle;
+import org.vuong.dynamicmoduleloader.compiler.BuildStats;
 import org.vuong.dynamicmoduleloader.compiler.JavaPluginCompiler;
+import org.vuong.dynamicmoduleloader.compiler.MappedSourceFile;
 import org.vuong.dynamicmoduleloader.core.Plugin;
 import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.core.PluginSource;
 import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
-import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.BytecodeSecurityVerifier;
 import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.ValidationCache;
+import org.vuong.dynamicmoduleloader.security.ValidationCacheStats;
+import org.vuong.dynamicmoduleloader.security.ValidationMetrics;
+import org.vuong.dynamicmoduleloader.security.ValidationMetricsSnapshot;
 import org.vuong.dynamicmoduleloader.util.PluginNameUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 
 /**
  * Service responsible for loading plugins from Java source files.
@@ -25,9 +51,18 @@ import java.util.Collection;
  */
 public class PluginLoadService {
 
-    private final JavaPluginCompiler compiler = new JavaPluginCompiler();
+    /**
+     * The largest number of files compiled by one javac task in {@link #loadAll}.
+     */
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final JavaPluginCompiler compiler;
     private final PluginRegistry pluginRegistry;
-    private final EnhancedSecurityValidator securityValidator;
+    private final ValidationCache validationCache = new ValidationCache(ValidationCache.DEFAULT_CAPACITY);
+    private final ValidationMetrics validationMetrics = new ValidationMetrics();
+    private final TreeSecurityValidator securityValidator;
+    private final BytecodeSecurityVerifier bytecodeVerifier;
+    private final SecurityConfig securityConfig;
 
     /**
      * Creates a new PluginLoadService instance with default in-memory registry and strict security.
@@ -54,14 +89,38 @@ public class PluginLoadService {
      * @throws IllegalArgumentException if pluginRegistry or securityConfig is null
      */
     public PluginLoadService(PluginRegistry pluginRegistry, SecurityConfig securityConfig) {
+        this(pluginRegistry, securityConfig, null);
+    }
+
+    /**
+     * Creates a new PluginLoadService instance that keeps compiled classes in
+     * an output directory.
+     * 
+     * A file whose content, compiler, JDK and security configuration are the
+     * same as when its classes were recorded there is loaded without running
+     * javac, also by a later instance, e.g. after a restart. Without an
+     * output directory, class files are written next to their sources and
+     * every load compiles.
+     * 
+     * @param pluginRegistry the registry to use for plugin storage
+     * @param securityConfig the security configuration to use
+     * @param outputDirectory the directory to keep compiled classes in, or null to compile next to the sources
+     * @throws IllegalArgumentException if pluginRegistry or securityConfig is null
+     */
+    public PluginLoadService(PluginRegistry pluginRegistry, SecurityConfig securityConfig, Path outputDirectory) {
         if (pluginRegistry == null) {
             throw new IllegalArgumentException("Plugin registry cannot be null");
         }
         if (securityConfig == null) {
             throw new IllegalArgumentException("Security configuration cannot be null");
         }
+        this.compiler = outputDirectory == null
+            ? new JavaPluginCompiler()
+            : new JavaPluginCompiler(outputDirectory, TreeSecurityValidator.class.getName() + ":" + securityConfig.fingerprint());
         this.pluginRegistry = pluginRegistry;
-        this.securityValidator = new EnhancedSecurityValidator(securityConfig);
+        this.securityValidator = new TreeSecurityValidator(securityConfig, validationCache, validationMetrics);
+        this.bytecodeVerifier = new BytecodeSecurityVerifier(securityConfig);
+        this.securityConfig = securityConfig;
     }
 
     /**
@@ -90,16 +149,7 @@ public class PluginLoadService {
             throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFilePath);
         }
         
-        // Read and validate file content for security
-        String fileContent = readFileContent(javaFile);
-        securityValidator.validate(fileContent);
-        
-        Class<?> clazz = compiler.compileAndLoad(javaFile);
-        // Verify the class can be instantiated
-        clazz.getDeclaredConstructor().newInstance();
-
-        String name = PluginNameUtils.generatePluginName(clazz.getSimpleName());
-        Plugin plugin = new Plugin(name, clazz);
+        Plugin plugin = load(javaFile);
         pluginRegistry.register(plugin);
         return plugin;
     }
@@ -128,16 +178,265 @@ public class PluginLoadService {
             throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFilePath);
         }
         
-        // Read and validate file content for security
-        String fileContent = readFileContent(javaFile);
-        securityValidator.validate(fileContent);
-        
-        Class<?> clazz = compiler.compileAndLoad(javaFile);
-        // Verify the class can be instantiated
-        clazz.getDeclaredConstructor().newInstance();
+        return load(javaFile);
+    }
 
-        String name = PluginNameUtils.generatePluginName(clazz.getSimpleName());
-        return new Plugin(name, clazz);
+    /**
+     * Loads and registers all Java files under a directory tree that match a
+     * glob, using one thread per available processor.
+     * 
+     * @param root the root of the directory tree
+     * @param glob the glob the paths of files relative to the root must match,
+     *             for example {@code **.java} for all Java files
+     * @return the outcome of every file
+     * @throws IOException if the directory tree cannot be read
+     * @throws IllegalArgumentException if root is not a directory, or glob is null or empty
+     * @see #loadAll(Path, String, int, Consumer)
+     */
+    public BulkLoadResult loadAll(Path root, String glob) throws IOException {
+        return loadAll(root, glob, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * Loads and registers all Java files under a directory tree that match a
+     * glob, in parallel.
+     * 
+     * Directories are listed in parallel. The files found are grouped by
+     * directory into batches, and each batch is validated and compiled by a
+     * single javac task, so the cost of starting javac is shared by the files
+     * of a batch. Batches run concurrently on {@code parallelism} threads. A
+     * file that fails does not fail the others. All plugins that loaded are
+     * then registered in one atomic step. Progress is reported as each file
+     * finishes.
+     * 
+     * A plugin name is derived from its file name, so if two files have the
+     * same name, only the first one in path order is loaded.
+     * 
+     * @param root the root of the directory tree
+     * @param glob the glob the paths of files relative to the root must match,
+     *             for example {@code **.java} for all Java files
+     * @param parallelism the number of threads to load with
+     * @param progress called as each file finishes, one call at a time; may be null
+     * @return the outcome of every file
+     * @throws IOException if the directory tree cannot be read
+     * @throws IllegalArgumentException if root is not a directory, glob is null or empty, or parallelism is not positive
+     */
+    public BulkLoadResult loadAll(Path root, String glob, int parallelism, Consumer<BulkLoadProgress> progress)
+            throws IOException {
+        if (root == null || !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Plugin directory does not exist: " + root);
+        }
+        if (glob == null || glob.trim().isEmpty()) {
+            throw new IllegalArgumentException("Glob cannot be null or empty");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        long start = System.nanoTime();
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Path> files;
+            try {
+                files = pool.invoke(new Discovery(root, root, matcher));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Collections.sort(files);
+
+            Progress tracker = new Progress(files.size(), progress);
+            Map<Path, PluginLoadOutcome> outcomes = new ConcurrentHashMap<>();
+            Map<String, Path> names = new HashMap<>();
+            Map<File, List<File>> byDirectory = new LinkedHashMap<>();
+            for (Path file : files) {
+                Path first = names.putIfAbsent(pluginNameOf(file), file);
+                if (first != null) {
+                    tracker.report(outcomes, new PluginLoadOutcome(file, null,
+                        new IllegalStateException("Duplicate plugin name " + pluginNameOf(file) + ", also loaded from " + first)));
+                } else {
+                    byDirectory.computeIfAbsent(file.toFile().getAbsoluteFile().getParentFile(), dir -> new ArrayList<>())
+                        .add(file.toFile());
+                }
+            }
+
+            // Enough batches to keep every thread busy, but no more than that
+            int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, (files.size() + 2 * parallelism - 1) / (2 * parallelism)));
+            List<ForkJoinTask<?>> batches = new ArrayList<>();
+            for (List<File> directory : byDirectory.values()) {
+                for (int from = 0; from < directory.size(); from += batchSize) {
+                    List<File> batch = directory.subList(from, Math.min(directory.size(), from + batchSize));
+                    batches.add(pool.submit(() -> loadBatch(batch, outcomes, tracker)));
+                }
+            }
+            for (ForkJoinTask<?> batch : batches) {
+                batch.join();
+            }
+
+            List<PluginLoadOutcome> ordered = new ArrayList<>(files.size());
+            List<Plugin> plugins = new ArrayList<>();
+            for (Path file : files) {
+                PluginLoadOutcome outcome = outcomes.get(file);
+                ordered.add(outcome);
+                if (outcome.isLoaded()) {
+                    plugins.add(outcome.plugin());
+                }
+            }
+            pluginRegistry.registerAll(plugins);
+            return new BulkLoadResult(ordered, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles one batch of files with a single javac task and records the
+     * outcome of each file.
+     */
+    private void loadBatch(List<File> batch, Map<Path, PluginLoadOutcome> outcomes, Progress tracker) {
+        Map<File, Exception> failures = new HashMap<>();
+        Map<File, MappedSourceFile> sources = new LinkedHashMap<>();
+        for (File file : batch) {
+            try {
+                sources.put(file, MappedSourceFile.map(file.toPath()));
+            } catch (IOException e) {
+                failures.put(file, e);
+            }
+        }
+        Map<File, Class<?>> classes;
+        try {
+            classes = compiler.compileAndLoadSources(List.copyOf(sources.values()), securityValidator, bytecodeVerifier,
+                failures);
+        } catch (IOException | RuntimeException e) {
+            classes = Map.of();
+            for (File file : batch) {
+                failures.putIfAbsent(file, e);
+            }
+        }
+        for (File file : batch) {
+            Path path = file.toPath();
+            Class<?> clazz = classes.get(file);
+            PluginLoadOutcome outcome;
+            if (clazz == null) {
+                outcome = new PluginLoadOutcome(path, null, failures.get(file));
+            } else {
+                try {
+                    // Verify the class can be instantiated
+                    clazz.getDeclaredConstructor().newInstance();
+                    outcome = new PluginLoadOutcome(path, new Plugin(pluginNameOf(path), clazz, sourceOf(sources.get(file))), null);
+                } catch (Exception | LinkageError e) {
+                    outcome = new PluginLoadOutcome(path, null, e instanceof Exception exception ? exception : new IllegalStateException(e));
+                }
+            }
+            tracker.report(outcomes, outcome);
+        }
+    }
+
+    private static String pluginNameOf(Path file) {
+        String fileName = file.getFileName().toString();
+        return PluginNameUtils.generatePluginName(fileName.substring(0, fileName.length() - ".java".length()));
+    }
+
+    /**
+     * Registers the plugins of a bundle of precompiled classes, without
+     * compiling anything.
+     * 
+     * The plugins are registered lazily in one batch: a plugin's classes are
+     * read from the bundle, verified against their digests and the bytecode
+     * security checks, and defined the first time the plugin class is needed.
+     * The bundle must stay open until that has happened for every plugin that
+     * will be used.
+     * 
+     * @param bundleFile the JAR or ZIP bundle to load
+     * @return the open bundle, to be closed once its plugins are removed
+     * @throws IOException if the bundle cannot be read
+     * @throws IllegalArgumentException if bundleFile is null or not a plugin bundle
+     * @see PluginBundle
+     */
+    public PluginBundle loadBundle(Path bundleFile) throws IOException {
+        return loadBundle(bundleFile, false);
+    }
+
+    /**
+     * Registers the plugins of a bundle of precompiled classes, optionally
+     * trusting the validation the bundle went through when it was built.
+     * 
+     * If {@code trustBuildValidation} is true and the bundle was validated
+     * by {@link org.vuong.dynamicmoduleloader.bundle.PluginBundleBuilder}
+     * with the same security configuration as this service, its classes are
+     * only checked against their digests before they are defined. Only trust
+     * bundles that come from your own build, since the recorded validation
+     * is not signed.
+     * 
+     * @param bundleFile the JAR or ZIP bundle to load
+     * @param trustBuildValidation whether to skip bytecode verification of bundles validated with this configuration
+     * @return the open bundle, to be closed once its plugins are removed
+     * @throws IOException if the bundle cannot be read
+     * @throws IllegalArgumentException if bundleFile is null or not a plugin bundle
+     * @see PluginBundle
+     */
+    public PluginBundle loadBundle(Path bundleFile, boolean trustBuildValidation) throws IOException {
+        if (bundleFile == null) {
+            throw new IllegalArgumentException("Bundle file cannot be null");
+        }
+        PluginBundle bundle = PluginBundle.open(bundleFile, bytecodeVerifier,
+            trustBuildValidation ? securityConfig.fingerprint() : null);
+        try {
+            List<Plugin> plugins = new ArrayList<>();
+            for (String name : bundle.getPluginNames()) {
+                plugins.add(new Plugin(name, () -> {
+                    Class<?> clazz = bundle.loadPluginClass(name);
+                    // Verify the class can be instantiated
+                    clazz.getDeclaredConstructor().newInstance();
+                    return clazz;
+                }));
+            }
+            pluginRegistry.registerAll(plugins);
+            return bundle;
+        } catch (RuntimeException e) {
+            bundle.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the Java files in plugin directories and keeps reloading them as
+     * they change, with the default debounce interval and one compile thread
+     * per available processor, up to four.
+     * 
+     * @param directories the directories to watch
+     * @return the running watcher, to be closed to stop watching
+     * @throws IOException if the directories cannot be watched
+     * @throws IllegalArgumentException if no directories are given, or one does not exist
+     * @see PluginDirectoryWatcher
+     */
+    public PluginDirectoryWatcher watch(Path... directories) throws IOException {
+        if (directories == null) {
+            throw new IllegalArgumentException("Plugin directories cannot be null or empty");
+        }
+        int compileThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        return watch(Arrays.asList(directories), PluginDirectoryWatcher.DEFAULT_DEBOUNCE_MILLIS, compileThreads);
+    }
+
+    /**
+     * Loads the Java files in plugin directories and keeps reloading them as
+     * they change.
+     * 
+     * Plugins of files present when watching starts are registered before
+     * this method returns. From then on, changed files are recompiled once
+     * events have stopped for the debounce interval, and deleted files have
+     * their plugins removed.
+     * 
+     * @param directories the directories to watch
+     * @param debounceMillis the time without file events after which a reload starts
+     * @param compileThreads the number of files compiled in parallel
+     * @return the running watcher, to be closed to stop watching
+     * @throws IOException if the directories cannot be watched
+     * @throws IllegalArgumentException if no directories are given, one does not exist,
+     *                                  debounceMillis is negative or compileThreads is not positive
+     * @see PluginDirectoryWatcher
+     */
+    public PluginDirectoryWatcher watch(List<Path> directories, long debounceMillis, int compileThreads) throws IOException {
+        return new PluginDirectoryWatcher(this, pluginRegistry, directories, debounceMillis, compileThreads);
     }
 
     /**
@@ -199,13 +498,128 @@ public class PluginLoadService {
     }
 
     /**
-     * Reads the content of a Java file for security validation.
+     * Returns how many files were loaded from up-to-date compiled classes and
+     * how many had to be compiled.
+     * 
+     * @return the current build statistics
+     */
+    public BuildStats getBuildStats() {
+        return compiler.getBuildStats();
+    }
+
+    /**
+     * Returns statistics about the verdicts cached by security validation.
+     * 
+     * Sources that were validated before, with the same security
+     * configuration, are answered from a cache of
+     * {@value ValidationCache#DEFAULT_CAPACITY} verdicts.
+     * 
+     * @return the current validation cache statistics
+     */
+    public ValidationCacheStats getValidationCacheStats() {
+        return validationCache.getStats();
+    }
+
+    /**
+     * Returns the per-rule metrics of security validation: how often each
+     * rule ran, how long it took, and why it rejected sources.
+     * 
+     * Verdicts answered from the validation cache are not recorded.
+     * 
+     * @return a snapshot of the current validation metrics
+     */
+    public ValidationMetricsSnapshot getValidationMetrics() {
+        return validationMetrics.snapshot();
+    }
+
+    /**
+     * Validates, compiles and instantiates a Java file into a reloadable plugin.
      * 
-     * @param javaFile the Java file to read
-     * @return the file content as a string
-     * @throws IOException if the file cannot be read
+     * The plugin keeps the source as it was read, and a reload repeats the
+     * whole pipeline on it, including security validation, so a bounded
+     * registry can unload the class and reload the same version later, even
+     * if the file has changed or is gone by then.
+     */
+    private Plugin load(File javaFile) throws Exception {
+        PluginSource source = sourceOf(MappedSourceFile.map(javaFile.toPath()));
+        Class<?> clazz = source.load();
+
+        String name = PluginNameUtils.generatePluginName(clazz.getSimpleName());
+        return new Plugin(name, clazz, source);
+    }
+
+    private PluginSource sourceOf(MappedSourceFile snapshot) {
+        return () -> {
+            // The source is validated on the tree javac parses, and its bytecode before loading
+            Class<?> clazz = compiler.compileAndLoad(snapshot, securityValidator, bytecodeVerifier);
+            // Verify the class can be instantiated
+            clazz.getDeclaredConstructor().newInstance();
+            return clazz;
+        };
+    }
+
+    /**
+     * Lists the matching Java files of one directory, and forks a task for
+     * each of its subdirectories.
      */
-    private String readFileContent(File javaFile) throws IOException {
-        return Files.readString(javaFile.toPath());
+    private static final class Discovery extends RecursiveTask<List<Path>> {
+
+        private final Path root;
+        private final Path directory;
+        private final PathMatcher matcher;
+
+        Discovery(Path root, Path directory, PathMatcher matcher) {
+            this.root = root;
+            this.directory = directory;
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> files = new ArrayList<>();
+            List<Discovery> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        Discovery subdirectory = new Discovery(root, entry, matcher);
+                        subdirectory.fork();
+                        subdirectories.add(subdirectory);
+                    } else if (entry.getFileName().toString().endsWith(".java") && Files.isRegularFile(entry)
+                            && matcher.matches(root.relativize(entry))) {
+                        files.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (Discovery subdirectory : subdirectories) {
+                files.addAll(subdirectory.join());
+            }
+            return files;
+        }
+    }
+
+    /**
+     * Counts finished files and reports each one to the progress listener,
+     * one at a time.
+     */
+    private static final class Progress {
+
+        private final int total;
+        private final Consumer<BulkLoadProgress> listener;
+        private int completed;
+
+        Progress(int total, Consumer<BulkLoadProgress> listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        synchronized void report(Map<Path, PluginLoadOutcome> outcomes, PluginLoadOutcome outcome) {
+            outcomes.put(outcome.file(), outcome);
+            completed++;
+            if (listener != null) {
+                listener.accept(new BulkLoadProgress(completed, total, outcome));
+            }
+        }
     }
 }
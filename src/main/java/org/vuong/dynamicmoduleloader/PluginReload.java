@@ -0,0 +1,26 @@
+package org.vuong.dynamicmoduleloader;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of one reload by a {@link PluginDirectoryWatcher}.
+ * 
+ * @param loaded the names of the plugins that were registered or replaced
+ * @param removed the names of the plugins that were removed with their files
+ * @param failures the files that could not be loaded, with the reason; their
+ *                 previous plugins stay registered
+ * @param unchanged the number of files that had events but the same content
+ * @param latencyNanos the time from the first file event of the reload until
+ *                     its plugins were swapped into the registry
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record PluginReload(List<String> loaded,
+                           List<String> removed,
+                           Map<Path, Exception> failures,
+                           int unchanged,
+                           long latencyNanos) {
+}
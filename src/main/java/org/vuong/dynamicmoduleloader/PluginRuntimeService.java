@@ -2,14 +2,30 @@ package org.vuong.dynamicmoduleloader;
 
 import org.vuong.dynamicmoduleloader.compiler.JavaSourceCompiler;
 import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
 import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.core.PluginSource;
 import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
-import org.vuong.dynamicmoduleloader.security.CodeSecurityValidator;
-import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.BytecodeSecurityVerifier;
 import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.ValidationCache;
+import org.vuong.dynamicmoduleloader.security.ValidationCacheStats;
+import org.vuong.dynamicmoduleloader.security.ValidationMetrics;
+import org.vuong.dynamicmoduleloader.security.ValidationMetricsSnapshot;
 import org.vuong.dynamicmoduleloader.util.PluginNameUtils;
+import org.vuong.dynamicmoduleloader.warmup.PluginWarmer;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service responsible for managing plugin lifecycle at runtime.
@@ -26,7 +42,18 @@ public class PluginRuntimeService {
 
     private final JavaSourceCompiler compiler = new JavaSourceCompiler();
     private final PluginRegistry pluginRegistry;
-    private final EnhancedSecurityValidator securityValidator;
+    private final ValidationCache validationCache = new ValidationCache(ValidationCache.DEFAULT_CAPACITY);
+    private final ValidationMetrics validationMetrics = new ValidationMetrics();
+    private final TreeSecurityValidator securityValidator;
+    private final BytecodeSecurityVerifier bytecodeVerifier;
+    private final AtomicInteger stagingThreads = new AtomicInteger();
+    private ExecutorService stagingExecutor;
+    // Guarded by itself
+    private final Map<String, Recompile> recompiles = new HashMap<>();
+    private final LongAdder submittedRecompiles = new LongAdder();
+    private final LongAdder compiledRecompiles = new LongAdder();
+    private final LongAdder skippedRecompiles = new LongAdder();
+    private final LongAdder abandonedRecompiles = new LongAdder();
 
     /**
      * Creates a new PluginRuntimeService instance with default in-memory registry and strict security.
@@ -60,7 +87,8 @@ public class PluginRuntimeService {
             throw new IllegalArgumentException("Security configuration cannot be null");
         }
         this.pluginRegistry = pluginRegistry;
-        this.securityValidator = new EnhancedSecurityValidator(securityConfig);
+        this.securityValidator = new TreeSecurityValidator(securityConfig, validationCache, validationMetrics);
+        this.bytecodeVerifier = new BytecodeSecurityVerifier(securityConfig);
     }
 
     /**
@@ -71,6 +99,9 @@ public class PluginRuntimeService {
      * The plugin name is automatically derived from the class name by converting
      * the first character to lowercase.
      * 
+     * Compilation runs on the calling thread. To prepare a new version in
+     * the background and swap it in later, use {@link #stage(String, String)}.
+     * 
      * @param className the name of the class to compile
      * @param javaCode the Java source code as a string
      * @return the registered Plugin instance
@@ -78,6 +109,15 @@ public class PluginRuntimeService {
      * @throws IllegalArgumentException if className or javaCode is null or empty
      */
     public Plugin compileAndRegister(String className, String javaCode) throws Exception {
+        Plugin plugin = compile(className, javaCode);
+        pluginRegistry.register(plugin);
+        return plugin;
+    }
+
+    /**
+     * Validates, compiles and instantiates a source without registering it.
+     */
+    private Plugin compile(String className, String javaCode) throws Exception {
         if (className == null || className.trim().isEmpty()) {
             throw new IllegalArgumentException("Class name cannot be null or empty");
         }
@@ -85,19 +125,276 @@ public class PluginRuntimeService {
             throw new IllegalArgumentException("Java code cannot be null or empty");
         }
         
-        // Validate code security before compilation
+        // Security validation runs on the parsed source, before bytecode is generated
+        PluginSource source = sourceOf(className, javaCode);
+        Class<?> clazz = source.load();
+
+        String name = PluginNameUtils.generatePluginName(className);
+        // Keep the validated source so a bounded registry can unload and reload the class
+        return new Plugin(name, clazz, source);
+    }
+
+    /**
+     * Creates a source that validates and compiles the code in one javac pass,
+     * verifies the generated bytecode before it is loaded and checks the
+     * resulting class can be instantiated.
+     */
+    private PluginSource sourceOf(String className, String javaCode) {
+        return () -> {
+            Class<?> clazz = compiler.compileFromText(className, javaCode, securityValidator, bytecodeVerifier);
+            // Verify the class can be instantiated
+            clazz.getDeclaredConstructor().newInstance();
+            return clazz;
+        };
+    }
+
+    /**
+     * Validates Java source code now and registers it as a lazy plugin.
+     * 
+     * The source is not compiled until the plugin class is first needed,
+     * typically on the first {@link #getPlugin(String)}. Compilation then
+     * happens exactly once, even when several threads look the plugin up
+     * concurrently. This keeps startup cheap when many plugins are registered
+     * but only a few are used.
+     * 
+     * @param className the name of the class to compile
+     * @param javaCode the Java source code as a string
+     * @return the registered, not yet resolved Plugin instance
+     * @throws SecurityException if the source fails security validation
+     * @throws IllegalArgumentException if className or javaCode is null or empty
+     */
+    public Plugin registerLazy(String className, String javaCode) {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Class name cannot be null or empty");
+        }
+        if (javaCode == null || javaCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java code cannot be null or empty");
+        }
+
         securityValidator.validate(javaCode);
-        
-        Class<?> clazz = compiler.compileFromText(className, javaCode);
-        // Verify the class can be instantiated
-        clazz.getDeclaredConstructor().newInstance();
 
         String name = PluginNameUtils.generatePluginName(className);
-        Plugin plugin = new Plugin(name, clazz);
+        Plugin plugin = new Plugin(name, sourceOf(className, javaCode));
         pluginRegistry.register(plugin);
         return plugin;
     }
 
+    /**
+     * Compiles several Java sources and registers them as one atomic batch.
+     * 
+     * Every source is validated, compiled and instantiated before anything is
+     * registered. If any of them fails, no plugin is registered; otherwise they
+     * are applied as a single {@link PluginBatch}, which registries such as
+     * {@code InMemoryPluginRegistry} make visible to readers all at once.
+     * 
+     * @param sources the Java sources keyed by class name
+     * @return the registered Plugin instances, in the iteration order of sources
+     * @throws Exception if compilation of any source fails or a class cannot be instantiated
+     * @throws IllegalArgumentException if sources is null or contains a null or empty entry
+     */
+    public List<Plugin> compileAndRegisterAll(Map<String, String> sources) throws Exception {
+        if (sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null");
+        }
+
+        List<Plugin> plugins = new ArrayList<>(sources.size());
+        PluginBatch batch = new PluginBatch();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Plugin plugin = compile(source.getKey(), source.getValue());
+            plugins.add(plugin);
+            batch.register(plugin);
+        }
+        pluginRegistry.apply(batch);
+        return plugins;
+    }
+
+    /**
+     * Starts preparing a new plugin version in the background, leaving the
+     * registered version in place until the new one is promoted.
+     * 
+     * See {@link #stage(String, String, PluginWarmer)}.
+     * 
+     * @param className the name of the class to compile
+     * @param javaCode the Java source code as a string
+     * @return the staged version
+     * @throws IllegalArgumentException if className or javaCode is null or empty
+     */
+    public StagedPlugin stage(String className, String javaCode) {
+        return stage(className, javaCode, null);
+    }
+
+    /**
+     * Starts preparing a new plugin version in the background, leaving the
+     * registered version in place until the new one is promoted.
+     * 
+     * The version is validated, compiled, instantiated and, with a warmer,
+     * warmed up on a background thread of this service, while lookups keep
+     * returning the registered version. Call {@link StagedPlugin#promote()}
+     * to register it in one step, or {@link StagedPlugin#cancel()} to drop it.
+     * 
+     * @param className the name of the class to compile
+     * @param javaCode the Java source code as a string
+     * @param warmer the warmer to warm the version up with before it can be promoted, or null for none
+     * @return the staged version
+     * @throws IllegalArgumentException if className or javaCode is null or empty
+     */
+    public StagedPlugin stage(String className, String javaCode, PluginWarmer warmer) {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Class name cannot be null or empty");
+        }
+        if (javaCode == null || javaCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java code cannot be null or empty");
+        }
+        StagedPlugin staged = new StagedPlugin(PluginNameUtils.generatePluginName(className), pluginRegistry);
+        staged.start(stagingExecutor(), () -> {
+            Plugin plugin = compile(className, javaCode);
+            if (warmer != null) {
+                warmer.warmUp(plugin);
+            }
+            return plugin;
+        });
+        return staged;
+    }
+
+    /**
+     * Submits a new version of a plugin to be compiled and registered in the
+     * background, coalescing it with other versions of the same plugin.
+     * 
+     * Versions of one plugin compile one at a time, on a background thread
+     * of this service. A version submitted while another one compiles waits,
+     * and replaces the version already waiting, if any: of a burst of
+     * versions, only the first and the newest are compiled. A compile that
+     * has been superseded by the time it finishes is abandoned before
+     * registration and its class loader closed. The future of a superseded
+     * version is cancelled.
+     * 
+     * @param className the name of the class to compile
+     * @param javaCode the Java source code as a string
+     * @return the registered plugin once this version is registered; completed
+     *         exceptionally if it fails to compile, and cancelled if it is superseded
+     * @throws IllegalArgumentException if className or javaCode is null or empty
+     */
+    public CompletableFuture<Plugin> submit(String className, String javaCode) {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Class name cannot be null or empty");
+        }
+        if (javaCode == null || javaCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java code cannot be null or empty");
+        }
+        String name = PluginNameUtils.generatePluginName(className);
+        Submission submission = new Submission(className, javaCode, new CompletableFuture<>());
+        submittedRecompiles.increment();
+        Submission replaced = null;
+        boolean start = false;
+        synchronized (recompiles) {
+            Recompile recompile = recompiles.get(name);
+            if (recompile == null) {
+                recompiles.put(name, new Recompile());
+                start = true;
+            } else {
+                replaced = recompile.queued;
+                recompile.queued = submission;
+            }
+        }
+        if (replaced != null) {
+            skippedRecompiles.increment();
+            replaced.result().cancel(false);
+        }
+        if (start) {
+            stagingExecutor().execute(() -> recompile(name, submission));
+        }
+        return submission.result();
+    }
+
+    /**
+     * Compiles and registers one submitted version, then runs the version
+     * that was submitted in the meantime, if any.
+     */
+    private void recompile(String name, Submission submission) {
+        Submission current = submission;
+        while (current != null) {
+            Submission next = null;
+            try {
+                Plugin plugin = null;
+                Throwable failure = null;
+                try {
+                    plugin = compile(current.className(), current.javaCode());
+                } catch (Throwable t) {
+                    // Also errors such as a StackOverflowError in javac or a static initializer
+                    failure = t;
+                } finally {
+                    compiledRecompiles.increment();
+                }
+
+                next = takeQueued(name, false);
+                if (next != null) {
+                    // Superseded while compiling: never registered
+                    current.result().cancel(false);
+                    if (plugin != null) {
+                        abandonedRecompiles.increment();
+                        StagedPlugin.release(plugin);
+                    }
+                } else if (plugin != null) {
+                    pluginRegistry.register(plugin);
+                    current.result().complete(plugin);
+                } else {
+                    current.result().completeExceptionally(failure);
+                }
+            } catch (Throwable t) {
+                current.result().completeExceptionally(t);
+            } finally {
+                if (next == null) {
+                    // Versions submitted while registering run next; otherwise this plugin is idle again
+                    next = takeQueued(name, true);
+                }
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Takes the version waiting for a plugin, if any. Without one, and if
+     * asked to, marks the plugin as no longer compiling.
+     */
+    private Submission takeQueued(String name, boolean finish) {
+        synchronized (recompiles) {
+            Recompile recompile = recompiles.get(name);
+            Submission queued = recompile.queued;
+            recompile.queued = null;
+            if (queued == null && finish) {
+                recompiles.remove(name);
+            }
+            return queued;
+        }
+    }
+
+    /**
+     * Returns statistics about the versions submitted with
+     * {@link #submit(String, String)}, including the compiles avoided by
+     * coalescing them.
+     * 
+     * @return the current recompile statistics
+     */
+    public RecompileStats getRecompileStats() {
+        return new RecompileStats(submittedRecompiles.sum(), compiledRecompiles.sum(), skippedRecompiles.sum(),
+            abandonedRecompiles.sum());
+    }
+
+    /**
+     * Returns the executor staged versions are prepared on, creating it on
+     * first use. Its threads are daemons and end when idle.
+     */
+    private synchronized ExecutorService stagingExecutor() {
+        if (stagingExecutor == null) {
+            stagingExecutor = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "plugin-staging-" + stagingThreads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return stagingExecutor;
+    }
+
     /**
      * Retrieves a plugin by its name.
      * 
@@ -155,4 +452,42 @@ public class PluginRuntimeService {
     public void clearPlugins() {
         pluginRegistry.clear();
     }
+
+    /**
+     * Returns statistics about the verdicts cached by security validation.
+     * 
+     * Sources that were validated before, with the same security
+     * configuration, are answered from a cache of
+     * {@value ValidationCache#DEFAULT_CAPACITY} verdicts.
+     * 
+     * @return the current validation cache statistics
+     */
+    public ValidationCacheStats getValidationCacheStats() {
+        return validationCache.getStats();
+    }
+
+    /**
+     * Returns the per-rule metrics of security validation: how often each
+     * rule ran, how long it took, and why it rejected sources.
+     * 
+     * Verdicts answered from the validation cache are not recorded.
+     * 
+     * @return a snapshot of the current validation metrics
+     */
+    public ValidationMetricsSnapshot getValidationMetrics() {
+        return validationMetrics.snapshot();
+    }
+
+    /**
+     * One submitted plugin version.
+     */
+    private record Submission(String className, String javaCode, CompletableFuture<Plugin> result) {
+    }
+
+    /**
+     * A plugin with a version compiling; holds the newest version waiting for it.
+     */
+    private static final class Recompile {
+        private Submission queued;
+    }
 }
@@ -0,0 +1,29 @@
+package org.vuong.dynamicmoduleloader;
+
+/**
+ * Point-in-time statistics of the recompiles submitted to a
+ * {@link PluginRuntimeService} with {@link PluginRuntimeService#submit}.
+ * 
+ * @param submitted the number of versions submitted
+ * @param compiled the number of versions that were compiled, successfully or not
+ * @param skipped the number of versions superseded before their compile started, which were never compiled
+ * @param abandoned the number of versions superseded while compiling, which were compiled but not registered
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record RecompileStats(long submitted,
+                             long compiled,
+                             long skipped,
+                             long abandoned) {
+
+    /**
+     * Returns the number of submitted versions that were not compiled
+     * because a newer version of the same plugin arrived first.
+     * 
+     * @return the number of compiles avoided
+     */
+    public long compilesAvoided() {
+        return skipped;
+    }
+}
@@ -0,0 +1,190 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A plugin version being prepared in the background, to be promoted into
+ * the registry once it is ready.
+ * 
+ * Staging validates, compiles, instantiates and optionally warms up the new
+ * version on a background thread, while the registered version keeps
+ * serving. {@link #promote()} then replaces it in one atomic registration.
+ * {@link #cancel()} abandons the version instead: its class is dropped and
+ * its class loader closed at once, or as soon as a compilation that is
+ * already running returns.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class StagedPlugin {
+
+    private final String name;
+    private final PluginRegistry pluginRegistry;
+    private final CompletableFuture<Void> staged = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+    // Guarded by this staged plugin
+    private Future<?> task;
+    private Plugin plugin;
+    private long stagingNanos = -1;
+    private boolean promoted;
+    private boolean cancelled;
+
+    StagedPlugin(String name, PluginRegistry pluginRegistry) {
+        this.name = name;
+        this.pluginRegistry = pluginRegistry;
+    }
+
+    /**
+     * Runs the staging on the given executor.
+     */
+    synchronized void start(ExecutorService executor, Callable<Plugin> staging) {
+        task = executor.submit(() -> {
+            try {
+                ready(staging.call());
+            } catch (Throwable t) {
+                staged.completeExceptionally(t);
+            }
+        });
+    }
+
+    private synchronized void ready(Plugin version) {
+        stagingNanos = System.nanoTime() - startNanos;
+        if (cancelled) {
+            release(version);
+        } else {
+            plugin = version;
+        }
+        staged.complete(null);
+    }
+
+    /**
+     * Returns the name the plugin will be registered under.
+     * 
+     * @return the plugin name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether staging has ended, successfully or not.
+     * 
+     * @return true if the version is ready, failed or was cancelled
+     */
+    public boolean isDone() {
+        return staged.isDone();
+    }
+
+    /**
+     * Returns whether the version is ready to be promoted.
+     * 
+     * @return true if staging succeeded and the version was neither promoted nor cancelled
+     */
+    public synchronized boolean isReady() {
+        return plugin != null && !promoted;
+    }
+
+    /**
+     * Returns how long staging took.
+     * 
+     * @return the staging time in nanoseconds, or -1 if staging has not succeeded
+     */
+    public synchronized long getStagingNanos() {
+        return stagingNanos;
+    }
+
+    /**
+     * Waits until the version is staged.
+     * 
+     * @return the staged plugin
+     * @throws Exception the reason staging failed, e.g. a compilation error or {@link SecurityException}
+     * @throws IllegalStateException if the version was cancelled
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public Plugin await() throws Exception {
+        try {
+            staged.get();
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Staged plugin " + name + " was cancelled", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                throw new IllegalStateException("Staged plugin " + name + " was cancelled");
+            }
+            return plugin;
+        }
+    }
+
+    /**
+     * Waits until the version is staged and registers it, replacing the
+     * current version in one step.
+     * 
+     * @return the replaced plugin, or null if none was registered under the name
+     * @throws Exception the reason staging failed, e.g. a compilation error or {@link SecurityException}
+     * @throws IllegalStateException if the version was cancelled or already promoted
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public Plugin promote() throws Exception {
+        Plugin version = await();
+        synchronized (this) {
+            if (cancelled) {
+                throw new IllegalStateException("Staged plugin " + name + " was cancelled");
+            }
+            if (promoted) {
+                throw new IllegalStateException("Staged plugin " + name + " was already promoted");
+            }
+            Plugin previous = pluginRegistry.register(version);
+            promoted = true;
+            return previous;
+        }
+    }
+
+    /**
+     * Abandons the version. Staging that is still running is interrupted,
+     * and the staged class is dropped and its class loader closed.
+     * 
+     * @return true if the version was cancelled, false if it was already promoted or cancelled
+     */
+    public synchronized boolean cancel() {
+        if (promoted || cancelled) {
+            return false;
+        }
+        cancelled = true;
+        staged.cancel(false);
+        if (task != null) {
+            task.cancel(true);
+        }
+        if (plugin != null) {
+            release(plugin);
+            plugin = null;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the class loader of an abandoned version, so nothing more is
+     * loaded through it and it can be reclaimed with its classes.
+     */
+    static void release(Plugin version) {
+        if (version.isResolved() && version.getPluginClass().getClassLoader() instanceof Closeable loader) {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                System.err.println("Warning: Could not close class loader of staged plugin: " + version.getName());
+            }
+        }
+        version.unload();
+    }
+}
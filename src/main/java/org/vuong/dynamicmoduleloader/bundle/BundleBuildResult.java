@@ -0,0 +1,28 @@
+package org.vuong.dynamicmoduleloader.bundle;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The outcome of building a plugin bundle with a {@link PluginBundleBuilder}.
+ * 
+ * @param plugins the entry class name of each bundled plugin, keyed by plugin name
+ * @param failures the source files that were left out, with the reason
+ * @param elapsedNanos the time the build took
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record BundleBuildResult(Map<String, String> plugins,
+                                Map<Path, Exception> failures,
+                                long elapsedNanos) {
+
+    /**
+     * Returns whether every source file made it into the bundle.
+     * 
+     * @return true if no file failed
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,334 @@
+package org.vuong.dynamicmoduleloader.bundle;
+
+import org.vuong.dynamicmoduleloader.compiler.ClassFileCheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A JAR or ZIP of precompiled plugin classes with an index of its plugins.
+ * 
+ * The index, stored as {@value #INDEX_ENTRY}, maps each plugin name to its
+ * entry class and lists the SHA-256 digest of every class in the bundle.
+ * Opening a bundle reads only the ZIP directory and the index. A class is
+ * read from the bundle the first time it is needed, checked against its
+ * digest and the class file check, and defined by the one class loader of
+ * the bundle, so the classes of a bundle can see each other. Classes that
+ * are not in the index are never defined.
+ * 
+ * A bundle built by {@link PluginBundleBuilder} also records the
+ * fingerprint of the security configuration its sources and classes were
+ * validated with at build time.
+ * 
+ * A bundle stays open while its plugins are in use. Closing it releases the
+ * file; classes already defined keep working, but classes not yet needed
+ * can no longer be loaded.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class PluginBundle implements AutoCloseable {
+
+    /**
+     * The name of the index entry in a bundle.
+     */
+    public static final String INDEX_ENTRY = "META-INF/plugins.index";
+
+    private static final String PLUGIN_PREFIX = "plugin.";
+    private static final String CLASS_PREFIX = "class.";
+    private static final String VALIDATED = "validated";
+
+    private final Path file;
+    private final FileSystem zip;
+    private final Map<String, String> entryClasses;
+    private final Map<String, String> classDigests;
+    private final String validatedFingerprint;
+    private final ClassFileCheck classFileCheck;
+    private final BundleClassLoader classLoader;
+    private final AtomicInteger definedClasses = new AtomicInteger();
+
+    private PluginBundle(Path file, FileSystem zip, Map<String, String> entryClasses, Map<String, String> classDigests,
+                         String validatedFingerprint, ClassFileCheck classFileCheck) {
+        this.file = file;
+        this.zip = zip;
+        this.entryClasses = entryClasses;
+        this.classDigests = classDigests;
+        this.validatedFingerprint = validatedFingerprint;
+        this.classFileCheck = classFileCheck;
+        this.classLoader = new BundleClassLoader("bundle:" + file.getFileName());
+    }
+
+    /**
+     * Opens a plugin bundle. Only the ZIP directory and the index are read.
+     * 
+     * @param file the bundle file
+     * @param classFileCheck the check to run on each class before it is defined, may be null
+     * @return the open bundle
+     * @throws IOException if the bundle cannot be read
+     * @throws IllegalArgumentException if file is null, or the file has no valid index
+     */
+    public static PluginBundle open(Path file, ClassFileCheck classFileCheck) throws IOException {
+        return open(file, classFileCheck, null);
+    }
+
+    /**
+     * Opens a plugin bundle, skipping the class file check if the bundle was
+     * validated at build time with a trusted security configuration.
+     * 
+     * Classes are still checked against their digests. The recorded
+     * validation is not signed, so only trust bundles from your own build.
+     * 
+     * @param file the bundle file
+     * @param classFileCheck the check to run on each class before it is defined, may be null
+     * @param trustedFingerprint the fingerprint of a security configuration whose build-time validation is trusted, may be null
+     * @return the open bundle
+     * @throws IOException if the bundle cannot be read
+     * @throws IllegalArgumentException if file is null, or the file has no valid index
+     */
+    public static PluginBundle open(Path file, ClassFileCheck classFileCheck, String trustedFingerprint) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Bundle file cannot be null");
+        }
+        FileSystem zip = FileSystems.newFileSystem(file);
+        try {
+            Properties index = new Properties();
+            try (Reader reader = Files.newBufferedReader(zip.getPath(INDEX_ENTRY), StandardCharsets.UTF_8)) {
+                index.load(reader);
+            } catch (NoSuchFileException e) {
+                throw new IllegalArgumentException("Not a plugin bundle, it has no " + INDEX_ENTRY + ": " + file);
+            }
+
+            Map<String, String> entryClasses = new TreeMap<>();
+            Map<String, String> classDigests = new TreeMap<>();
+            for (String key : index.stringPropertyNames()) {
+                if (key.startsWith(PLUGIN_PREFIX)) {
+                    entryClasses.put(key.substring(PLUGIN_PREFIX.length()), index.getProperty(key));
+                } else if (key.startsWith(CLASS_PREFIX)) {
+                    classDigests.put(key.substring(CLASS_PREFIX.length()), index.getProperty(key));
+                }
+            }
+            for (Map.Entry<String, String> plugin : entryClasses.entrySet()) {
+                if (plugin.getKey().isEmpty() || !classDigests.containsKey(plugin.getValue())) {
+                    throw new IllegalArgumentException("Invalid bundle index, plugin '" + plugin.getKey()
+                        + "' has no indexed entry class: " + file);
+                }
+            }
+            String validated = index.getProperty(VALIDATED);
+            boolean trusted = trustedFingerprint != null && trustedFingerprint.equals(validated);
+            return new PluginBundle(file, zip, Collections.unmodifiableMap(entryClasses),
+                Collections.unmodifiableMap(classDigests), validated, trusted ? null : classFileCheck);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a plugin bundle from a directory of compiled classes, as a build
+     * would after compiling the plugins.
+     * 
+     * Every class file under the directory is added, with its package path
+     * as the entry name, and indexed with its digest.
+     * 
+     * @param file the bundle file to write
+     * @param classesDirectory the root directory of the compiled classes
+     * @param plugins the entry class name of each plugin, keyed by plugin name
+     * @throws IOException if a class cannot be read or the bundle written
+     * @throws IllegalArgumentException if an argument is null, or an entry class is not in the directory
+     */
+    public static void create(Path file, Path classesDirectory, Map<String, String> plugins) throws IOException {
+        create(file, classesDirectory, plugins, null);
+    }
+
+    /**
+     * Writes a plugin bundle from a directory of compiled classes that were
+     * validated at build time with the given security configuration.
+     * 
+     * @param file the bundle file to write
+     * @param classesDirectory the root directory of the compiled classes
+     * @param plugins the entry class name of each plugin, keyed by plugin name
+     * @param validatedFingerprint the fingerprint of the security configuration the classes passed, may be null
+     * @throws IOException if a class cannot be read or the bundle written
+     * @throws IllegalArgumentException if an argument other than the fingerprint is null, or an entry class is not in the directory
+     */
+    public static void create(Path file, Path classesDirectory, Map<String, String> plugins, String validatedFingerprint)
+            throws IOException {
+        if (file == null || classesDirectory == null || plugins == null) {
+            throw new IllegalArgumentException("Bundle file, classes directory and plugins cannot be null");
+        }
+        Map<String, byte[]> classes = new TreeMap<>();
+        try (Stream<Path> tree = Files.walk(classesDirectory)) {
+            for (Path classFile : tree.filter(path -> path.toString().endsWith(".class")).toList()) {
+                String entry = classesDirectory.relativize(classFile).toString().replace(classFile.getFileSystem().getSeparator(), "/");
+                classes.put(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'), Files.readAllBytes(classFile));
+            }
+        }
+
+        Properties index = new Properties();
+        for (Map.Entry<String, String> plugin : plugins.entrySet()) {
+            if (!classes.containsKey(plugin.getValue())) {
+                throw new IllegalArgumentException("Entry class of plugin '" + plugin.getKey() + "' not found: " + plugin.getValue());
+            }
+            index.setProperty(PLUGIN_PREFIX + plugin.getKey(), plugin.getValue());
+        }
+        classes.forEach((className, bytes) -> index.setProperty(CLASS_PREFIX + className, digest(bytes)));
+        if (validatedFingerprint != null) {
+            index.setProperty(VALIDATED, validatedFingerprint);
+        }
+
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            StringWriter indexText = new StringWriter();
+            index.store(indexText, null);
+            zip.putNextEntry(new ZipEntry(INDEX_ENTRY));
+            zip.write(indexText.toString().getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey().replace('.', '/') + ".class"));
+                zip.write(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the bundle file.
+     * 
+     * @return the bundle file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the names of the plugins in this bundle, in sorted order.
+     * 
+     * @return the plugin names
+     */
+    public Set<String> getPluginNames() {
+        return entryClasses.keySet();
+    }
+
+    /**
+     * Returns the entry class name of a plugin.
+     * 
+     * @param pluginName the plugin name
+     * @return the binary name of the entry class, or null if the bundle has no such plugin
+     */
+    public String getEntryClassName(String pluginName) {
+        return entryClasses.get(pluginName);
+    }
+
+    /**
+     * Returns the fingerprint of the security configuration the classes of
+     * this bundle were validated with when it was built.
+     * 
+     * @return the fingerprint, or null if the bundle records no build-time validation
+     */
+    public String getValidatedFingerprint() {
+        return validatedFingerprint;
+    }
+
+    /**
+     * Loads the entry class of a plugin, defining it and the classes it needs
+     * from the bundle if they were not needed before.
+     * 
+     * @param pluginName the plugin name
+     * @return the entry class
+     * @throws ClassNotFoundException if the class or a class it needs is not in the bundle
+     * @throws SecurityException if a class does not match its digest or fails the class file check
+     * @throws IllegalArgumentException if the bundle has no such plugin
+     */
+    public Class<?> loadPluginClass(String pluginName) throws ClassNotFoundException {
+        String className = entryClasses.get(pluginName);
+        if (className == null) {
+            throw new IllegalArgumentException("No plugin '" + pluginName + "' in bundle " + file);
+        }
+        return Class.forName(className, true, classLoader);
+    }
+
+    /**
+     * Returns the number of classes defined from this bundle so far.
+     * 
+     * @return the number of defined classes
+     */
+    public int getDefinedClassCount() {
+        return definedClasses.get();
+    }
+
+    /**
+     * Closes the bundle file. Classes already defined stay usable.
+     * 
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Defines the indexed classes of the bundle on demand.
+     */
+    private final class BundleClassLoader extends ClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        BundleClassLoader(String name) {
+            super(name, ClassLoader.getSystemClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String expected = classDigests.get(name);
+            if (expected == null) {
+                throw new ClassNotFoundException(name + " is not in the index of bundle " + file);
+            }
+            byte[] bytes;
+            try (InputStream in = Files.newInputStream(zip.getPath(name.replace('.', '/') + ".class"))) {
+                bytes = in.readAllBytes();
+            } catch (ClosedFileSystemException e) {
+                throw new IllegalStateException("Bundle is closed: " + file, e);
+            } catch (IOException e) {
+                throw new ClassNotFoundException("Cannot read " + name + " from bundle " + file, e);
+            }
+            if (!digest(bytes).equals(expected)) {
+                throw new SecurityException("Class " + name + " does not match its digest in bundle " + file);
+            }
+            if (classFileCheck != null) {
+                classFileCheck.check(bytes);
+            }
+            Class<?> clazz = defineClass(name, bytes, 0, bytes.length);
+            definedClasses.incrementAndGet();
+            return clazz;
+        }
+    }
+}
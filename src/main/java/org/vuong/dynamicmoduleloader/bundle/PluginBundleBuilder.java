@@ -0,0 +1,255 @@
+package org.vuong.dynamicmoduleloader.bundle;
+
+import org.vuong.dynamicmoduleloader.compiler.JavaPluginCompiler;
+import org.vuong.dynamicmoduleloader.security.BytecodeSecurityVerifier;
+import org.vuong.dynamicmoduleloader.security.EnhancedSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+import org.vuong.dynamicmoduleloader.util.PluginNameUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Builds a {@link PluginBundle} from a directory of plugin sources ahead of
+ * time, so runtime nodes neither validate nor compile them.
+ * 
+ * Every {@code .java} file under the directory is one plugin, named after
+ * the file as {@code PluginLoadService} names plugins loaded from files. The
+ * sources are validated by an {@link EnhancedSecurityValidator}, then
+ * compiled on {@code parallelism} threads, one javac task each, with the
+ * same parsed-tree and bytecode checks the runtime runs. The bundle records
+ * the fingerprint of the security configuration, so a runtime with the
+ * same configuration can trust it.
+ * 
+ * A file that fails any step is left out of the bundle and reported in the
+ * result; the others are still bundled. So is a file that declares a class
+ * an earlier file, in path order, already declares. Plugins are compiled
+ * independently, so a plugin can only use classes of its own source file.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class PluginBundleBuilder {
+
+    private final SecurityConfig securityConfig;
+    private final int parallelism;
+
+    /**
+     * Creates a bundle builder.
+     * 
+     * @param securityConfig the security configuration to validate the sources with
+     * @param parallelism the number of threads to validate and compile with
+     * @throws IllegalArgumentException if securityConfig is null or parallelism is not positive
+     */
+    public PluginBundleBuilder(SecurityConfig securityConfig, int parallelism) {
+        if (securityConfig == null) {
+            throw new IllegalArgumentException("Security configuration cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.securityConfig = securityConfig;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Validates and compiles the plugin sources under a directory and writes
+     * the bundle.
+     * 
+     * @param sourceDirectory the directory of plugin sources
+     * @param bundleFile the bundle file to write
+     * @return the bundled plugins and the files that were left out
+     * @throws IOException if a source cannot be read or the bundle written
+     * @throws IllegalArgumentException if an argument is null or sourceDirectory is not a directory
+     */
+    public BundleBuildResult build(Path sourceDirectory, Path bundleFile) throws IOException {
+        if (sourceDirectory == null || !Files.isDirectory(sourceDirectory)) {
+            throw new IllegalArgumentException("Source directory does not exist: " + sourceDirectory);
+        }
+        if (bundleFile == null) {
+            throw new IllegalArgumentException("Bundle file cannot be null");
+        }
+        long start = System.nanoTime();
+        List<Path> sources;
+        try (Stream<Path> tree = Files.walk(sourceDirectory)) {
+            sources = tree.filter(path -> path.getFileName().toString().endsWith(".java") && Files.isRegularFile(path))
+                .sorted()
+                .toList();
+        }
+
+        Map<Path, Exception> failures = new ConcurrentHashMap<>();
+        Path classes = Files.createTempDirectory("plugin-bundle-classes");
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Path> valid = validate(sources, failures, pool);
+            Map<File, Output> generated = compile(valid, classes, failures, pool);
+
+            // Only the class files of bundled plugins are merged, and no class may come from two of them
+            Path merged = Files.createDirectories(classes.resolve("bundle"));
+            Map<String, String> plugins = new TreeMap<>();
+            Map<String, Path> sourceOfPlugin = new HashMap<>();
+            Map<Path, Path> sourceOfClassFile = new HashMap<>();
+            for (Path source : valid) {
+                Output output = generated.get(source.toFile());
+                if (output == null) {
+                    continue;
+                }
+                String simpleName = source.getFileName().toString().replace(".java", "");
+                List<Path> classFiles = output.classFiles().stream()
+                    .map(classFile -> output.directory().relativize(classFile.toPath().toAbsolutePath()))
+                    .toList();
+                String entryClass = entryClassOf(classFiles, simpleName);
+                String name = PluginNameUtils.generatePluginName(simpleName);
+                Path duplicate = classFiles.stream().filter(sourceOfClassFile::containsKey).findFirst().orElse(null);
+                if (entryClass == null) {
+                    failures.put(source, new IllegalStateException(source.getFileName() + " declares no class " + simpleName));
+                } else if (sourceOfPlugin.containsKey(name)) {
+                    failures.put(source, new IllegalArgumentException("Duplicate plugin name '" + name + "', also used by "
+                        + sourceOfPlugin.get(name)));
+                } else if (duplicate != null) {
+                    failures.put(source, new IllegalArgumentException("Duplicate class " + binaryNameOf(duplicate)
+                        + ", also declared by " + sourceOfClassFile.get(duplicate)));
+                } else {
+                    for (Path classFile : classFiles) {
+                        Path target = merged.resolve(classFile);
+                        Files.createDirectories(target.getParent());
+                        Files.copy(output.directory().resolve(classFile), target);
+                        sourceOfClassFile.put(classFile, source);
+                    }
+                    sourceOfPlugin.put(name, source);
+                    plugins.put(name, entryClass);
+                }
+            }
+
+            PluginBundle.create(bundleFile, merged, plugins, securityConfig.fingerprint());
+            return new BundleBuildResult(Collections.unmodifiableMap(plugins), Collections.unmodifiableMap(new TreeMap<>(failures)),
+                System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+            try (Stream<Path> tree = Files.walk(classes)) {
+                tree.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Runs the source validator on every file in parallel, returning the
+     * files that passed.
+     */
+    private List<Path> validate(List<Path> sources, Map<Path, Exception> failures, ExecutorService pool) throws IOException {
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(securityConfig);
+        List<Future<?>> checks = new ArrayList<>();
+        for (Path source : sources) {
+            checks.add(pool.submit(() -> {
+                try {
+                    validator.validate(Files.readString(source));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    failures.put(source, e);
+                }
+            }));
+        }
+        await(checks);
+        return sources.stream().filter(source -> !failures.containsKey(source)).toList();
+    }
+
+    /**
+     * Compiles the files in {@code parallelism} javac tasks, with the
+     * runtime's tree and bytecode checks, each into a classes directory of
+     * its own, so that tasks never overwrite each other's class files.
+     */
+    private Map<File, Output> compile(List<Path> sources, Path classes, Map<Path, Exception> failures,
+                                      ExecutorService pool) throws IOException {
+        int tasks = Math.min(parallelism, sources.size());
+        List<List<File>> chunks = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            chunks.get(i % tasks).add(sources.get(i).toFile());
+        }
+
+        TreeSecurityValidator treeValidator = new TreeSecurityValidator(securityConfig);
+        BytecodeSecurityVerifier bytecodeVerifier = new BytecodeSecurityVerifier(securityConfig);
+        Map<File, Output> generated = new ConcurrentHashMap<>();
+        List<Future<?>> compilations = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            List<File> chunk = chunks.get(i);
+            Path directory = classes.resolve("chunk-" + i).toAbsolutePath();
+            compilations.add(pool.submit(() -> {
+                Map<File, Exception> rejected = new HashMap<>();
+                try {
+                    new JavaPluginCompiler().compileTo(chunk, directory, treeValidator, bytecodeVerifier, rejected)
+                        .forEach((file, classFiles) -> generated.put(file, new Output(directory, classFiles)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rejected.forEach((file, reason) -> failures.put(file.toPath(), reason));
+            }));
+        }
+        await(compilations);
+        return generated;
+    }
+
+    /**
+     * Returns the binary name of the top-level class a source file is named
+     * after, from the paths of the class files it produced.
+     */
+    private static String entryClassOf(List<Path> classFiles, String simpleName) {
+        for (Path classFile : classFiles) {
+            if (classFile.getFileName().toString().equals(simpleName + ".class")) {
+                return binaryNameOf(classFile);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the binary name of a class from the path of its class file
+     * relative to a classes directory.
+     */
+    private static String binaryNameOf(Path classFile) {
+        String entry = classFile.toString();
+        return entry.substring(0, entry.length() - ".class".length()).replace(File.separatorChar, '.');
+    }
+
+    private static void await(List<Future<?>> futures) throws IOException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while building the bundle", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw new IllegalStateException("Bundle build failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The class files one source produced, and the directory they are in.
+     */
+    private record Output(Path directory, List<File> classFiles) {
+    }
+}
@@ -0,0 +1,16 @@
+package org.vuong.dynamicmoduleloader.cds;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of dumping an archive with {@link ClassDataSharing#dump}.
+ * 
+ * @param archive the archive file that was written
+ * @param sizeBytes the size of the archive
+ * @param elapsedNanos the time the training run and dump took
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record ArchiveDumpResult(Path archive, long sizeBytes, long elapsedNanos) {
+}
@@ -0,0 +1,49 @@
+package org.vuong.dynamicmoduleloader.cds;
+
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundle;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The main class of the training JVM started by {@link ClassDataSharing#dump}.
+ * 
+ * It loads each bundle with bytecode verification, so that the classes of
+ * both the verifying and the trusting load paths are archived, and
+ * resolves every plugin so that their classes are archived as well.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class ArchiveTrainingRun {
+
+    private ArchiveTrainingRun() {
+    }
+
+    /**
+     * Runs the training.
+     * 
+     * @param args the paths of the bundles to load
+     * @throws Exception if a bundle cannot be loaded or a plugin resolved
+     */
+    public static void main(String[] args) throws Exception {
+        PluginLoadService service = new PluginLoadService();
+        List<PluginBundle> bundles = new ArrayList<>();
+        try {
+            for (String bundleFile : args) {
+                bundles.add(service.loadBundle(Path.of(bundleFile)));
+            }
+            for (Plugin plugin : service.getAllPlugins()) {
+                plugin.getPluginClass();
+            }
+        } finally {
+            for (PluginBundle bundle : bundles) {
+                bundle.close();
+            }
+        }
+        System.out.println("Resolved " + service.getAllPlugins().size() + " plugins from " + args.length + " bundles");
+    }
+}
@@ -0,0 +1,150 @@
+package org.vuong.dynamicmoduleloader.cds;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Dumps and detects application Class Data Sharing (AppCDS) archives.
+ * 
+ * An archive holds the parsed and verified form of the library's classes
+ * and of the plugin classes in stable, precompiled bundles, so a JVM that
+ * maps it at startup defines them without parsing or verifying them
+ * again, and shares their metadata with other JVMs mapping the same file.
+ * 
+ * {@link #dump} creates an archive in a training JVM that loads the
+ * bundles and resolves every plugin in them. A JVM started with the
+ * {@link #jvmOptions} of an archive uses it when it is valid for that JVM
+ * and class path, and writes a new one at exit when it is missing or
+ * stale. The class path of both JVMs may only contain JAR files.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class ClassDataSharing {
+
+    private ClassDataSharing() {
+    }
+
+    /**
+     * Returns the JVM options that start a JVM with an archive. The JVM
+     * maps the archive if it matches, and otherwise creates it when it
+     * exits so that the next start can.
+     * 
+     * @param archive the archive file
+     * @return the options to add before the main class
+     * @throws IllegalArgumentException if archive is null
+     */
+    public static List<String> jvmOptions(Path archive) {
+        if (archive == null) {
+            throw new IllegalArgumentException("Archive cannot be null");
+        }
+        return List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(), "-XX:+AutoCreateSharedArchive");
+    }
+
+    /**
+     * Returns whether classes loaded from a class path can be archived.
+     * The JVM refuses to archive from class paths with non-empty
+     * directories.
+     * 
+     * @param classPath the class path
+     * @return true if every entry is a file or an empty or missing directory
+     * @throws IllegalArgumentException if classPath is null or empty
+     */
+    public static boolean isArchivable(String classPath) {
+        if (classPath == null || classPath.isEmpty()) {
+            throw new IllegalArgumentException("Class path cannot be null or empty");
+        }
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path path = Path.of(entry);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if (children.findAny().isPresent()) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether this JVM shares class data, and the archive it was
+     * started with.
+     * 
+     * @return the sharing status of this JVM
+     */
+    public static SharingStatus status() {
+        boolean enabled = System.getProperty("java.vm.info", "").contains("sharing");
+        String archive = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+            .getVMOption("SharedArchiveFile").getValue();
+        return new SharingStatus(enabled, enabled && !archive.isEmpty() ? Path.of(archive) : null);
+    }
+
+    /**
+     * Dumps an archive of the library and the plugins in the given
+     * bundles. A training JVM on the given class path loads every bundle,
+     * resolves every plugin and writes the archive when it exits. The
+     * archive replaces any previous one atomically, so JVMs that map the
+     * old file are not affected.
+     * 
+     * @param archive the archive file to write
+     * @param classPath the class path of the JVMs that will use the archive
+     * @param bundleFiles the plugin bundles to archive
+     * @return the outcome of the dump
+     * @throws IOException if the training JVM fails or the archive cannot be written
+     * @throws IllegalArgumentException if archive or bundleFiles is null, or classPath is null, empty or not archivable
+     */
+    public static ArchiveDumpResult dump(Path archive, String classPath, List<Path> bundleFiles) throws IOException {
+        if (archive == null) {
+            throw new IllegalArgumentException("Archive cannot be null");
+        }
+        if (bundleFiles == null) {
+            throw new IllegalArgumentException("Bundle files cannot be null");
+        }
+        if (!isArchivable(classPath)) {
+            throw new IllegalArgumentException("Class path must only contain JAR files to be archived: " + classPath);
+        }
+
+        long start = System.nanoTime();
+        Path target = archive.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        Files.deleteIfExists(partial);
+        List<String> command = new ArrayList<>(List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-XX:ArchiveClassesAtExit=" + partial,
+            "-cp", classPath,
+            ArchiveTrainingRun.class.getName()));
+        bundleFiles.forEach(bundleFile -> command.add(bundleFile.toAbsolutePath().toString()));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while dumping " + target, e);
+        }
+        if (exitCode != 0 || !Files.exists(partial)) {
+            Files.deleteIfExists(partial);
+            throw new IOException("Training run for " + target + " failed with exit code " + exitCode
+                + ": " + output.strip());
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArchiveDumpResult(target, Files.size(target), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,24 @@
+package org.vuong.dynamicmoduleloader.cds;
+
+import java.nio.file.Path;
+
+/**
+ * Whether a JVM shares class data, as returned by {@link ClassDataSharing#status()}.
+ * 
+ * @param enabled whether the JVM maps a class data archive, at least the one of the JDK
+ * @param archive the application archive the JVM was started with, or null if none
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record SharingStatus(boolean enabled, Path archive) {
+
+    /**
+     * Returns whether the JVM was started with an application archive.
+     * 
+     * @return true if an application archive is in use
+     */
+    public boolean hasApplicationArchive() {
+        return archive != null;
+    }
+}
@@ -0,0 +1,197 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The sidecar record of one source file's last successful compilation: the
+ * digest of the source, the compiler options, the JDK version, the
+ * fingerprint of the checks it passed, and the digest of every class file
+ * it produced.
+ * 
+ * A compilation is up to date when all of these still match, so the class
+ * files can be loaded without running javac again.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class BuildManifest {
+
+    private static final String SOURCE = "source.sha256";
+    private static final String OPTIONS = "options";
+    private static final String JDK = "jdk";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String CLASS_PREFIX = "class.";
+
+    private final String sourceDigest;
+    private final String options;
+    private final String jdk;
+    private final String fingerprint;
+    private final Map<String, String> classDigests;
+
+    private BuildManifest(String sourceDigest, String options, String jdk, String fingerprint,
+                          Map<String, String> classDigests) {
+        this.sourceDigest = sourceDigest;
+        this.options = options;
+        this.jdk = jdk;
+        this.fingerprint = fingerprint;
+        this.classDigests = classDigests;
+    }
+
+    /**
+     * Creates the manifest of a compilation that has just succeeded.
+     * 
+     * @param sourceDigest the digest of the source as it was compiled
+     * @param fingerprint identifies the checks the compilation passed
+     * @param outputDir the directory the class files were written to
+     * @param classFiles the class files the source produced
+     * @return the manifest
+     * @throws IOException if a class file cannot be read
+     */
+    static BuildManifest of(String sourceDigest, String fingerprint, File outputDir, List<File> classFiles)
+            throws IOException {
+        Path output = outputDir.toPath().toAbsolutePath();
+        Map<String, String> classDigests = new LinkedHashMap<>();
+        for (File classFile : classFiles) {
+            Path path = classFile.toPath().toAbsolutePath();
+            classDigests.put(output.relativize(path).toString().replace(File.separatorChar, '/'), digest(Files.readAllBytes(path)));
+        }
+        return new BuildManifest(sourceDigest, currentOptions(), currentJdk(), fingerprint, classDigests);
+    }
+
+    /**
+     * Reads a manifest, or returns null if there is none or it cannot be read.
+     * 
+     * @param file the manifest file
+     * @return the manifest, or null
+     */
+    static BuildManifest read(File file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            // A damaged manifest only costs a recompilation
+            return null;
+        }
+        Map<String, String> classDigests = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(CLASS_PREFIX)) {
+                classDigests.put(key.substring(CLASS_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+        return new BuildManifest(properties.getProperty(SOURCE), properties.getProperty(OPTIONS),
+            properties.getProperty(JDK), properties.getProperty(FINGERPRINT), classDigests);
+    }
+
+    /**
+     * Writes this manifest, replacing the file in one step so a reader never
+     * sees half of it.
+     * 
+     * @param file the manifest file
+     * @throws IOException if the manifest cannot be written
+     */
+    void write(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SOURCE, sourceDigest);
+        properties.setProperty(OPTIONS, options);
+        properties.setProperty(JDK, jdk);
+        properties.setProperty(FINGERPRINT, fingerprint);
+        classDigests.forEach((name, digest) -> properties.setProperty(CLASS_PREFIX + name, digest));
+
+        Path target = file.toPath();
+        Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns whether a source with the given digest, compiled now with the
+     * given check fingerprint, would produce the compilation this manifest
+     * records.
+     * 
+     * @param sourceDigest the digest of the source as it is now
+     * @param fingerprint identifies the checks the source must pass
+     * @return true if source, options, JDK and checks are all unchanged
+     */
+    boolean matches(String sourceDigest, String fingerprint) {
+        return sourceDigest.equals(this.sourceDigest)
+            && currentOptions().equals(options)
+            && currentJdk().equals(jdk)
+            && fingerprint.equals(this.fingerprint)
+            && !classDigests.isEmpty();
+    }
+
+    /**
+     * Reads the recorded class files and returns their bytes, or null if any
+     * of them is missing or no longer has its recorded digest.
+     * 
+     * @param outputDir the directory the class files were written to
+     * @return the bytes of each class file, or null
+     */
+    List<byte[]> readClassFiles(File outputDir) {
+        List<byte[]> classFiles = new ArrayList<>(classDigests.size());
+        for (Map.Entry<String, String> entry : classDigests.entrySet()) {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(new File(outputDir, entry.getKey()).toPath());
+            } catch (IOException e) {
+                return null;
+            }
+            if (!digest(bytes).equals(entry.getValue())) {
+                return null;
+            }
+            classFiles.add(bytes);
+        }
+        return classFiles;
+    }
+
+    /**
+     * Returns the hex SHA-256 digest of some bytes.
+     * 
+     * @param bytes the bytes to digest
+     * @return the digest
+     */
+    static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String currentOptions() {
+        return String.join(" ", Javac.OPTIONS);
+    }
+
+    private static String currentJdk() {
+        return Runtime.version().toString();
+    }
+}
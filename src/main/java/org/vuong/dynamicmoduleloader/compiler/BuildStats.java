@@ -0,0 +1,25 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+/**
+ * Point-in-time statistics about the up-to-date checks of a
+ * {@link JavaPluginCompiler} that keeps an output directory.
+ * 
+ * @param upToDate the number of files loaded from their recorded output without running javac
+ * @param compiled the number of files that had to be compiled
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record BuildStats(long upToDate,
+                         long compiled) {
+
+    /**
+     * Returns the fraction of files that were up to date.
+     * 
+     * @return the up-to-date rate between 0 and 1, or 0 if nothing was loaded yet
+     */
+    public double upToDateRate() {
+        long total = upToDate + compiled;
+        return total == 0 ? 0 : (double) upToDate / total;
+    }
+}
@@ -0,0 +1,23 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+/**
+ * A check that runs on every class file a compilation generates, before any
+ * of them is loaded.
+ * 
+ * Throwing from {@link #check(byte[])} rejects the compilation; the generated
+ * class files are deleted and never reach a class loader.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+@FunctionalInterface
+public interface ClassFileCheck {
+
+    /**
+     * Checks one generated class file.
+     * 
+     * @param classFile the bytes of the class file
+     * @throws RuntimeException to reject the compilation
+     */
+    void check(byte[] classFile);
+}
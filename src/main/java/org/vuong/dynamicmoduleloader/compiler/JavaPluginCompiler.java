@@ -1,10 +1,18 @@
 package org.vuong.dynamicmoduleloader.compiler;
 
-import javax.tools.JavaCompiler;
-import javax.tools.ToolProvider;
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Compiler for Java source files on the filesystem.
@@ -13,17 +21,54 @@ import java.net.URLClassLoader;
  * into Class objects that can be loaded and instantiated. It uses the system
  * Java compiler and loads classes from the same directory as the source file.
  * 
+ * A compiler created with an output directory writes class files there
+ * instead, next to a manifest per source that records the source digest,
+ * the compiler options, the JDK version and the fingerprint of the checks
+ * the source passed. While all of these are unchanged, and the class files
+ * still have their recorded digests, the source is not compiled again; the
+ * recorded class files are run through the class file check and loaded.
+ * 
  * @author Dynamic Module Loader
  * @since 0.0.1-SNAPSHOT
  */
 public class JavaPluginCompiler {
 
+    private final File outputDirectory;
+    private final String fingerprint;
+    private final LongAdder upToDate = new LongAdder();
+    private final LongAdder compiled = new LongAdder();
+
     /**
      * Default constructor for JavaPluginCompiler.
      * Initializes the Java plugin compiler.
      */
     public JavaPluginCompiler() {
-        // default constructor
+        this.outputDirectory = null;
+        this.fingerprint = null;
+    }
+
+    /**
+     * Creates a compiler that keeps its class files in an output directory
+     * and skips javac for sources whose recorded output is up to date.
+     * 
+     * The fingerprint must change whenever the checks passed to this
+     * compiler could reach a different verdict, e.g. when their security
+     * configuration changes, since a source whose output is up to date is
+     * not parsed and its source check does not run again.
+     * 
+     * @param outputDirectory the directory to keep class files and manifests in
+     * @param fingerprint identifies the checks and every setting that can change their verdict
+     * @throws IllegalArgumentException if outputDirectory or fingerprint is null
+     */
+    public JavaPluginCompiler(Path outputDirectory, String fingerprint) {
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("Output directory cannot be null");
+        }
+        if (fingerprint == null) {
+            throw new IllegalArgumentException("Fingerprint cannot be null");
+        }
+        this.outputDirectory = outputDirectory.toAbsolutePath().toFile();
+        this.fingerprint = fingerprint;
     }
 
     /**
@@ -39,6 +84,39 @@ public class JavaPluginCompiler {
      * @throws IllegalArgumentException if javaFile is null or doesn't exist
      */
     public Class<?> compileAndLoad(File javaFile) throws Exception {
+        return compileAndLoad(javaFile, null);
+    }
+
+    /**
+     * Compiles a Java source file and loads the resulting class, running a
+     * check on the parsed source before any bytecode is generated.
+     * 
+     * The check sees the trees javac has already parsed for this compilation,
+     * so it adds no second parse of the file.
+     * 
+     * @param javaFile the Java source file to compile
+     * @param check the check to run on the parsed source, may be null
+     * @return the compiled Class object
+     * @throws Exception if compilation fails or the class cannot be loaded
+     * @throws IllegalArgumentException if javaFile is null or doesn't exist
+     */
+    public Class<?> compileAndLoad(File javaFile, SourceTreeCheck check) throws Exception {
+        return compileAndLoad(javaFile, check, null);
+    }
+
+    /**
+     * Compiles a Java source file and loads the resulting class, running a
+     * check on the parsed source and another on every generated class file
+     * before anything is loaded.
+     * 
+     * @param javaFile the Java source file to compile
+     * @param check the check to run on the parsed source, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the compiled Class object
+     * @throws Exception if compilation fails or the class cannot be loaded
+     * @throws IllegalArgumentException if javaFile is null or doesn't exist
+     */
+    public Class<?> compileAndLoad(File javaFile, SourceTreeCheck check, ClassFileCheck classFileCheck) throws Exception {
         if (javaFile == null) {
             throw new IllegalArgumentException("Java file cannot be null");
         }
@@ -49,19 +127,278 @@ public class JavaPluginCompiler {
             throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFile.getName());
         }
         
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null) {
-            throw new IllegalStateException("No system Java compiler. Ensure tests run on a JDK, not a JRE.");
+        return compileAndLoad(MappedSourceFile.map(javaFile.toPath()), check, classFileCheck);
+    }
+
+    /**
+     * Compiles a source that was read before and loads the resulting class,
+     * running a check on the parsed source and another on every generated
+     * class file before anything is loaded.
+     * 
+     * The source is compiled as it was read, whatever its file holds now,
+     * and its class files are written where {@link #compileAndLoad(File)}
+     * writes those of its file.
+     * 
+     * @param source the source to compile
+     * @param check the check to run on the parsed source, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the compiled Class object
+     * @throws Exception if compilation fails or the class cannot be loaded
+     * @throws IllegalArgumentException if source is null or not read from a Java source file
+     */
+    public Class<?> compileAndLoad(MappedSourceFile source, SourceTreeCheck check, ClassFileCheck classFileCheck) throws Exception {
+        if (source == null) {
+            throw new IllegalArgumentException("Source cannot be null");
         }
-        
-        int result = compiler.run(null, null, null, javaFile.getPath());
+        File javaFile = source.getFile();
+        if (!javaFile.getName().endsWith(".java")) {
+            throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFile.getName());
+        }
+
+        if (outputDirectory == null) {
+            // Class files are written next to the source, as plain javac does
+            File dir = javaFile.getAbsoluteFile().getParentFile();
+            Javac.compile(source, dir, check, classFileCheck);
+            compiled.increment();
+            return load(javaFile, dir);
+        }
+
+        File classDir = classDirectory(javaFile);
+        String sourceDigest = source.digest();
+        if (isUpToDate(javaFile, classDir, sourceDigest, classFileCheck)) {
+            upToDate.increment();
+            return load(javaFile, classDir);
+        }
+        Files.createDirectories(classDir.toPath());
+        List<File> classFiles = Javac.compile(source, classDir, check, classFileCheck);
+        compiled.increment();
+        BuildManifest.of(sourceDigest, fingerprint, classDir, classFiles).write(manifestFile(javaFile, classDir));
+        return load(javaFile, classDir);
+    }
+
+    /**
+     * Compiles Java source files in batches and loads the resulting classes.
+     * 
+     * Files in the same directory are compiled by one javac task, with their
+     * class files written where {@link #compileAndLoad(File)} writes them.
+     * Files whose recorded output is up to date are not compiled at all.
+     * A file that fails to compile, or is rejected by a check, does not fail
+     * the others; it is reported in {@code failures} instead. Each class is
+     * loaded by a class loader of its own, so it can be unloaded on its own.
+     * 
+     * @param javaFiles the Java source files to compile
+     * @param check the check to run on the parsed sources, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @param failures receives the files that failed, with the reason
+     * @return the loaded classes by source file, for the files that did not fail
+     * @throws IOException if a source cannot be read or a class file written
+     * @throws IllegalArgumentException if javaFiles or failures is null, or a file is not an existing Java source file
+     */
+    public Map<File, Class<?>> compileAndLoadAll(List<File> javaFiles, SourceTreeCheck check, ClassFileCheck classFileCheck,
+                                                 Map<File, Exception> failures) throws IOException {
+        if (javaFiles == null) {
+            throw new IllegalArgumentException("Java files cannot be null");
+        }
+        if (failures == null) {
+            throw new IllegalArgumentException("Failures cannot be null");
+        }
+        for (File javaFile : javaFiles) {
+            if (javaFile == null || !javaFile.exists()) {
+                throw new IllegalArgumentException("Java file does not exist: " + javaFile);
+            }
+            if (!javaFile.getName().endsWith(".java")) {
+                throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFile.getName());
+            }
+        }
+        List<MappedSourceFile> sources = new ArrayList<>(javaFiles.size());
+        for (File javaFile : javaFiles) {
+            sources.add(MappedSourceFile.map(javaFile.toPath()));
+        }
+        return compileAndLoadSources(sources, check, classFileCheck, failures);
+    }
 
-        if (result != 0) {
-            throw new IllegalStateException("Compilation failed for: " + javaFile.getName());
+    /**
+     * Compiles sources that were read before in batches and loads the
+     * resulting classes, as {@link #compileAndLoadAll} does for files.
+     * 
+     * @param sources the sources to compile
+     * @param check the check to run on the parsed sources, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @param failures receives the files that failed, with the reason
+     * @return the loaded classes by source file, for the files that did not fail
+     * @throws IOException if a class file cannot be written
+     * @throws IllegalArgumentException if sources or failures is null, or sources contains null or a non-Java file
+     */
+    public Map<File, Class<?>> compileAndLoadSources(List<MappedSourceFile> sources, SourceTreeCheck check,
+                                                     ClassFileCheck classFileCheck, Map<File, Exception> failures)
+            throws IOException {
+        if (sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null");
+        }
+        if (failures == null) {
+            throw new IllegalArgumentException("Failures cannot be null");
+        }
+        Map<File, List<MappedSourceFile>> byDirectory = new LinkedHashMap<>();
+        for (MappedSourceFile source : sources) {
+            if (source == null || !source.getFile().getName().endsWith(".java")) {
+                throw new IllegalArgumentException("Source must be read from a Java source file (.java): " + source);
+            }
+            byDirectory.computeIfAbsent(source.getFile().getAbsoluteFile().getParentFile(), dir -> new ArrayList<>())
+                .add(source);
+        }
+
+        Map<File, Class<?>> classes = new LinkedHashMap<>();
+        for (Map.Entry<File, List<MappedSourceFile>> directory : byDirectory.entrySet()) {
+            File classDir = outputDirectory == null ? directory.getKey() : classDirectory(directory.getValue().get(0).getFile());
+            List<MappedSourceFile> stale = new ArrayList<>();
+            for (MappedSourceFile source : directory.getValue()) {
+                if (outputDirectory != null && isUpToDate(source.getFile(), classDir, source.digest(), classFileCheck)) {
+                    upToDate.increment();
+                } else {
+                    stale.add(source);
+                }
+            }
+
+            Map<File, RuntimeException> rejected = Map.of();
+            if (!stale.isEmpty()) {
+                Files.createDirectories(classDir.toPath());
+                Map<File, List<File>> generated = new HashMap<>();
+                rejected = Javac.compileAll(stale, classDir, check, classFileCheck, generated);
+                failures.putAll(rejected);
+                compiled.add(stale.size() - rejected.size());
+                if (outputDirectory != null) {
+                    for (MappedSourceFile source : stale) {
+                        File javaFile = source.getFile();
+                        if (!rejected.containsKey(javaFile)) {
+                            BuildManifest.of(source.digest(), fingerprint, classDir,
+                                generated.getOrDefault(javaFile, List.of())).write(manifestFile(javaFile, classDir));
+                        }
+                    }
+                }
+            }
+            for (MappedSourceFile source : directory.getValue()) {
+                File javaFile = source.getFile();
+                if (rejected.containsKey(javaFile)) {
+                    continue;
+                }
+                try {
+                    classes.put(javaFile, load(javaFile, classDir));
+                } catch (Exception | LinkageError e) {
+                    failures.put(javaFile, e instanceof Exception exception ? exception : new IllegalStateException(e));
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Compiles Java source files into a classes directory without loading
+     * them, as a build does before packaging the classes.
+     * 
+     * All files are compiled by one javac task, with class files laid out by
+     * package under the directory. A file that fails to compile, or is
+     * rejected by a check, does not fail the others; it is reported in
+     * {@code failures} instead.
+     * 
+     * @param javaFiles the Java source files to compile
+     * @param classesDirectory the directory to write class files to
+     * @param check the check to run on the parsed sources, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @param failures receives the files that failed, with the reason
+     * @return the generated class files by source file, for the files that did not fail
+     * @throws IOException if a source cannot be read or a class file written
+     * @throws IllegalArgumentException if an argument other than a check is null, or a file is not an existing Java source file
+     */
+    public Map<File, List<File>> compileTo(List<File> javaFiles, Path classesDirectory, SourceTreeCheck check,
+                                           ClassFileCheck classFileCheck, Map<File, Exception> failures) throws IOException {
+        if (javaFiles == null) {
+            throw new IllegalArgumentException("Java files cannot be null");
+        }
+        if (classesDirectory == null) {
+            throw new IllegalArgumentException("Classes directory cannot be null");
+        }
+        if (failures == null) {
+            throw new IllegalArgumentException("Failures cannot be null");
+        }
+        for (File javaFile : javaFiles) {
+            if (javaFile == null || !javaFile.exists()) {
+                throw new IllegalArgumentException("Java file does not exist: " + javaFile);
+            }
+            if (!javaFile.getName().endsWith(".java")) {
+                throw new IllegalArgumentException("File must be a Java source file (.java): " + javaFile.getName());
+            }
         }
 
-        File dir = javaFile.getParentFile();
-        URLClassLoader classLoader = URLClassLoader.newInstance(new URL[]{dir.toURI().toURL()});
+        List<MappedSourceFile> sources = new ArrayList<>();
+        for (File javaFile : javaFiles) {
+            sources.add(MappedSourceFile.map(javaFile.toPath()));
+        }
+        Files.createDirectories(classesDirectory);
+        Map<File, List<File>> generated = new LinkedHashMap<>();
+        failures.putAll(Javac.compileAll(sources, classesDirectory.toFile(), check, classFileCheck, generated));
+        compiled.add(generated.size());
+        return generated;
+    }
+
+    /**
+     * Returns statistics about the up-to-date checks of this compiler.
+     * 
+     * A compiler without an output directory compiles every file, so all
+     * its files count as compiled.
+     * 
+     * @return the current build statistics
+     */
+    public BuildStats getBuildStats() {
+        return new BuildStats(upToDate.sum(), compiled.sum());
+    }
+
+    /**
+     * Returns whether the recorded output of a source can be loaded as it is:
+     * the manifest matches the source and this compiler, every class file
+     * still has its recorded digest, and every class file passes the check.
+     */
+    private boolean isUpToDate(File javaFile, File classDir, String sourceDigest, ClassFileCheck classFileCheck) {
+        BuildManifest manifest = BuildManifest.read(manifestFile(javaFile, classDir));
+        if (manifest == null || !manifest.matches(sourceDigest, fingerprint)) {
+            return false;
+        }
+        List<byte[]> classFiles = manifest.readClassFiles(classDir);
+        if (classFiles == null) {
+            return false;
+        }
+        if (classFileCheck != null) {
+            try {
+                for (byte[] classFile : classFiles) {
+                    classFileCheck.check(classFile);
+                }
+            } catch (RuntimeException e) {
+                // Compiling again reports the rejection the usual way
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the directory that holds the class files of the sources in the
+     * same directory as the given one. Source directories with the same name
+     * get different output directories.
+     */
+    private File classDirectory(File javaFile) {
+        File sourceDir = javaFile.getAbsoluteFile().getParentFile();
+        String pathDigest = BuildManifest.digest(sourceDir.getPath().getBytes(StandardCharsets.UTF_8));
+        return new File(outputDirectory, sourceDir.getName() + "-" + pathDigest.substring(0, 16));
+    }
+
+    private static File manifestFile(File javaFile, File classDir) {
+        return new File(classDir, javaFile.getName().replace(".java", ".manifest"));
+    }
+
+    /**
+     * Loads the class compiled from a source file, in a class loader of its own.
+     */
+    private static Class<?> load(File javaFile, File classDir) throws Exception {
+        URLClassLoader classLoader = URLClassLoader.newInstance(new URL[]{classDir.toURI().toURL()});
         String className = javaFile.getName().replace(".java", "");
 
         return Class.forName(className, true, classLoader);
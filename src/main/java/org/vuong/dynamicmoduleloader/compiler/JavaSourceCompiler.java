@@ -1,6 +1,5 @@
 package org.vuong.dynamicmoduleloader.compiler;
 
-import javax.tools.*;
 import java.io.*;
 import java.net.*;
 import java.nio.file.*;
@@ -8,7 +7,7 @@ import java.util.*;
 
 /**
  * Compiler for Java source code provided as strings.
- *
+ * 
  * This compiler takes Java source code as a string and compiles it into
  * a Class object that can be loaded and instantiated. It uses the system
  * Java compiler and creates temporary files for compilation.
@@ -40,6 +39,42 @@ public class JavaSourceCompiler {
      * @throws IllegalArgumentException if className or javaSource is null or empty
      */
     public Class<?> compileFromText(String className, String javaSource) throws Exception {
+        return compileFromText(className, javaSource, null);
+    }
+
+    /**
+     * Compiles Java source code from a string into a Class object, running a
+     * check on the parsed source before any bytecode is generated.
+     * 
+     * The check sees the trees javac has already parsed for this compilation,
+     * so it adds no second parse of the source.
+     * 
+     * @param className the name of the class to compile
+     * @param javaSource the Java source code as a string
+     * @param check the check to run on the parsed source, may be null
+     * @return the compiled Class object
+     * @throws Exception if compilation fails or the class cannot be loaded
+     * @throws IllegalArgumentException if className or javaSource is null or empty
+     */
+    public Class<?> compileFromText(String className, String javaSource, SourceTreeCheck check) throws Exception {
+        return compileFromText(className, javaSource, check, null);
+    }
+
+    /**
+     * Compiles Java source code from a string into a Class object, running a
+     * check on the parsed source and another on every generated class file
+     * before anything is loaded.
+     * 
+     * @param className the name of the class to compile
+     * @param javaSource the Java source code as a string
+     * @param check the check to run on the parsed source, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the compiled Class object
+     * @throws Exception if compilation fails or the class cannot be loaded
+     * @throws IllegalArgumentException if className or javaSource is null or empty
+     */
+    public Class<?> compileFromText(String className, String javaSource, SourceTreeCheck check,
+                                    ClassFileCheck classFileCheck) throws Exception {
         if (className == null || className.trim().isEmpty()) {
             throw new IllegalArgumentException("Class name cannot be null or empty");
         }
@@ -50,36 +85,76 @@ public class JavaSourceCompiler {
         Path tempDir = Files.createTempDirectory("dyn-compiler-");
         try {
             Path sourceFile = tempDir.resolve(className + ".java");
-            Files.write(sourceFile, javaSource.getBytes());
-
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            if (compiler == null) {
-                throw new IllegalStateException("No system Java compiler. Ensure tests run on a JDK, not a JRE.");
-            }
+            Files.writeString(sourceFile, javaSource);
 
-            int result = compiler.run(null, null, null, sourceFile.toString());
-            if (result != 0) {
-                throw new IllegalStateException("Compilation failed for " + sourceFile.getFileName());
-            }
+            Javac.compile(MappedSourceFile.map(sourceFile), tempDir.toFile(), check, classFileCheck);
 
             URLClassLoader classLoader = URLClassLoader.newInstance(new URL[]{tempDir.toUri().toURL()});
             return Class.forName(className, true, classLoader);
         } finally {
-            // Clean up temporary directory
-            try {
-                Files.walk(tempDir)
-                    .sorted(Comparator.reverseOrder())
-                    .forEach(path -> {
-                        try {
-                            Files.deleteIfExists(path);
-                        } catch (IOException e) {
-                            // Log warning but don't fail
-                            System.err.println("Warning: Could not delete temporary file: " + path);
-                        }
-                    });
-            } catch (IOException e) {
-                System.err.println("Warning: Could not clean up temporary directory: " + tempDir);
-            }
+            deleteTemporaryDirectory(tempDir);
+        }
+    }
+
+    /**
+     * Compiles Java source code from a string into class files in a given
+     * directory, against the host class path and the given entries.
+     * 
+     * Nothing is loaded. The source of a class in a package is laid out
+     * under its package, so javac accepts it, and deleted afterwards.
+     * 
+     * @param className the binary name of the class to compile
+     * @param javaSource the Java source code as a string
+     * @param outputDirectory the directory to write class files to
+     * @param classPath additional class path entries, e.g. the classes of other plugins
+     * @param check the check to run on the parsed source, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the generated class files
+     * @throws IOException if the source cannot be written or the class files cannot be
+     * @throws IllegalStateException if the source does not compile
+     * @throws IllegalArgumentException if className or javaSource is null or empty, or outputDirectory or classPath is null
+     */
+    public List<File> compileTo(String className, String javaSource, Path outputDirectory, List<Path> classPath,
+                                SourceTreeCheck check, ClassFileCheck classFileCheck) throws IOException {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Class name cannot be null or empty");
+        }
+        if (javaSource == null || javaSource.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java source cannot be null or empty");
+        }
+        if (outputDirectory == null || classPath == null) {
+            throw new IllegalArgumentException("Output directory and class path cannot be null");
+        }
+
+        List<String> entries = new ArrayList<>(List.of(System.getProperty("java.class.path")));
+        classPath.forEach(entry -> entries.add(entry.toAbsolutePath().toString()));
+        Path tempDir = Files.createTempDirectory("dyn-compiler-");
+        try {
+            Path sourceFile = tempDir.resolve(className.replace('.', File.separatorChar) + ".java");
+            Files.createDirectories(sourceFile.getParent());
+            Files.writeString(sourceFile, javaSource);
+            Files.createDirectories(outputDirectory);
+            return Javac.compile(MappedSourceFile.map(sourceFile), outputDirectory.toFile(),
+                String.join(File.pathSeparator, entries), check, classFileCheck);
+        } finally {
+            deleteTemporaryDirectory(tempDir);
+        }
+    }
+
+    private static void deleteTemporaryDirectory(Path tempDir) {
+        try {
+            Files.walk(tempDir)
+                .sorted(Comparator.reverseOrder())
+                .forEach(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        // Log warning but don't fail
+                        System.err.println("Warning: Could not delete temporary file: " + path);
+                    }
+                });
+        } catch (IOException e) {
+            System.err.println("Warning: Could not clean up temporary directory: " + tempDir);
         }
     }
 }
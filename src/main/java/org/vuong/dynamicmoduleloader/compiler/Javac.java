@@ -0,0 +1,312 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the system Java compiler as separate parse and generate steps so a
+ * {@link SourceTreeCheck} can inspect the parsed trees in between.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class Javac {
+
+    /**
+     * The compiler options every compilation uses, besides the output directory.
+     */
+    static final List<String> OPTIONS = List.of("-proc:none");
+
+    private Javac() {
+        // static helpers only
+    }
+
+    /**
+     * Compiles one source file into the given output directory.
+     * 
+     * Annotation processing is disabled, so no code from the classpath runs
+     * while untrusted sources are compiled.
+     * 
+     * @param source the mapped source file to compile
+     * @param outputDir the directory to write class files to
+     * @param check the check to run on the parsed trees, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the generated class files
+     * @throws IllegalStateException if the source does not compile
+     * @throws IOException if the source cannot be read or the output written
+     */
+    static List<File> compile(MappedSourceFile source, File outputDir, SourceTreeCheck check, ClassFileCheck classFileCheck)
+            throws IOException {
+        return compile(source, outputDir, null, check, classFileCheck);
+    }
+
+    /**
+     * Compiles one source file into the given output directory, against the
+     * given class path instead of the default one.
+     * 
+     * @param source the mapped source file to compile
+     * @param outputDir the directory to write class files to
+     * @param classPath the class path to compile against, or null for the default
+     * @param check the check to run on the parsed trees, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @return the generated class files
+     * @throws IllegalStateException if the source does not compile
+     * @throws IOException if the source cannot be read or the output written
+     */
+    static List<File> compile(MappedSourceFile source, File outputDir, String classPath, SourceTreeCheck check,
+                              ClassFileCheck classFileCheck) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler. Ensure tests run on a JDK, not a JRE.");
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            File sourceFile = source.getFile();
+            List<String> options = options(outputDir);
+            if (classPath != null) {
+                options.addAll(List.of("-classpath", classPath));
+            }
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null, List.of(source));
+
+            Iterable<? extends CompilationUnitTree> units = task.parse();
+            failOnErrors(sourceFile, diagnostics);
+            if (check != null) {
+                for (CompilationUnitTree unit : units) {
+                    check.check(task, unit);
+                }
+            }
+
+            Iterable<? extends JavaFileObject> generated = task.generate();
+            failOnErrors(sourceFile, diagnostics);
+            if (classFileCheck != null) {
+                checkClassFiles(generated, classFileCheck);
+            }
+            List<File> classFiles = new ArrayList<>();
+            for (JavaFileObject classFile : generated) {
+                classFiles.add(new File(classFile.toUri()));
+            }
+            return classFiles;
+        }
+    }
+
+    /**
+     * Compiles source files of one directory together, in as few javac tasks
+     * as their failures allow.
+     * 
+     * All files are parsed, checked and generated by one task. A file that
+     * fails to compile, or is rejected by a check, is reported and the others
+     * are compiled again without it, so one bad file does not fail the rest.
+     * Class files are only left in the output directory for the files that
+     * were accepted. Files compiled again are not read again.
+     * 
+     * @param sources the mapped source files to compile
+     * @param outputDir the directory to write class files to
+     * @param check the check to run on the parsed trees, may be null
+     * @param classFileCheck the check to run on each generated class file, may be null
+     * @param generated receives the class files generated for each accepted file, may be null
+     * @return the files that failed, with the reason; files not in it compiled
+     * @throws IOException if a source cannot be read or the output written
+     */
+    static Map<File, RuntimeException> compileAll(List<MappedSourceFile> sources, File outputDir, SourceTreeCheck check,
+                                                  ClassFileCheck classFileCheck, Map<File, List<File>> generated)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler. Ensure tests run on a JDK, not a JRE.");
+        }
+
+        Map<File, RuntimeException> failures = new LinkedHashMap<>();
+        List<MappedSourceFile> remaining = new ArrayList<>(sources);
+        while (!remaining.isEmpty()) {
+            Map<File, RuntimeException> rejected = compileOnce(compiler, remaining, outputDir, check, classFileCheck, generated);
+            if (rejected.isEmpty()) {
+                break;
+            }
+            failures.putAll(rejected);
+            remaining.removeIf(source -> rejected.containsKey(source.getFile()));
+        }
+        return failures;
+    }
+
+    /**
+     * Runs one javac task over all the files, returning the files that must
+     * be left out. Nothing is generated, or everything generated is deleted,
+     * unless every file is accepted, in which case the class files are
+     * added to {@code generatedBySource} by the file they came from.
+     */
+    private static Map<File, RuntimeException> compileOnce(JavaCompiler compiler, List<MappedSourceFile> objects, File outputDir,
+                                                           SourceTreeCheck check, ClassFileCheck classFileCheck,
+                                                           Map<File, List<File>> generatedBySource) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            Map<URI, File> sources = new HashMap<>();
+            List<File> sourceFiles = new ArrayList<>();
+            for (MappedSourceFile object : objects) {
+                sources.put(object.toUri(), object.getFile());
+                sourceFiles.add(object.getFile());
+            }
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options(outputDir), null, objects);
+
+            Iterable<? extends CompilationUnitTree> units = task.parse();
+            Map<File, RuntimeException> rejected = errorsBySource(diagnostics, sources, sourceFiles);
+            // Top-level types by binary name, to trace a rejected class file back to its source
+            Map<String, File> sourceOfType = new HashMap<>();
+            for (CompilationUnitTree unit : units) {
+                File sourceFile = sources.get(unit.getSourceFile().toUri());
+                if (rejected.containsKey(sourceFile)) {
+                    continue;
+                }
+                try {
+                    if (check != null) {
+                        check.check(task, unit);
+                    }
+                } catch (RuntimeException e) {
+                    rejected.put(sourceFile, e);
+                    continue;
+                }
+                String prefix = unit.getPackageName() == null ? "" : unit.getPackageName().toString().replace('.', '/') + "/";
+                for (Tree type : unit.getTypeDecls()) {
+                    if (type instanceof ClassTree classTree) {
+                        sourceOfType.put(prefix + classTree.getSimpleName(), sourceFile);
+                    }
+                }
+            }
+            if (!rejected.isEmpty()) {
+                return rejected;
+            }
+
+            List<JavaFileObject> generated = new ArrayList<>();
+            task.generate().forEach(generated::add);
+            rejected = errorsBySource(diagnostics, sources, sourceFiles);
+            Path output = outputDir.toPath().toAbsolutePath();
+            if (rejected.isEmpty() && classFileCheck != null) {
+                for (JavaFileObject classFile : generated) {
+                    try (InputStream in = classFile.openInputStream()) {
+                        classFileCheck.check(in.readAllBytes());
+                    } catch (RuntimeException e) {
+                        File sourceFile = sourceOfType.get(topLevelType(output, classFile));
+                        if (sourceFile == null) {
+                            // Cannot tell which file it came from, so none of them is trusted
+                            for (File file : sourceFiles) {
+                                rejected.putIfAbsent(file, e);
+                            }
+                        } else {
+                            rejected.putIfAbsent(sourceFile, e);
+                        }
+                    }
+                }
+            }
+            if (!rejected.isEmpty()) {
+                for (JavaFileObject classFile : generated) {
+                    classFile.delete();
+                }
+            } else if (generatedBySource != null) {
+                for (JavaFileObject classFile : generated) {
+                    File sourceFile = sourceOfType.get(topLevelType(output, classFile));
+                    // A class file that cannot be traced is needed by every file of the batch
+                    for (File file : sourceFile == null ? sourceFiles : List.of(sourceFile)) {
+                        generatedBySource.computeIfAbsent(file, ignored -> new ArrayList<>()).add(new File(classFile.toUri()));
+                    }
+                }
+            }
+            return rejected;
+        }
+    }
+
+    private static List<String> options(File outputDir) {
+        List<String> options = new ArrayList<>(List.of("-d", outputDir.getPath()));
+        options.addAll(OPTIONS);
+        return options;
+    }
+
+    /**
+     * Returns the binary name of the top-level type a class file in the
+     * output directory belongs to.
+     */
+    private static String topLevelType(Path output, JavaFileObject classFile) {
+        String name = output.relativize(Path.of(classFile.toUri())).toString().replace(File.separatorChar, '/');
+        int end = name.indexOf('$') >= 0 ? name.indexOf('$') : name.length() - ".class".length();
+        return name.substring(0, end);
+    }
+
+    /**
+     * Collects the errors reported so far by source file. An error that
+     * belongs to no file is reported for all of them.
+     */
+    private static Map<File, RuntimeException> errorsBySource(DiagnosticCollector<JavaFileObject> diagnostics,
+                                                              Map<URI, File> sources, List<File> sourceFiles) {
+        Map<File, StringBuilder> errors = new LinkedHashMap<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            File sourceFile = diagnostic.getSource() == null ? null : sources.get(diagnostic.getSource().toUri());
+            for (File file : sourceFile == null ? sourceFiles : List.of(sourceFile)) {
+                errors.computeIfAbsent(file, ignored -> new StringBuilder())
+                    .append(System.lineSeparator())
+                    .append("line ").append(diagnostic.getLineNumber()).append(": ")
+                    .append(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        Map<File, RuntimeException> rejected = new LinkedHashMap<>();
+        errors.forEach((file, message) ->
+            rejected.put(file, new IllegalStateException("Compilation failed for " + file.getName() + message)));
+        return rejected;
+    }
+
+    /**
+     * Runs the check on every generated class file, deleting all of them if
+     * any is rejected so a rejected class can never be loaded.
+     */
+    private static void checkClassFiles(Iterable<? extends JavaFileObject> generated, ClassFileCheck check)
+            throws IOException {
+        try {
+            for (JavaFileObject classFile : generated) {
+                try (InputStream in = classFile.openInputStream()) {
+                    check.check(in.readAllBytes());
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            for (JavaFileObject classFile : generated) {
+                classFile.delete();
+            }
+            throw e;
+        }
+    }
+
+    private static void failOnErrors(File sourceFile, DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(System.lineSeparator())
+                    .append("line ").append(diagnostic.getLineNumber()).append(": ")
+                    .append(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        if (errors.length() > 0) {
+            throw new IllegalStateException("Compilation failed for " + sourceFile.getName() + errors);
+        }
+    }
+}
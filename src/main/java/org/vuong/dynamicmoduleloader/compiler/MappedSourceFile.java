@@ -0,0 +1,208 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A Java source file that is read from disk once and shared by everything
+ * that needs its content.
+ * 
+ * The file is memory-mapped and read in one pass that computes the content
+ * digest and decodes the source into a single {@link CharBuffer}, so its
+ * bytes are never copied onto the heap as a whole. The mapping is dropped
+ * after that pass: the digest and the characters are a snapshot of the same
+ * bytes, and a file rewritten or truncated later changes neither. javac
+ * parses the buffer in place, and security checks that read the source of a
+ * parsed unit see the same buffer, so the file is neither read nor copied
+ * again however often its content is used, including when a batch is
+ * compiled again without a rejected file.
+ * 
+ * Sources are decoded as UTF-8, as the other compilers of this package do.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class MappedSourceFile extends SimpleJavaFileObject {
+
+    private static final int DECODE_CHUNK_BYTES = 8192;
+
+    private final File file;
+    private final int size;
+    private final String digest;
+    private final CharBuffer chars;
+    // The length of the first malformed sequence, replaced in chars, or zero if the source is valid UTF-8
+    private final int malformedLength;
+
+    private MappedSourceFile(File file, int size, String digest, CharBuffer chars, int malformedLength) {
+        super(file.toURI(), JavaFileObject.Kind.SOURCE);
+        this.file = file;
+        this.size = size;
+        this.digest = digest;
+        this.chars = chars;
+        this.malformedLength = malformedLength;
+    }
+
+    /**
+     * Maps a Java source file into memory, and digests and decodes it.
+     * 
+     * @param file the source file
+     * @return the source, as its content was while it was read
+     * @throws IOException if the file cannot be opened, mapped or read, e.g. because it was truncated meanwhile
+     * @throws IllegalArgumentException if file is null
+     */
+    public static MappedSourceFile map(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Source file cannot be null");
+        }
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(file.toFile(), bytes);
+        } catch (InternalError e) {
+            // A mapped page that is gone, because the file was truncated, faults as an InternalError
+            throw new IOException("Source file changed while it was read: " + file, e);
+        }
+    }
+
+    /**
+     * Digests and decodes the mapping through a small heap chunk, since
+     * decoders only take their fast path on heap buffers. UTF-8 never
+     * decodes to more characters than it has bytes, so the result is sized
+     * up front. Malformed input is replaced, and its length kept to report it.
+     */
+    private static MappedSourceFile read(File file, ByteBuffer bytes) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = bytes.duplicate();
+        ByteBuffer chunk = ByteBuffer.allocate(DECODE_CHUNK_BYTES);
+        CharBuffer out = CharBuffer.allocate(bytes.capacity());
+        int malformedLength = 0;
+        boolean endOfInput;
+        do {
+            int length = Math.min(chunk.remaining(), in.remaining());
+            chunk.put(in.slice(in.position(), length));
+            in.position(in.position() + length);
+            sha.update(chunk.array(), chunk.position() - length, length);
+            chunk.flip();
+            endOfInput = !in.hasRemaining();
+            CoderResult result = decoder.decode(chunk, out, endOfInput);
+            while (result.isError()) {
+                if (malformedLength == 0) {
+                    malformedLength = result.length();
+                }
+                out.put(decoder.replacement());
+                chunk.position(chunk.position() + result.length());
+                result = decoder.decode(chunk, out, endOfInput);
+            }
+            // Keeps the bytes of a character split across chunks
+            chunk.compact();
+        } while (!endOfInput);
+        decoder.flush(out);
+        return new MappedSourceFile(file, bytes.capacity(), HexFormat.of().formatHex(sha.digest()), out.flip(),
+            malformedLength);
+    }
+
+    /**
+     * Returns the file this source was mapped from, as it was given.
+     * 
+     * @return the source file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the size of the source in bytes.
+     * 
+     * @return the size of the file when it was mapped
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hex SHA-256 digest of the bytes of the source, computed
+     * from the same bytes its characters were decoded from.
+     * 
+     * @return the content digest
+     */
+    public String digest() {
+        return digest;
+    }
+
+    /**
+     * Returns the characters of the source. Every call returns a new view of
+     * the same characters, which javac reads in place.
+     * 
+     * @param ignoreEncodingErrors whether malformed input is replaced rather than reported
+     * @return the characters of the source
+     * @throws IOException if the source is not valid UTF-8 and errors are not ignored
+     */
+    @Override
+    public CharBuffer getCharContent(boolean ignoreEncodingErrors) throws IOException {
+        if (malformedLength > 0 && !ignoreEncodingErrors) {
+            throw new MalformedInputException(malformedLength);
+        }
+        return chars.duplicate();
+    }
+
+    /**
+     * Opens the characters of the source encoded as UTF-8, which are the
+     * bytes of the file unless it had malformed input.
+     * 
+     * @return a stream of the encoded source
+     */
+    @Override
+    public InputStream openInputStream() {
+        ByteBuffer content = StandardCharsets.UTF_8.encode(chars.duplicate());
+        return new InputStream() {
+            @Override
+            public int read() {
+                return content.hasRemaining() ? content.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!content.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, content.remaining());
+                content.get(buffer, offset, count);
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public long getLastModified() {
+        return file.lastModified();
+    }
+}
@@ -0,0 +1,28 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+
+/**
+ * A check that runs on the syntax tree of a source after javac has parsed it
+ * and before any bytecode is generated.
+ * 
+ * The tree comes from the same {@link JavacTask} that goes on to compile the
+ * source, so the check and the compilation share one parse. Throwing from
+ * {@link #check(JavacTask, CompilationUnitTree)} aborts the compilation.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+@FunctionalInterface
+public interface SourceTreeCheck {
+
+    /**
+     * Checks one parsed compilation unit.
+     * 
+     * @param task the task that parsed the unit, e.g. for {@code Trees.instance(task)}
+     * @param unit the parsed compilation unit
+     * @throws RuntimeException to reject the source and stop compilation
+     */
+    void check(JavacTask task, CompilationUnitTree unit);
+}
@@ -10,24 +10,38 @@ import java.io.Serializable;
  * along with metadata about the plugin such as its name and the actual
  * Class object that can be instantiated.
  * 
+ * A plugin may also be created lazily from a {@link PluginSource}. Its class
+ * is then compiled or defined on the first call to {@link #getPluginClass()},
+ * exactly once even under concurrent first access.
+ * 
  * @author Dynamic Module Loader
  * @since 0.0.1-SNAPSHOT
  */
 @Setter
 @Getter
 public class Plugin implements Serializable {
-    
+
     /**
      * The name of the plugin, typically derived from the class name.
      * This name is used for registry lookups and plugin management.
      */
     private final String name;
-    
+
     /**
      * The compiled Class object representing this plugin.
      * This can be used to instantiate the plugin or access its methods.
+     * Null until a lazy plugin has been resolved.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Class<?> pluginClass;
+
+    /**
+     * The deferred source of a lazy plugin, or null for an eagerly loaded plugin.
      */
-    private final Class<?> pluginClass;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final transient PluginSource source;
 
     /**
      * Creates a new Plugin instance.
@@ -45,5 +59,117 @@ public class Plugin implements Serializable {
         }
         this.name = name;
         this.pluginClass = pluginClass;
+        this.source = null;
+    }
+
+    /**
+     * Creates a new, already loaded Plugin instance that keeps its source so
+     * the class can be released with {@link #unload()} and loaded again later.
+     * 
+     * @param name the name of the plugin
+     * @param pluginClass the compiled Class object for this plugin
+     * @param source the source to reload the plugin class from
+     * @throws IllegalArgumentException if name, pluginClass or source is null
+     */
+    public Plugin(String name, Class<?> pluginClass, PluginSource source) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+        if (pluginClass == null) {
+            throw new IllegalArgumentException("Plugin class cannot be null");
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("Plugin source cannot be null");
+        }
+        this.name = name;
+        this.pluginClass = pluginClass;
+        this.source = source;
+    }
+
+    /**
+     * Creates a new lazy Plugin instance whose class is loaded on first access.
+     * 
+     * @param name the name of the plugin
+     * @param source the deferred source of the plugin class
+     * @throws IllegalArgumentException if name or source is null
+     */
+    public Plugin(String name, PluginSource source) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("Plugin source cannot be null");
+        }
+        this.name = name;
+        this.source = source;
+    }
+
+    /**
+     * Returns the compiled Class object of this plugin, loading it from its
+     * source first if this is a lazy plugin that has not been resolved yet.
+     * 
+     * @return the plugin class
+     * @throws IllegalStateException if the plugin class cannot be loaded
+     */
+    public Class<?> getPluginClass() {
+        Class<?> resolved = pluginClass;
+        if (resolved != null) {
+            return resolved;
+        }
+        synchronized (this) {
+            if (pluginClass == null) {
+                if (source == null) {
+                    throw new IllegalStateException("Plugin has no source to load from: " + name);
+                }
+                Class<?> loaded;
+                try {
+                    loaded = source.load();
+                } catch (Exception | LinkageError e) {
+                    // LinkageError covers a static initializer or class file that fails while loading
+                    throw new IllegalStateException("Failed to load plugin: " + name, e);
+                }
+                if (loaded == null) {
+                    throw new IllegalStateException("Plugin source returned no class: " + name);
+                }
+                pluginClass = loaded;
+            }
+            return pluginClass;
+        }
+    }
+
+    /**
+     * Returns whether the plugin class has been loaded.
+     * 
+     * @return true if the class is available without compiling, false otherwise
+     */
+    public boolean isResolved() {
+        return pluginClass != null;
+    }
+
+    /**
+     * Returns whether this plugin keeps a source it can be (re)loaded from.
+     * 
+     * @return true for a lazy or reloadable plugin, false otherwise
+     */
+    public boolean isReloadable() {
+        return source != null;
+    }
+
+    /**
+     * Releases the loaded class of a reloadable plugin.
+     * 
+     * Once no other references to the class remain, its class loader and
+     * metaspace can be reclaimed. The next {@link #getPluginClass()} loads
+     * the class again from the retained source.
+     * 
+     * @return true if the class was released, false if the plugin is not
+     *         reloadable or not loaded
+     */
+    public synchronized boolean unload() {
+        if (source == null || pluginClass == null) {
+            return false;
+        }
+        pluginClass = null;
+        return true;
     }
 }
@@ -0,0 +1,102 @@
+package org.vuong.dynamicmoduleloader.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered change set of plugin registrations and removals.
+ * 
+ * A batch is applied to a {@link PluginRegistry} in a single call. Registering
+ * a plugin under an existing name replaces it. Operations are applied in the
+ * order they were added, so a later operation on the same name wins.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginBatch {
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Creates a new, empty PluginBatch.
+     */
+    public PluginBatch() {
+        // default constructor
+    }
+
+    /**
+     * Adds a registration (or replacement) of the given plugin to this batch.
+     * 
+     * @param plugin the plugin to register
+     * @return this batch
+     * @throws IllegalArgumentException if plugin is null
+     */
+    public PluginBatch register(Plugin plugin) {
+        if (plugin == null) {
+            throw new IllegalArgumentException("Plugin cannot be null");
+        }
+        operations.add(new Operation(plugin.getName(), plugin));
+        return this;
+    }
+
+    /**
+     * Adds a removal of the named plugin to this batch.
+     * 
+     * @param name the name of the plugin to remove
+     * @return this batch
+     * @throws IllegalArgumentException if name is null or empty
+     */
+    public PluginBatch remove(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+        operations.add(new Operation(name, null));
+        return this;
+    }
+
+    /**
+     * Returns the operations of this batch in application order.
+     * 
+     * @return an unmodifiable view of the operations
+     */
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Returns the number of operations in this batch.
+     * 
+     * @return the number of operations
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Returns whether this batch contains no operations.
+     * 
+     * @return true if the batch is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * A single registration or removal.
+     * 
+     * @param name the plugin name the operation applies to
+     * @param plugin the plugin to register, or null for a removal
+     */
+    public record Operation(String name, Plugin plugin) {
+
+        /**
+         * Returns whether this operation removes a plugin.
+         * 
+         * @return true for a removal, false for a registration
+         */
+        public boolean isRemoval() {
+            return plugin == null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.vuong.dynamicmoduleloader.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A reference-counted hold on one registered version of a plugin.
+ * 
+ * A registry creates one lease per registration and hands the same instance
+ * to every caller that acquires it, so acquiring and closing a lease needs
+ * neither locks nor allocation. Every successful acquire must be matched by
+ * exactly one {@link #close()}, typically with try-with-resources:
+ * 
+ * <pre>{@code
+ * try (PluginLease lease = registry.acquire("pricing")) {
+ *     if (lease != null) {
+ *         invoke(lease.getPlugin());
+ *     }
+ * }
+ * }</pre>
+ * 
+ * When the version is replaced or removed, the registry retires the lease.
+ * New acquires then fail, and the retirement callback runs exactly once after
+ * the last outstanding hold is closed, which makes it safe to free pooled
+ * instances, caches or class loaders tied to that version.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class PluginLease implements AutoCloseable {
+
+    private static final int RETIRED = 1 << 30;
+
+    private final Plugin plugin;
+    // Hold count and retired flag share one word so a release and a retirement cannot interleave
+    private final AtomicInteger state = new AtomicInteger();
+    private volatile Consumer<Plugin> onRetired;
+
+    /**
+     * Creates a new lease for one registered version of a plugin.
+     * 
+     * @param plugin the plugin version guarded by this lease
+     * @throws IllegalArgumentException if plugin is null
+     */
+    public PluginLease(Plugin plugin) {
+        if (plugin == null) {
+            throw new IllegalArgumentException("Plugin cannot be null");
+        }
+        this.plugin = plugin;
+    }
+
+    /**
+     * Returns the plugin version guarded by this lease.
+     * 
+     * @return the plugin
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * Adds a hold unless the lease has been retired.
+     * 
+     * Intended for registry implementations; callers use
+     * {@link PluginRegistry#acquire(String)}.
+     * 
+     * @return true if the hold was added, false if the lease is retired
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = state.get();
+            if ((current & RETIRED) != 0) {
+                return false;
+            }
+            if (state.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases one hold. The last release of a retired lease runs its
+     * retirement callback.
+     * 
+     * @throws IllegalStateException if there is no hold to release
+     */
+    @Override
+    public void close() {
+        while (true) {
+            int current = state.get();
+            if ((current & ~RETIRED) == 0) {
+                throw new IllegalStateException("Lease released more often than acquired: " + plugin.getName());
+            }
+            if (state.compareAndSet(current, current - 1)) {
+                if (current - 1 == RETIRED) {
+                    drain();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retires this lease so no new holds can be acquired.
+     * 
+     * Intended for registry implementations. The callback runs exactly once,
+     * immediately if there are no holds, otherwise on the thread that closes
+     * the last hold.
+     * 
+     * @param onRetired the callback to run once the lease has drained, may be null
+     */
+    public void retire(Consumer<Plugin> onRetired) {
+        if (isRetired()) {
+            return;
+        }
+        this.onRetired = onRetired;
+        int previous = state.getAndUpdate(current -> current | RETIRED);
+        if (previous == 0) {
+            drain();
+        }
+    }
+
+    /**
+     * Returns whether this lease has been retired.
+     * 
+     * @return true once the guarded version was replaced or removed
+     */
+    public boolean isRetired() {
+        return (state.get() & RETIRED) != 0;
+    }
+
+    /**
+     * Returns the number of outstanding holds.
+     * 
+     * @return the current hold count
+     */
+    public int getHolders() {
+        return state.get() & ~RETIRED;
+    }
+
+    private void drain() {
+        Consumer<Plugin> callback = onRetired;
+        if (callback != null) {
+            callback.accept(plugin);
+        }
+    }
+}
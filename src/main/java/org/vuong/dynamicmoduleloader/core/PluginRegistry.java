@@ -1,6 +1,15 @@
 package org.vuong.dynamicmoduleloader.core;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Registry interface for managing plugin storage and retrieval.
@@ -67,4 +76,175 @@ public interface PluginRegistry {
      * Removes all plugins from the registry.
      */
     void clear();
+
+    /**
+     * Acquires a lease on the currently registered version of a plugin.
+     * 
+     * The returned lease must be closed exactly once. While it is held, the
+     * version it guards is not retired, even if it is replaced or removed in
+     * the meantime. The default implementation returns a lease that is never
+     * retired; implementations that track versions override it.
+     * 
+     * @param name the name of the plugin to lease
+     * @return an acquired lease, or null if no plugin is registered under the name
+     * @throws IllegalArgumentException if name is null or empty
+     */
+    default PluginLease acquire(String name) {
+        Plugin plugin = getPlugin(name);
+        if (plugin == null) {
+            return null;
+        }
+        PluginLease lease = new PluginLease(plugin);
+        lease.tryAcquire();
+        return lease;
+    }
+
+    /**
+     * Adds a listener that is called once a replaced or removed plugin
+     * version has no outstanding leases left.
+     * 
+     * @param listener the listener to call with the retired plugin
+     * @throws IllegalArgumentException if listener is null
+     * @throws UnsupportedOperationException if the registry does not track versions
+     */
+    default void addRetirementListener(Consumer<Plugin> listener) {
+        throw new UnsupportedOperationException("Plugin retirement is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Applies all operations of the given batch.
+     * 
+     * Implementations that support it apply the batch atomically: concurrent
+     * readers observe either none or all of its changes. The default
+     * implementation applies the operations one by one and is not atomic.
+     * 
+     * @param batch the change set to apply
+     * @return the plugins that were replaced or removed, keyed by name, as they
+     *         were registered before the batch
+     * @throws IllegalArgumentException if batch is null
+     */
+    default Map<String, Plugin> apply(PluginBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Plugin batch cannot be null");
+        }
+        Map<String, Plugin> previous = new LinkedHashMap<>();
+        for (PluginBatch.Operation operation : batch.getOperations()) {
+            Plugin replaced = operation.isRemoval()
+                ? removePlugin(operation.name())
+                : register(operation.plugin());
+            if (replaced != null) {
+                previous.putIfAbsent(operation.name(), replaced);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Registers all given plugins as one batch.
+     * 
+     * @param plugins the plugins to register
+     * @return the plugins that were replaced, keyed by name
+     * @throws IllegalArgumentException if plugins is null or contains null
+     */
+    default Map<String, Plugin> registerAll(Collection<Plugin> plugins) {
+        if (plugins == null) {
+            throw new IllegalArgumentException("Plugins cannot be null");
+        }
+        PluginBatch batch = new PluginBatch();
+        plugins.forEach(batch::register);
+        return apply(batch);
+    }
+
+    /**
+     * Removes all named plugins as one batch.
+     * 
+     * @param names the names of the plugins to remove
+     * @return the removed plugins, keyed by name
+     * @throws IllegalArgumentException if names is null or contains a null or empty name
+     */
+    default Map<String, Plugin> removeAll(Collection<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("Plugin names cannot be null");
+        }
+        PluginBatch batch = new PluginBatch();
+        names.forEach(batch::remove);
+        return apply(batch);
+    }
+
+    /**
+     * Returns all plugins whose class implements the given interface,
+     * directly or through a superclass or superinterface.
+     * 
+     * The default implementation scans all registered plugins; implementations
+     * are encouraged to maintain an index instead.
+     * 
+     * @param iface the interface to look for
+     * @return an immutable set of matching plugins, empty if none match
+     * @throws IllegalArgumentException if iface is null or not an interface
+     */
+    default Set<Plugin> findByInterface(Class<?> iface) {
+        if (iface == null || !iface.isInterface()) {
+            throw new IllegalArgumentException("Type must be a non-null interface");
+        }
+        return filter(type -> type != iface && iface.isAssignableFrom(type));
+    }
+
+    /**
+     * Returns all plugins whose class extends the given class, directly or indirectly.
+     * {@link Object} is not indexed as a superclass and therefore matches nothing.
+     * 
+     * @param superclass the superclass to look for
+     * @return an immutable set of matching plugins, empty if none match
+     * @throws IllegalArgumentException if superclass is null or an interface
+     */
+    default Set<Plugin> findBySuperclass(Class<?> superclass) {
+        if (superclass == null || superclass.isInterface()) {
+            throw new IllegalArgumentException("Type must be a non-null class");
+        }
+        return filter(type -> superclass != Object.class && type != superclass && superclass.isAssignableFrom(type));
+    }
+
+    /**
+     * Returns all plugins whose class carries the given runtime-retained annotation.
+     * 
+     * @param annotationType the annotation to look for
+     * @return an immutable set of matching plugins, empty if none match
+     * @throws IllegalArgumentException if annotationType is null
+     */
+    default Set<Plugin> findByAnnotation(Class<? extends Annotation> annotationType) {
+        if (annotationType == null) {
+            throw new IllegalArgumentException("Annotation type cannot be null");
+        }
+        return filter(type -> type.isAnnotationPresent(annotationType));
+    }
+
+    /**
+     * Returns all plugins whose class exposes a public instance method with the
+     * given name and exact parameter types. Methods declared by {@link Object}
+     * are not considered.
+     * 
+     * @param methodName the method name to look for
+     * @param parameterTypes the exact parameter types of the method
+     * @return an immutable set of matching plugins, empty if none match
+     * @throws IllegalArgumentException if methodName is null or empty
+     */
+    default Set<Plugin> findByMethod(String methodName, Class<?>... parameterTypes) {
+        if (methodName == null || methodName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Method name cannot be null or empty");
+        }
+        return filter(type -> {
+            try {
+                Method method = type.getMethod(methodName, parameterTypes);
+                return method.getDeclaringClass() != Object.class && !Modifier.isStatic(method.getModifiers());
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        });
+    }
+
+    private Set<Plugin> filter(Predicate<Class<?>> predicate) {
+        return getAllPlugins().stream()
+            .filter(plugin -> predicate.test(plugin.getPluginClass()))
+            .collect(Collectors.toUnmodifiableSet());
+    }
 }
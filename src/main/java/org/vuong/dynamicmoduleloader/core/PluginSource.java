@@ -0,0 +1,24 @@
+package org.vuong.dynamicmoduleloader.core;
+
+/**
+ * Deferred source of a plugin class.
+ * 
+ * A PluginSource holds everything needed to produce a plugin class later,
+ * typically validated Java source or a reference to compiled bytecode. It is
+ * used by lazily resolved {@link Plugin} instances, which invoke it at most
+ * once per resolution.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+@FunctionalInterface
+public interface PluginSource {
+
+    /**
+     * Compiles or defines the plugin class.
+     * 
+     * @return the loaded plugin class, never null
+     * @throws Exception if the class cannot be compiled or loaded
+     */
+    Class<?> load() throws Exception;
+}
@@ -0,0 +1,75 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The class loader of one plugin in a {@link PluginGraph}.
+ * 
+ * It loads the plugin's own classes from its class directory, and delegates
+ * to the host class loader first and then to the loaders of the plugin's
+ * declared dependencies. A dependency only lends its own classes, not those
+ * of its dependencies, so a plugin sees exactly the plugins it declares.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class DependencyClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final List<DependencyClassLoader> dependencies;
+
+    DependencyClassLoader(String name, Path classDirectory, ClassLoader parent,
+                          List<DependencyClassLoader> dependencies) throws MalformedURLException {
+        super(name, new URL[]{classDirectory.toUri().toURL()}, parent);
+        this.dependencies = List.copyOf(dependencies);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                try {
+                    clazz = getParent().loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    clazz = findOwnClass(name);
+                    for (int i = 0; clazz == null && i < dependencies.size(); i++) {
+                        clazz = dependencies.get(i).findOwnClass(name);
+                    }
+                    if (clazz == null) {
+                        throw new ClassNotFoundException(name + " is not visible to plugin " + getName(), e);
+                    }
+                }
+            }
+            if (resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+
+    /**
+     * Returns a class from this plugin's own class directory, or null if it
+     * has no such class.
+     */
+    private Class<?> findOwnClass(String name) {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz != null) {
+                return clazz;
+            }
+            try {
+                return findClass(name);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+    }
+}
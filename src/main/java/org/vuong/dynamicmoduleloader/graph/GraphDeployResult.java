@@ -0,0 +1,30 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of deploying plugin declarations with a {@link PluginGraphLoader}.
+ * 
+ * @param compiled the plugins that were compiled and registered, in dependency order
+ * @param reused the plugins that were unchanged and kept as they were
+ * @param failures the plugins that failed, or whose dependency failed, with the reason
+ * @param elapsedNanos the time the deployment took
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record GraphDeployResult(List<String> compiled,
+                                List<String> reused,
+                                Map<String, Exception> failures,
+                                long elapsedNanos) {
+
+    /**
+     * Returns whether every affected plugin was compiled.
+     * 
+     * @return true if no plugin failed
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
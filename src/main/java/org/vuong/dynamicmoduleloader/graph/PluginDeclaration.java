@@ -0,0 +1,64 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A plugin source together with the other plugins it uses.
+ * 
+ * Dependencies are the class names of other declared plugins. A plugin
+ * compiles against, and at runtime sees, the classes of its declared
+ * dependencies only; a plugin it uses indirectly must be declared too.
+ * 
+ * @param className the binary name of the plugin class
+ * @param javaCode the Java source of the plugin
+ * @param dependencies the class names of the plugins it depends on
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record PluginDeclaration(String className, String javaCode, Set<String> dependencies) {
+
+    /**
+     * Creates a new PluginDeclaration.
+     * 
+     * @throws IllegalArgumentException if className or javaCode is null or empty, dependencies is null
+     *                                  or contains null, or the plugin depends on itself
+     */
+    public PluginDeclaration {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Class name cannot be null or empty");
+        }
+        if (javaCode == null || javaCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java code cannot be null or empty");
+        }
+        if (dependencies == null || dependencies.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Dependencies cannot be null or contain null");
+        }
+        if (dependencies.contains(className)) {
+            throw new IllegalArgumentException("Plugin " + className + " cannot depend on itself");
+        }
+        dependencies = Set.copyOf(dependencies);
+    }
+
+    /**
+     * Declares a plugin and the plugins it depends on.
+     * 
+     * @param className the binary name of the plugin class
+     * @param javaCode the Java source of the plugin
+     * @param dependencies the class names of the plugins it depends on
+     * @return the declaration
+     * @throws IllegalArgumentException if an argument is invalid
+     */
+    public static PluginDeclaration of(String className, String javaCode, String... dependencies) {
+        if (dependencies == null) {
+            throw new IllegalArgumentException("Dependencies cannot be null or contain null");
+        }
+        for (String dependency : dependencies) {
+            if (dependency == null) {
+                throw new IllegalArgumentException("Dependencies cannot be null or contain null");
+            }
+        }
+        return new PluginDeclaration(className, javaCode, Set.of(dependencies));
+    }
+}
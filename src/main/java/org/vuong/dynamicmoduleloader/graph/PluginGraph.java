@@ -0,0 +1,214 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable, acyclic graph of plugin declarations and their
+ * dependencies.
+ * 
+ * Building a graph fails if a plugin is declared twice, depends on a plugin
+ * that is not declared, or if dependencies form a cycle.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class PluginGraph {
+
+    private final Map<String, PluginDeclaration> declarations;
+    private final Map<String, Set<String>> dependents;
+    private final List<String> order;
+
+    private PluginGraph(Map<String, PluginDeclaration> declarations, Map<String, Set<String>> dependents,
+                        List<String> order) {
+        this.declarations = declarations;
+        this.dependents = dependents;
+        this.order = order;
+    }
+
+    /**
+     * Builds the graph of the given declarations.
+     * 
+     * @param declarations the plugin declarations
+     * @return the graph
+     * @throws IllegalArgumentException if declarations is null or contains null, a plugin is declared twice,
+     *                                  a dependency is not declared, or dependencies form a cycle
+     */
+    public static PluginGraph of(Collection<PluginDeclaration> declarations) {
+        if (declarations == null) {
+            throw new IllegalArgumentException("Declarations cannot be null");
+        }
+        Map<String, PluginDeclaration> byName = new LinkedHashMap<>();
+        for (PluginDeclaration declaration : declarations) {
+            if (declaration == null) {
+                throw new IllegalArgumentException("Declarations cannot contain null");
+            }
+            if (byName.putIfAbsent(declaration.className(), declaration) != null) {
+                throw new IllegalArgumentException("Plugin " + declaration.className() + " is declared twice");
+            }
+        }
+
+        Map<String, Set<String>> dependents = new HashMap<>();
+        Map<String, Integer> unresolved = new HashMap<>();
+        for (PluginDeclaration declaration : byName.values()) {
+            dependents.put(declaration.className(), new TreeSet<>());
+            unresolved.put(declaration.className(), declaration.dependencies().size());
+        }
+        for (PluginDeclaration declaration : byName.values()) {
+            for (String dependency : declaration.dependencies()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Plugin " + declaration.className()
+                        + " depends on " + dependency + ", which is not declared");
+                }
+                dependents.get(dependency).add(declaration.className());
+            }
+        }
+
+        // Kahn's algorithm; plugins that become ready together keep their declaration order
+        List<String> order = new ArrayList<>(byName.size());
+        Deque<String> ready = new ArrayDeque<>();
+        byName.keySet().stream().filter(name -> unresolved.get(name) == 0).forEach(ready::add);
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            order.add(name);
+            for (String dependent : dependents.get(name)) {
+                if (unresolved.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() < byName.size()) {
+            throw new IllegalArgumentException("Plugin dependencies form a cycle: " + String.join(" -> ", cycle(byName, order)));
+        }
+
+        Map<String, Set<String>> frozen = new HashMap<>();
+        dependents.forEach((name, names) -> frozen.put(name, Collections.unmodifiableSet(names)));
+        return new PluginGraph(Collections.unmodifiableMap(byName), frozen, List.copyOf(order));
+    }
+
+    /**
+     * Finds one cycle among the plugins that could not be ordered, by
+     * following dependencies until a plugin repeats.
+     */
+    private static List<String> cycle(Map<String, PluginDeclaration> byName, List<String> ordered) {
+        Set<String> done = new LinkedHashSet<>(ordered);
+        String current = byName.keySet().stream().filter(name -> !done.contains(name)).findFirst().orElseThrow();
+        List<String> path = new ArrayList<>();
+        while (!path.contains(current)) {
+            path.add(current);
+            current = byName.get(current).dependencies().stream()
+                .filter(name -> !done.contains(name)).sorted().findFirst().orElseThrow();
+        }
+        List<String> cycle = new ArrayList<>(path.subList(path.indexOf(current), path.size()));
+        cycle.add(current);
+        return cycle;
+    }
+
+    /**
+     * Returns the class names of all plugins, each after all of its
+     * dependencies.
+     * 
+     * @return the plugins in dependency order
+     */
+    public List<String> topologicalOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the declaration of a plugin.
+     * 
+     * @param className the class name of the plugin
+     * @return the declaration, or null if the plugin is not in the graph
+     */
+    public PluginDeclaration getDeclaration(String className) {
+        return declarations.get(className);
+    }
+
+    /**
+     * Returns the plugins a plugin depends on directly.
+     * 
+     * @param className the class name of the plugin
+     * @return the class names of its dependencies
+     * @throws IllegalArgumentException if the plugin is not in the graph
+     */
+    public Set<String> getDependencies(String className) {
+        return declarationOf(className).dependencies();
+    }
+
+    /**
+     * Returns the plugins that depend on a plugin directly.
+     * 
+     * @param className the class name of the plugin
+     * @return the class names of its dependents
+     * @throws IllegalArgumentException if the plugin is not in the graph
+     */
+    public Set<String> getDependents(String className) {
+        declarationOf(className);
+        return dependents.get(className);
+    }
+
+    /**
+     * Returns the given plugins and every plugin that depends on them,
+     * directly or not: the plugins to build again when the given ones
+     * change.
+     * 
+     * @param classNames the class names of the changed plugins
+     * @return the affected plugins, in dependency order
+     * @throws IllegalArgumentException if classNames is null or names a plugin not in the graph
+     */
+    public List<String> getAffected(Collection<String> classNames) {
+        if (classNames == null) {
+            throw new IllegalArgumentException("Class names cannot be null");
+        }
+        Set<String> affected = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (String className : classNames) {
+            declarationOf(className);
+            pending.add(className);
+        }
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (affected.add(name)) {
+                pending.addAll(dependents.get(name));
+            }
+        }
+        return order.stream().filter(affected::contains).toList();
+    }
+
+    /**
+     * Returns whether a plugin is in the graph.
+     * 
+     * @param className the class name of the plugin
+     * @return true if the plugin is declared
+     */
+    public boolean contains(String className) {
+        return declarations.containsKey(className);
+    }
+
+    /**
+     * Returns the number of plugins in the graph.
+     * 
+     * @return the number of plugins
+     */
+    public int size() {
+        return declarations.size();
+    }
+
+    private PluginDeclaration declarationOf(String className) {
+        PluginDeclaration declaration = className == null ? null : declarations.get(className);
+        if (declaration == null) {
+            throw new IllegalArgumentException("Plugin " + className + " is not in the graph");
+        }
+        return declaration;
+    }
+}
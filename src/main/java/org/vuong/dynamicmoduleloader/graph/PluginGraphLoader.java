@@ -0,0 +1,223 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import org.vuong.dynamicmoduleloader.compiler.JavaSourceCompiler;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.security.BytecodeSecurityVerifier;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.security.TreeSecurityValidator;
+import org.vuong.dynamicmoduleloader.security.ValidationCache;
+import org.vuong.dynamicmoduleloader.util.PluginNameUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles and loads plugins that use each other, in dependency order.
+ * 
+ * Every deployment merges the given declarations into the graph of the
+ * plugins deployed before. Plugins whose declaration changed, and every
+ * plugin that depends on them, are compiled again; all others are kept as
+ * they are. A plugin is compiled as soon as its dependencies are loaded, so
+ * independent parts of the graph compile in parallel.
+ * 
+ * Each plugin is compiled against, and loaded by a class loader that sees,
+ * the host classes and the classes of its declared dependencies only. A
+ * plugin whose compilation or dependency fails keeps its previous version,
+ * if any; so do the plugins that depend on it. Class files of replaced
+ * versions are kept, so classes already handed out keep working.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginGraphLoader {
+
+    private final PluginRegistry pluginRegistry;
+    private final JavaSourceCompiler compiler = new JavaSourceCompiler();
+    private final TreeSecurityValidator securityValidator;
+    private final BytecodeSecurityVerifier bytecodeVerifier;
+    private final int parallelism;
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private Path outputDirectory;
+
+    /**
+     * Creates a new PluginGraphLoader that writes class files to a temporary
+     * directory.
+     * 
+     * @param pluginRegistry the registry to register plugins in
+     * @param securityConfig the security configuration to validate plugins with
+     * @param parallelism the number of plugins to compile at once
+     * @throws IllegalArgumentException if pluginRegistry or securityConfig is null, or parallelism is not positive
+     */
+    public PluginGraphLoader(PluginRegistry pluginRegistry, SecurityConfig securityConfig, int parallelism) {
+        this(pluginRegistry, securityConfig, null, parallelism);
+    }
+
+    /**
+     * Creates a new PluginGraphLoader.
+     * 
+     * @param pluginRegistry the registry to register plugins in
+     * @param securityConfig the security configuration to validate plugins with
+     * @param outputDirectory the directory to write class files to, or null for a temporary one
+     * @param parallelism the number of plugins to compile at once
+     * @throws IllegalArgumentException if pluginRegistry or securityConfig is null, or parallelism is not positive
+     */
+    public PluginGraphLoader(PluginRegistry pluginRegistry, SecurityConfig securityConfig, Path outputDirectory,
+                             int parallelism) {
+        if (pluginRegistry == null) {
+            throw new IllegalArgumentException("Plugin registry cannot be null");
+        }
+        if (securityConfig == null) {
+            throw new IllegalArgumentException("Security configuration cannot be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.pluginRegistry = pluginRegistry;
+        this.securityValidator = new TreeSecurityValidator(securityConfig, new ValidationCache(ValidationCache.DEFAULT_CAPACITY));
+        this.bytecodeVerifier = new BytecodeSecurityVerifier(securityConfig);
+        this.outputDirectory = outputDirectory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Deploys plugin declarations, compiling the changed plugins and their
+     * dependents in dependency order and registering the ones that load as
+     * one batch.
+     * 
+     * A declaration replaces the deployed one of the same class name.
+     * Declarations equal to the deployed ones change nothing.
+     * 
+     * @param declarations the declarations to deploy
+     * @return the outcome of the deployment
+     * @throws IOException if the output directory cannot be created
+     * @throws IllegalArgumentException if declarations is null, contains null or a class name twice,
+     *                                  a dependency is not declared, or dependencies form a cycle
+     */
+    public synchronized GraphDeployResult deploy(List<PluginDeclaration> declarations) throws IOException {
+        if (declarations == null) {
+            throw new IllegalArgumentException("Declarations cannot be null");
+        }
+        long start = System.nanoTime();
+        Map<String, PluginDeclaration> merged = new LinkedHashMap<>();
+        nodes.forEach((className, node) -> merged.put(className, node.declaration()));
+        Set<String> changed = new HashSet<>();
+        Set<String> given = new HashSet<>();
+        for (PluginDeclaration declaration : declarations) {
+            if (declaration == null || !given.add(declaration.className())) {
+                throw new IllegalArgumentException("Declarations cannot contain null or a class name twice");
+            }
+            Node deployed = nodes.get(declaration.className());
+            if (deployed == null || !deployed.declaration().equals(declaration)) {
+                changed.add(declaration.className());
+            }
+            merged.put(declaration.className(), declaration);
+        }
+        PluginGraph graph = PluginGraph.of(merged.values());
+        List<String> affected = graph.getAffected(changed);
+        if (outputDirectory == null) {
+            outputDirectory = Files.createTempDirectory("plugin-graph");
+        } else {
+            Files.createDirectories(outputDirectory);
+        }
+
+        Set<String> rebuild = Set.copyOf(affected);
+        Map<String, CompletableFuture<Node>> builds = new HashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (String className : graph.topologicalOrder()) {
+                if (!rebuild.contains(className)) {
+                    builds.put(className, CompletableFuture.completedFuture(nodes.get(className)));
+                    continue;
+                }
+                Map<String, CompletableFuture<Node>> dependencies = new LinkedHashMap<>();
+                graph.getDependencies(className).stream().sorted()
+                    .forEach(dependency -> dependencies.put(dependency, builds.get(dependency)));
+                PluginDeclaration declaration = graph.getDeclaration(className);
+                builds.put(className, CompletableFuture.allOf(dependencies.values().toArray(CompletableFuture[]::new))
+                    .handleAsync((ignored, error) -> build(declaration, dependencies), pool));
+            }
+
+            List<String> compiled = new ArrayList<>();
+            Map<String, Exception> failures = new LinkedHashMap<>();
+            List<Plugin> plugins = new ArrayList<>();
+            for (String className : affected) {
+                try {
+                    Node node = builds.get(className).join();
+                    nodes.put(className, node);
+                    compiled.add(className);
+                    plugins.add(new Plugin(PluginNameUtils.generatePluginName(className), node.pluginClass()));
+                } catch (CompletionException e) {
+                    failures.put(className, e.getCause() instanceof Exception cause ? cause : new IllegalStateException(e.getCause()));
+                }
+            }
+            pluginRegistry.registerAll(plugins);
+            List<String> reused = graph.topologicalOrder().stream()
+                .filter(className -> !rebuild.contains(className))
+                .toList();
+            return new GraphDeployResult(compiled, reused, failures, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the graph of the deployed plugins.
+     * 
+     * @return the graph of every plugin that has loaded
+     */
+    public synchronized PluginGraph getGraph() {
+        List<PluginDeclaration> declarations = new ArrayList<>();
+        nodes.values().forEach(node -> declarations.add(node.declaration()));
+        return PluginGraph.of(declarations);
+    }
+
+    /**
+     * Compiles one plugin against its loaded dependencies and loads it in a
+     * class loader chained to theirs.
+     */
+    private Node build(PluginDeclaration declaration, Map<String, CompletableFuture<Node>> dependencies) {
+        List<Node> loaded = new ArrayList<>();
+        dependencies.forEach((dependency, build) -> {
+            if (build.isCompletedExceptionally()) {
+                throw new IllegalStateException("Dependency " + dependency + " of " + declaration.className() + " failed to load");
+            }
+            loaded.add(build.join());
+        });
+        try {
+            Path classDirectory = outputDirectory.resolve(declaration.className() + "-" + versions.incrementAndGet());
+            compiler.compileTo(declaration.className(), declaration.javaCode(), classDirectory,
+                loaded.stream().map(Node::classDirectory).toList(), securityValidator, bytecodeVerifier);
+            DependencyClassLoader classLoader = new DependencyClassLoader(declaration.className(), classDirectory,
+                PluginGraphLoader.class.getClassLoader(), loaded.stream().map(Node::classLoader).toList());
+            Class<?> pluginClass = Class.forName(declaration.className(), true, classLoader);
+            // Verify the class can be instantiated
+            pluginClass.getDeclaredConstructor().newInstance();
+            return new Node(declaration, classDirectory, classLoader, pluginClass);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception | LinkageError e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * A plugin that has loaded: its declaration, class files and classes.
+     */
+    private record Node(PluginDeclaration declaration, Path classDirectory, DependencyClassLoader classLoader,
+                        Class<?> pluginClass) {
+    }
+}
@@ -0,0 +1,139 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.ToLongFunction;
+
+/**
+ * Capacity limits for the loaded plugin classes held by a registry.
+ * 
+ * A bounded registry keeps every registered plugin name, but only a limited
+ * number of plugin classes resident. When a limit is exceeded, cold reloadable
+ * plugins are evicted: their classes are released so the class loaders and
+ * metaspace can be reclaimed, and they are reloaded from their retained
+ * source on next access.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class CapacityPolicy {
+
+    private static final CapacityPolicy UNBOUNDED =
+        new CapacityPolicy(Integer.MAX_VALUE, Long.MAX_VALUE, CapacityPolicy::estimateFootprint);
+
+    private final int maxResidentPlugins;
+    private final long maxResidentBytes;
+    private final ToLongFunction<Class<?>> weigher;
+
+    /**
+     * Creates a new CapacityPolicy.
+     * 
+     * @param maxResidentPlugins maximum number of loaded plugin classes
+     * @param maxResidentBytes maximum total weight of loaded plugin classes, in bytes
+     * @param weigher estimates the weight of a plugin class in bytes
+     * @throws IllegalArgumentException if a limit is not positive or weigher is null
+     */
+    public CapacityPolicy(int maxResidentPlugins, long maxResidentBytes, ToLongFunction<Class<?>> weigher) {
+        if (maxResidentPlugins <= 0) {
+            throw new IllegalArgumentException("Maximum resident plugins must be positive");
+        }
+        if (maxResidentBytes <= 0) {
+            throw new IllegalArgumentException("Maximum resident bytes must be positive");
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher cannot be null");
+        }
+        this.maxResidentPlugins = maxResidentPlugins;
+        this.maxResidentBytes = maxResidentBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns a policy without limits. Registries using it never evict.
+     * 
+     * @return the unbounded policy
+     */
+    public static CapacityPolicy unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Creates a policy limiting the number of loaded plugin classes.
+     * 
+     * @param maxResidentPlugins maximum number of loaded plugin classes
+     * @return a count-bounded policy
+     */
+    public static CapacityPolicy maxPlugins(int maxResidentPlugins) {
+        return new CapacityPolicy(maxResidentPlugins, Long.MAX_VALUE, CapacityPolicy::estimateFootprint);
+    }
+
+    /**
+     * Creates a policy limiting the estimated footprint of loaded plugin classes.
+     * 
+     * @param maxResidentBytes maximum total estimated footprint, in bytes
+     * @return a size-bounded policy using {@link #estimateFootprint(Class)}
+     */
+    public static CapacityPolicy maxBytes(long maxResidentBytes) {
+        return new CapacityPolicy(Integer.MAX_VALUE, maxResidentBytes, CapacityPolicy::estimateFootprint);
+    }
+
+    /**
+     * Estimates the metaspace footprint of a plugin class.
+     * 
+     * When the class file is still readable from the class loader, the
+     * estimate is twice its bytecode size, which accounts for the parsed
+     * constant pool and method metadata. Otherwise it is derived from the
+     * number of declared members.
+     * 
+     * @param pluginClass the plugin class to weigh
+     * @return the estimated footprint in bytes
+     */
+    public static long estimateFootprint(Class<?> pluginClass) {
+        ClassLoader loader = pluginClass.getClassLoader();
+        if (loader != null) {
+            String resource = pluginClass.getName().replace('.', '/') + ".class";
+            try (InputStream in = loader.getResourceAsStream(resource)) {
+                if (in != null) {
+                    return 2 * in.transferTo(OutputStream.nullOutputStream());
+                }
+            } catch (IOException e) {
+                // fall back to the structural estimate
+            }
+        }
+        return 1024L
+            + 256L * pluginClass.getDeclaredMethods().length
+            + 128L * pluginClass.getDeclaredConstructors().length
+            + 64L * pluginClass.getDeclaredFields().length;
+    }
+
+    /**
+     * Returns whether this policy has any limit.
+     * 
+     * @return true if the policy can trigger evictions, false otherwise
+     */
+    public boolean isBounded() {
+        return maxResidentPlugins != Integer.MAX_VALUE || maxResidentBytes != Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the maximum number of loaded plugin classes.
+     * 
+     * @return the plugin count limit
+     */
+    public int getMaxResidentPlugins() { return maxResidentPlugins; }
+
+    /**
+     * Returns the maximum total weight of loaded plugin classes.
+     * 
+     * @return the weight limit in bytes
+     */
+    public long getMaxResidentBytes() { return maxResidentBytes; }
+
+    /**
+     * Returns the function estimating the weight of a plugin class.
+     * 
+     * @return the weigher
+     */
+    public ToLongFunction<Class<?>> getWeigher() { return weigher; }
+}
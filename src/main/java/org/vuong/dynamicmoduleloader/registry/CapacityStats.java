@@ -0,0 +1,20 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+/**
+ * Point-in-time statistics about the resident plugin classes of a registry.
+ * 
+ * @param residentPlugins the number of plugins whose class is loaded
+ * @param residentBytes the estimated total footprint of the loaded plugin classes
+ * @param evictions the number of plugin classes released to stay within capacity
+ * @param reloads the number of evicted plugins loaded again on access
+ * @param metaspaceUsedBytes the JVM metaspace currently in use, or -1 if unavailable
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record CapacityStats(int residentPlugins,
+                            long residentBytes,
+                            long evictions,
+                            long reloads,
+                            long metaspaceUsedBytes) {
+}
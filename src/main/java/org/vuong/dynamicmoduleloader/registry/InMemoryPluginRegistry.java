@@ -1,10 +1,25 @@
 package org.vuong.dynamicmoduleloader.registry;
 
 import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.core.PluginLease;
 import org.vuong.dynamicmoduleloader.core.PluginRegistry;
 
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * In-memory implementation of the PluginRegistry interface.
@@ -13,19 +28,77 @@ import java.util.concurrent.ConcurrentHashMap;
  * storage and retrieval of plugins. It's suitable for applications that
  * don't require persistent storage of plugins.
  * 
+ * The registry also maintains secondary indexes over plugin interfaces,
+ * superclasses, annotations and public methods. Indexes are updated
+ * incrementally on every mutation.
+ * 
+ * Mutations, including whole {@link PluginBatch batches}, run under the write
+ * side of a {@link StampedLock}. Reads are optimistic and only fall back to the
+ * read lock when they overlap a mutation, so readers never observe a
+ * half-applied batch and uncontended lookups stay lock-free.
+ * 
+ * Lazy plugins (see {@link Plugin#Plugin(String, org.vuong.dynamicmoduleloader.core.PluginSource)})
+ * are stored unresolved and kept out of the indexes. The first
+ * {@link #getPlugin(String)} compiles them outside the registry lock, exactly
+ * once, and then indexes them. Index queries resolve pending plugins first.
+ * 
+ * An optional {@link CapacityPolicy} bounds the number or estimated footprint
+ * of loaded plugin classes. When a limit is exceeded, cold reloadable plugins
+ * are evicted: they stay registered and indexed, but their classes are
+ * released so the class loaders can be unloaded. Index queries return evicted
+ * plugins as they are, and only {@link #getPlugin(String)} and
+ * {@link #acquire(String)} load them again.
+ * 
+ * Every registration gets its own {@link PluginLease}. Replacing or removing
+ * a plugin retires its lease, and retirement listeners run once the last
+ * outstanding lease on that version has been closed.
+ * 
  * @author Dynamic Module Loader
  * @since 0.0.1-SNAPSHOT
  */
 public class InMemoryPluginRegistry implements PluginRegistry {
 
-    private final ConcurrentHashMap<String, Plugin> plugins = new ConcurrentHashMap<>();
+    /**
+     * Registered plugins by name, each wrapped in the lease of its registration.
+     */
+    private final ConcurrentHashMap<String, PluginLease> plugins = new ConcurrentHashMap<>();
+    private final PluginIndex index = new PluginIndex();
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Registered lazy plugins that are not in the index yet.
+     */
+    private final Set<Plugin> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder resolutionFailures = new LongAdder();
+    private final LongAdder resolutionNanos = new LongAdder();
+    private final List<Consumer<Plugin>> retirementListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Tracks loaded plugin classes for eviction, or null when unbounded.
+     */
+    private final ResidencyTracker residency;
 
     /**
      * Default constructor for InMemoryPluginRegistry.
-     * Initializes the internal plugin storage.
+     * Initializes the internal plugin storage without capacity limits.
      */
     public InMemoryPluginRegistry() {
-        // default constructor
+        this(CapacityPolicy.unbounded());
+    }
+
+    /**
+     * Creates a new InMemoryPluginRegistry that keeps loaded plugin classes
+     * within the given capacity limits.
+     * 
+     * @param capacityPolicy the limits for loaded plugin classes
+     * @throws IllegalArgumentException if capacityPolicy is null
+     */
+    public InMemoryPluginRegistry(CapacityPolicy capacityPolicy) {
+        if (capacityPolicy == null) {
+            throw new IllegalArgumentException("Capacity policy cannot be null");
+        }
+        this.residency = capacityPolicy.isBounded() ? new ResidencyTracker(capacityPolicy) : null;
     }
 
     /**
@@ -36,18 +109,82 @@ public class InMemoryPluginRegistry implements PluginRegistry {
         if (plugin == null) {
             throw new IllegalArgumentException("Plugin cannot be null");
         }
-        return plugins.put(plugin.getName(), plugin);
+        List<PluginLease> retired = new ArrayList<>(1);
+        long stamp = lock.writeLock();
+        try {
+            return put(plugin, retired);
+        } finally {
+            lock.unlockWrite(stamp);
+            retire(retired);
+        }
     }
 
     /**
      * {@inheritDoc}
+     * 
+     * A lazy plugin that has not been resolved yet is compiled before it is returned.
+     * 
+     * @throws IllegalStateException if a lazy plugin fails to compile
      */
     @Override
     public Plugin getPlugin(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Plugin name cannot be null or empty");
         }
-        return plugins.get(name);
+        PluginLease lease = lookup(name);
+        if (lease == null) {
+            return null;
+        }
+        Plugin plugin = lease.getPlugin();
+        touch(plugin);
+        return plugin;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Acquiring is lock-free and allocation-free: every caller shares the
+     * lease of the current registration. A lazy plugin is resolved first.
+     * 
+     * @throws IllegalStateException if a lazy plugin fails to compile
+     */
+    @Override
+    public PluginLease acquire(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+        while (true) {
+            PluginLease lease = lookup(name);
+            if (lease == null) {
+                return null;
+            }
+            // A retired lease has already been replaced in the map, so retrying picks up the new version
+            if (lease.tryAcquire()) {
+                try {
+                    touch(lease.getPlugin());
+                } catch (RuntimeException | Error e) {
+                    // The caller never receives the lease, so it would otherwise keep the version from retiring
+                    lease.close();
+                    throw e;
+                }
+                return lease;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Listeners run on the thread that closes the last lease of a retired
+     * version, or on the mutating thread if none was outstanding, after the
+     * registry lock has been released.
+     */
+    @Override
+    public void addRetirementListener(Consumer<Plugin> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Retirement listener cannot be null");
+        }
+        retirementListeners.add(listener);
     }
 
     /**
@@ -58,15 +195,30 @@ public class InMemoryPluginRegistry implements PluginRegistry {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Plugin name cannot be null or empty");
         }
-        return plugins.remove(name);
+        List<PluginLease> retired = new ArrayList<>(1);
+        long stamp = lock.writeLock();
+        try {
+            return remove(name, retired);
+        } finally {
+            lock.unlockWrite(stamp);
+            retire(retired);
+        }
     }
 
     /**
      * {@inheritDoc}
+     * 
+     * The returned collection is an unmodifiable snapshot.
      */
     @Override
     public Collection<Plugin> getAllPlugins() {
-        return plugins.values();
+        return read(() -> {
+            List<Plugin> all = new ArrayList<>(plugins.size());
+            for (PluginLease lease : plugins.values()) {
+                all.add(lease.getPlugin());
+            }
+            return Collections.unmodifiableList(all);
+        });
     }
 
     /**
@@ -77,7 +229,7 @@ public class InMemoryPluginRegistry implements PluginRegistry {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Plugin name cannot be null or empty");
         }
-        return plugins.containsKey(name);
+        return read(() -> plugins.containsKey(name));
     }
 
     /**
@@ -85,7 +237,7 @@ public class InMemoryPluginRegistry implements PluginRegistry {
      */
     @Override
     public int size() {
-        return plugins.size();
+        return read(plugins::size);
     }
 
     /**
@@ -93,6 +245,336 @@ public class InMemoryPluginRegistry implements PluginRegistry {
      */
     @Override
     public void clear() {
-        plugins.clear();
+        List<PluginLease> retired;
+        long stamp = lock.writeLock();
+        try {
+            retired = new ArrayList<>(plugins.values());
+            plugins.clear();
+            pending.clear();
+            index.clear();
+            if (residency != null) {
+                residency.clear();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        retire(retired);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The whole batch is applied under a single write lock, so concurrent
+     * readers see either none or all of its changes.
+     */
+    @Override
+    public Map<String, Plugin> apply(PluginBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Plugin batch cannot be null");
+        }
+        Map<String, Plugin> previous = new LinkedHashMap<>();
+        List<PluginLease> retired = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            for (PluginBatch.Operation operation : batch.getOperations()) {
+                Plugin replaced = operation.isRemoval()
+                    ? remove(operation.name(), retired)
+                    : put(operation.plugin(), retired);
+                if (replaced != null) {
+                    previous.putIfAbsent(operation.name(), replaced);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+            retire(retired);
+        }
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Plugin> findByInterface(Class<?> iface) {
+        if (iface == null || !iface.isInterface()) {
+            throw new IllegalArgumentException("Type must be a non-null interface");
+        }
+        resolvePending();
+        return read(() -> index.findByInterface(iface));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Plugin> findBySuperclass(Class<?> superclass) {
+        if (superclass == null || superclass.isInterface()) {
+            throw new IllegalArgumentException("Type must be a non-null class");
+        }
+        resolvePending();
+        return read(() -> index.findBySuperclass(superclass));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Plugin> findByAnnotation(Class<? extends Annotation> annotationType) {
+        if (annotationType == null) {
+            throw new IllegalArgumentException("Annotation type cannot be null");
+        }
+        resolvePending();
+        return read(() -> index.findByAnnotation(annotationType));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Plugin> findByMethod(String methodName, Class<?>... parameterTypes) {
+        if (methodName == null || methodName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Method name cannot be null or empty");
+        }
+        resolvePending();
+        return read(() -> index.findByMethod(methodName, parameterTypes));
+    }
+
+    /**
+     * Returns a snapshot of the lazy plugin counters.
+     * 
+     * @return the current lazy resolution statistics
+     */
+    public LazyStats getLazyStats() {
+        int unresolved = 0;
+        for (Plugin plugin : pending) {
+            if (!plugin.isResolved()) {
+                unresolved++;
+            }
+        }
+        return new LazyStats(size() - unresolved, unresolved, resolutions.sum(),
+            resolutionFailures.sum(), resolutionNanos.sum());
+    }
+
+    /**
+     * Returns a snapshot of the capacity counters.
+     * 
+     * Residency figures are zero for an unbounded registry, which does not
+     * track loaded classes.
+     * 
+     * @return the current capacity statistics
+     */
+    public CapacityStats getCapacityStats() {
+        long metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> "Metaspace".equals(pool.getName()))
+            .mapToLong(pool -> pool.getUsage().getUsed())
+            .findFirst()
+            .orElse(-1L);
+        if (residency == null) {
+            return new CapacityStats(0, 0, 0, 0, metaspace);
+        }
+        return read(() -> new CapacityStats(residency.residentCount(), residency.residentBytes(),
+            residency.evictions(), residency.reloads(), metaspace));
+    }
+
+    /**
+     * Loads an evicted plugin again outside the lock, then tracks it as resident.
+     * Reloads are reported by {@link #getCapacityStats()}, not as lazy resolutions.
+     */
+    private void reload(Plugin plugin) {
+        plugin.getPluginClass();
+        long stamp = lock.writeLock();
+        try {
+            // A replaced or removed plugin has already been released, and a concurrent reload may have won
+            if (residency.isEvicted(plugin)) {
+                index.add(plugin);
+                admit(plugin);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Compiles a lazy plugin outside the lock, then moves it into the index.
+     * Concurrent callers block on the plugin until the single compilation finishes.
+     */
+    private void resolve(Plugin plugin) {
+        long start = System.nanoTime();
+        try {
+            plugin.getPluginClass();
+        } catch (RuntimeException | Error e) {
+            resolutionFailures.increment();
+            throw e;
+        }
+        if (pending.contains(plugin)) {
+            long stamp = lock.writeLock();
+            try {
+                // A replaced or removed plugin has already left the pending set
+                if (pending.remove(plugin)) {
+                    index.add(plugin);
+                    admit(plugin);
+                    resolutions.increment();
+                    resolutionNanos.add(System.nanoTime() - start);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Resolves every pending lazy plugin so index queries cover all of them.
+     * Plugins that fail to compile stay pending and are left out of query results.
+     */
+    private void resolvePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (Plugin plugin : List.copyOf(pending)) {
+            try {
+                resolve(plugin);
+            } catch (RuntimeException | Error e) {
+                // counted as a failure; the plugin is retried on its next lookup
+            }
+        }
+    }
+
+    /**
+     * Looks up the current lease of a name, retrying under the read lock if a
+     * mutation overlapped the lookup.
+     */
+    private PluginLease lookup(String name) {
+        long stamp = lock.tryOptimisticRead();
+        PluginLease lease = plugins.get(name);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                lease = plugins.get(name);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Resolves or reloads a looked-up plugin if needed, otherwise records the access.
+     */
+    private void touch(Plugin plugin) {
+        // Also picks up plugins loaded elsewhere since they were registered or evicted
+        if (residency != null && residency.isEvicted(plugin)) {
+            reload(plugin);
+        } else if (!plugin.isResolved() || (!pending.isEmpty() && pending.contains(plugin))) {
+            resolve(plugin);
+        } else if (residency != null) {
+            residency.recordAccess(plugin);
+        }
+    }
+
+    /**
+     * Returns whether the current registration of a plugin has outstanding leases.
+     */
+    private boolean isLeased(Plugin plugin) {
+        PluginLease lease = plugins.get(plugin.getName());
+        return lease != null && lease.getPlugin() == plugin && lease.getHolders() > 0;
+    }
+
+    /**
+     * Retires the leases of replaced or removed versions. Must be called after
+     * the write lock is released, since listeners may call back into the registry.
+     */
+    private void retire(List<PluginLease> retired) {
+        for (PluginLease lease : retired) {
+            lease.retire(this::notifyRetired);
+        }
+    }
+
+    private void notifyRetired(Plugin plugin) {
+        for (Consumer<Plugin> listener : retirementListeners) {
+            listener.accept(plugin);
+        }
+    }
+
+    /**
+     * Stores a plugin under a new lease and updates the index. Callers must
+     * hold the write lock.
+     */
+    private Plugin put(Plugin plugin, List<PluginLease> retired) {
+        PluginLease current = plugins.get(plugin.getName());
+        if (current != null && current.getPlugin() == plugin) {
+            return plugin;
+        }
+        plugins.put(plugin.getName(), new PluginLease(plugin));
+        Plugin previous = null;
+        if (current != null) {
+            previous = current.getPlugin();
+            retired.add(current);
+            unindex(previous);
+        }
+        if (plugin.isResolved()) {
+            index.add(plugin);
+            admit(plugin);
+        } else {
+            pending.add(plugin);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes a plugin, retires its lease and updates the index. Callers must
+     * hold the write lock.
+     */
+    private Plugin remove(String name, List<PluginLease> retired) {
+        PluginLease removed = plugins.remove(name);
+        if (removed == null) {
+            return null;
+        }
+        retired.add(removed);
+        unindex(removed.getPlugin());
+        return removed.getPlugin();
+    }
+
+    /**
+     * Drops a plugin from the index, or from the pending set if it was never indexed.
+     */
+    private void unindex(Plugin plugin) {
+        if (!pending.remove(plugin)) {
+            index.remove(plugin);
+            if (residency != null) {
+                residency.release(plugin);
+            }
+        }
+    }
+
+    /**
+     * Tracks a newly loaded plugin class and evicts cold plugins if the
+     * capacity is exceeded. Callers must hold the write lock.
+     */
+    private void admit(Plugin plugin) {
+        if (residency == null) {
+            return;
+        }
+        residency.admit(plugin);
+        // Victims keep their index entries, so queries neither miss nor reload them
+        for (Plugin victim : residency.evictOverflow(plugin, this::isLeased)) {
+            victim.unload();
+        }
+    }
+
+    /**
+     * Runs a read optimistically, retrying under the read lock if a mutation overlapped it.
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        T result = reader.get();
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 }
@@ -0,0 +1,20 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+/**
+ * Point-in-time statistics about lazy plugin resolution in a registry.
+ * 
+ * @param resolved the number of registered plugins loaded at least once
+ * @param pending the number of registered lazy plugins not compiled yet
+ * @param resolutions the number of lazy plugins the registry has compiled
+ * @param resolutionFailures the number of lazy compilations that failed
+ * @param resolutionNanos the total time spent compiling lazy plugins, in nanoseconds
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record LazyStats(int resolved,
+                        int pending,
+                        long resolutions,
+                        long resolutionFailures,
+                        long resolutionNanos) {
+}
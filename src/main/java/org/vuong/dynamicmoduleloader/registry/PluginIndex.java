@@ -0,0 +1,227 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over registered plugin classes.
+ * 
+ * The index maps implemented interfaces, superclasses, class annotations and
+ * public method signatures to the plugins that carry them. Features are
+ * extracted once when a plugin is added and kept with it, so queries never
+ * reflect over plugin classes and a plugin stays indexed after its class has
+ * been unloaded. Query results are immutable sets that are cached until the
+ * next change to the same key.
+ * 
+ * Mutations must be serialized by the owning registry; queries are lock-free.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class PluginIndex {
+
+    /**
+     * Reflection results per plugin class. A ClassValue keeps the cache from
+     * pinning plugin class loaders once the class becomes unreachable.
+     */
+    private static final ClassValue<Features> FEATURES = new ClassValue<>() {
+        @Override
+        protected Features computeValue(Class<?> type) {
+            return Features.of(type);
+        }
+    };
+
+    /**
+     * Features of every indexed plugin, so it can be removed without its class.
+     */
+    private final Map<Plugin, Features> indexed = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Bucket> byInterface = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Bucket> bySuperclass = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Bucket> byAnnotation = new ConcurrentHashMap<>();
+    private final Map<MethodKey, Bucket> byMethod = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the given plugin under every feature of its class, replacing the
+     * features of a previously loaded class of the same plugin.
+     */
+    void add(Plugin plugin) {
+        Features features = FEATURES.get(plugin.getPluginClass());
+        Features previous = indexed.put(plugin, features);
+        if (previous == features) {
+            return;
+        }
+        if (previous != null) {
+            removeAll(plugin, previous);
+        }
+        for (Class<?> iface : features.interfaces()) {
+            byInterface.computeIfAbsent(iface, k -> new Bucket()).add(plugin);
+        }
+        for (Class<?> superclass : features.superclasses()) {
+            bySuperclass.computeIfAbsent(superclass, k -> new Bucket()).add(plugin);
+        }
+        for (Class<?> annotationType : features.annotations()) {
+            byAnnotation.computeIfAbsent(annotationType, k -> new Bucket()).add(plugin);
+        }
+        for (MethodKey method : features.methods()) {
+            byMethod.computeIfAbsent(method, k -> new Bucket()).add(plugin);
+        }
+    }
+
+    /**
+     * Removes the given plugin from every feature of its class. Does not load
+     * the class of a plugin that has been unloaded.
+     */
+    void remove(Plugin plugin) {
+        Features features = indexed.remove(plugin);
+        if (features != null) {
+            removeAll(plugin, features);
+        }
+    }
+
+    /**
+     * Drops every index entry.
+     */
+    void clear() {
+        indexed.clear();
+        byInterface.clear();
+        bySuperclass.clear();
+        byAnnotation.clear();
+        byMethod.clear();
+    }
+
+    Set<Plugin> findByInterface(Class<?> iface) {
+        return snapshot(byInterface.get(iface));
+    }
+
+    Set<Plugin> findBySuperclass(Class<?> superclass) {
+        return snapshot(bySuperclass.get(superclass));
+    }
+
+    Set<Plugin> findByAnnotation(Class<? extends Annotation> annotationType) {
+        return snapshot(byAnnotation.get(annotationType));
+    }
+
+    Set<Plugin> findByMethod(String methodName, Class<?>... parameterTypes) {
+        return snapshot(byMethod.get(new MethodKey(methodName, List.of(parameterTypes))));
+    }
+
+    private void removeAll(Plugin plugin, Features features) {
+        for (Class<?> iface : features.interfaces()) {
+            removeFrom(byInterface, iface, plugin);
+        }
+        for (Class<?> superclass : features.superclasses()) {
+            removeFrom(bySuperclass, superclass, plugin);
+        }
+        for (Class<?> annotationType : features.annotations()) {
+            removeFrom(byAnnotation, annotationType, plugin);
+        }
+        for (MethodKey method : features.methods()) {
+            removeFrom(byMethod, method, plugin);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Bucket> index, K key, Plugin plugin) {
+        Bucket bucket = index.get(key);
+        if (bucket != null && bucket.remove(plugin)) {
+            // Drop empty buckets so keys from unloaded class loaders are not pinned
+            index.remove(key);
+        }
+    }
+
+    private static Set<Plugin> snapshot(Bucket bucket) {
+        return bucket == null ? Set.of() : bucket.snapshot();
+    }
+
+    /**
+     * Indexable features of one plugin class, extracted once by reflection.
+     */
+    private record Features(List<Class<?>> interfaces,
+                            List<Class<?>> superclasses,
+                            List<Class<?>> annotations,
+                            List<MethodKey> methods) {
+
+        static Features of(Class<?> pluginClass) {
+            Set<Class<?>> interfaces = new LinkedHashSet<>();
+            Deque<Class<?>> pending = new ArrayDeque<>();
+            List<Class<?>> superclasses = new ArrayList<>();
+            for (Class<?> type = pluginClass; type != null; type = type.getSuperclass()) {
+                pending.addAll(Arrays.asList(type.getInterfaces()));
+                if (type != pluginClass && type != Object.class) {
+                    superclasses.add(type);
+                }
+            }
+            while (!pending.isEmpty()) {
+                Class<?> iface = pending.pop();
+                if (interfaces.add(iface)) {
+                    pending.addAll(Arrays.asList(iface.getInterfaces()));
+                }
+            }
+
+            List<Class<?>> annotations = new ArrayList<>();
+            for (Annotation annotation : pluginClass.getAnnotations()) {
+                annotations.add(annotation.annotationType());
+            }
+
+            Set<MethodKey> methods = new LinkedHashSet<>();
+            for (Method method : pluginClass.getMethods()) {
+                // Methods inherited from Object would put every plugin in the same buckets
+                if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                methods.add(new MethodKey(method.getName(), List.of(method.getParameterTypes())));
+            }
+
+            return new Features(List.copyOf(interfaces), List.copyOf(superclasses),
+                List.copyOf(annotations), List.copyOf(methods));
+        }
+    }
+
+    /**
+     * Identifies a public method by name and parameter types.
+     */
+    private record MethodKey(String name, List<Class<?>> parameterTypes) {
+    }
+
+    /**
+     * Plugins sharing one indexed feature, with a cached immutable view.
+     */
+    private static final class Bucket {
+
+        private final Set<Plugin> members = new LinkedHashSet<>();
+        private volatile Set<Plugin> snapshot = Set.of();
+
+        synchronized void add(Plugin plugin) {
+            if (members.add(plugin)) {
+                snapshot = null;
+            }
+        }
+
+        /**
+         * @return true if the bucket became empty
+         */
+        synchronized boolean remove(Plugin plugin) {
+            if (members.remove(plugin)) {
+                snapshot = null;
+            }
+            return members.isEmpty();
+        }
+
+        Set<Plugin> snapshot() {
+            Set<Plugin> current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableSet(new LinkedHashSet<>(members));
+                }
+                return snapshot;
+            }
+        }
+    }
+}
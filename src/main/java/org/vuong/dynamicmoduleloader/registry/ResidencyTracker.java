@@ -0,0 +1,173 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Tracks which plugin classes are loaded and picks eviction victims.
+ * 
+ * Victims are chosen with a generalized CLOCK policy: every access bumps a
+ * small saturating counter, and the clock hand decrements counters as it
+ * sweeps, evicting the first reloadable plugin whose counter is zero. This
+ * favours plugins that are used both often and recently, while recording an
+ * access stays lock-free.
+ * 
+ * Everything except {@link #recordAccess(Plugin)} must be called while the
+ * owning registry holds its write lock.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class ResidencyTracker {
+
+    private static final int MAX_HITS = 3;
+
+    private final CapacityPolicy policy;
+    private final Map<Plugin, Residency> residents = new ConcurrentHashMap<>();
+    private final ArrayDeque<Residency> clock = new ArrayDeque<>();
+    private final Set<Plugin> evicted = ConcurrentHashMap.newKeySet();
+    private long residentBytes;
+    private long evictions;
+    private long reloads;
+
+    ResidencyTracker(CapacityPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Marks a resident plugin as used. Safe to call without any lock.
+     */
+    void recordAccess(Plugin plugin) {
+        Residency residency = residents.get(plugin);
+        if (residency != null && residency.hits.get() < MAX_HITS) {
+            residency.hits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether a plugin was evicted and has not been admitted again.
+     * Safe to call without any lock.
+     */
+    boolean isEvicted(Plugin plugin) {
+        return !evicted.isEmpty() && evicted.contains(plugin);
+    }
+
+    /**
+     * Starts tracking a plugin whose class has just been loaded.
+     */
+    void admit(Plugin plugin) {
+        Residency residency = new Residency(plugin, policy.getWeigher().applyAsLong(plugin.getPluginClass()));
+        if (residents.putIfAbsent(plugin, residency) != null) {
+            return;
+        }
+        residentBytes += residency.weight;
+        // Plugins without a retained source cannot be reloaded and are never evicted
+        if (plugin.isReloadable()) {
+            clock.addLast(residency);
+        }
+        if (evicted.remove(plugin)) {
+            reloads++;
+        }
+    }
+
+    /**
+     * Stops tracking a plugin that was replaced or removed from the registry.
+     */
+    void release(Plugin plugin) {
+        evicted.remove(plugin);
+        Residency residency = residents.remove(plugin);
+        if (residency != null) {
+            residentBytes -= residency.weight;
+            // Removed from the clock lazily when the hand reaches it
+            residency.released = true;
+        }
+    }
+
+    /**
+     * Selects and stops tracking plugins until the policy limits are met.
+     * 
+     * @param admitted a plugin that was just loaded and must not be chosen
+     * @param inUse plugins matching this predicate are skipped, as if just accessed
+     * @return the plugins to evict
+     */
+    List<Plugin> evictOverflow(Plugin admitted, Predicate<Plugin> inUse) {
+        List<Plugin> victims = new ArrayList<>();
+        List<Residency> spared = new ArrayList<>();
+        int budget = (MAX_HITS + 2) * clock.size();
+        while (isOverCapacity() && budget-- > 0) {
+            Residency candidate = clock.pollFirst();
+            if (candidate == null) {
+                break;
+            }
+            if (candidate.released) {
+                continue;
+            }
+            if (candidate.plugin == admitted) {
+                spared.add(candidate);
+            } else if (inUse.test(candidate.plugin)) {
+                clock.addLast(candidate);
+            } else if (candidate.hits.get() > 0) {
+                candidate.hits.decrementAndGet();
+                clock.addLast(candidate);
+            } else {
+                release(candidate.plugin);
+                evicted.add(candidate.plugin);
+                evictions++;
+                victims.add(candidate.plugin);
+            }
+        }
+        spared.forEach(clock::addLast);
+        return victims;
+    }
+
+    void clear() {
+        residents.clear();
+        clock.clear();
+        evicted.clear();
+        residentBytes = 0;
+    }
+
+    int residentCount() {
+        return residents.size();
+    }
+
+    long residentBytes() {
+        return residentBytes;
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    long reloads() {
+        return reloads;
+    }
+
+    private boolean isOverCapacity() {
+        return residents.size() > policy.getMaxResidentPlugins() || residentBytes > policy.getMaxResidentBytes();
+    }
+
+    /**
+     * A loaded plugin class with its weight and access counter.
+     */
+    private static final class Residency {
+
+        private final Plugin plugin;
+        private final long weight;
+        private final AtomicInteger hits = new AtomicInteger(1);
+        private boolean released;
+
+        Residency(Plugin plugin, long weight) {
+            this.plugin = plugin;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.core.PluginLease;
+import org.vuong.dynamicmoduleloader.core.PluginRegistry;
+import org.vuong.dynamicmoduleloader.warmup.PluginWarmer;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A registry that warms up every plugin version before it is registered in
+ * another registry.
+ * 
+ * A registered or replacing plugin is first exercised by a
+ * {@link PluginWarmer} on the registering thread, while the version it
+ * replaces keeps serving lookups; only then is it handed to the delegate.
+ * The plugins of a {@link PluginBatch} are all warmed up before the batch is
+ * applied, so an atomic delegate still swaps them in at once. Lazy plugins
+ * are registered without a warm-up, since they have no class yet.
+ * 
+ * A plugin whose warm-up fails, e.g. because it cannot be instantiated, is
+ * not registered, and neither is the rest of its batch.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class WarmingPluginRegistry implements PluginRegistry {
+
+    private final PluginRegistry delegate;
+    private final PluginWarmer warmer;
+
+    /**
+     * Creates a new WarmingPluginRegistry.
+     * 
+     * @param delegate the registry to register warmed up plugins in
+     * @param warmer the warmer to warm them up with
+     * @throws IllegalArgumentException if delegate or warmer is null
+     */
+    public WarmingPluginRegistry(PluginRegistry delegate, PluginWarmer warmer) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Plugin registry cannot be null");
+        }
+        if (warmer == null) {
+            throw new IllegalArgumentException("Plugin warmer cannot be null");
+        }
+        this.delegate = delegate;
+        this.warmer = warmer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * A resolved plugin is warmed up first.
+     * 
+     * @throws IllegalStateException if the plugin cannot be instantiated for its warm-up
+     */
+    @Override
+    public Plugin register(Plugin plugin) {
+        if (plugin == null) {
+            throw new IllegalArgumentException("Plugin cannot be null");
+        }
+        warm(plugin);
+        return delegate.register(plugin);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The resolved plugins of the batch are warmed up first.
+     * 
+     * @throws IllegalStateException if a plugin cannot be instantiated for its warm-up
+     */
+    @Override
+    public Map<String, Plugin> apply(PluginBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Plugin batch cannot be null");
+        }
+        for (PluginBatch.Operation operation : batch.getOperations()) {
+            if (!operation.isRemoval()) {
+                warm(operation.plugin());
+            }
+        }
+        return delegate.apply(batch);
+    }
+
+    private void warm(Plugin plugin) {
+        if (plugin.isResolved()) {
+            warmer.warmUp(plugin);
+        }
+    }
+
+    /**
+     * Returns the warmer plugins are warmed up with, which holds their
+     * recorded samples and warm-up results.
+     * 
+     * @return the plugin warmer
+     */
+    public PluginWarmer getWarmer() {
+        return warmer;
+    }
+
+    @Override
+    public Plugin getPlugin(String name) {
+        return delegate.getPlugin(name);
+    }
+
+    @Override
+    public Plugin removePlugin(String name) {
+        return delegate.removePlugin(name);
+    }
+
+    @Override
+    public Collection<Plugin> getAllPlugins() {
+        return delegate.getAllPlugins();
+    }
+
+    @Override
+    public boolean containsPlugin(String name) {
+        return delegate.containsPlugin(name);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public PluginLease acquire(String name) {
+        return delegate.acquire(name);
+    }
+
+    @Override
+    public void addRetirementListener(Consumer<Plugin> listener) {
+        delegate.addRetirementListener(listener);
+    }
+
+    @Override
+    public Map<String, Plugin> removeAll(Collection<String> names) {
+        return delegate.removeAll(names);
+    }
+
+    @Override
+    public Set<Plugin> findByInterface(Class<?> iface) {
+        return delegate.findByInterface(iface);
+    }
+
+    @Override
+    public Set<Plugin> findBySuperclass(Class<?> superclass) {
+        return delegate.findBySuperclass(superclass);
+    }
+
+    @Override
+    public Set<Plugin> findByAnnotation(Class<? extends Annotation> annotationType) {
+        return delegate.findByAnnotation(annotationType);
+    }
+
+    @Override
+    public Set<Plugin> findByMethod(String methodName, Class<?>... parameterTypes) {
+        return delegate.findByMethod(methodName, parameterTypes);
+    }
+}
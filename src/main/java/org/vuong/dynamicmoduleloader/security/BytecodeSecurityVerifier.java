@@ -0,0 +1,359 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import org.vuong.dynamicmoduleloader.compiler.ClassFileCheck;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Security verifier that inspects compiled class files instead of source text.
+ * 
+ * Every class, field and method a class file refers to is listed in its
+ * constant pool, so the verifier parses only the pool, straight from the byte
+ * array, and checks those references against the rules enabled by a
+ * {@link SecurityConfig}. Source formatting, unicode escapes, string
+ * concatenation and comments make no difference at this level, and a typical
+ * plugin is verified in microseconds. String constants are data rather than
+ * references and are never flagged.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class BytecodeSecurityVerifier implements ClassFileCheck {
+
+    private static final String FILE = "File operations are not allowed: ";
+    private static final String NETWORK = "Network operations are not allowed: ";
+    private static final String REFLECTION = "Reflection operations are not allowed: ";
+    private static final String SYSTEM = "System operations are not allowed: ";
+    private static final String DATABASE = "Database operations are not allowed: ";
+
+    // Rule categories in reporting order
+    private static final List<String> CATEGORIES = List.of(FILE, NETWORK, REFLECTION, SYSTEM, DATABASE);
+
+    // Internal class names whose every use is forbidden
+    private static final Map<String, String> FORBIDDEN_CLASSES = Map.ofEntries(
+        Map.entry("java/io/File", FILE),
+        Map.entry("java/io/FileInputStream", FILE),
+        Map.entry("java/io/FileOutputStream", FILE),
+        Map.entry("java/io/FileReader", FILE),
+        Map.entry("java/io/FileWriter", FILE),
+        Map.entry("java/io/RandomAccessFile", FILE),
+        Map.entry("java/nio/file/Files", FILE),
+        Map.entry("java/nio/file/Paths", FILE),
+        Map.entry("java/nio/file/Path", FILE),
+        Map.entry("java/net/Socket", NETWORK),
+        Map.entry("java/net/URL", NETWORK),
+        Map.entry("java/net/URLConnection", NETWORK),
+        Map.entry("java/net/HttpURLConnection", NETWORK),
+        Map.entry("java/net/ServerSocket", NETWORK),
+        Map.entry("java/net/DatagramSocket", NETWORK),
+        Map.entry("java/lang/ProcessBuilder", SYSTEM),
+        Map.entry("java/lang/Process", SYSTEM),
+        Map.entry("java/sql/Connection", DATABASE),
+        Map.entry("java/sql/DriverManager", DATABASE),
+        Map.entry("java/sql/Statement", DATABASE),
+        Map.entry("java/sql/PreparedStatement", DATABASE)
+    );
+
+    // Internal class name prefixes whose every use is forbidden
+    private static final Map<String, String> FORBIDDEN_PACKAGES = Map.of(
+        "java/lang/reflect/", REFLECTION
+    );
+
+    // Individual members, as owner.name
+    private static final Map<String, String> FORBIDDEN_MEMBERS = Map.ofEntries(
+        Map.entry("java/lang/Class.forName", REFLECTION),
+        Map.entry("java/lang/Class.getDeclaredMethod", REFLECTION),
+        Map.entry("java/lang/Class.getDeclaredMethods", REFLECTION),
+        Map.entry("java/lang/Class.getMethod", REFLECTION),
+        Map.entry("java/lang/Class.getMethods", REFLECTION),
+        Map.entry("java/lang/Class.getDeclaredField", REFLECTION),
+        Map.entry("java/lang/Class.getDeclaredFields", REFLECTION),
+        Map.entry("java/lang/Class.getField", REFLECTION),
+        Map.entry("java/lang/Class.getFields", REFLECTION),
+        Map.entry("java/lang/Class.getDeclaredConstructor", REFLECTION),
+        Map.entry("java/lang/Class.getConstructor", REFLECTION),
+        Map.entry("java/lang/Class.newInstance", REFLECTION),
+        Map.entry("java/lang/ClassLoader.loadClass", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles.privateLookupIn", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findVirtual", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findStatic", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findSpecial", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findConstructor", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findGetter", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findSetter", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findStaticGetter", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findStaticSetter", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findVarHandle", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.findClass", REFLECTION),
+        Map.entry("java/lang/invoke/MethodHandles$Lookup.unreflect", REFLECTION),
+        Map.entry("java/lang/Runtime.getRuntime", SYSTEM),
+        Map.entry("java/lang/Runtime.exec", SYSTEM),
+        Map.entry("java/lang/Runtime.halt", SYSTEM),
+        Map.entry("java/lang/Runtime.exit", SYSTEM),
+        Map.entry("java/lang/Runtime.load", SYSTEM),
+        Map.entry("java/lang/Runtime.loadLibrary", SYSTEM),
+        Map.entry("java/lang/System.exit", SYSTEM),
+        Map.entry("java/lang/System.gc", SYSTEM),
+        Map.entry("java/lang/System.runFinalization", SYSTEM),
+        Map.entry("java/lang/System.load", SYSTEM),
+        Map.entry("java/lang/System.loadLibrary", SYSTEM),
+        Map.entry("java/lang/System.setSecurityManager", SYSTEM)
+    );
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // Every forbidden name lives under this prefix, so other names are never decoded
+    private static final byte[] JAVA = "java/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JAVA_LANG = "java/lang/".getBytes(StandardCharsets.US_ASCII);
+    private static final String DESCRIPTOR_SEPARATORS = "([);<>*+-:^";
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int INTERFACE_METHOD_REF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int METHOD_HANDLE = 15;
+    private static final int METHOD_TYPE = 16;
+    private static final int DYNAMIC = 17;
+    private static final int INVOKE_DYNAMIC = 18;
+    private static final int MODULE = 19;
+    private static final int PACKAGE = 20;
+
+    private final SecurityConfig config;
+    private final Set<String> enabledCategories;
+
+    /**
+     * Creates a new BytecodeSecurityVerifier with the specified security configuration.
+     * 
+     * @param config the security configuration to use for verification
+     * @throws IllegalArgumentException if config is null
+     */
+    public BytecodeSecurityVerifier(SecurityConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Security configuration cannot be null");
+        }
+        this.config = config;
+        Map<String, Boolean> allowed = Map.of(
+            FILE, config.isAllowFileOperations(),
+            NETWORK, config.isAllowNetworkOperations(),
+            REFLECTION, config.isAllowReflection(),
+            SYSTEM, config.isAllowSystemOperations(),
+            DATABASE, config.isAllowDatabaseOperations()
+        );
+        this.enabledCategories = Set.copyOf(CATEGORIES.stream().filter(category -> !allowed.get(category)).toList());
+    }
+
+    /**
+     * Verifies a compiled class file.
+     * 
+     * @param classFile the bytes of the class file
+     * @throws SecurityException if the class refers to a forbidden class or member
+     * @throws IllegalArgumentException if classFile is null or not a valid class file
+     */
+    public void verify(byte[] classFile) {
+        if (classFile == null) {
+            throw new IllegalArgumentException("Class file cannot be null");
+        }
+        if (!config.isEnableValidation() || enabledCategories.isEmpty()) {
+            return;
+        }
+
+        ConstantPool pool = new ConstantPool(classFile);
+        Map<String, String> violations = new HashMap<>();
+        for (int index = 1; index < pool.count; index++) {
+            switch (pool.tags[index]) {
+                case CLASS -> checkDescriptor(pool, pool.u2(index, 0), violations);
+                case FIELD_REF, METHOD_REF, INTERFACE_METHOD_REF -> {
+                    int owner = pool.u2(pool.u2(index, 0), 0);
+                    // Every forbidden member belongs to a java.lang type
+                    int ownerOffset = pool.utf8Offset(owner);
+                    if (startsWith(pool.bytes, ownerOffset, ownerOffset + pool.utf8Length(owner), JAVA_LANG)) {
+                        String member = pool.utf8(owner) + "." + pool.utf8(pool.u2(pool.u2(index, 2), 0));
+                        report(FORBIDDEN_MEMBERS.get(member), member, violations);
+                    }
+                }
+                case UTF8 -> {
+                    // Field and method descriptors and generic signatures name types without a class entry
+                    if (!pool.isStringConstant[index]) {
+                        checkDescriptor(pool, index, violations);
+                    }
+                }
+                default -> {
+                    // numbers, names, method handles and dynamic call sites hold no further references
+                }
+            }
+        }
+
+        for (String category : CATEGORIES) {
+            String violation = violations.get(category);
+            if (violation != null) {
+                throw new SecurityException(category + violation + " (in " + pool.className() + ")");
+            }
+        }
+    }
+
+    /**
+     * Verifies one generated class file during compilation.
+     * 
+     * @param classFile the bytes of the class file
+     * @throws SecurityException if the class refers to a forbidden class or member
+     */
+    @Override
+    public void check(byte[] classFile) {
+        verify(classFile);
+    }
+
+    /**
+     * Checks every class named in an internal name, descriptor or signature,
+     * such as {@code java/io/File}, {@code ([Ljava/io/File;)V} or
+     * {@code Ljava/util/List<Ljava/io/File;>;}, without decoding the entry
+     * unless it names a {@code java/} class.
+     */
+    private void checkDescriptor(ConstantPool pool, int index, Map<String, String> violations) {
+        byte[] bytes = pool.bytes;
+        int start = pool.utf8Offset(index);
+        int end = start + pool.utf8Length(index);
+        if (startsWith(bytes, start, end, JAVA)) {
+            checkClass(pool, start, end, violations);
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == 'L' && (i == start || DESCRIPTOR_SEPARATORS.indexOf(bytes[i - 1]) >= 0)) {
+                int nameEnd = i + 1;
+                while (nameEnd < end && bytes[nameEnd] != ';' && bytes[nameEnd] != '<') {
+                    nameEnd++;
+                }
+                if (startsWith(bytes, i + 1, nameEnd, JAVA)) {
+                    checkClass(pool, i + 1, nameEnd, violations);
+                }
+                i = nameEnd;
+            }
+        }
+    }
+
+    private void checkClass(ConstantPool pool, int start, int end, Map<String, String> violations) {
+        // Names and descriptors are almost always ASCII, where modified UTF-8 equals UTF-8
+        String internalName = new String(pool.bytes, start, end - start, StandardCharsets.UTF_8);
+        String category = FORBIDDEN_CLASSES.get(internalName);
+        if (category == null) {
+            for (Map.Entry<String, String> forbidden : FORBIDDEN_PACKAGES.entrySet()) {
+                if (internalName.startsWith(forbidden.getKey())) {
+                    category = forbidden.getValue();
+                }
+            }
+        }
+        report(category, internalName, violations);
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void report(String category, String internalName, Map<String, String> violations) {
+        if (category != null && enabledCategories.contains(category)) {
+            violations.putIfAbsent(category, internalName.replace('/', '.'));
+        }
+    }
+
+    /**
+     * Offsets and tags of the constant pool entries of one class file.
+     */
+    private static final class ConstantPool {
+
+        private final byte[] bytes;
+        private final int count;
+        private final byte[] tags;
+        private final int[] offsets;
+        private final boolean[] isStringConstant;
+        private final int thisClassOffset;
+
+        ConstantPool(byte[] bytes) {
+            this.bytes = bytes;
+            if (bytes.length < 10 || readInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            this.count = readU2(8);
+            this.tags = new byte[count];
+            this.offsets = new int[count];
+            this.isStringConstant = new boolean[count];
+
+            int offset = 10;
+            try {
+                for (int index = 1; index < count; index++) {
+                    int tag = bytes[offset] & 0xFF;
+                    tags[index] = (byte) tag;
+                    offsets[index] = offset + 1;
+                    switch (tag) {
+                        case UTF8 -> offset += 3 + readU2(offset + 1);
+                        case CLASS, STRING, METHOD_TYPE, MODULE, PACKAGE -> offset += 3;
+                        case METHOD_HANDLE -> offset += 4;
+                        case INTEGER, FLOAT, FIELD_REF, METHOD_REF, INTERFACE_METHOD_REF, NAME_AND_TYPE,
+                             DYNAMIC, INVOKE_DYNAMIC -> offset += 5;
+                        case LONG, DOUBLE -> {
+                            offset += 9;
+                            // Eight-byte constants take up two entries
+                            index++;
+                        }
+                        default -> throw new IllegalArgumentException("Invalid constant pool tag " + tag + " at entry " + index);
+                    }
+                    if (tag == STRING) {
+                        isStringConstant[readU2(offset - 2)] = true;
+                    }
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Truncated class file", e);
+            }
+            // access_flags follow the pool, then this_class
+            this.thisClassOffset = offset + 2;
+        }
+
+        int u2(int index, int position) {
+            return readU2(offsets[index] + position);
+        }
+
+        String utf8(int index) {
+            return new String(bytes, utf8Offset(index), utf8Length(index), StandardCharsets.UTF_8);
+        }
+
+        int utf8Offset(int index) {
+            if (tags[index] != UTF8) {
+                throw new IllegalArgumentException("Constant pool entry " + index + " is not a UTF-8 entry");
+            }
+            return offsets[index] + 2;
+        }
+
+        int utf8Length(int index) {
+            return readU2(utf8Offset(index) - 2);
+        }
+
+        String className() {
+            return utf8(u2(readU2(thisClassOffset), 0)).replace('/', '.');
+        }
+
+        private int readU2(int offset) {
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private int readInt(int offset) {
+            return (readU2(offset) << 16) | readU2(offset + 2);
+        }
+    }
+}
@@ -111,6 +111,23 @@ public class CodeSecurityValidator {
         Pattern.compile("\\bvbscript\\b", Pattern.CASE_INSENSITIVE)
     );
 
+    // Words that suggest hidden code inside a block comment
+    private static final List<String> SUSPICIOUS_COMMENT_WORDS = List.of(
+        "exec", "runtime", "process", "system", "file",
+        "socket", "url", "class", "method", "field"
+    );
+
+    private static final List<String> KEYWORDS = List.of(
+        "if", "else", "for", "while", "do", "switch", "case", "default",
+        "break", "continue", "return", "try", "catch", "finally", "throw",
+        "throws", "public", "private", "protected", "static", "final",
+        "abstract", "synchronized", "volatile", "transient", "native",
+        "class", "interface", "extends", "implements", "import", "package",
+        "new", "this", "super", "instanceof", "void", "int", "long",
+        "short", "byte", "char", "float", "double", "boolean", "true",
+        "false", "null", "enum", "assert", "const", "goto"
+    );
+
     /**
      * Validates Java source code for security threats.
      * 
@@ -118,27 +135,66 @@ public class CodeSecurityValidator {
      * @throws SecurityException if malicious code is detected
      */
     public static void validate(String sourceCode) {
+        validate(sourceCode, ValidationMetrics.NONE);
+    }
+
+    /**
+     * Validates Java source code for security threats and records per-rule
+     * metrics.
+     * 
+     * The rules are {@code input}, {@code imports}, {@code methodCalls},
+     * {@code patterns} and {@code codeStructure}, evaluated in that order until
+     * one rejects the source. Rejection reasons are the dangerous import,
+     * method or pattern that matched, or the structural check that failed.
+     * 
+     * @param sourceCode the Java source code to validate
+     * @param metrics the metrics to record into
+     * @throws SecurityException if malicious code is detected
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public static void validate(String sourceCode, ValidationMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Validation metrics cannot be null");
+        }
+        boolean sampled = metrics.startValidation();
         if (sourceCode == null || sourceCode.trim().isEmpty()) {
+            metrics.recordRejection("input", "empty", sampled);
             throw new SecurityException("Source code cannot be null or empty");
         }
 
         // Check for dangerous imports
-        validateImports(sourceCode);
+        evaluate("imports", metrics, sampled, () -> validateImports(sourceCode, metrics, sampled));
         
         // Check for dangerous method calls
-        validateMethodCalls(sourceCode);
+        evaluate("methodCalls", metrics, sampled, () -> validateMethodCalls(sourceCode, metrics, sampled));
         
         // Check for dangerous patterns
-        validatePatterns(sourceCode);
+        evaluate("patterns", metrics, sampled, () -> validatePatterns(sourceCode, metrics, sampled));
         
         // Check for suspicious code structures
-        validateCodeStructure(sourceCode);
+        evaluate("codeStructure", metrics, sampled, () -> validateCodeStructure(sourceCode, metrics, sampled));
+    }
+
+    /**
+     * Runs one rule, timing it in sampled validations, whether it passes or not.
+     */
+    private static void evaluate(String rule, ValidationMetrics metrics, boolean sampled, Runnable check) {
+        if (!sampled) {
+            check.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            check.run();
+        } finally {
+            metrics.recordEvaluation(rule, System.nanoTime() - start);
+        }
     }
 
     /**
      * Validates imports in the source code.
      */
-    private static void validateImports(String sourceCode) {
+    private static void validateImports(String sourceCode, ValidationMetrics metrics, boolean sampled) {
         String[] lines = sourceCode.split("\n");
         
         for (String line : lines) {
@@ -148,6 +204,7 @@ public class CodeSecurityValidator {
                 
                 for (String dangerousImport : DANGEROUS_IMPORTS) {
                     if (importStatement.contains(dangerousImport)) {
+                        metrics.recordRejection("imports", dangerousImport, sampled);
                         throw new SecurityException(
                             "Dangerous import detected: " + importStatement + 
                             ". Import of " + dangerousImport + " is not allowed for security reasons."
@@ -161,9 +218,10 @@ public class CodeSecurityValidator {
     /**
      * Validates method calls in the source code.
      */
-    private static void validateMethodCalls(String sourceCode) {
+    private static void validateMethodCalls(String sourceCode, ValidationMetrics metrics, boolean sampled) {
         for (String dangerousMethod : DANGEROUS_METHODS) {
             if (sourceCode.contains(dangerousMethod + "(")) {
+                metrics.recordRejection("methodCalls", dangerousMethod, sampled);
                 throw new SecurityException(
                     "Dangerous method call detected: " + dangerousMethod + 
                     ". This method is not allowed for security reasons."
@@ -175,9 +233,10 @@ public class CodeSecurityValidator {
     /**
      * Validates dangerous patterns in the source code.
      */
-    private static void validatePatterns(String sourceCode) {
+    private static void validatePatterns(String sourceCode, ValidationMetrics metrics, boolean sampled) {
         for (Pattern pattern : DANGEROUS_PATTERNS) {
             if (pattern.matcher(sourceCode).find()) {
+                metrics.recordRejection("patterns", pattern.pattern(), sampled);
                 throw new SecurityException(
                     "Dangerous pattern detected: " + pattern.pattern() + 
                     ". This pattern is not allowed for security reasons."
@@ -188,94 +247,127 @@ public class CodeSecurityValidator {
 
     /**
      * Validates code structure for suspicious patterns.
+     * 
+     * Comments, quotes and short identifiers are all found by one pass over
+     * the source that does not allocate per token, so the cost stays linear
+     * however the input is shaped.
      */
-    private static void validateCodeStructure(String sourceCode) {
-        // Check for suspicious comment patterns
-        if (sourceCode.contains("/*") && sourceCode.contains("*/")) {
+    private static void validateCodeStructure(String sourceCode, ValidationMetrics metrics, boolean sampled) {
+        int length = sourceCode.length();
+        int quotes = 0;
+        int shortIdentifiers = 0;
+        boolean multiline = false;
+        // Openers are matched left to right without overlapping, like splitting on "/*"
+        int nextOpener = 0;
+        int commentStart = -1;
+        int tokenStart = 0;
+        boolean tokenIsWord = true;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? sourceCode.charAt(i) : ' ';
+
             // Check for hidden code in comments
-            String[] parts = sourceCode.split("/\\*");
-            for (int i = 1; i < parts.length; i++) {
-                String commentPart = parts[i];
-                if (commentPart.contains("*/")) {
-                    String comment = commentPart.substring(0, commentPart.indexOf("*/"));
-                    if (containsSuspiciousContent(comment)) {
-                        throw new SecurityException(
-                            "Suspicious content detected in comments. Hidden code execution is not allowed."
-                        );
-                    }
+            if (c == '/' && i >= nextOpener && startsWith(sourceCode, i + 1, '*')) {
+                commentStart = i + 2;
+                nextOpener = i + 2;
+            } else if (c == '*' && commentStart >= 0 && i >= commentStart && startsWith(sourceCode, i + 1, '/')
+                    && !startsWith(sourceCode, i + 2, '*')) {
+                // A "*" right after the "/" would start the next comment, which owns the "/"
+                if (containsSuspiciousContent(sourceCode, commentStart, i)) {
+                    metrics.recordRejection("codeStructure", "suspiciousComment", sampled);
+                    throw new SecurityException(
+                        "Suspicious content detected in comments. Hidden code execution is not allowed."
+                    );
                 }
+                commentStart = -1;
+            }
+
+            if (c == '"') {
+                quotes++;
+            }
+
+            if (isLineTerminator(c)) {
+                multiline = true;
+            }
+
+            // Whitespace-separated words of one or two letters
+            if (isWhitespace(c)) {
+                int tokenLength = i - tokenStart;
+                if (tokenIsWord && tokenLength > 0 && tokenLength <= 2
+                        && !isKeyword(sourceCode, tokenStart, tokenLength)) {
+                    shortIdentifiers++;
+                }
+                tokenStart = i + 1;
+                tokenIsWord = true;
+            } else if (!isAsciiLetter(c)) {
+                tokenIsWord = false;
             }
         }
         
         // Check for excessive string concatenation (potential obfuscation)
-        if (countOccurrences(sourceCode, "\"") > 50) {
+        if (quotes > 50) {
+            metrics.recordRejection("codeStructure", "stringConcatenation", sampled);
             throw new SecurityException(
                 "Excessive string concatenation detected. This may indicate code obfuscation."
             );
         }
         
-        // Check for suspicious variable names
-        if (sourceCode.matches(".*\\b[a-zA-Z]{1,2}\\b.*")) {
-            // Check for single/double letter variables (potential obfuscation)
-            String[] words = sourceCode.split("\\s+");
-            int suspiciousVars = 0;
-            for (String word : words) {
-                if (word.matches("\\b[a-zA-Z]{1,2}\\b") && !isKeyword(word)) {
-                    suspiciousVars++;
-                }
-            }
-            if (suspiciousVars > 10) {
-                throw new SecurityException(
-                    "Suspicious variable naming pattern detected. This may indicate code obfuscation."
-                );
-            }
+        // Check for single/double letter variables (potential obfuscation). The rule
+        // has only ever applied to single-line sources, since "." stopped the original
+        // whole-source pattern at the first line terminator.
+        if (!multiline && shortIdentifiers > 10) {
+            metrics.recordRejection("codeStructure", "shortIdentifiers", sampled);
+            throw new SecurityException(
+                "Suspicious variable naming pattern detected. This may indicate code obfuscation."
+            );
         }
     }
 
+    private static boolean startsWith(String text, int index, char c) {
+        return index < text.length() && text.charAt(index) == c;
+    }
+
+    /**
+     * Checks for the characters that end a line for {@code .} in a regular expression.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
     /**
-     * Checks if content contains suspicious patterns.
+     * Checks for the characters matched by {@code \s} in a regular expression.
      */
-    private static boolean containsSuspiciousContent(String content) {
-        String lowerContent = content.toLowerCase();
-        return lowerContent.contains("exec") || 
-               lowerContent.contains("runtime") || 
-               lowerContent.contains("process") ||
-               lowerContent.contains("system") ||
-               lowerContent.contains("file") ||
-               lowerContent.contains("socket") ||
-               lowerContent.contains("url") ||
-               lowerContent.contains("class") ||
-               lowerContent.contains("method") ||
-               lowerContent.contains("field");
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
     /**
-     * Counts occurrences of a substring in a string.
+     * Checks if a range of the source contains suspicious patterns, ignoring case.
      */
-    private static int countOccurrences(String text, String substring) {
-        int count = 0;
-        int index = 0;
-        while ((index = text.indexOf(substring, index)) != -1) {
-            count++;
-            index += substring.length();
+    private static boolean containsSuspiciousContent(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            for (String word : SUSPICIOUS_COMMENT_WORDS) {
+                if (i + word.length() <= to && text.regionMatches(true, i, word, 0, word.length())) {
+                    return true;
+                }
+            }
         }
-        return count;
+        return false;
     }
 
     /**
-     * Checks if a word is a Java keyword.
+     * Checks if a range of the source is a Java keyword, ignoring case.
      */
-    private static boolean isKeyword(String word) {
-        Set<String> keywords = Set.of(
-            "if", "else", "for", "while", "do", "switch", "case", "default",
-            "break", "continue", "return", "try", "catch", "finally", "throw",
-            "throws", "public", "private", "protected", "static", "final",
-            "abstract", "synchronized", "volatile", "transient", "native",
-            "class", "interface", "extends", "implements", "import", "package",
-            "new", "this", "super", "instanceof", "void", "int", "long",
-            "short", "byte", "char", "float", "double", "boolean", "true",
-            "false", "null", "enum", "assert", "const", "goto"
-        );
-        return keywords.contains(word.toLowerCase());
+    private static boolean isKeyword(String text, int from, int length) {
+        for (String keyword : KEYWORDS) {
+            if (keyword.length() == length && text.regionMatches(true, from, keyword, 0, length)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -1,7 +1,11 @@
 package org.vuong.dynamicmoduleloader.security;
 
-import java.util.*;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Enhanced security validator that uses configuration-based validation rules.
@@ -14,19 +18,121 @@ import java.util.regex.Pattern;
  */
 public class EnhancedSecurityValidator {
 
+    private static final String[] FILE_PATTERNS = {
+        "java.io.File", "java.nio.file.Files", "java.nio.file.Paths",
+        "FileInputStream", "FileOutputStream", "FileReader", "FileWriter"
+    };
+
+    private static final String[] NETWORK_PATTERNS = {
+        "java.net.Socket", "java.net.URL", "java.net.URLConnection",
+        "java.net.HttpURLConnection", "java.net.ServerSocket"
+    };
+
+    private static final String[] REFLECTION_PATTERNS = {
+        "java.lang.reflect", "Class.forName", "getDeclaredMethod",
+        "getMethod", "invoke", "getDeclaredField", "getField",
+        "setAccessible", "newInstance"
+    };
+
+    private static final String[] SYSTEM_PATTERNS = {
+        "Runtime.getRuntime", "ProcessBuilder", "System.exit",
+        "System.halt", "System.gc", "System.runFinalization"
+    };
+
+    private static final String[] DATABASE_PATTERNS = {
+        "java.sql.Connection", "java.sql.DriverManager",
+        "java.sql.Statement", "java.sql.PreparedStatement"
+    };
+
+    // Characters read from a Reader at a time
+    private static final int CHUNK_SIZE = 8192;
+
+    // Simplified method count used by the complexity check
+    private static final String[] MEMBER_PATTERNS = {
+        "public ", "private ", "protected "
+    };
+
     private final SecurityConfig config;
+    private final ValidationCache cache;
+    private final ValidationMetrics metrics;
+    private final String fingerprint;
+    private final MultiPatternMatcher matcher;
+    private final String[] messages;
+    private final String[] rules;
+    private final int forbiddenPatterns;
 
     /**
      * Creates a new EnhancedSecurityValidator with the specified security configuration.
      * 
+     * The patterns of all rules enabled by the configuration are compiled into
+     * a single matcher here, so each validation scans the source only once.
+     * 
      * @param config the security configuration to use for validation
      * @throws IllegalArgumentException if config is null
      */
     public EnhancedSecurityValidator(SecurityConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * Creates a new EnhancedSecurityValidator that caches its verdicts.
+     * 
+     * Verdicts are keyed on the source digest and the configuration
+     * fingerprint, so a source validated before with an equal configuration is
+     * answered from the cache. The cache may be shared with other validators.
+     * 
+     * @param config the security configuration to use for validation
+     * @param cache the cache for verdicts, or null to validate every time
+     * @throws IllegalArgumentException if config is null
+     */
+    public EnhancedSecurityValidator(SecurityConfig config, ValidationCache cache) {
+        this(config, cache, null);
+    }
+
+    /**
+     * Creates a new EnhancedSecurityValidator that caches its verdicts and
+     * records per-rule metrics.
+     * 
+     * The rules are {@code input}, {@code file}, {@code network},
+     * {@code reflection}, {@code system}, {@code database} and
+     * {@code complexity}, with the matched pattern as rejection reason. All
+     * patterns are matched in one pass, so their time is recorded once, under
+     * {@code scan}. Verdicts answered from the cache are not evaluated and
+     * not recorded.
+     * 
+     * @param config the security configuration to use for validation
+     * @param cache the cache for verdicts, or null to validate every time
+     * @param metrics the metrics to record into, or null to record nothing
+     * @throws IllegalArgumentException if config is null
+     */
+    public EnhancedSecurityValidator(SecurityConfig config, ValidationCache cache, ValidationMetrics metrics) {
         if (config == null) {
             throw new IllegalArgumentException("Security configuration cannot be null");
         }
         this.config = config;
+        this.cache = cache;
+        this.metrics = metrics != null ? metrics : ValidationMetrics.NONE;
+        this.fingerprint = EnhancedSecurityValidator.class.getName() + ":" + config.fingerprint();
+
+        // Pattern ids follow the order in which the rules are reported
+        List<String> patterns = new ArrayList<>();
+        List<String> ruleMessages = new ArrayList<>();
+        List<String> ruleNames = new ArrayList<>();
+        addRule(patterns, ruleMessages, ruleNames, !config.isAllowFileOperations(), FILE_PATTERNS,
+            "File operations are not allowed: ", "file");
+        addRule(patterns, ruleMessages, ruleNames, !config.isAllowNetworkOperations(), NETWORK_PATTERNS,
+            "Network operations are not allowed: ", "network");
+        addRule(patterns, ruleMessages, ruleNames, !config.isAllowReflection(), REFLECTION_PATTERNS,
+            "Reflection operations are not allowed: ", "reflection");
+        addRule(patterns, ruleMessages, ruleNames, !config.isAllowSystemOperations(), SYSTEM_PATTERNS,
+            "System operations are not allowed: ", "system");
+        addRule(patterns, ruleMessages, ruleNames, !config.isAllowDatabaseOperations(), DATABASE_PATTERNS,
+            "Database operations are not allowed: ", "database");
+        this.forbiddenPatterns = patterns.size();
+        this.messages = ruleMessages.toArray(new String[0]);
+        this.rules = ruleNames.toArray(new String[0]);
+        patterns.addAll(Arrays.asList(MEMBER_PATTERNS));
+        this.matcher = new MultiPatternMatcher(patterns);
     }
 
     /**
@@ -36,123 +142,172 @@ public class EnhancedSecurityValidator {
      * @throws SecurityException if malicious code is detected
      */
     public void validate(String sourceCode) {
+        validateText(sourceCode);
+    }
+
+    /**
+     * Validates Java source code held in a character buffer, such as a view
+     * of a memory-mapped file, without copying it.
+     * 
+     * The characters between the buffer's position and limit are scanned in
+     * place; the position is not changed.
+     * 
+     * @param sourceCode the Java source code to validate
+     * @throws SecurityException if malicious code is detected
+     */
+    public void validate(CharBuffer sourceCode) {
+        validateText(sourceCode);
+    }
+
+    /**
+     * Validates Java source code read from a reader, without holding it in memory.
+     * 
+     * The source is read and scanned in chunks of a fixed size, so memory use
+     * does not grow with the length of the source. Patterns that span two
+     * chunks are found, and the verdicts are the same as for
+     * {@link #validate(String)}. Reading stops once the source exceeds the
+     * maximum allowed length. Verdicts read from a reader are not cached,
+     * since the source would have to be read twice. The reader is not closed.
+     * 
+     * @param reader the reader supplying the Java source code to validate
+     * @throws SecurityException if malicious code is detected
+     * @throws IOException if reading from the reader fails
+     */
+    public void validate(Reader reader) throws IOException {
+        if (!config.isEnableValidation()) {
+            return;
+        }
+        boolean sampled = metrics.startValidation();
+        if (reader == null) {
+            throw emptySource(sampled);
+        }
+
+        MultiPatternMatcher.Scan scan = matcher.scan();
+        char[] buffer = new char[CHUNK_SIZE];
+        CharBuffer chunk = CharBuffer.wrap(buffer);
+        boolean blank = true;
+        long start = sampled ? System.nanoTime() : 0;
+        try {
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                chunk.clear().limit(read);
+                blank = blank && isBlank(chunk);
+                if (scan.length() + read > config.getMaxStringLength()) {
+                    // A blank source is reported as empty, however long, as validate(String) does
+                    while (blank && (read = reader.read(buffer, 0, buffer.length)) != -1) {
+                        blank = isBlank(chunk.clear().limit(read));
+                    }
+                    throw blank ? emptySource(sampled) : sourceTooLong(sampled);
+                }
+                scan.feed(chunk);
+            }
+        } finally {
+            if (sampled) {
+                metrics.recordEvaluation("scan", System.nanoTime() - start);
+            }
+        }
+        if (blank) {
+            throw emptySource(sampled);
+        }
+        report(scan.counts(), sampled);
+    }
+
+    private void validateText(CharSequence sourceCode) {
         if (!config.isEnableValidation()) {
             return;
         }
+        if (cache == null) {
+            scan(sourceCode);
+        } else {
+            cache.validate(sourceCode, fingerprint, () -> scan(sourceCode));
+        }
+    }
 
-        if (sourceCode == null || sourceCode.trim().isEmpty()) {
-            throw new SecurityException("Source code cannot be null or empty");
+    private void scan(CharSequence sourceCode) {
+        boolean sampled = metrics.startValidation();
+        if (sourceCode == null || isBlank(sourceCode)) {
+            throw emptySource(sampled);
         }
 
         // Check string length
         if (sourceCode.length() > config.getMaxStringLength()) {
-            throw new SecurityException(
-                "Source code exceeds maximum allowed length: " + config.getMaxStringLength()
-            );
+            throw sourceTooLong(sampled);
         }
 
-        // Validate based on configuration
-        validateFileOperations(sourceCode);
-        validateNetworkOperations(sourceCode);
-        validateReflectionOperations(sourceCode);
-        validateSystemOperations(sourceCode);
-        validateDatabaseOperations(sourceCode);
-        validateCodeComplexity(sourceCode);
+        if (!sampled) {
+            report(matcher.count(sourceCode), false);
+            return;
+        }
+        long start = System.nanoTime();
+        int[] counts = matcher.count(sourceCode);
+        metrics.recordEvaluation("scan", System.nanoTime() - start);
+        report(counts, true);
     }
 
-    private void validateFileOperations(String sourceCode) {
-        if (!config.isAllowFileOperations()) {
-            String[] filePatterns = {
-                "java.io.File", "java.nio.file.Files", "java.nio.file.Paths",
-                "FileInputStream", "FileOutputStream", "FileReader", "FileWriter"
-            };
-            
-            for (String pattern : filePatterns) {
-                if (sourceCode.contains(pattern)) {
-                    throw new SecurityException(
-                        "File operations are not allowed: " + pattern
-                    );
-                }
-            }
+    private void report(int[] counts, boolean sampled) {
+        if (sampled) {
+            recordHits(counts);
         }
-    }
 
-    private void validateNetworkOperations(String sourceCode) {
-        if (!config.isAllowNetworkOperations()) {
-            String[] networkPatterns = {
-                "java.net.Socket", "java.net.URL", "java.net.URLConnection",
-                "java.net.HttpURLConnection", "java.net.ServerSocket"
-            };
-            
-            for (String pattern : networkPatterns) {
-                if (sourceCode.contains(pattern)) {
-                    throw new SecurityException(
-                        "Network operations are not allowed: " + pattern
-                    );
-                }
+        // Report the first violated pattern in rule order, not in source order
+        for (int id = 0; id < forbiddenPatterns; id++) {
+            if (counts[id] > 0) {
+                metrics.recordRejection(rules[id], matcher.pattern(id), sampled);
+                throw new SecurityException(messages[id] + matcher.pattern(id));
             }
         }
+
+        validateCodeComplexity(counts, sampled);
     }
 
-    private void validateReflectionOperations(String sourceCode) {
-        if (!config.isAllowReflection()) {
-            String[] reflectionPatterns = {
-                "java.lang.reflect", "Class.forName", "getDeclaredMethod",
-                "getMethod", "invoke", "getDeclaredField", "getField",
-                "setAccessible", "newInstance"
-            };
-            
-            for (String pattern : reflectionPatterns) {
-                if (sourceCode.contains(pattern)) {
-                    throw new SecurityException(
-                        "Reflection operations are not allowed: " + pattern
-                    );
+    /**
+     * Records a hit for every rule that matched but did not reject the source.
+     */
+    private void recordHits(int[] counts) {
+        String rejecting = null;
+        String previous = null;
+        for (int id = 0; id < forbiddenPatterns; id++) {
+            if (counts[id] > 0 && !rules[id].equals(previous)) {
+                if (rejecting != null) {
+                    metrics.recordHit(rules[id]);
+                } else {
+                    rejecting = rules[id];
                 }
+                previous = rules[id];
             }
         }
     }
 
-    private void validateSystemOperations(String sourceCode) {
-        if (!config.isAllowSystemOperations()) {
-            String[] systemPatterns = {
-                "Runtime.getRuntime", "ProcessBuilder", "System.exit",
-                "System.halt", "System.gc", "System.runFinalization"
-            };
-            
-            for (String pattern : systemPatterns) {
-                if (sourceCode.contains(pattern)) {
-                    throw new SecurityException(
-                        "System operations are not allowed: " + pattern
-                    );
-                }
-            }
-        }
+    private SecurityException emptySource(boolean sampled) {
+        metrics.recordRejection("input", "empty", sampled);
+        return new SecurityException("Source code cannot be null or empty");
     }
 
-    private void validateDatabaseOperations(String sourceCode) {
-        if (!config.isAllowDatabaseOperations()) {
-            String[] databasePatterns = {
-                "java.sql.Connection", "java.sql.DriverManager",
-                "java.sql.Statement", "java.sql.PreparedStatement"
-            };
-            
-            for (String pattern : databasePatterns) {
-                if (sourceCode.contains(pattern)) {
-                    throw new SecurityException(
-                        "Database operations are not allowed: " + pattern
-                    );
-                }
+    private SecurityException sourceTooLong(boolean sampled) {
+        metrics.recordRejection("input", "length", sampled);
+        return new SecurityException(
+            "Source code exceeds maximum allowed length: " + config.getMaxStringLength()
+        );
+    }
+
+    // Blank as String.trim() sees it: nothing but characters up to and including the space
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
             }
         }
+        return true;
     }
 
-    private void validateCodeComplexity(String sourceCode) {
-        // Count method complexity (simplified)
-        int methodCount = countOccurrences(sourceCode, "public ") + 
-                         countOccurrences(sourceCode, "private ") + 
-                         countOccurrences(sourceCode, "protected ");
+    private void validateCodeComplexity(int[] counts, boolean sampled) {
+        int methodCount = 0;
+        for (int id = forbiddenPatterns; id < matcher.size(); id++) {
+            methodCount += counts[id];
+        }
         
         if (methodCount > config.getMaxMethodComplexity()) {
+            metrics.recordRejection("complexity", "methods", sampled);
             throw new SecurityException(
                 "Code complexity exceeds maximum allowed: " + config.getMaxMethodComplexity() + 
                 " methods (found: " + methodCount + ")"
@@ -160,13 +315,14 @@ public class EnhancedSecurityValidator {
         }
     }
 
-    private int countOccurrences(String text, String substring) {
-        int count = 0;
-        int index = 0;
-        while ((index = text.indexOf(substring, index)) != -1) {
-            count++;
-            index += substring.length();
+    private static void addRule(List<String> patterns, List<String> messages, List<String> names, boolean enabled,
+                                String[] rulePatterns, String message, String name) {
+        if (enabled) {
+            for (String pattern : rulePatterns) {
+                patterns.add(pattern);
+                messages.add(message);
+                names.add(name);
+            }
         }
-        return count;
     }
 }
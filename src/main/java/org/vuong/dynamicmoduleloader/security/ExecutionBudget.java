@@ -0,0 +1,122 @@
+package org.vuong.dynamicmoduleloader.security;
+
+/**
+ * Configuration class for the resources one plugin invocation may use.
+ * 
+ * Where {@link SecurityConfig} decides what plugin code may contain, an
+ * execution budget limits what a call into a plugin may consume at runtime:
+ * CPU time and allocated heap, both measured per thread. A plugin that
+ * exceeds its budget the configured number of times is quarantined.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ExecutionBudget {
+
+    /**
+     * A resource that an execution budget limits.
+     */
+    public enum Resource {
+
+        /**
+         * CPU time used by the invoking thread, in nanoseconds.
+         */
+        CPU_TIME,
+
+        /**
+         * Heap memory allocated by the invoking thread, in bytes.
+         */
+        ALLOCATED_BYTES
+    }
+
+    private final long maxCpuTimeNanos;
+    private final long maxAllocatedBytes;
+    private final int maxViolations;
+
+    /**
+     * Creates a new ExecutionBudget with custom limits.
+     * 
+     * @param maxCpuTimeNanos maximum CPU time per invocation, in nanoseconds
+     * @param maxAllocatedBytes maximum heap allocation per invocation, in bytes
+     * @param maxViolations number of violations after which the plugin is quarantined
+     * @throws IllegalArgumentException if any limit is not positive
+     */
+    public ExecutionBudget(long maxCpuTimeNanos, long maxAllocatedBytes, int maxViolations) {
+        if (maxCpuTimeNanos <= 0 || maxAllocatedBytes <= 0 || maxViolations <= 0) {
+            throw new IllegalArgumentException("Execution budget limits must be positive");
+        }
+        this.maxCpuTimeNanos = maxCpuTimeNanos;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.maxViolations = maxViolations;
+    }
+
+    /**
+     * Creates a budget that never limits or quarantines a plugin.
+     * 
+     * @return an unlimited execution budget
+     */
+    public static ExecutionBudget unlimited() {
+        return new ExecutionBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a permissive budget for trusted plugins: 10 seconds of CPU time
+     * and 1 GB of allocation per call, quarantined after 10 violations.
+     * 
+     * @return a permissive execution budget
+     */
+    public static ExecutionBudget permissive() {
+        return new ExecutionBudget(10_000_000_000L, 1L << 30, 10);
+    }
+
+    /**
+     * Creates a strict budget for untrusted plugins: 100 milliseconds of CPU
+     * time and 64 MB of allocation per call, quarantined after 3 violations.
+     * 
+     * @return a strict execution budget
+     */
+    public static ExecutionBudget strict() {
+        return new ExecutionBudget(100_000_000L, 64L << 20, 3);
+    }
+
+    /**
+     * Creates a moderate budget for semi-trusted plugins: 1 second of CPU
+     * time and 256 MB of allocation per call, quarantined after 5 violations.
+     * 
+     * @return a moderate execution budget
+     */
+    public static ExecutionBudget moderate() {
+        return new ExecutionBudget(1_000_000_000L, 256L << 20, 5);
+    }
+
+    /**
+     * Returns the limit on a resource.
+     * 
+     * @param resource the resource
+     * @return the maximum use of the resource per invocation
+     */
+    public long getLimit(Resource resource) {
+        return resource == Resource.CPU_TIME ? maxCpuTimeNanos : maxAllocatedBytes;
+    }
+
+    /**
+     * Returns the maximum CPU time per invocation.
+     * 
+     * @return the maximum CPU time in nanoseconds
+     */
+    public long getMaxCpuTimeNanos() { return maxCpuTimeNanos; }
+
+    /**
+     * Returns the maximum heap allocation per invocation.
+     * 
+     * @return the maximum allocation in bytes
+     */
+    public long getMaxAllocatedBytes() { return maxAllocatedBytes; }
+
+    /**
+     * Returns the number of violations after which a plugin is quarantined.
+     * 
+     * @return the violation limit
+     */
+    public int getMaxViolations() { return maxViolations; }
+}
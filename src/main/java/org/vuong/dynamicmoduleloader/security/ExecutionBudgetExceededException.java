@@ -0,0 +1,77 @@
+package org.vuong.dynamicmoduleloader.security;
+
+/**
+ * Thrown when a plugin invocation uses more of a resource than its
+ * {@link ExecutionBudget} allows.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ExecutionBudgetExceededException extends SecurityException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The name of the plugin that exceeded its budget.
+     */
+    private final String pluginName;
+
+    /**
+     * The exceeded resource.
+     */
+    private final ExecutionBudget.Resource resource;
+
+    /**
+     * The amount of the resource used when the violation was detected.
+     */
+    private final long used;
+
+    /**
+     * The budgeted amount of the resource.
+     */
+    private final long limit;
+
+    /**
+     * Creates a new ExecutionBudgetExceededException.
+     * 
+     * @param pluginName the name of the plugin that exceeded its budget
+     * @param resource the exceeded resource
+     * @param used the amount of the resource used when the violation was detected
+     * @param limit the budgeted amount of the resource
+     */
+    public ExecutionBudgetExceededException(String pluginName, ExecutionBudget.Resource resource, long used, long limit) {
+        super("Plugin " + pluginName + " exceeded its " + resource + " budget: " + used + " > " + limit);
+        this.pluginName = pluginName;
+        this.resource = resource;
+        this.used = used;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the name of the plugin that exceeded its budget.
+     * 
+     * @return the plugin name
+     */
+    public String getPluginName() { return pluginName; }
+
+    /**
+     * Returns the exceeded resource.
+     * 
+     * @return the resource
+     */
+    public ExecutionBudget.Resource getResource() { return resource; }
+
+    /**
+     * Returns the amount of the resource used when the violation was detected.
+     * 
+     * @return the amount used
+     */
+    public long getUsed() { return used; }
+
+    /**
+     * Returns the budgeted amount of the resource.
+     * 
+     * @return the limit
+     */
+    public long getLimit() { return limit; }
+}
@@ -0,0 +1,237 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds occurrences of many literal patterns in a single pass over the text.
+ * 
+ * The patterns are compiled once into an Aho-Corasick automaton whose failure
+ * links are folded into a dense transition table, so scanning costs one table
+ * lookup per character regardless of how many patterns there are. Instances
+ * are immutable and safe to share between threads.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class MultiPatternMatcher {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] patterns;
+    private final int[] charClasses;
+    private final int width;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    /**
+     * Compiles the given patterns.
+     * 
+     * @param patterns the literal patterns to search for, in id order
+     * @throws IllegalArgumentException if a pattern is null or empty
+     */
+    MultiPatternMatcher(List<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+
+        // Only characters that occur in some pattern need their own column
+        int maxChar = 0;
+        for (String pattern : this.patterns) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern cannot be null or empty");
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                maxChar = Math.max(maxChar, pattern.charAt(i));
+            }
+        }
+        this.charClasses = new int[maxChar + 1];
+        int classes = 1;
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (charClasses[c] == 0) {
+                    charClasses[c] = classes++;
+                }
+            }
+        }
+        this.width = classes;
+
+        // Build the trie
+        List<int[]> trie = new ArrayList<>();
+        List<int[]> trieOutputs = new ArrayList<>();
+        trie.add(new int[width]);
+        trieOutputs.add(NO_OUTPUT);
+        for (int id = 0; id < this.patterns.length; id++) {
+            int state = 0;
+            for (char c : this.patterns[id].toCharArray()) {
+                int cls = charClasses[c];
+                if (trie.get(state)[cls] == 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(new int[width]);
+                    trieOutputs.add(NO_OUTPUT);
+                }
+                state = trie.get(state)[cls];
+            }
+            trieOutputs.set(state, append(trieOutputs.get(state), id));
+        }
+
+        // Breadth-first pass resolving failure links into direct transitions
+        int states = trie.size();
+        this.transitions = new int[states * width];
+        this.outputs = trieOutputs.toArray(new int[0][]);
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int cls = 1; cls < width; cls++) {
+            int next = trie.get(0)[cls];
+            transitions[cls] = next;
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            int[] fallback = outputs[failure[state]];
+            if (fallback.length > 0) {
+                outputs[state] = merge(outputs[state], fallback);
+            }
+            for (int cls = 1; cls < width; cls++) {
+                int next = trie.get(state)[cls];
+                int viaFailure = transitions[failure[state] * width + cls];
+                if (next == 0) {
+                    transitions[state * width + cls] = viaFailure;
+                } else {
+                    transitions[state * width + cls] = next;
+                    failure[next] = viaFailure;
+                    queue.add(next);
+                }
+            }
+        }
+
+        // Store row offsets instead of states, with accepting targets flagged by a negative value
+        for (int i = 0; i < transitions.length; i++) {
+            int target = transitions[i];
+            transitions[i] = outputs[target].length > 0 ? ~(target * width) : target * width;
+        }
+    }
+
+    /**
+     * Returns the number of patterns this matcher searches for.
+     * 
+     * @return the pattern count
+     */
+    int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the pattern with the given id.
+     * 
+     * @param id the pattern id
+     * @return the pattern
+     */
+    String pattern(int id) {
+        return patterns[id];
+    }
+
+    /**
+     * Counts the non-overlapping occurrences of every pattern in one pass.
+     * 
+     * Occurrences of the same pattern are counted left to right, skipping any
+     * that overlap the previous one, which matches repeated
+     * {@link String#indexOf(String, int)} calls.
+     * 
+     * @param text the text to scan
+     * @return the occurrence count of each pattern, indexed by pattern id
+     */
+    int[] count(CharSequence text) {
+        Scan scan = new Scan();
+        scan.feed(text);
+        return scan.counts();
+    }
+
+    /**
+     * Starts a scan over text that arrives in chunks.
+     * 
+     * @return a new scan positioned at the start of the text
+     */
+    Scan scan() {
+        return new Scan();
+    }
+
+    /**
+     * Counts occurrences over consecutive chunks of one text, with the same
+     * results as {@link #count(CharSequence)} on the whole text. The automaton
+     * state carries over from one chunk to the next, so occurrences that span
+     * chunks are found. A scan is not safe to share between threads.
+     */
+    final class Scan {
+
+        private final int[] counts = new int[patterns.length];
+        // Position in the whole text before which the next occurrence of each pattern may not start
+        private final long[] nextStart = new long[patterns.length];
+        private int offset;
+        private long position;
+
+        /**
+         * Scans the next chunk of the text.
+         * 
+         * @param chunk the characters following those already scanned
+         */
+        void feed(CharSequence chunk) {
+            int[] classes = charClasses;
+            int[] table = transitions;
+            int state = offset;
+            long base = position;
+            for (int i = 0, length = chunk.length(); i < length; i++) {
+                char c = chunk.charAt(i);
+                int next = table[state + (c < classes.length ? classes[c] : 0)];
+                if (next >= 0) {
+                    state = next;
+                    continue;
+                }
+                state = ~next;
+                for (int id : outputs[state / width]) {
+                    long start = base + i - patterns[id].length() + 1;
+                    if (start >= nextStart[id]) {
+                        counts[id]++;
+                        nextStart[id] = base + i + 1;
+                    }
+                }
+            }
+            offset = state;
+            position = base + chunk.length();
+        }
+
+        /**
+         * Returns the number of characters scanned so far.
+         * 
+         * @return the scanned length
+         */
+        long length() {
+            return position;
+        }
+
+        /**
+         * Returns the occurrence counts so far.
+         * 
+         * @return the occurrence count of each pattern, indexed by pattern id
+         */
+        int[] counts() {
+            return counts;
+        }
+    }
+
+    private static int[] append(int[] ids, int id) {
+        int[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        int[] result = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, result, own.length, inherited.length);
+        return result;
+    }
+}
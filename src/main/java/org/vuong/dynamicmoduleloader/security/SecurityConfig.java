@@ -154,4 +154,24 @@ public class SecurityConfig {
      * @return the maximum method complexity
      */
     public int getMaxMethodComplexity() { return maxMethodComplexity; }
+
+    /**
+     * Returns a stable fingerprint of every setting in this configuration.
+     * 
+     * Two configurations have the same fingerprint exactly when all their
+     * settings are equal, in any JVM, so the fingerprint can key cached
+     * validation verdicts.
+     * 
+     * @return the fingerprint of this configuration
+     */
+    public String fingerprint() {
+        return "validation=" + enableValidation
+            + ",file=" + allowFileOperations
+            + ",network=" + allowNetworkOperations
+            + ",reflection=" + allowReflection
+            + ",system=" + allowSystemOperations
+            + ",database=" + allowDatabaseOperations
+            + ",maxStringLength=" + maxStringLength
+            + ",maxMethodComplexity=" + maxMethodComplexity;
+    }
 }
@@ -0,0 +1,472 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.ModifiersTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import org.vuong.dynamicmoduleloader.compiler.SourceTreeCheck;
+
+import javax.lang.model.element.Modifier;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Security validator that checks the syntax tree javac builds for a source
+ * instead of its raw text.
+ * 
+ * It enforces the same {@link SecurityConfig} rules as
+ * {@link EnhancedSecurityValidator}, but names are matched as names: text in
+ * string literals and comments is never flagged, {@code target(} no longer
+ * matches {@code get(}, and simple names are resolved through the imports, so
+ * {@code import java.io.*;} followed by {@code new File(...)} is caught. Used
+ * as a {@link SourceTreeCheck}, it runs on the trees of the compilation
+ * itself, so validation and compilation share one parse.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class TreeSecurityValidator implements SourceTreeCheck {
+
+    private static final String FILE = "File operations are not allowed: ";
+    private static final String NETWORK = "Network operations are not allowed: ";
+    private static final String REFLECTION = "Reflection operations are not allowed: ";
+    private static final String SYSTEM = "System operations are not allowed: ";
+    private static final String DATABASE = "Database operations are not allowed: ";
+
+    // Rule categories in reporting order
+    private static final List<String> CATEGORIES = List.of(FILE, NETWORK, REFLECTION, SYSTEM, DATABASE);
+
+    // Rule names of the categories in metrics, as the text validator names them
+    private static final Map<String, String> RULES = Map.of(
+        FILE, "file", NETWORK, "network", REFLECTION, "reflection", SYSTEM, "system", DATABASE, "database");
+
+    // Qualified type, member and package names, mapped to their rule category
+    private static final Map<String, String> FORBIDDEN_NAMES = Map.ofEntries(
+        Map.entry("java.io.File", FILE),
+        Map.entry("java.io.FileInputStream", FILE),
+        Map.entry("java.io.FileOutputStream", FILE),
+        Map.entry("java.io.FileReader", FILE),
+        Map.entry("java.io.FileWriter", FILE),
+        Map.entry("java.nio.file.Files", FILE),
+        Map.entry("java.nio.file.Paths", FILE),
+        Map.entry("java.net.Socket", NETWORK),
+        Map.entry("java.net.URL", NETWORK),
+        Map.entry("java.net.URLConnection", NETWORK),
+        Map.entry("java.net.HttpURLConnection", NETWORK),
+        Map.entry("java.net.ServerSocket", NETWORK),
+        Map.entry("java.lang.reflect", REFLECTION),
+        Map.entry("java.lang.Class.forName", REFLECTION),
+        Map.entry("java.lang.Runtime.getRuntime", SYSTEM),
+        Map.entry("java.lang.Runtime.halt", SYSTEM),
+        Map.entry("java.lang.ProcessBuilder", SYSTEM),
+        Map.entry("java.lang.System.exit", SYSTEM),
+        Map.entry("java.lang.System.gc", SYSTEM),
+        Map.entry("java.lang.System.runFinalization", SYSTEM),
+        Map.entry("java.sql.Connection", DATABASE),
+        Map.entry("java.sql.DriverManager", DATABASE),
+        Map.entry("java.sql.Statement", DATABASE),
+        Map.entry("java.sql.PreparedStatement", DATABASE)
+    );
+
+    // Reflective methods are rejected by name, whatever their receiver
+    private static final Set<String> REFLECTION_METHODS = Set.of(
+        "forName", "getDeclaredMethod", "getMethod", "invoke", "getDeclaredField",
+        "getField", "setAccessible", "newInstance"
+    );
+
+    // Classes of java.lang that the rules name and that need no import
+    private static final Set<String> IMPLICIT_TYPES = Set.of("Class", "Runtime", "ProcessBuilder", "System");
+
+    private final SecurityConfig config;
+    private final ValidationCache cache;
+    private final ValidationMetrics metrics;
+    private final String fingerprint;
+    private final Set<String> enabledCategories;
+
+    /**
+     * Creates a new TreeSecurityValidator with the specified security configuration.
+     * 
+     * @param config the security configuration to use for validation
+     * @throws IllegalArgumentException if config is null
+     */
+    public TreeSecurityValidator(SecurityConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * Creates a new TreeSecurityValidator that caches its verdicts.
+     * 
+     * Verdicts are keyed on the source digest and the configuration
+     * fingerprint and shared between {@link #validate(String)} and
+     * {@link #check(JavacTask, CompilationUnitTree)}, so a source that was
+     * validated before is not parsed again by {@code validate}.
+     * 
+     * @param config the security configuration to use for validation
+     * @param cache the cache for verdicts, or null to validate every time
+     * @throws IllegalArgumentException if config is null
+     */
+    public TreeSecurityValidator(SecurityConfig config, ValidationCache cache) {
+        this(config, cache, null);
+    }
+
+    /**
+     * Creates a new TreeSecurityValidator that caches its verdicts and
+     * records per-rule metrics.
+     * 
+     * The rules are {@code input}, {@code file}, {@code network},
+     * {@code reflection}, {@code system}, {@code database} and
+     * {@code complexity}, named as {@link EnhancedSecurityValidator} names
+     * them, with the forbidden name as rejection reason. The time to walk a
+     * tree is recorded under {@code scan}, and the time to parse a source
+     * passed to {@link #validate(String)} under {@code parse}. Verdicts
+     * answered from the cache are not evaluated and not recorded.
+     * 
+     * @param config the security configuration to use for validation
+     * @param cache the cache for verdicts, or null to validate every time
+     * @param metrics the metrics to record into, or null to record nothing
+     * @throws IllegalArgumentException if config is null
+     */
+    public TreeSecurityValidator(SecurityConfig config, ValidationCache cache, ValidationMetrics metrics) {
+        if (config == null) {
+            throw new IllegalArgumentException("Security configuration cannot be null");
+        }
+        this.config = config;
+        this.cache = cache;
+        this.metrics = metrics != null ? metrics : ValidationMetrics.NONE;
+        this.fingerprint = TreeSecurityValidator.class.getName() + ":" + config.fingerprint();
+        Set<String> enabled = new HashSet<>();
+        if (!config.isAllowFileOperations()) {
+            enabled.add(FILE);
+        }
+        if (!config.isAllowNetworkOperations()) {
+            enabled.add(NETWORK);
+        }
+        if (!config.isAllowReflection()) {
+            enabled.add(REFLECTION);
+        }
+        if (!config.isAllowSystemOperations()) {
+            enabled.add(SYSTEM);
+        }
+        if (!config.isAllowDatabaseOperations()) {
+            enabled.add(DATABASE);
+        }
+        this.enabledCategories = Set.copyOf(enabled);
+    }
+
+    /**
+     * Parses and validates Java source code without compiling it.
+     * 
+     * Used where a source must be checked before it is compiled, such as lazy
+     * registration. Source that cannot be parsed is rejected, since it cannot
+     * be checked.
+     * 
+     * @param sourceCode the Java source code to validate
+     * @throws SecurityException if malicious code is detected or the source cannot be parsed
+     */
+    public void validate(String sourceCode) {
+        if (!config.isEnableValidation()) {
+            return;
+        }
+        if (cache == null) {
+            parseAndCheck(sourceCode);
+        } else {
+            cache.validate(sourceCode, fingerprint, () -> parseAndCheck(sourceCode));
+        }
+    }
+
+    private void parseAndCheck(String sourceCode) {
+        boolean sampled = metrics.startValidation();
+        checkText(sourceCode, sampled);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler. Ensure tests run on a JDK, not a JRE.");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Plugin.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return sourceCode;
+            }
+        };
+        JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics, List.of("-proc:none"), null, List.of(file));
+        Iterable<? extends CompilationUnitTree> units;
+        long start = sampled ? System.nanoTime() : 0;
+        try {
+            units = task.parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (sampled) {
+            metrics.recordEvaluation("parse", System.nanoTime() - start);
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                metrics.recordRejection("input", "syntax", sampled);
+                throw new SecurityException("Source code cannot be parsed: line " + diagnostic.getLineNumber()
+                    + ": " + diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        for (CompilationUnitTree unit : units) {
+            checkTree(task, unit, sampled);
+        }
+    }
+
+    /**
+     * Validates a compilation unit that javac has parsed for compilation.
+     * 
+     * @param task the task that parsed the unit
+     * @param unit the parsed compilation unit
+     * @throws SecurityException if malicious code is detected
+     */
+    @Override
+    public void check(JavacTask task, CompilationUnitTree unit) {
+        if (!config.isEnableValidation()) {
+            return;
+        }
+        // The characters javac parsed, without copying them into a String
+        CharSequence sourceCode;
+        try {
+            sourceCode = unit.getSourceFile().getCharContent(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (cache == null) {
+            checkUnit(task, unit, sourceCode);
+        } else {
+            cache.validate(sourceCode, fingerprint, () -> checkUnit(task, unit, sourceCode));
+        }
+    }
+
+    private void checkUnit(JavacTask task, CompilationUnitTree unit, CharSequence sourceCode) {
+        boolean sampled = metrics.startValidation();
+        checkText(sourceCode, sampled);
+        checkTree(task, unit, sampled);
+    }
+
+    private void checkText(CharSequence sourceCode, boolean sampled) {
+        if (sourceCode == null || isBlank(sourceCode)) {
+            metrics.recordRejection("input", "empty", sampled);
+            throw new SecurityException("Source code cannot be null or empty");
+        }
+
+        // Check string length
+        if (sourceCode.length() > config.getMaxStringLength()) {
+            metrics.recordRejection("input", "length", sampled);
+            throw new SecurityException(
+                "Source code exceeds maximum allowed length: " + config.getMaxStringLength()
+            );
+        }
+    }
+
+    private static boolean isBlank(CharSequence sourceCode) {
+        for (int i = 0; i < sourceCode.length(); i++) {
+            if (sourceCode.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkTree(JavacTask task, CompilationUnitTree unit, boolean sampled) {
+        Scanner scanner = new Scanner(unit, Trees.instance(task).getSourcePositions());
+        long start = sampled ? System.nanoTime() : 0;
+        unit.accept(scanner, null);
+        if (sampled) {
+            metrics.recordEvaluation("scan", System.nanoTime() - start);
+        }
+
+        // Report the first violation of the first violated rule, as the text validator does
+        String rejecting = null;
+        for (String category : CATEGORIES) {
+            if (!scanner.violations.containsKey(category)) {
+                continue;
+            }
+            if (rejecting == null) {
+                rejecting = category;
+            } else if (sampled) {
+                metrics.recordHit(RULES.get(category));
+            }
+        }
+        if (rejecting != null) {
+            metrics.recordRejection(RULES.get(rejecting), scanner.names.get(rejecting), sampled);
+            throw new SecurityException(rejecting + scanner.violations.get(rejecting));
+        }
+
+        if (scanner.memberCount > config.getMaxMethodComplexity()) {
+            metrics.recordRejection("complexity", "methods", sampled);
+            throw new SecurityException(
+                "Code complexity exceeds maximum allowed: " + config.getMaxMethodComplexity() +
+                " methods (found: " + scanner.memberCount + ")"
+            );
+        }
+    }
+
+    /**
+     * Collects rule violations and counts declarations with an access modifier.
+     */
+    private final class Scanner extends TreeScanner<Void, Void> {
+
+        private final CompilationUnitTree unit;
+        private final SourcePositions positions;
+        private final Map<String, String> singleImports = new HashMap<>();
+        private final List<String> onDemandImports = new ArrayList<>();
+        private final Map<String, String> violations = new LinkedHashMap<>();
+        // The forbidden name of each violation, without its position
+        private final Map<String, String> names = new HashMap<>();
+        private int memberCount;
+
+        Scanner(CompilationUnitTree unit, SourcePositions positions) {
+            this.unit = unit;
+            this.positions = positions;
+            for (ImportTree importTree : unit.getImports()) {
+                String name = dottedName(importTree.getQualifiedIdentifier());
+                int lastDot = name.lastIndexOf('.');
+                if (name.endsWith(".*")) {
+                    onDemandImports.add(name.substring(0, name.length() - 2));
+                } else if (lastDot > 0) {
+                    singleImports.put(name.substring(lastDot + 1), name);
+                }
+            }
+        }
+
+        @Override
+        public Void visitImport(ImportTree node, Void unused) {
+            String name = dottedName(node.getQualifiedIdentifier());
+            checkName(name.endsWith(".*") ? name.substring(0, name.length() - 2) : name, node);
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(IdentifierTree node, Void unused) {
+            checkName(resolve(node.getName().toString()), node);
+            return null;
+        }
+
+        @Override
+        public Void visitMemberSelect(MemberSelectTree node, Void unused) {
+            String name = dottedName(node);
+            if (name == null) {
+                // Not a plain name such as a.b.c, e.g. call().field
+                return super.visitMemberSelect(node, unused);
+            }
+            int firstDot = name.indexOf('.');
+            checkName(resolve(name.substring(0, firstDot)) + name.substring(firstDot), node);
+            return null;
+        }
+
+        @Override
+        public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+            ExpressionTree select = node.getMethodSelect();
+            String method = select instanceof MemberSelectTree member
+                ? member.getIdentifier().toString()
+                : select instanceof IdentifierTree identifier ? identifier.getName().toString() : null;
+            if (method != null && REFLECTION_METHODS.contains(method)) {
+                report(REFLECTION, method, node);
+            }
+            return super.visitMethodInvocation(node, unused);
+        }
+
+        @Override
+        public Void visitMemberReference(MemberReferenceTree node, Void unused) {
+            String method = node.getName().toString();
+            if (REFLECTION_METHODS.contains(method)) {
+                report(REFLECTION, method, node);
+            }
+            return super.visitMemberReference(node, unused);
+        }
+
+        @Override
+        public Void visitModifiers(ModifiersTree node, Void unused) {
+            Set<Modifier> flags = node.getFlags();
+            if (flags.contains(Modifier.PUBLIC) || flags.contains(Modifier.PRIVATE) || flags.contains(Modifier.PROTECTED)) {
+                memberCount++;
+            }
+            return super.visitModifiers(node, unused);
+        }
+
+        /**
+         * Qualifies the first segment of a name through the imports, java.lang
+         * or an on-demand import that would bring a forbidden type into scope.
+         */
+        private String resolve(String simpleName) {
+            String imported = singleImports.get(simpleName);
+            if (imported != null) {
+                return imported;
+            }
+            if (IMPLICIT_TYPES.contains(simpleName)) {
+                return "java.lang." + simpleName;
+            }
+            for (String prefix : onDemandImports) {
+                String candidate = prefix + "." + simpleName;
+                if (FORBIDDEN_NAMES.containsKey(candidate) || FORBIDDEN_NAMES.containsKey(prefix)) {
+                    return candidate;
+                }
+            }
+            return simpleName;
+        }
+
+        /**
+         * Reports the longest forbidden prefix of a qualified name.
+         */
+        private void checkName(String name, Tree node) {
+            for (String prefix = name; ; prefix = prefix.substring(0, prefix.lastIndexOf('.'))) {
+                String category = FORBIDDEN_NAMES.get(prefix);
+                if (category != null) {
+                    report(category, prefix, node);
+                    return;
+                }
+                if (prefix.indexOf('.') < 0) {
+                    return;
+                }
+            }
+        }
+
+        private void report(String category, String name, Tree node) {
+            if (enabledCategories.contains(category) && !violations.containsKey(category)) {
+                long line = unit.getLineMap().getLineNumber(positions.getStartPosition(unit, node));
+                violations.put(category, name + " (line " + line + ")");
+                names.put(category, name);
+            }
+        }
+    }
+
+    /**
+     * Returns the dotted form of a name made only of identifiers and member
+     * selections, such as {@code java.io.File}, or null for other expressions.
+     */
+    private static String dottedName(Tree tree) {
+        if (tree instanceof IdentifierTree identifier) {
+            return identifier.getName().toString();
+        }
+        if (tree instanceof MemberSelectTree member) {
+            String qualifier = dottedName(member.getExpression());
+            return qualifier == null ? null : qualifier + "." + member.getIdentifier();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,190 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of validation verdicts, keyed on a SHA-256 digest of the
+ * source and a fingerprint of the validator and its configuration.
+ * 
+ * Both outcomes are cached: a source that passed is not validated again, and
+ * a source that failed is rejected again with the same message. The digest is
+ * computed over the source in fixed-size chunks, so no encoded copy of the
+ * whole source is made. A cryptographic digest is used on purpose; with a
+ * weaker hash, a crafted source could collide with a cached pass. When the
+ * cache is full, the least recently used verdict is evicted. One cache can be
+ * shared by several validators, since their fingerprints differ.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ValidationCache {
+
+    /**
+     * The number of verdicts a cache created by the services holds.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int CHUNK_CHARS = 4096;
+
+    private final int capacity;
+    // Access-ordered, so iteration starts at the least recently used verdict; guarded by itself
+    private final Map<Key, Verdict> verdicts;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new ValidationCache holding at most the given number of verdicts.
+     * 
+     * @param capacity the maximum number of cached verdicts
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public ValidationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.verdicts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Verdict> eldest) {
+                if (size() > ValidationCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Runs a validation unless its verdict for this source is already cached.
+     * 
+     * A cached failure is thrown again as a new {@link SecurityException} with
+     * the original message. Only {@code SecurityException} counts as a
+     * verdict; any other exception propagates and nothing is cached. A null
+     * source is never cached.
+     * 
+     * @param source the source being validated
+     * @param fingerprint identifies the validator and every setting that can change its verdict
+     * @param validation the validation to run on a miss
+     * @throws SecurityException if the source fails validation, now or when it was cached
+     * @throws IllegalArgumentException if fingerprint or validation is null
+     */
+    public void validate(CharSequence source, String fingerprint, Runnable validation) {
+        if (fingerprint == null || validation == null) {
+            throw new IllegalArgumentException("Fingerprint and validation cannot be null");
+        }
+        if (source == null) {
+            validation.run();
+            return;
+        }
+
+        Key key = new Key(fingerprint, digest(source));
+        Verdict cached;
+        synchronized (verdicts) {
+            cached = verdicts.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            if (cached.failure() != null) {
+                throw new SecurityException(cached.failure());
+            }
+            return;
+        }
+
+        misses.increment();
+        // Concurrent misses on one source validate it twice and store the same verdict
+        try {
+            validation.run();
+        } catch (SecurityException e) {
+            // Without a message, a failure could not be told apart from a pass
+            if (e.getMessage() != null) {
+                store(key, new Verdict(e.getMessage()));
+            }
+            throw e;
+        }
+        store(key, Verdict.PASSED);
+    }
+
+    private void store(Key key, Verdict verdict) {
+        synchronized (verdicts) {
+            verdicts.put(key, verdict);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     * 
+     * @return the current cache statistics
+     */
+    public ValidationCacheStats getStats() {
+        int size;
+        synchronized (verdicts) {
+            size = verdicts.size();
+        }
+        return new ValidationCacheStats(hits.sum(), misses.sum(), evictions.sum(), size, capacity);
+    }
+
+    /**
+     * Removes every cached verdict. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (verdicts) {
+            verdicts.clear();
+        }
+    }
+
+    /**
+     * Digests the characters of the source a chunk at a time.
+     * 
+     * Characters below 0x80 take one byte and all others three, the first of
+     * which is at least 0x80, so the encoding is injective even for unpaired
+     * surrogates.
+     */
+    private static Key.Digest digest(CharSequence source) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] chunk = new byte[CHUNK_CHARS * 3];
+        int length = source.length();
+        for (int start = 0; start < length; start += CHUNK_CHARS) {
+            int end = Math.min(length, start + CHUNK_CHARS);
+            int position = 0;
+            for (int i = start; i < end; i++) {
+                char c = source.charAt(i);
+                if (c < 0x80) {
+                    chunk[position++] = (byte) c;
+                } else {
+                    chunk[position++] = (byte) (0x80 | (c >>> 12));
+                    chunk[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+                    chunk[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            sha.update(chunk, 0, position);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(sha.digest());
+        return new Key.Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private record Key(String fingerprint, Digest digest) {
+
+        private record Digest(long first, long second, long third, long fourth) {
+        }
+    }
+
+    /**
+     * The outcome of one validation; a null failure means the source passed.
+     */
+    private record Verdict(String failure) {
+
+        private static final Verdict PASSED = new Verdict(null);
+    }
+}
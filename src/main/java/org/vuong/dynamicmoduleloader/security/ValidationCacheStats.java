@@ -0,0 +1,30 @@
+package org.vuong.dynamicmoduleloader.security;
+
+/**
+ * Point-in-time statistics about a {@link ValidationCache}.
+ * 
+ * @param hits the number of validations answered from the cache
+ * @param misses the number of validations that had to run
+ * @param evictions the number of verdicts evicted to stay within capacity
+ * @param size the number of verdicts currently cached
+ * @param capacity the maximum number of cached verdicts
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record ValidationCacheStats(long hits,
+                                   long misses,
+                                   long evictions,
+                                   int size,
+                                   int capacity) {
+
+    /**
+     * Returns the fraction of validations answered from the cache.
+     * 
+     * @return the hit rate between 0 and 1, or 0 if nothing was validated yet
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
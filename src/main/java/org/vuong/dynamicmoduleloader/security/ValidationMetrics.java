@@ -0,0 +1,154 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-rule counters for security validation: how often each rule is
+ * evaluated, how long it takes, how often it matches and why it rejects.
+ * 
+ * Counters are {@link LongAdder}s, so recording from many threads does not
+ * contend. Rejections and their reasons are counted for every validation.
+ * Evaluations, timings and hits can be sampled: with a sample interval of N,
+ * a random one in N validations is recorded in full, which keeps the cost of
+ * instrumentation low enough to leave on in production. Reasons are short,
+ * bounded keys such as the matched pattern, never the source text.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class ValidationMetrics {
+
+    // Records nothing; used when a validator is given no metrics
+    static final ValidationMetrics NONE = new ValidationMetrics(1, false);
+
+    private final int sampleInterval;
+    private final boolean enabled;
+    private final LongAdder validations = new LongAdder();
+    private final LongAdder sampledValidations = new LongAdder();
+    private final Map<String, RuleCounters> rules = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new ValidationMetrics that records every validation in full.
+     */
+    public ValidationMetrics() {
+        this(1);
+    }
+
+    /**
+     * Creates a new ValidationMetrics that records evaluations, timings and
+     * hits for one in sampleInterval validations, chosen at random.
+     * 
+     * @param sampleInterval the average number of validations per recorded sample
+     * @throws IllegalArgumentException if sampleInterval is less than 1
+     */
+    public ValidationMetrics(int sampleInterval) {
+        this(sampleInterval, true);
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be at least 1");
+        }
+    }
+
+    private ValidationMetrics(int sampleInterval, boolean enabled) {
+        this.sampleInterval = sampleInterval;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns a snapshot of all counters.
+     * 
+     * @return the current metrics, with rules sorted by name
+     */
+    public ValidationMetricsSnapshot snapshot() {
+        List<ValidationMetricsSnapshot.RuleMetrics> snapshots = new ArrayList<>();
+        rules.forEach((rule, counters) -> snapshots.add(counters.snapshot(rule)));
+        snapshots.sort(Comparator.comparing(ValidationMetricsSnapshot.RuleMetrics::rule));
+        return new ValidationMetricsSnapshot(validations.sum(), sampledValidations.sum(), sampleInterval,
+            List.copyOf(snapshots));
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public void reset() {
+        validations.reset();
+        sampledValidations.reset();
+        rules.clear();
+    }
+
+    /**
+     * Starts recording one validation and decides whether it is sampled.
+     * 
+     * @return whether evaluations, timings and hits of this validation are recorded
+     */
+    boolean startValidation() {
+        if (!enabled) {
+            return false;
+        }
+        validations.increment();
+        boolean sampled = sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+        if (sampled) {
+            sampledValidations.increment();
+        }
+        return sampled;
+    }
+
+    /**
+     * Records one evaluation of a rule in a sampled validation.
+     */
+    void recordEvaluation(String rule, long nanos) {
+        RuleCounters counters = counters(rule);
+        counters.evaluations.increment();
+        counters.nanos.add(nanos);
+    }
+
+    /**
+     * Records that a rule matched in a sampled validation without rejecting it.
+     */
+    void recordHit(String rule) {
+        counters(rule).hits.increment();
+    }
+
+    /**
+     * Records that a rule rejected a source; counted for every validation.
+     */
+    void recordRejection(String rule, String reason, boolean sampled) {
+        if (!enabled) {
+            return;
+        }
+        RuleCounters counters = counters(rule);
+        if (sampled) {
+            counters.hits.increment();
+        }
+        counters.rejections.increment();
+        counters.reasons.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    private RuleCounters counters(String rule) {
+        RuleCounters counters = rules.get(rule);
+        return counters != null ? counters : rules.computeIfAbsent(rule, key -> new RuleCounters());
+    }
+
+    private static final class RuleCounters {
+
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final Map<String, LongAdder> reasons = new ConcurrentHashMap<>();
+
+        ValidationMetricsSnapshot.RuleMetrics snapshot(String rule) {
+            Map<String, Long> reasonCounts = new TreeMap<>();
+            reasons.forEach((reason, count) -> reasonCounts.put(reason, count.sum()));
+            return new ValidationMetricsSnapshot.RuleMetrics(rule, evaluations.sum(), nanos.sum(), hits.sum(),
+                rejections.sum(), Collections.unmodifiableMap(reasonCounts));
+        }
+    }
+}
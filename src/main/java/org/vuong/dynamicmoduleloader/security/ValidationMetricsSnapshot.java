@@ -0,0 +1,63 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the counters of a {@link ValidationMetrics}.
+ * 
+ * @param validations the number of validations run
+ * @param sampledValidations the number of validations whose evaluations, timings and hits were recorded
+ * @param sampleInterval the average number of validations per sample
+ * @param rules the counters of each rule, sorted by rule name
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record ValidationMetricsSnapshot(long validations,
+                                        long sampledValidations,
+                                        int sampleInterval,
+                                        List<RuleMetrics> rules) {
+
+    /**
+     * Returns the counters of one rule.
+     * 
+     * @param rule the rule name
+     * @return the counters of the rule, or null if it has recorded nothing
+     */
+    public RuleMetrics rule(String rule) {
+        for (RuleMetrics metrics : rules) {
+            if (metrics.rule().equals(rule)) {
+                return metrics;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counters of one validation rule.
+     * 
+     * @param rule the rule name
+     * @param evaluations the number of sampled evaluations
+     * @param evaluationNanos the total time of the sampled evaluations, in nanoseconds
+     * @param hits the number of sampled validations in which the rule matched
+     * @param rejections the number of sources the rule rejected, sampled or not
+     * @param rejectionReasons the rejections by reason, such as the matched pattern
+     */
+    public record RuleMetrics(String rule,
+                              long evaluations,
+                              long evaluationNanos,
+                              long hits,
+                              long rejections,
+                              Map<String, Long> rejectionReasons) {
+
+        /**
+         * Returns the mean time of one sampled evaluation.
+         * 
+         * @return the mean evaluation time in nanoseconds, or 0 if none was sampled
+         */
+        public long meanNanos() {
+            return evaluations == 0 ? 0 : evaluationNanos / evaluations;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+import java.util.Arrays;
+
+/**
+ * The distribution of a number of call latencies.
+ * 
+ * @param count the number of calls measured
+ * @param p50Nanos the median latency
+ * @param p90Nanos the 90th percentile latency
+ * @param p99Nanos the 99th percentile latency
+ * @param maxNanos the highest latency
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record LatencySummary(int count, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+
+    /**
+     * Summarizes the first latencies of an array.
+     * 
+     * @param latencies the latencies in nanoseconds
+     * @param count the number of latencies to summarize
+     * @return the summary, all zero if count is zero
+     * @throws IllegalArgumentException if latencies is null or count is out of range
+     */
+    public static LatencySummary of(long[] latencies, int count) {
+        if (latencies == null || count < 0 || count > latencies.length) {
+            throw new IllegalArgumentException("Latencies cannot be null and count must be within them");
+        }
+        if (count == 0) {
+            return new LatencySummary(0, 0, 0, 0, 0);
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new LatencySummary(count, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+            sorted[count - 1]);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[(int) Math.ceil(percent / 100.0 * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,300 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exercises a newly compiled plugin version until the JIT compiler has
+ * compiled its hot methods, so that it does not serve its first real calls
+ * from the interpreter.
+ * 
+ * A warm-up calls the plugin's samples round-robin on one instance: those
+ * the plugin provides itself, from a public static
+ * {@value #SAMPLES_METHOD}{@code ()} method returning {@code Object[][]}
+ * rows of a method name followed by its arguments, and those
+ * {@link #record recorded} from earlier calls to a plugin of the same name.
+ * Samples naming a method the version does not have are skipped; calls that
+ * throw count as calls, as their paths get compiled as well.
+ * 
+ * HotSpot does not tell which methods it has compiled, so a warm-up stands in
+ * for that: it calls every sample at least {@link WarmUpPolicy#getMinInvocations()}
+ * times, and then until the JVM's total compilation time stops growing for a
+ * round, or until its time limit or an interrupt. The latencies of the first
+ * and the last calls are reported with the result.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginWarmer {
+
+    /**
+     * The name of the public static method a plugin may declare to provide
+     * its own warm-up samples.
+     */
+    public static final String SAMPLES_METHOD = "warmUpSamples";
+
+    /**
+     * The number of first and of last calls whose latencies are reported.
+     */
+    private static final int LATENCY_WINDOW = 1000;
+
+    private final WarmUpPolicy policy;
+    private final CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+    private final Map<String, Deque<WarmUpSample>> recorded = new ConcurrentHashMap<>();
+    private final Map<String, WarmUpResult> results = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new PluginWarmer with the default policy.
+     */
+    public PluginWarmer() {
+        this(WarmUpPolicy.defaults());
+    }
+
+    /**
+     * Creates a new PluginWarmer.
+     * 
+     * @param policy the policy that bounds each warm-up
+     * @throws IllegalArgumentException if policy is null
+     */
+    public PluginWarmer(WarmUpPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Warm-up policy cannot be null");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Records a call made to a plugin, to be replayed when a new version of
+     * it is warmed up. Only the most recent calls are kept.
+     * 
+     * @param pluginName the name of the plugin
+     * @param methodName the name of the method called
+     * @param arguments the arguments it was called with
+     * @throws IllegalArgumentException if pluginName or methodName is null or empty, or arguments is null
+     */
+    public void record(String pluginName, String methodName, Object... arguments) {
+        if (pluginName == null || pluginName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+        WarmUpSample sample = WarmUpSample.of(methodName, arguments);
+        Deque<WarmUpSample> samples = recorded.computeIfAbsent(pluginName, name -> new ArrayDeque<>());
+        synchronized (samples) {
+            if (samples.size() == policy.getMaxRecordedSamples()) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+    }
+
+    /**
+     * Returns the calls recorded for a plugin.
+     * 
+     * @param pluginName the name of the plugin
+     * @return the recorded samples, oldest first
+     */
+    public List<WarmUpSample> getRecordedSamples(String pluginName) {
+        Deque<WarmUpSample> samples = recorded.get(pluginName);
+        if (samples == null) {
+            return List.of();
+        }
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+
+    /**
+     * Warms up a plugin version with its own and its recorded samples.
+     * 
+     * @param plugin the resolved plugin to warm up
+     * @return the outcome, also available from {@link #getLastResult(String)}
+     * @throws IllegalArgumentException if plugin is null or not resolved, or its samples method is invalid
+     * @throws IllegalStateException if the plugin cannot be instantiated
+     */
+    public WarmUpResult warmUp(Plugin plugin) {
+        if (plugin == null || !plugin.isResolved()) {
+            throw new IllegalArgumentException("Plugin cannot be null or unresolved");
+        }
+        Class<?> pluginClass = plugin.getPluginClass();
+        List<WarmUpSample> samples = new ArrayList<>(providedSamples(pluginClass));
+        samples.addAll(getRecordedSamples(plugin.getName()));
+
+        Object instance;
+        try {
+            instance = pluginClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate plugin " + plugin.getName(), e);
+        }
+        List<Call> calls = new ArrayList<>(samples.size());
+        for (WarmUpSample sample : samples) {
+            Method method = find(pluginClass, sample.methodName(), sample.arguments().size());
+            if (method != null) {
+                calls.add(new Call(method, Modifier.isStatic(method.getModifiers()) ? null : instance,
+                    sample.arguments().toArray()));
+            }
+        }
+
+        WarmUpResult result = run(plugin.getName(), calls);
+        results.put(plugin.getName(), result);
+        return result;
+    }
+
+    /**
+     * Returns the outcome of the last warm-up of a plugin.
+     * 
+     * @param pluginName the name of the plugin
+     * @return the last result, or null if the plugin was never warmed up
+     */
+    public WarmUpResult getLastResult(String pluginName) {
+        return pluginName == null ? null : results.get(pluginName);
+    }
+
+    /**
+     * Returns the warm-up policy.
+     * 
+     * @return the policy
+     */
+    public WarmUpPolicy getPolicy() {
+        return policy;
+    }
+
+    private WarmUpResult run(String pluginName, List<Call> calls) {
+        long start = System.nanoTime();
+        if (calls.isEmpty()) {
+            LatencySummary none = LatencySummary.of(new long[0], 0);
+            return new WarmUpResult(pluginName, 0, 0, 0, System.nanoTime() - start, false, none, none);
+        }
+        long deadline = start + policy.getMaxDurationMillis() * 1_000_000L;
+        long minimum = (long) policy.getMinInvocations() * calls.size();
+        long[] first = new long[LATENCY_WINDOW];
+        long[] last = new long[LATENCY_WINDOW];
+        long invocations = 0;
+        long failures = 0;
+        long compileTime = compilationTime();
+        boolean converged = false;
+
+        while (!converged && !stopped(deadline)) {
+            // One round calls every sample as often as needed to reach the minimum, or a window's worth after it
+            long round = Math.max(LATENCY_WINDOW, minimum - invocations);
+            for (long i = 0; i < round && (i % 64 != 0 || !stopped(deadline)); i++) {
+                Call call = calls.get((int) (invocations % calls.size()));
+                long callStart = System.nanoTime();
+                if (!call.invoke()) {
+                    failures++;
+                }
+                long latency = System.nanoTime() - callStart;
+                if (invocations < LATENCY_WINDOW) {
+                    first[(int) invocations] = latency;
+                }
+                last[(int) (invocations % LATENCY_WINDOW)] = latency;
+                invocations++;
+            }
+            long previous = compileTime;
+            compileTime = compilationTime();
+            converged = invocations >= minimum && compileTime == previous;
+        }
+
+        int warmCount = (int) Math.min(invocations, LATENCY_WINDOW);
+        return new WarmUpResult(pluginName, calls.size(), invocations, failures, System.nanoTime() - start, converged,
+            LatencySummary.of(first, warmCount), LatencySummary.of(last, warmCount));
+    }
+
+    /**
+     * Returns whether a warm-up must end early: at its time limit, or when
+     * its thread is interrupted.
+     */
+    private static boolean stopped(long deadline) {
+        return System.nanoTime() >= deadline || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Returns the JVM's total JIT compilation time, or zero if it is not
+     * measured, in which case a warm-up ends once it reached its minimum.
+     */
+    private long compilationTime() {
+        return compilation != null && compilation.isCompilationTimeMonitoringSupported()
+            ? compilation.getTotalCompilationTime()
+            : 0;
+    }
+
+    /**
+     * Reads the samples a plugin class provides, if it declares a samples
+     * method.
+     */
+    private static List<WarmUpSample> providedSamples(Class<?> pluginClass) {
+        Method method;
+        try {
+            method = pluginClass.getMethod(SAMPLES_METHOD);
+        } catch (NoSuchMethodException e) {
+            return List.of();
+        }
+        if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != Object[][].class) {
+            throw new IllegalArgumentException(pluginClass.getName() + "." + SAMPLES_METHOD
+                + " must be static and return Object[][]");
+        }
+        Object[][] rows;
+        try {
+            rows = (Object[][]) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot read warm-up samples of " + pluginClass.getName(), e);
+        }
+        List<WarmUpSample> samples = new ArrayList<>();
+        for (Object[] row : rows == null ? new Object[0][] : rows) {
+            if (row == null || row.length == 0 || !(row[0] instanceof String methodName)) {
+                throw new IllegalArgumentException("Each warm-up sample of " + pluginClass.getName()
+                    + " must start with a method name");
+            }
+            samples.add(new WarmUpSample(methodName, Arrays.asList(row).subList(1, row.length)));
+        }
+        return samples;
+    }
+
+    /**
+     * Finds the only public method with a name and parameter count, or null
+     * if there is none or more than one.
+     */
+    private static Method find(Class<?> pluginClass, String methodName, int parameterCount) {
+        Method found = null;
+        for (Method method : pluginClass.getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == parameterCount
+                    && !method.getName().equals(SAMPLES_METHOD)) {
+                if (found != null) {
+                    return null;
+                }
+                found = method;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * One sample bound to its method and target.
+     */
+    private record Call(Method method, Object target, Object[] arguments) {
+
+        /**
+         * Makes the call, returning whether it completed normally.
+         */
+        boolean invoke() {
+            try {
+                method.invoke(target, arguments);
+                return true;
+            } catch (InvocationTargetException | IllegalArgumentException e) {
+                return false;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot call " + method, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Configuration class for how long a new plugin version is exercised before
+ * it is registered.
+ * 
+ * A warm-up calls every sample at least the configured number of times and
+ * then until the JIT compiler has been idle for a while, or until the time
+ * limit is reached, whichever comes first.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class WarmUpPolicy {
+
+    private final int minInvocations;
+    private final long maxDurationMillis;
+    private final int maxRecordedSamples;
+
+    /**
+     * Creates a new WarmUpPolicy with custom limits.
+     * 
+     * @param minInvocations the number of times each sample is called at least
+     * @param maxDurationMillis the longest a warm-up may take, in milliseconds
+     * @param maxRecordedSamples the number of recorded samples kept per plugin
+     * @throws IllegalArgumentException if any limit is not positive
+     */
+    public WarmUpPolicy(int minInvocations, long maxDurationMillis, int maxRecordedSamples) {
+        if (minInvocations <= 0 || maxDurationMillis <= 0 || maxRecordedSamples <= 0) {
+            throw new IllegalArgumentException("Warm-up limits must be positive");
+        }
+        this.minInvocations = minInvocations;
+        this.maxDurationMillis = maxDurationMillis;
+        this.maxRecordedSamples = maxRecordedSamples;
+    }
+
+    /**
+     * Creates the default policy: each sample is called twice as often as
+     * this JVM calls a method before compiling it with its optimizing
+     * compiler, for at most 5 seconds, and 64 recorded samples are kept per
+     * plugin.
+     * 
+     * @return the default warm-up policy
+     */
+    public static WarmUpPolicy defaults() {
+        return new WarmUpPolicy(2 * optimizingCompileThreshold(), 5_000, 64);
+    }
+
+    /**
+     * Returns the number of calls after which HotSpot compiles a method with
+     * C2, or a typical value if it cannot be read.
+     */
+    private static int optimizingCompileThreshold() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            String option = Boolean.parseBoolean(hotSpot.getVMOption("TieredCompilation").getValue())
+                ? "Tier4InvocationThreshold"
+                : "CompileThreshold";
+            return Math.max(1, Integer.parseInt(hotSpot.getVMOption(option).getValue()));
+        } catch (RuntimeException e) {
+            return 5_000;
+        }
+    }
+
+    /**
+     * Returns the number of times each sample is called at least.
+     * 
+     * @return the minimum number of invocations per sample
+     */
+    public int getMinInvocations() { return minInvocations; }
+
+    /**
+     * Returns the longest a warm-up may take.
+     * 
+     * @return the time limit in milliseconds
+     */
+    public long getMaxDurationMillis() { return maxDurationMillis; }
+
+    /**
+     * Returns the number of recorded samples kept per plugin.
+     * 
+     * @return the sample limit
+     */
+    public int getMaxRecordedSamples() { return maxRecordedSamples; }
+}
@@ -0,0 +1,35 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+/**
+ * The outcome of warming up one plugin version.
+ * 
+ * @param pluginName the name of the plugin
+ * @param samples the number of samples that were called
+ * @param invocations the number of calls made
+ * @param failedInvocations the number of calls that threw
+ * @param elapsedNanos the time the warm-up took
+ * @param converged whether the warm-up ended because the JIT compiler went idle, not at its time limit
+ * @param cold the latencies of the first calls
+ * @param warm the latencies of the last calls
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record WarmUpResult(String pluginName,
+                           int samples,
+                           long invocations,
+                           long failedInvocations,
+                           long elapsedNanos,
+                           boolean converged,
+                           LatencySummary cold,
+                           LatencySummary warm) {
+
+    /**
+     * Returns whether the plugin was called at all.
+     * 
+     * @return false if the plugin had no samples to call
+     */
+    public boolean isWarmedUp() {
+        return invocations > 0;
+    }
+}
@@ -0,0 +1,49 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One call to make on a plugin while warming it up: a public method and the
+ * arguments to pass to it.
+ * 
+ * @param methodName the name of the public method to call
+ * @param arguments the arguments to call it with
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record WarmUpSample(String methodName, List<Object> arguments) {
+
+    /**
+     * Creates a new WarmUpSample.
+     * 
+     * @throws IllegalArgumentException if methodName is null or empty, or arguments is null
+     */
+    public WarmUpSample {
+        if (methodName == null || methodName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Method name cannot be null or empty");
+        }
+        if (arguments == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        // Arguments may be null, which List.copyOf rejects
+        arguments = Collections.unmodifiableList(Arrays.asList(arguments.toArray()));
+    }
+
+    /**
+     * Creates a sample calling a method with the given arguments.
+     * 
+     * @param methodName the name of the public method to call
+     * @param arguments the arguments to call it with
+     * @return the sample
+     * @throws IllegalArgumentException if methodName is null or empty, or arguments is null
+     */
+    public static WarmUpSample of(String methodName, Object... arguments) {
+        if (arguments == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        return new WarmUpSample(methodName, Arrays.asList(arguments));
+    }
+}
@@ -0,0 +1,151 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One message exchanged between a {@link PluginWorkerPool} and a worker process.
+ * 
+ * A frame is encoded as its length, a kind, a request id and a list of
+ * values. Values are limited to {@code null}, strings, integers, longs,
+ * doubles, booleans and byte arrays, so that decoding never instantiates
+ * classes chosen by the other side.
+ * 
+ * @param kind the kind of the frame
+ * @param id the id of the request, echoed by its response
+ * @param values the values carried by the frame
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+record Frame(byte kind, long id, Object[] values) {
+
+    static final byte DEPLOY = 1;
+    static final byte UNDEPLOY = 2;
+    static final byte CALL = 3;
+    static final byte PING = 4;
+    static final byte OK = 10;
+    static final byte SECURITY_ERROR = 11;
+    static final byte ERROR = 12;
+
+    /**
+     * Bytes before the values: length, kind and id.
+     */
+    static final int HEADER_BYTES = Integer.BYTES + 1 + Long.BYTES;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BYTES = 6;
+
+    /**
+     * Encodes a frame, including its length prefix.
+     * 
+     * @throws IllegalArgumentException if a value is of an unsupported type
+     */
+    static byte[] encode(byte kind, long id, Object... values) {
+        // Strings are encoded up front, as their UTF-8 length is not known before
+        byte[][] strings = new byte[values.length][];
+        int size = HEADER_BYTES;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof String string) {
+                strings[i] = string.getBytes(StandardCharsets.UTF_8);
+            }
+            size += sizeOf(values[i], strings[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(size - Integer.BYTES).put(kind).putLong(id);
+        for (int i = 0; i < values.length; i++) {
+            put(buffer, values[i], strings[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a frame from the bytes following its length prefix.
+     * 
+     * @throws IllegalArgumentException if the bytes are not a valid frame
+     */
+    static Frame decode(ByteBuffer body) {
+        try {
+            byte kind = body.get();
+            long id = body.getLong();
+            int count = 0;
+            Object[] values = new Object[4];
+            while (body.hasRemaining()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = get(body);
+            }
+            return new Frame(kind, id, Arrays.copyOf(values, count));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated frame", e);
+        }
+    }
+
+    private static int sizeOf(Object value, byte[] string) {
+        if (value == null) {
+            return 1;
+        } else if (string != null) {
+            return 1 + Integer.BYTES + string.length;
+        } else if (value instanceof Integer) {
+            return 1 + Integer.BYTES;
+        } else if (value instanceof Long || value instanceof Double) {
+            return 1 + Long.BYTES;
+        } else if (value instanceof Boolean) {
+            return 2;
+        } else if (value instanceof byte[] bytes) {
+            return 1 + Integer.BYTES + bytes.length;
+        }
+        throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+    }
+
+    private static void put(ByteBuffer buffer, Object value, byte[] string) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (string != null) {
+            buffer.put(STRING).putInt(string.length).put(string);
+        } else if (value instanceof Integer i) {
+            buffer.put(INT).putInt(i);
+        } else if (value instanceof Long l) {
+            buffer.put(LONG).putLong(l);
+        } else if (value instanceof Double d) {
+            buffer.put(DOUBLE).putDouble(d);
+        } else if (value instanceof Boolean b) {
+            buffer.put(BOOLEAN).put((byte) (b ? 1 : 0));
+        } else {
+            byte[] bytes = (byte[]) value;
+            buffer.put(BYTES).putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static Object get(ByteBuffer body) {
+        byte type = body.get();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> new String(bytes(body), StandardCharsets.UTF_8);
+            case INT -> body.getInt();
+            case LONG -> body.getLong();
+            case DOUBLE -> body.getDouble();
+            case BOOLEAN -> body.get() != 0;
+            case BYTES -> bytes(body);
+            default -> throw new IllegalArgumentException("Unknown value type: " + type);
+        };
+    }
+
+    private static byte[] bytes(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0 || length > body.remaining()) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return bytes;
+    }
+}
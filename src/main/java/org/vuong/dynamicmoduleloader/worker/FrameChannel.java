@@ -0,0 +1,176 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Frames over a UNIX domain socket, with writes batched across threads.
+ * 
+ * A sender queues its frame and, if no other thread is writing, drains the
+ * queue into one buffer and writes it with a single system call. Threads that
+ * find a write in progress return at once and leave their frame to the writer,
+ * so that concurrent calls share system calls instead of queueing on a lock.
+ * 
+ * Frames are read by one thread only.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class FrameChannel implements Closeable {
+
+    /**
+     * The largest frame accepted from the other side, in bytes.
+     */
+    static final int MAX_FRAME_BYTES = 64 << 20;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES).flip();
+    private final LongAdder framesWritten;
+    private final LongAdder writes;
+
+    FrameChannel(SocketChannel channel, LongAdder framesWritten, LongAdder writes) {
+        this.channel = channel;
+        this.framesWritten = framesWritten;
+        this.writes = writes;
+    }
+
+    /**
+     * Sends an encoded frame, possibly together with frames of other threads.
+     * 
+     * @throws IOException if the frame, or a frame batched with it, could not be written
+     */
+    void send(byte[] frame) throws IOException {
+        outbox.add(frame);
+        flushQueued();
+    }
+
+    /**
+     * Sends encoded frames in as few writes as they fit in.
+     * 
+     * @throws IOException if a frame could not be written
+     */
+    void sendAll(List<byte[]> frames) throws IOException {
+        outbox.addAll(frames);
+        flushQueued();
+    }
+
+    private void flushQueued() throws IOException {
+        // Re-check after unlocking, as a frame queued during the last write would otherwise wait
+        while (!outbox.isEmpty() && writeLock.tryLock()) {
+            try {
+                flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        byte[] frame;
+        int frames = 0;
+        while ((frame = outbox.poll()) != null) {
+            frames++;
+            if (frame.length > writeBuffer.remaining()) {
+                write(writeBuffer.flip());
+                writeBuffer.clear();
+            }
+            if (frame.length > writeBuffer.capacity()) {
+                write(ByteBuffer.wrap(frame));
+            } else {
+                writeBuffer.put(frame);
+            }
+        }
+        if (writeBuffer.position() > 0) {
+            write(writeBuffer.flip());
+            writeBuffer.clear();
+        }
+        framesWritten.add(frames);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        writes.increment();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads the next frame.
+     * 
+     * @return the frame, or null if the other side closed the connection
+     * @throws IOException if reading fails or the other side sent an invalid frame
+     */
+    Frame receive() throws IOException {
+        if (!fill(Integer.BYTES)) {
+            return null;
+        }
+        int length = readBuffer.getInt();
+        if (length < Frame.HEADER_BYTES - Integer.BYTES || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        ByteBuffer body;
+        if (length <= readBuffer.capacity()) {
+            if (!fill(length)) {
+                throw new EOFException("Connection closed inside a frame");
+            }
+            body = readBuffer.slice(readBuffer.position(), length);
+            readBuffer.position(readBuffer.position() + length);
+        } else {
+            // Larger than the buffer: copy what is buffered, then read the rest directly
+            body = ByteBuffer.allocate(length);
+            body.put(readBuffer);
+            while (body.hasRemaining()) {
+                if (channel.read(body) < 0) {
+                    throw new EOFException("Connection closed inside a frame");
+                }
+            }
+            body.flip();
+        }
+        try {
+            return Frame.decode(body);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads until at least the given number of bytes is buffered.
+     * 
+     * @return false if the connection was closed before any of them arrived
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (readBuffer.remaining() >= bytes) {
+            return true;
+        }
+        readBuffer.compact();
+        while (readBuffer.position() < bytes) {
+            if (channel.read(readBuffer) < 0) {
+                if (readBuffer.position() == 0) {
+                    readBuffer.flip();
+                    return false;
+                }
+                throw new EOFException("Connection closed inside a frame");
+            }
+        }
+        readBuffer.flip();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,183 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import org.vuong.dynamicmoduleloader.PluginRuntimeService;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The main class of a worker process started by a {@link PluginWorkerPool}.
+ * 
+ * A worker hosts a {@link PluginRuntimeService} of its own. It connects to
+ * the socket its pool listens on, then compiles the plugins deployed to it
+ * and runs calls into them until the pool closes the connection. Health
+ * checks are answered by the reading thread, so a worker stays responsive
+ * while its plugins are busy.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public final class PluginWorker {
+
+    private final FrameChannel channel;
+    private final PluginRuntimeService runtimeService;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "plugin-worker-call");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PluginWorker(FrameChannel channel, SecurityConfig securityConfig) {
+        this.channel = channel;
+        this.runtimeService = new PluginRuntimeService(new InMemoryPluginRegistry(), securityConfig);
+    }
+
+    /**
+     * Runs a worker.
+     * 
+     * @param args the socket path of the pool, followed by the eight values of
+     *             the worker's {@link SecurityConfig} in constructor order
+     * @throws Exception if the worker cannot connect to its pool
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 9) {
+            throw new IllegalArgumentException("Usage: PluginWorker <socket> <security config values>");
+        }
+        SecurityConfig securityConfig = new SecurityConfig(
+            Boolean.parseBoolean(args[1]), Boolean.parseBoolean(args[2]), Boolean.parseBoolean(args[3]),
+            Boolean.parseBoolean(args[4]), Boolean.parseBoolean(args[5]), Boolean.parseBoolean(args[6]),
+            Integer.parseInt(args[7]), Integer.parseInt(args[8]));
+        try (SocketChannel socket = SocketChannel.open(UnixDomainSocketAddress.of(args[0]))) {
+            new PluginWorker(new FrameChannel(socket, new LongAdder(), new LongAdder()), securityConfig).serve();
+        } finally {
+            // Threads started by plugins must not keep an orphaned worker alive
+            Runtime.getRuntime().halt(0);
+        }
+    }
+
+    /**
+     * Returns the arguments that pass a security configuration to a worker.
+     */
+    static String[] arguments(SecurityConfig config) {
+        return new String[] {
+            String.valueOf(config.isEnableValidation()), String.valueOf(config.isAllowFileOperations()),
+            String.valueOf(config.isAllowNetworkOperations()), String.valueOf(config.isAllowReflection()),
+            String.valueOf(config.isAllowSystemOperations()), String.valueOf(config.isAllowDatabaseOperations()),
+            String.valueOf(config.getMaxStringLength()), String.valueOf(config.getMaxMethodComplexity())
+        };
+    }
+
+    private void serve() throws IOException {
+        Frame request;
+        while ((request = channel.receive()) != null) {
+            if (request.kind() == Frame.PING) {
+                channel.send(Frame.encode(Frame.OK, request.id()));
+            } else {
+                Frame received = request;
+                executor.execute(() -> respond(received));
+            }
+        }
+    }
+
+    private void respond(Frame request) {
+        byte[] response;
+        try {
+            response = Frame.encode(Frame.OK, request.id(), handle(request));
+        } catch (SecurityException e) {
+            response = Frame.encode(Frame.SECURITY_ERROR, request.id(), String.valueOf(e.getMessage()));
+        } catch (Throwable t) {
+            Throwable cause = t instanceof InvocationTargetException ite && ite.getCause() != null ? ite.getCause() : t;
+            response = Frame.encode(Frame.ERROR, request.id(), cause.getClass().getName(), cause.getMessage());
+        }
+        try {
+            channel.send(response);
+        } catch (IOException e) {
+            // The pool is gone; the reading thread sees the closed connection and exits
+        }
+    }
+
+    private Object handle(Frame request) throws Exception {
+        Object[] values = request.values();
+        switch (request.kind()) {
+            case Frame.DEPLOY -> {
+                Plugin plugin = runtimeService.compileAndRegister((String) values[0], (String) values[1]);
+                targets.remove(plugin.getName());
+                return plugin.getName();
+            }
+            case Frame.UNDEPLOY -> {
+                targets.remove((String) values[0]);
+                return runtimeService.removePlugin((String) values[0]) != null;
+            }
+            case Frame.CALL -> {
+                // A result that cannot be encoded fails in respond, as an error of the call
+                return target((String) values[0]).invoke((String) values[1],
+                    Arrays.copyOfRange(values, 2, values.length));
+            }
+            default -> throw new IllegalArgumentException("Unknown request kind: " + request.kind());
+        }
+    }
+
+    private Target target(String pluginName) throws Exception {
+        Target target = targets.get(pluginName);
+        if (target == null) {
+            Plugin plugin = runtimeService.getPlugin(pluginName);
+            if (plugin == null) {
+                throw new IllegalArgumentException("Plugin not found: " + pluginName);
+            }
+            Class<?> clazz = plugin.getPluginClass();
+            target = new Target(clazz.getDeclaredConstructor().newInstance(), clazz, new ConcurrentHashMap<>());
+            Target raced = targets.putIfAbsent(pluginName, target);
+            target = raced != null ? raced : target;
+        }
+        return target;
+    }
+
+    /**
+     * The instance a worker calls into for one plugin, and its public methods
+     * by name and number of parameters.
+     */
+    private record Target(Object instance, Class<?> clazz, Map<String, Method> methods) {
+
+        Object invoke(String methodName, Object[] args) throws Exception {
+            String key = methodName + '/' + args.length;
+            Method method = methods.get(key);
+            if (method == null) {
+                method = find(methodName, args.length);
+                methods.put(key, method);
+            }
+            return method.invoke(Modifier.isStatic(method.getModifiers()) ? null : instance, args);
+        }
+
+        private Method find(String methodName, int parameterCount) throws NoSuchMethodException {
+            Method found = null;
+            for (Method method : clazz.getMethods()) {
+                if (method.getName().equals(methodName) && method.getParameterCount() == parameterCount) {
+                    if (found != null) {
+                        throw new IllegalArgumentException("Ambiguous method: " + methodName + " with "
+                            + parameterCount + " parameters");
+                    }
+                    found = method;
+                }
+            }
+            if (found == null) {
+                throw new NoSuchMethodException(clazz.getName() + "." + methodName + " with "
+                    + parameterCount + " parameters");
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+import org.vuong.dynamicmoduleloader.util.PluginNameUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs plugins in a pool of worker processes on the same machine.
+ * 
+ * Each worker is a child JVM hosting its own plugin runtime, with its own
+ * heap limit. Every plugin is routed to one worker by its name, and calls
+ * into it are sent over a UNIX domain socket. A plugin that crashes its
+ * worker, or exhausts its heap, takes down only that worker: its pending
+ * calls fail with an {@link IOException}, and the pool starts a new worker
+ * and deploys the same plugins to it again.
+ * 
+ * Arguments and results of calls are limited to {@code null}, strings,
+ * integers, longs, doubles, booleans and byte arrays. Calls from many threads
+ * can be in flight at once, and requests that are sent at the same time are
+ * batched into one socket write.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class PluginWorkerPool implements AutoCloseable {
+
+    /**
+     * The maximum heap of each worker by default, in megabytes.
+     */
+    public static final int DEFAULT_MAX_HEAP_MEGABYTES = 256;
+
+    /**
+     * The interval at which workers are health-checked, in milliseconds.
+     */
+    public static final long HEALTH_CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The time a worker has to answer a health check, in milliseconds.
+     */
+    public static final long HEALTH_CHECK_TIMEOUT_MILLIS = 5000;
+
+    private final List<String> launcher;
+    private final List<String> securityArguments;
+    private final Path socketDirectory;
+    private final Slot[] slots;
+    private final ScheduledExecutorService healthChecker;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a new PluginWorkerPool with workers of the default heap size.
+     * 
+     * @param workerCount the number of worker processes
+     * @param securityConfig the security configuration the workers validate plugins with
+     * @throws IOException if the workers cannot be started
+     * @throws IllegalArgumentException if workerCount is not positive or securityConfig is null
+     */
+    public PluginWorkerPool(int workerCount, SecurityConfig securityConfig) throws IOException {
+        this(workerCount, securityConfig, DEFAULT_MAX_HEAP_MEGABYTES);
+    }
+
+    /**
+     * Creates a new PluginWorkerPool. Workers are started before the
+     * constructor returns.
+     * 
+     * @param workerCount the number of worker processes
+     * @param securityConfig the security configuration the workers validate plugins with
+     * @param maxHeapMegabytes the maximum heap of each worker, in megabytes
+     * @throws IOException if the workers cannot be started
+     * @throws IllegalArgumentException if workerCount or maxHeapMegabytes is not positive, or securityConfig is null
+     */
+    public PluginWorkerPool(int workerCount, SecurityConfig securityConfig, int maxHeapMegabytes) throws IOException {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        if (securityConfig == null) {
+            throw new IllegalArgumentException("Security configuration cannot be null");
+        }
+        if (maxHeapMegabytes <= 0) {
+            throw new IllegalArgumentException("Maximum heap must be positive");
+        }
+        this.launcher = List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-Xmx" + maxHeapMegabytes + "m",
+            // A worker out of heap exits at once, rather than limp on with broken state
+            "-XX:+ExitOnOutOfMemoryError",
+            "-cp", System.getProperty("java.class.path"),
+            PluginWorker.class.getName());
+        this.securityArguments = List.of(PluginWorker.arguments(securityConfig));
+        this.socketDirectory = Files.createTempDirectory("plugin-workers");
+        this.slots = new Slot[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "plugin-worker-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Slot slot : slots) {
+                slot.connection();
+            }
+        } catch (IOException | RuntimeException e) {
+            stop();
+            throw e;
+        }
+        healthChecker.scheduleWithFixedDelay(this::checkHealth,
+            HEALTH_CHECK_INTERVAL_MILLIS, HEALTH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Compiles a plugin in the worker it is routed to, replacing a plugin of
+     * the same name. The plugin is deployed again whenever its worker is
+     * restarted.
+     * 
+     * @param className the name of the class to compile
+     * @param javaCode the Java source code
+     * @return the name of the deployed plugin
+     * @throws SecurityException if the source fails security validation
+     * @throws RemotePluginException if the source cannot be compiled or instantiated
+     * @throws IOException if the worker died before the plugin was deployed
+     * @throws IllegalArgumentException if className or javaCode is null or empty
+     */
+    public String deploy(String className, String javaCode) throws IOException {
+        if (javaCode == null || javaCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Java code cannot be null or empty");
+        }
+        String pluginName = PluginNameUtils.generatePluginName(className);
+        Slot slot = slotOf(pluginName);
+        // Recorded first, so a worker restarted while the request is in flight deploys the plugin as well
+        Deployment deployment = new Deployment(className, javaCode);
+        Deployment previous = slot.deployments.put(pluginName, deployment);
+        try {
+            return (String) await(slot.connection().request(Frame.DEPLOY, className, javaCode));
+        } catch (IOException | RuntimeException e) {
+            if (previous == null) {
+                slot.deployments.remove(pluginName, deployment);
+            } else {
+                slot.deployments.replace(pluginName, deployment, previous);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a plugin from its worker.
+     * 
+     * @param pluginName the name of the plugin
+     * @return true if the plugin was deployed
+     * @throws IOException if the worker died before the plugin was removed
+     * @throws IllegalArgumentException if pluginName is null or empty
+     */
+    public boolean undeploy(String pluginName) throws IOException {
+        requireName(pluginName);
+        Slot slot = slotOf(pluginName);
+        if (slot.deployments.remove(pluginName) == null) {
+            return false;
+        }
+        await(slot.connection().request(Frame.UNDEPLOY, pluginName));
+        return true;
+    }
+
+    /**
+     * Calls a public method of a deployed plugin and waits for its result.
+     * Calls of one plugin share one instance of its class in the worker.
+     * 
+     * @param pluginName the name of the plugin
+     * @param methodName the name of the method, which must be the only public
+     *                   method of that name taking as many arguments
+     * @param args the arguments of the call
+     * @return the result of the call
+     * @throws RemotePluginException if the call failed in the worker
+     * @throws IOException if the worker died before the call returned
+     * @throws IllegalArgumentException if the plugin is not deployed, or an argument is of an unsupported type
+     */
+    public Object call(String pluginName, String methodName, Object... args) throws IOException {
+        return await(submit(pluginName, methodName, args));
+    }
+
+    /**
+     * Calls a public method of a deployed plugin without waiting for its
+     * result. Submitting many calls before waiting for any lets the pool
+     * batch them.
+     * 
+     * @param pluginName the name of the plugin
+     * @param methodName the name of the method
+     * @param args the arguments of the call
+     * @return the result of the call, completed exceptionally as {@link #call} would throw
+     * @throws IllegalArgumentException if the plugin is not deployed, or an argument is of an unsupported type
+     */
+    public CompletableFuture<Object> submit(String pluginName, String methodName, Object... args) {
+        requireName(pluginName);
+        if (methodName == null || methodName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Method name cannot be null or empty");
+        }
+        Slot slot = slotOf(pluginName);
+        if (!slot.deployments.containsKey(pluginName)) {
+            throw new IllegalArgumentException("Plugin not deployed: " + pluginName);
+        }
+        Object[] values = callValues(pluginName, methodName, args);
+        calls.increment();
+        try {
+            return slot.connection().request(Frame.CALL, values).thenApply(PluginWorkerPool::result);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Calls a public method of a deployed plugin once for each list of
+     * arguments. The calls are sent to the worker together, in as few socket
+     * writes as they fit in, and run concurrently there.
+     * 
+     * @param pluginName the name of the plugin
+     * @param methodName the name of the method
+     * @param argumentLists the arguments of each call
+     * @return the results of the calls, in the order of the argument lists
+     * @throws IllegalArgumentException if the plugin is not deployed, or an argument is of an unsupported type
+     */
+    public List<CompletableFuture<Object>> submitAll(String pluginName, String methodName, List<Object[]> argumentLists) {
+        requireName(pluginName);
+        if (methodName == null || methodName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Method name cannot be null or empty");
+        }
+        if (argumentLists == null) {
+            throw new IllegalArgumentException("Argument lists cannot be null");
+        }
+        Slot slot = slotOf(pluginName);
+        if (!slot.deployments.containsKey(pluginName)) {
+            throw new IllegalArgumentException("Plugin not deployed: " + pluginName);
+        }
+        List<Object[]> requests = new ArrayList<>(argumentLists.size());
+        for (Object[] args : argumentLists) {
+            requests.add(callValues(pluginName, methodName, args));
+        }
+        List<CompletableFuture<Object>> results = new ArrayList<>(requests.size());
+        try {
+            for (CompletableFuture<Frame> response : slot.connection().requestAll(Frame.CALL, requests)) {
+                results.add(response.thenApply(PluginWorkerPool::result));
+            }
+        } catch (IOException e) {
+            for (int i = 0; i < requests.size(); i++) {
+                results.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        calls.add(requests.size());
+        return results;
+    }
+
+    /**
+     * Returns the statistics of the pool.
+     * 
+     * @return the current statistics
+     */
+    public WorkerPoolStats getStats() {
+        int live = 0;
+        for (Slot slot : slots) {
+            WorkerConnection connection = slot.current;
+            if (connection != null && connection.isAlive()) {
+                live++;
+            }
+        }
+        return new WorkerPoolStats(slots.length, live, calls.sum(), restarts.sum(), framesSent.sum(), writes.sum());
+    }
+
+    /**
+     * Stops all workers. Pending calls fail with an {@link IOException}.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void stop() {
+        closed = true;
+        healthChecker.shutdownNow();
+        for (Slot slot : slots) {
+            if (slot != null) {
+                slot.stop();
+            }
+        }
+        try {
+            Files.deleteIfExists(socketDirectory);
+        } catch (IOException e) {
+            // A socket of a worker that is still starting; the directory is in the temp dir
+        }
+    }
+
+    private void checkHealth() {
+        for (Slot slot : slots) {
+            WorkerConnection connection = slot.current;
+            if (connection == null || !connection.isAlive()) {
+                try {
+                    slot.connection();
+                } catch (IOException | RuntimeException e) {
+                    // Retried on the next check, or on the next call
+                }
+            } else {
+                connection.request(Frame.PING)
+                    .orTimeout(HEALTH_CHECK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .exceptionally(failure -> {
+                        connection.fail(new IOException("Plugin worker did not answer a health check"));
+                        return null;
+                    });
+            }
+        }
+    }
+
+    private Slot slotOf(String pluginName) {
+        return slots[Math.floorMod(pluginName.hashCode(), slots.length)];
+    }
+
+    private static Object[] callValues(String pluginName, String methodName, Object[] args) {
+        Object[] values = new Object[args.length + 2];
+        values[0] = pluginName;
+        values[1] = methodName;
+        System.arraycopy(args, 0, values, 2, args.length);
+        return values;
+    }
+
+    private static Object result(Frame response) {
+        Object[] values = response.values();
+        return switch (response.kind()) {
+            case Frame.OK -> values.length == 0 ? null : values[0];
+            case Frame.SECURITY_ERROR -> throw new SecurityException((String) values[0]);
+            default -> throw new RemotePluginException((String) values[0], (String) values[1]);
+        };
+    }
+
+    /**
+     * Waits for a response, rethrowing the failure of the request as is.
+     */
+    private static Object await(CompletableFuture<?> response) throws IOException {
+        try {
+            Object value = response.get();
+            return value instanceof Frame frame ? result(frame) : value;
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a plugin worker", e);
+        }
+    }
+
+    private static void requireName(String pluginName) {
+        if (pluginName == null || pluginName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Plugin name cannot be null or empty");
+        }
+    }
+
+    /**
+     * The source of a deployed plugin, kept to deploy it again after a restart.
+     */
+    private record Deployment(String className, String javaCode) {
+    }
+
+    /**
+     * One worker position in the pool, and the plugins routed to it.
+     */
+    private final class Slot {
+
+        private final int index;
+        private final Map<String, Deployment> deployments = new ConcurrentHashMap<>();
+        private volatile WorkerConnection current;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the live connection of this slot, starting a new worker if
+         * the previous one died.
+         */
+        WorkerConnection connection() throws IOException {
+            WorkerConnection connection = current;
+            if (connection != null && connection.isAlive()) {
+                return connection;
+            }
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Plugin worker pool is closed");
+                }
+                connection = current;
+                if (connection != null && connection.isAlive()) {
+                    return connection;
+                }
+                Path socket = socketDirectory.resolve("worker-" + index + ".sock");
+                List<String> command = new ArrayList<>(launcher);
+                command.add(socket.toString());
+                command.addAll(securityArguments);
+                connection = WorkerConnection.start("plugin-worker-" + index, socket, command, framesSent, writes);
+                try {
+                    for (Deployment deployment : deployments.values()) {
+                        await(connection.request(Frame.DEPLOY, deployment.className(), deployment.javaCode()));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    connection.fail(new IOException("Plugin worker " + index + " failed to redeploy its plugins", e));
+                    throw e;
+                }
+                if (current != null) {
+                    restarts.increment();
+                }
+                current = connection;
+                return connection;
+            }
+        }
+
+        synchronized void stop() {
+            WorkerConnection connection = current;
+            if (connection != null) {
+                connection.fail(new IOException("Plugin worker pool is closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+/**
+ * Thrown when a call into a plugin fails inside its worker process.
+ * 
+ * Exceptions do not cross the process boundary; the caller gets the class
+ * name and message of the exception that the worker caught instead.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public class RemotePluginException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The class name of the exception thrown in the worker.
+     */
+    private final String remoteClassName;
+
+    /**
+     * Creates a new RemotePluginException.
+     * 
+     * @param remoteClassName the class name of the exception thrown in the worker
+     * @param remoteMessage the message of the exception thrown in the worker, may be null
+     */
+    public RemotePluginException(String remoteClassName, String remoteMessage) {
+        super(remoteMessage == null ? remoteClassName : remoteClassName + ": " + remoteMessage);
+        this.remoteClassName = remoteClassName;
+    }
+
+    /**
+     * Returns the class name of the exception thrown in the worker.
+     * 
+     * @return the remote exception class name
+     */
+    public String getRemoteClassName() { return remoteClassName; }
+}
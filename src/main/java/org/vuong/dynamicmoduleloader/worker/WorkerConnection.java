@@ -0,0 +1,203 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One worker process and the connection to it.
+ * 
+ * Requests are multiplexed by id, so any number of calls can be in flight at
+ * once. A reading thread completes each request when its response arrives.
+ * When the connection fails, for whatever reason, the process is destroyed
+ * and every pending request fails with an {@link IOException}; the pool then
+ * starts a new worker in its place.
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+final class WorkerConnection {
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 30_000;
+
+    private final String name;
+    private final Process process;
+    private final FrameChannel channel;
+    private final Map<Long, CompletableFuture<Frame>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile IOException failure;
+
+    private WorkerConnection(String name, Process process, FrameChannel channel) {
+        this.name = name;
+        this.process = process;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts a worker process and waits until it has connected.
+     * 
+     * @param name the name of the worker, used in thread names and errors
+     * @param socket the path of the socket the worker connects to
+     * @param command the command that starts the worker
+     * @throws IOException if the worker cannot be started or does not connect in time
+     */
+    static WorkerConnection start(String name, Path socket, List<String> command,
+                                  LongAdder framesSent, LongAdder writes) throws IOException {
+        Files.deleteIfExists(socket);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            server.configureBlocking(false);
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            try {
+                SocketChannel accepted = accept(server, process);
+                accepted.configureBlocking(true);
+                WorkerConnection connection = new WorkerConnection(name, process,
+                    new FrameChannel(accepted, framesSent, writes));
+                Thread reader = new Thread(connection::read, name + "-reader");
+                reader.setDaemon(true);
+                reader.start();
+                return connection;
+            } catch (IOException | RuntimeException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private static SocketChannel accept(ServerSocketChannel server, Process process) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+        while (true) {
+            SocketChannel accepted = server.accept();
+            if (accepted != null) {
+                return accepted;
+            }
+            if (!process.isAlive()) {
+                throw new IOException("Plugin worker exited with code " + process.exitValue() + " before connecting");
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Plugin worker did not connect within " + CONNECT_TIMEOUT_MILLIS + " ms");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while starting a plugin worker", e);
+            }
+        }
+    }
+
+    /**
+     * Sends a request.
+     * 
+     * @return the response, completed exceptionally with an IOException if the worker fails first
+     */
+    CompletableFuture<Frame> request(byte kind, Object... values) {
+        return requestAll(kind, List.<Object[]>of(values)).get(0);
+    }
+
+    /**
+     * Sends requests of one kind together, in as few writes as possible.
+     * 
+     * @return the responses, in the order of the requests
+     * @throws IllegalArgumentException if a value is of an unsupported type, in which case nothing is sent
+     */
+    List<CompletableFuture<Frame>> requestAll(byte kind, List<Object[]> requests) {
+        List<byte[]> frames = new ArrayList<>(requests.size());
+        List<CompletableFuture<Frame>> responses = new ArrayList<>(requests.size());
+        long firstId = ids.getAndAdd(requests.size()) + 1;
+        for (int i = 0; i < requests.size(); i++) {
+            frames.add(Frame.encode(kind, firstId + i, requests.get(i)));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            CompletableFuture<Frame> response = new CompletableFuture<>();
+            pending.put(firstId + i, response);
+            responses.add(response);
+        }
+        // Checked after registering, so a concurrent failure cannot miss these requests
+        IOException failed = failure;
+        if (failed != null) {
+            for (int i = 0; i < requests.size(); i++) {
+                pending.remove(firstId + i);
+                responses.get(i).completeExceptionally(failed);
+            }
+            return responses;
+        }
+        try {
+            channel.sendAll(frames);
+        } catch (IOException e) {
+            fail(new IOException("Plugin worker " + name + " connection failed: " + e.getMessage(), e));
+        }
+        return responses;
+    }
+
+    /**
+     * Checks whether the worker is connected.
+     */
+    boolean isAlive() {
+        return failure == null;
+    }
+
+    /**
+     * Destroys the worker and fails all of its pending requests.
+     */
+    void fail(IOException cause) {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = cause;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        process.destroyForcibly();
+        List<CompletableFuture<Frame>> failed = new ArrayList<>(pending.values());
+        pending.clear();
+        for (CompletableFuture<Frame> response : failed) {
+            response.completeExceptionally(cause);
+        }
+    }
+
+    private void read() {
+        IOException cause;
+        try {
+            Frame response;
+            while ((response = channel.receive()) != null) {
+                CompletableFuture<Frame> request = pending.remove(response.id());
+                if (request != null) {
+                    request.complete(response);
+                }
+            }
+            cause = new IOException("Plugin worker " + name + " exited" + exitCode());
+        } catch (IOException e) {
+            cause = failure != null ? failure
+                : new IOException("Plugin worker " + name + " connection failed" + exitCode() + ": " + e.getMessage(), e);
+        }
+        fail(cause);
+    }
+
+    private String exitCode() {
+        try {
+            return process.waitFor(1, TimeUnit.SECONDS) ? " with code " + process.exitValue() : "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+}
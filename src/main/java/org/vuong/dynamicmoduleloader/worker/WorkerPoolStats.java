@@ -0,0 +1,31 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+/**
+ * Point-in-time statistics of a {@link PluginWorkerPool}.
+ * 
+ * @param workers the number of worker slots in the pool
+ * @param liveWorkers the number of workers currently connected
+ * @param calls the number of plugin calls submitted
+ * @param restarts the number of workers started to replace one that died
+ * @param framesSent the number of requests sent to workers
+ * @param writes the number of socket writes the requests were sent in
+ * 
+ * @author Dynamic Module Loader
+ * @since 0.0.1-SNAPSHOT
+ */
+public record WorkerPoolStats(int workers,
+                              int liveWorkers,
+                              long calls,
+                              long restarts,
+                              long framesSent,
+                              long writes) {
+
+    /**
+     * Returns the average number of requests sent per socket write.
+     * 
+     * @return the average batch size, or 0 if nothing was sent
+     */
+    public double averageBatchSize() {
+        return writes == 0 ? 0.0 : (double) framesSent / writes;
+    }
+}
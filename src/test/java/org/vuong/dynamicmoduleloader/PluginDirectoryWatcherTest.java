@@ -0,0 +1,157 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginDirectoryWatcherTest {
+
+    @Test
+    void watch_loadsExistingFilesAndReloadsChangedOnes() throws Exception {
+        Path directory = Files.createTempDirectory("plugins");
+        write(directory, "Alpha", 1);
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), 50, 2)) {
+            BlockingQueue<PluginReload> reloads = listen(watcher);
+            assertEquals(List.of("alpha"), watcher.getLastReload().loaded());
+            assertEquals(1, value(service.getPlugin("alpha")));
+
+            write(directory, "Alpha", 2);
+            PluginReload reload = next(reloads);
+            assertEquals(List.of("alpha"), reload.loaded());
+            assertTrue(reload.latencyNanos() > 0);
+            assertEquals(2, value(service.getPlugin("alpha")));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void watch_skipsFilesWhoseContentDidNotChange() throws Exception {
+        Path directory = Files.createTempDirectory("plugins");
+        write(directory, "Alpha", 1);
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), 50, 2)) {
+            BlockingQueue<PluginReload> reloads = listen(watcher);
+            Plugin plugin = service.getPlugin("alpha");
+
+            write(directory, "Alpha", 1);
+            PluginReload reload = next(reloads);
+            assertTrue(reload.loaded().isEmpty());
+            assertEquals(1, reload.unchanged());
+            assertSame(plugin, service.getPlugin("alpha"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void watch_reloadsABurstOfChangesAtOnce() throws Exception {
+        Path directory = Files.createTempDirectory("plugins");
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), 300, 2)) {
+            BlockingQueue<PluginReload> reloads = listen(watcher);
+            write(directory, "Alpha", 1);
+            write(directory, "Beta", 2);
+            write(directory, "Gamma", 3);
+
+            PluginReload reload = next(reloads);
+            assertEquals(3, reload.loaded().size());
+            assertEquals(3, service.getPluginCount());
+            assertEquals(3, value(service.getPlugin("gamma")));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void watch_removesPluginsOfDeletedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("plugins");
+        Path alpha = write(directory, "Alpha", 1);
+        write(directory, "Beta", 2);
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), 50, 2)) {
+            BlockingQueue<PluginReload> reloads = listen(watcher);
+            Files.delete(alpha);
+
+            PluginReload reload = next(reloads);
+            assertEquals(List.of("alpha"), reload.removed());
+            assertFalse(service.containsPlugin("alpha"));
+            assertTrue(service.containsPlugin("beta"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void watch_keepsThePreviousPluginWhenAFileFailsToCompile() throws Exception {
+        Path directory = Files.createTempDirectory("plugins");
+        Path alpha = write(directory, "Alpha", 1);
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginDirectoryWatcher watcher = service.watch(List.of(directory), 50, 2)) {
+            BlockingQueue<PluginReload> reloads = listen(watcher);
+            Plugin plugin = service.getPlugin("alpha");
+
+            Files.writeString(alpha, "public class Alpha { public int value() { return ; } }");
+            PluginReload reload = next(reloads);
+            assertTrue(reload.failures().containsKey(alpha));
+            assertSame(plugin, service.getPlugin("alpha"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void watch_rejectsMissingDirectories() {
+        PluginLoadService service = new PluginLoadService();
+        assertThrows(IllegalArgumentException.class, () -> service.watch(Path.of("does-not-exist")));
+        assertThrows(IllegalArgumentException.class, () -> service.watch(List.of(), 50, 1));
+    }
+
+    private static BlockingQueue<PluginReload> listen(PluginDirectoryWatcher watcher) {
+        BlockingQueue<PluginReload> reloads = new LinkedBlockingQueue<>();
+        watcher.addReloadListener(reloads::add);
+        return reloads;
+    }
+
+    private static PluginReload next(BlockingQueue<PluginReload> reloads) throws InterruptedException {
+        PluginReload reload = reloads.poll(30, TimeUnit.SECONDS);
+        assertNotNull(reload, "No reload within 30 seconds");
+        return reload;
+    }
+
+    private static Path write(Path directory, String className, int value) throws IOException {
+        return Files.writeString(directory.resolve(className + ".java"),
+            "public class " + className + " { public int value() { return " + value + "; } }");
+    }
+
+    private static int value(Plugin plugin) throws Exception {
+        Class<?> clazz = plugin.getPluginClass();
+        return (int) clazz.getMethod("value").invoke(clazz.getDeclaredConstructor().newInstance());
+    }
+
+    private static void delete(Path directory) {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+}
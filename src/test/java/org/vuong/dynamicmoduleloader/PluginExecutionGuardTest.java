@@ -0,0 +1,131 @@
+package org.vuong.dynamicmoduleloader;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.ExecutionBudget;
+import org.vuong.dynamicmoduleloader.security.ExecutionBudgetExceededException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginExecutionGuardTest {
+
+    private static final ExecutionBudget SMALL = new ExecutionBudget(50_000_000L, 16L << 20, 2);
+
+    @Test
+    void call_returnsResultsAndExceptionsOfInvocationsWithinBudget() throws Exception {
+        try (PluginExecutionGuard guard = new PluginExecutionGuard(new InMemoryPluginRegistry(), SMALL)) {
+            int answer = guard.call("answer", () -> 6 * 7);
+            assertEquals(42, answer);
+
+            IOException thrown = assertThrows(IOException.class, () -> guard.call("answer", () -> {
+                throw new IOException("plugin failed");
+            }));
+            assertEquals("plugin failed", thrown.getMessage());
+            assertEquals(new ExecutionStats(2, 0, 0, 0, 0, false), guard.getStats("answer"));
+        }
+    }
+
+    @Test
+    void call_abandonsInvocationsOverTheirCpuBudget() {
+        try (PluginExecutionGuard guard = new PluginExecutionGuard(new InMemoryPluginRegistry(), SMALL)) {
+            ExecutionBudgetExceededException exception = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(ExecutionBudgetExceededException.class, () -> guard.call("spinner", PluginExecutionGuardTest::spin)));
+
+            assertEquals("spinner", exception.getPluginName());
+            assertEquals(ExecutionBudget.Resource.CPU_TIME, exception.getResource());
+            assertTrue(exception.getUsed() > exception.getLimit());
+            ExecutionStats stats = guard.getStats("spinner");
+            assertEquals(1, stats.cpuViolations());
+            assertEquals(1, stats.abandonedCalls());
+        }
+    }
+
+    @Test
+    void call_abandonsInvocationsOverTheirAllocationBudget() {
+        try (PluginExecutionGuard guard = new PluginExecutionGuard(new InMemoryPluginRegistry(), SMALL)) {
+            guard.setBudget("hoarder", new ExecutionBudget(Long.MAX_VALUE, 16L << 20, 2));
+
+            ExecutionBudgetExceededException exception = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(ExecutionBudgetExceededException.class, () -> guard.call("hoarder", PluginExecutionGuardTest::allocate)));
+
+            assertEquals(ExecutionBudget.Resource.ALLOCATED_BYTES, exception.getResource());
+            assertEquals(1, guard.getStats("hoarder").allocationViolations());
+        }
+    }
+
+    @Test
+    void call_checksInvocationsThatFinishBetweenSamples() {
+        // A sample interval longer than the test, so only the check on return can see the violation
+        try (PluginExecutionGuard guard = new PluginExecutionGuard(new InMemoryPluginRegistry(),
+                new ExecutionBudget(Long.MAX_VALUE, 1L << 20, 5), 60_000)) {
+            assertThrows(ExecutionBudgetExceededException.class, () -> guard.call("burst", () -> new byte[8 << 20].length));
+
+            ExecutionStats stats = guard.getStats("burst");
+            assertEquals(1, stats.allocationViolations());
+            assertEquals(0, stats.abandonedCalls());
+        }
+    }
+
+    @Test
+    void call_quarantinesPluginsAfterRepeatedViolations() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        Plugin plugin = new Plugin("spinner", Object.class);
+        registry.register(plugin);
+        List<ExecutionBudgetExceededException> violations = new CopyOnWriteArrayList<>();
+
+        try (PluginExecutionGuard guard = new PluginExecutionGuard(registry, SMALL)) {
+            guard.addViolationListener(violations::add);
+            assertThrows(ExecutionBudgetExceededException.class, () -> guard.call("spinner", PluginExecutionGuardTest::spin));
+            assertFalse(guard.isQuarantined("spinner"));
+            assertThrows(ExecutionBudgetExceededException.class, () -> guard.call("spinner", PluginExecutionGuardTest::spin));
+
+            assertTrue(guard.isQuarantined("spinner"));
+            assertFalse(registry.containsPlugin("spinner"));
+            SecurityException refused = assertThrows(SecurityException.class, () -> guard.call("spinner", () -> 1));
+            assertEquals("Plugin is quarantined: spinner", refused.getMessage());
+            assertEquals(2, violations.size());
+            assertEquals(2, guard.getStats("spinner").calls());
+
+            assertTrue(guard.release("spinner"));
+            assertSame(plugin, registry.getPlugin("spinner"));
+            int result = guard.call("spinner", () -> 1);
+            assertEquals(1, result);
+            assertFalse(guard.release("spinner"));
+        }
+    }
+
+    @Test
+    void constructor_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PluginExecutionGuard(null, SMALL));
+        assertThrows(IllegalArgumentException.class, () -> new PluginExecutionGuard(new InMemoryPluginRegistry(), null));
+        assertThrows(IllegalArgumentException.class, () -> new ExecutionBudget(0, 1, 1));
+    }
+
+    /**
+     * Burns CPU until interrupted, as a plugin stuck in a loop would.
+     */
+    private static Long spin() {
+        long iterations = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * Allocates short-lived garbage until interrupted.
+     */
+    private static Integer allocate() {
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            total += new byte[64 * 1024].length;
+        }
+        return total;
+    }
+}
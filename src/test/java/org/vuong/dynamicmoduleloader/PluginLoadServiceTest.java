@@ -1,11 +1,19 @@
 package org.vuong.dynamicmoduleloader;
 
 import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.compiler.BuildStats;
 import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.CapacityPolicy;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -123,6 +131,99 @@ class PluginLoadServiceTest {
         assertThrows(IllegalArgumentException.class, () -> new PluginLoadService(null));
     }
 
+    @Test
+    void loadAll_loadsMatchingFilesOfADirectoryTreeInOneStep() throws Exception {
+        Path root = Files.createTempDirectory("plugin-tree");
+        for (int i = 0; i < 12; i++) {
+            Path directory = Files.createDirectories(root.resolve("group" + (i % 3)));
+            Files.writeString(directory.resolve("Tree" + i + ".java"),
+                "public class Tree" + i + " { public int value() { return " + i + "; } }");
+        }
+        Files.writeString(root.resolve("Top.java"), "public class Top {}");
+        Files.writeString(root.resolve("notes.txt"), "not a plugin");
+        PluginLoadService service = new PluginLoadService();
+        List<BulkLoadProgress> progress = new ArrayList<>();
+
+        BulkLoadResult result = service.loadAll(root, "group*/*.java", 3, progress::add);
+
+        assertEquals(12, result.outcomes().size());
+        assertEquals(12, result.loadedCount());
+        assertEquals(12, service.getPluginCount());
+        assertFalse(service.containsPlugin("top"));
+        Class<?> clazz = service.getPlugin("tree7").getPluginClass();
+        assertEquals(7, clazz.getMethod("value").invoke(clazz.getDeclaredConstructor().newInstance()));
+        assertEquals(12, progress.size());
+        assertEquals(12, progress.get(11).completed());
+        assertEquals(12, progress.get(0).total());
+
+        assertEquals(13, service.loadAll(root, "**.java").loadedCount());
+    }
+
+    @Test
+    void loadAll_reportsFailingFilesWithoutFailingTheOthers() throws Exception {
+        Path root = Files.createTempDirectory("plugin-tree");
+        Files.writeString(root.resolve("Good.java"), "public class Good {}");
+        Files.writeString(root.resolve("Broken.java"), "public class Broken { int x = ; }");
+        Files.writeString(root.resolve("Reader.java"),
+            "public class Reader { public Object read() { return new java.io.File(\"/etc/passwd\"); } }");
+        Files.writeString(root.resolve("Other.java"), "public class Other { public int value() { return 1; } }");
+        Files.writeString(root.resolve("Typo.java"), "public class Typo { Missing missing; }");
+        Path nested = Files.createDirectories(root.resolve("nested"));
+        Files.writeString(nested.resolve("Good.java"), "public class Good {}");
+        PluginLoadService service = new PluginLoadService();
+
+        BulkLoadResult result = service.loadAll(root, "**.java", 2, null);
+
+        assertEquals(6, result.outcomes().size());
+        assertEquals(List.of("Broken.java", "Reader.java", "Typo.java", "Good.java"), result.failures().stream()
+            .map(outcome -> outcome.file().getFileName().toString()).toList());
+        assertInstanceOf(SecurityException.class, result.failures().get(1).failure());
+        // The second Good.java has the name of the first
+        assertEquals(root.resolve("nested").resolve("Good.java"), result.failures().get(3).file());
+        assertTrue(service.containsPlugin("good"));
+        assertTrue(service.containsPlugin("other"));
+        assertEquals(2, service.getPluginCount());
+    }
+
+    @Test
+    void loadAll_reusesUpToDateClassesAfterARestart() throws Exception {
+        Path root = Files.createTempDirectory("plugin-tree");
+        Path output = Files.createTempDirectory("plugin-output");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(root.resolve("Cached" + i + ".java"),
+                "public class Cached" + i + " { public int value() { return " + i + "; } }");
+        }
+        new PluginLoadService(new InMemoryPluginRegistry(), SecurityConfig.strict(), output).loadAll(root, "*.java");
+
+        PluginLoadService restarted = new PluginLoadService(new InMemoryPluginRegistry(), SecurityConfig.strict(), output);
+        assertEquals(5, restarted.loadAll(root, "*.java").loadedCount());
+        assertEquals(new BuildStats(5, 0), restarted.getBuildStats());
+
+        // Another security configuration must validate the sources again
+        PluginLoadService moderate = new PluginLoadService(new InMemoryPluginRegistry(), SecurityConfig.moderate(), output);
+        moderate.loadAll(root, "*.java");
+        assertEquals(new BuildStats(0, 5), moderate.getBuildStats());
+    }
+
+    @Test
+    void evictedPlugin_reloadsTheVersionThatWasLoaded() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(1));
+        PluginLoadService service = new PluginLoadService(registry);
+        File evicted = createTempPluginFile("Evicted", "public class Evicted { public int version() { return 1; } }");
+        File other = createTempPluginFile("Other", "public class Other { public int version() { return 1; } }");
+        Plugin plugin = service.loadAndRegisterPlugin(evicted.getAbsolutePath());
+        service.loadAndRegisterPlugin(other.getAbsolutePath());
+        assertFalse(plugin.isResolved());
+
+        Files.writeString(evicted.toPath(), "public class Evicted { public int version() { return 2; } }");
+        assertTrue(evicted.delete());
+
+        Class<?> reloaded = service.getPlugin("evicted").getPluginClass();
+        Object instance = reloaded.getDeclaredConstructor().newInstance();
+        assertEquals(1, reloaded.getMethod("version").invoke(instance));
+        assertEquals(1, registry.getCapacityStats().reloads());
+    }
+
     private File createTempPluginFile(String className, String source) throws IOException {
         // Create a temporary directory first
         File tempDir = new File(System.getProperty("java.io.tmpdir"), "plugin-test-" + System.currentTimeMillis());
@@ -2,6 +2,20 @@ package org.vuong.dynamicmoduleloader;
 
 import org.junit.jupiter.api.Test;
 import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.CapacityPolicy;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.warmup.PluginWarmer;
+import org.vuong.dynamicmoduleloader.warmup.WarmUpPolicy;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,4 +58,201 @@ class PluginRuntimeServiceTest {
         assertEquals(0, service.getPluginCount());
         assertTrue(service.getAllPlugins().isEmpty());
     }
+
+    @Test
+    void compileAndRegisterAll_registersAllOrNothing() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("First", "public class First {}");
+        sources.put("Second", "public class Second {}");
+        List<Plugin> plugins = service.compileAndRegisterAll(sources);
+
+        assertEquals(2, plugins.size());
+        assertSame(plugins.get(0), service.getPlugin("first"));
+        assertSame(plugins.get(1), service.getPlugin("second"));
+
+        Map<String, String> broken = new LinkedHashMap<>();
+        broken.put("Third", "public class Third {}");
+        broken.put("Fourth", "public class Fourth { not java }");
+        assertThrows(IllegalStateException.class, () -> service.compileAndRegisterAll(broken));
+        assertFalse(service.containsPlugin("third"));
+        assertEquals(2, service.getPluginCount());
+    }
+
+    @Test
+    void compileAndRegister_validatesTheTreeThatIsCompiled() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+
+        Plugin plugin = service.compileAndRegister("Quoted",
+            "public class Quoted { public String text(){ return \"java.io.File\"; } }");
+        assertEquals("quoted", plugin.getName());
+
+        SecurityException exception = assertThrows(SecurityException.class, () -> service.compileAndRegister("Walker",
+            "import java.nio.file.*; public class Walker { Object p = Paths.get(\"/\"); }"));
+        assertTrue(exception.getMessage().contains("java.nio.file.Paths"));
+        assertFalse(service.containsPlugin("walker"));
+    }
+
+    @Test
+    void compileAndRegister_verifiesBytecodeBeforeLoading() {
+        PluginRuntimeService service = new PluginRuntimeService();
+
+        // Passes the source checks, but the compiled class calls ClassLoader.loadClass
+        SecurityException exception = assertThrows(SecurityException.class, () -> service.compileAndRegister("Loader",
+            "public class Loader { Object load() throws Exception { return Loader.class.getClassLoader().loadClass(\"x\"); } }"));
+
+        assertTrue(exception.getMessage().contains("java.lang.ClassLoader.loadClass"));
+        assertFalse(service.containsPlugin("loader"));
+    }
+
+    @Test
+    void registerLazy_validatesNowAndCompilesOnFirstLookup() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+
+        Plugin plugin = service.registerLazy("LazyPlugin",
+            "public class LazyPlugin { public int twice(int a){ return a*2; } }");
+        assertFalse(plugin.isResolved());
+        assertTrue(service.containsPlugin("lazyPlugin"));
+
+        Plugin retrieved = service.getPlugin("lazyPlugin");
+        assertSame(plugin, retrieved);
+        assertTrue(plugin.isResolved());
+        Object instance = plugin.getPluginClass().getDeclaredConstructor().newInstance();
+        assertEquals(8, plugin.getPluginClass().getMethod("twice", int.class).invoke(instance, 4));
+        // The compilation checks the source that registration already validated
+        assertEquals(1, service.getValidationCacheStats().hits());
+
+        assertThrows(SecurityException.class, () -> service.registerLazy("Evil",
+            "public class Evil { void x() { Runtime.getRuntime().exec(\"ls\"); } }"));
+        assertFalse(service.containsPlugin("evil"));
+        assertEquals(1, service.getValidationMetrics().rule("system").rejections());
+    }
+
+    @Test
+    void boundedRegistry_unloadsEvictedClassesAndReloadsFromSource() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(1));
+        PluginRuntimeService service = new PluginRuntimeService(registry);
+
+        Plugin first = service.compileAndRegister("FirstTenant", "public class FirstTenant { public int id(){ return 1; } }");
+        WeakReference<Class<?>> firstClass = new WeakReference<>(first.getPluginClass());
+        service.compileAndRegister("SecondTenant", "public class SecondTenant {}");
+
+        assertFalse(first.isResolved());
+        for (int i = 0; i < 20 && firstClass.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertNull(firstClass.get(), "evicted plugin class should be unloadable");
+
+        Plugin reloaded = service.getPlugin("firstTenant");
+        Object instance = reloaded.getPluginClass().getDeclaredConstructor().newInstance();
+        assertEquals(1, reloaded.getPluginClass().getMethod("id").invoke(instance));
+        assertEquals(1, registry.getCapacityStats().reloads());
+    }
+    @Test
+    void stage_keepsTheRegisteredVersionUntilPromoted() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        Plugin current = service.compileAndRegister("Rate", "public class Rate { public int value(){ return 1; } }");
+        PluginWarmer warmer = new PluginWarmer(new WarmUpPolicy(100, 1_000, 4));
+        warmer.record("rate", "value");
+
+        StagedPlugin staged = service.stage("Rate", "public class Rate { public int value(){ return 2; } }", warmer);
+        Plugin next = staged.await();
+
+        assertTrue(staged.isReady());
+        assertTrue(staged.getStagingNanos() > 0);
+        assertTrue(warmer.getLastResult("rate").invocations() >= 100);
+        assertSame(current, service.getPlugin("rate"));
+
+        assertSame(current, staged.promote());
+        assertSame(next, service.getPlugin("rate"));
+        Object instance = next.getPluginClass().getDeclaredConstructor().newInstance();
+        assertEquals(2, next.getPluginClass().getMethod("value").invoke(instance));
+        assertFalse(staged.isReady());
+        assertThrows(IllegalStateException.class, staged::promote);
+        assertFalse(staged.cancel());
+    }
+
+    @Test
+    void stage_reportsFailuresOnPromoteAndKeepsTheRegisteredVersion() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        Plugin current = service.compileAndRegister("Rate", "public class Rate { }");
+
+        StagedPlugin broken = service.stage("Rate", "public class Rate { broken }");
+        StagedPlugin evil = service.stage("Rate",
+            "public class Rate { void x() throws Exception { Runtime.getRuntime().exec(\"ls\"); } }");
+
+        assertThrows(IllegalStateException.class, broken::promote);
+        assertThrows(SecurityException.class, evil::promote);
+        assertTrue(broken.isDone());
+        assertSame(current, service.getPlugin("rate"));
+        assertThrows(IllegalArgumentException.class, () -> service.stage("Rate", " "));
+    }
+
+    @Test
+    void cancel_releasesTheStagedClass() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        StagedPlugin staged = service.stage("Draft", "public class Draft { public int id(){ return 1; } }");
+        WeakReference<Class<?>> draftClass = new WeakReference<>(staged.await().getPluginClass());
+
+        assertTrue(staged.cancel());
+        assertFalse(staged.isReady());
+        assertThrows(IllegalStateException.class, staged::promote);
+        for (int i = 0; i < 20 && draftClass.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertNull(draftClass.get(), "cancelled plugin class should be unloadable");
+        assertFalse(service.containsPlugin("draft"));
+    }
+
+    @Test
+    void submit_compilesOnlyTheFirstAndNewestOfABurstOfVersions() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        List<CompletableFuture<Plugin>> versions = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            versions.add(service.submit("Draft", "public class Draft { public int version(){ return " + i + "; } }"));
+        }
+
+        Plugin newest = versions.get(9).get();
+
+        Object instance = newest.getPluginClass().getDeclaredConstructor().newInstance();
+        assertEquals(10, newest.getPluginClass().getMethod("version").invoke(instance));
+        assertSame(newest, service.getPlugin("draft"));
+        for (int i = 0; i < 9; i++) {
+            CompletableFuture<Plugin> superseded = versions.get(i);
+            assertThrows(CancellationException.class, superseded::join);
+        }
+        // The first compiles and is abandoned, the next eight never compile
+        assertEquals(new RecompileStats(10, 2, 8, 1), service.getRecompileStats());
+        assertEquals(8, service.getRecompileStats().compilesAvoided());
+    }
+
+    @Test
+    void submit_reportsCompileFailuresAndKeepsTheRegisteredVersion() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        Plugin current = service.submit("Draft", "public class Draft { }").get();
+
+        CompletableFuture<Plugin> broken = service.submit("Draft", "public class Draft { broken }");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, broken::get);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertSame(current, service.getPlugin("draft"));
+        assertEquals(new RecompileStats(2, 2, 0, 0), service.getRecompileStats());
+    }
+
+    @Test
+    void submit_reportsErrorsAndStaysReadyForTheNextVersion() throws Exception {
+        PluginRuntimeService service = new PluginRuntimeService();
+        CompletableFuture<Plugin> overflowing = service.submit("Draft",
+            "public class Draft { static { if (true) { throw new StackOverflowError(); } } }");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> overflowing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, failure.getCause());
+
+        Plugin next = service.submit("Draft", "public class Draft { }").get(10, TimeUnit.SECONDS);
+        assertSame(next, service.getPlugin("draft"));
+        assertEquals(new RecompileStats(2, 2, 0, 0), service.getRecompileStats());
+    }
 }
@@ -0,0 +1,116 @@
+package org.vuong.dynamicmoduleloader.bundle;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.compiler.ClassFileCheck;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginBundleBuilderTest {
+
+    @Test
+    void build_bundlesValidSourcesThatTheRuntimeLoadsWithoutJavac() throws Exception {
+        Path sources = Files.createTempDirectory("bundle-sources");
+        Files.writeString(sources.resolve("Pricing.java"),
+            "public class Pricing { public int price() { return Helper.twice(21); } }\n"
+                + "class Helper { static int twice(int x) { return 2 * x; } }");
+        Path acme = Files.createDirectories(sources.resolve("acme"));
+        Files.writeString(acme.resolve("Tax.java"), "package acme; public class Tax { public int rate() { return 7; } }");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+
+        BundleBuildResult result = new PluginBundleBuilder(SecurityConfig.strict(), 2).build(sources, bundleFile);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(Map.of("pricing", "Pricing", "tax", "acme.Tax"), result.plugins());
+        PluginLoadService service = new PluginLoadService();
+        try (PluginBundle bundle = service.loadBundle(bundleFile, true)) {
+            assertEquals(SecurityConfig.strict().fingerprint(), bundle.getValidatedFingerprint());
+            Class<?> pricing = service.getPlugin("pricing").getPluginClass();
+            assertEquals(42, pricing.getMethod("price").invoke(pricing.getDeclaredConstructor().newInstance()));
+            Class<?> tax = service.getPlugin("tax").getPluginClass();
+            assertEquals(7, tax.getMethod("rate").invoke(tax.getDeclaredConstructor().newInstance()));
+        }
+        assertEquals(0, service.getBuildStats().compiled());
+    }
+
+    @Test
+    void build_leavesOutFilesThatFailValidationOrCompilation() throws Exception {
+        Path sources = Files.createTempDirectory("bundle-sources");
+        Files.writeString(sources.resolve("Good.java"), "public class Good {}");
+        Files.writeString(sources.resolve("Broken.java"), "public class Broken { int x = ; }");
+        Files.writeString(sources.resolve("Runner.java"),
+            "public class Runner { public void run() throws Exception { Runtime.getRuntime().exec(\"ls\"); } }");
+        Files.writeString(sources.resolve("Misnamed.java"), "class Other {}");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+
+        BundleBuildResult result = new PluginBundleBuilder(SecurityConfig.strict(), 3).build(sources, bundleFile);
+
+        assertEquals(Map.of("good", "Good"), result.plugins());
+        assertEquals(3, result.failures().size());
+        assertInstanceOf(SecurityException.class, result.failures().get(sources.resolve("Runner.java")));
+        assertTrue(result.failures().containsKey(sources.resolve("Broken.java")));
+        assertTrue(result.failures().containsKey(sources.resolve("Misnamed.java")));
+        try (PluginBundle bundle = PluginBundle.open(bundleFile, null)) {
+            assertEquals(1, bundle.getPluginNames().size());
+        }
+    }
+
+    @Test
+    void build_leavesOutFilesDeclaringAClassOfAnotherBundledFile() throws Exception {
+        Path sources = Files.createTempDirectory("bundle-sources");
+        Files.writeString(sources.resolve("Alpha.java"),
+            "public class Alpha { public int value() { return Shared.value(); } }\n"
+                + "class Shared { static int value() { return 1; } }");
+        Files.writeString(sources.resolve("Beta.java"),
+            "public class Beta { public int value() { return Shared.value(); } }\n"
+                + "class Shared { static int value() { return 2; } }");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+
+        // Two javac tasks, so each file compiles its own Shared
+        BundleBuildResult result = new PluginBundleBuilder(SecurityConfig.strict(), 2).build(sources, bundleFile);
+
+        assertEquals(Map.of("alpha", "Alpha"), result.plugins());
+        assertTrue(result.failures().get(sources.resolve("Beta.java")).getMessage().contains("Duplicate class Shared"));
+        PluginLoadService service = new PluginLoadService();
+        try (PluginBundle bundle = service.loadBundle(bundleFile, true)) {
+            Class<?> alpha = service.getPlugin("alpha").getPluginClass();
+            assertEquals(1, alpha.getMethod("value").invoke(alpha.getDeclaredConstructor().newInstance()));
+        }
+    }
+
+    @Test
+    void open_trustsOnlyBundlesValidatedWithTheTrustedConfiguration() throws Exception {
+        Path sources = Files.createTempDirectory("bundle-sources");
+        Files.writeString(sources.resolve("Alpha.java"), "public class Alpha {}");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+        new PluginBundleBuilder(SecurityConfig.strict(), 1).build(sources, bundleFile);
+        ClassFileCheck rejectAll = classFile -> {
+            throw new SecurityException("rejected");
+        };
+
+        try (PluginBundle trusted = PluginBundle.open(bundleFile, rejectAll, SecurityConfig.strict().fingerprint())) {
+            assertEquals("Alpha", trusted.loadPluginClass("alpha").getName());
+        }
+        try (PluginBundle untrusted = PluginBundle.open(bundleFile, rejectAll, SecurityConfig.permissive().fingerprint())) {
+            assertThrows(SecurityException.class, () -> untrusted.loadPluginClass("alpha"));
+        }
+
+        // A runtime with another configuration verifies the bytecode itself
+        PluginLoadService moderate = new PluginLoadService(new InMemoryPluginRegistry(), SecurityConfig.moderate());
+        try (PluginBundle bundle = moderate.loadBundle(bundleFile, true)) {
+            assertNotNull(moderate.getPlugin("alpha").getPluginClass());
+        }
+    }
+
+    @Test
+    void constructor_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PluginBundleBuilder(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PluginBundleBuilder(SecurityConfig.strict(), 0));
+    }
+}
@@ -0,0 +1,115 @@
+package org.vuong.dynamicmoduleloader.bundle;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginBundleTest {
+
+    @Test
+    void loadBundle_registersPluginsAndDefinesClassesOnDemand() throws Exception {
+        Path bundleFile = bundle(Map.of(
+            "acme/Pricing.java", "package acme; public class Pricing { public int price() { return Rates.rate() * 2; } }",
+            "acme/Rates.java", "package acme; class Rates { static final int BASE = 21; static int rate() { return BASE; } }",
+            "acme/Tax.java", "package acme; public class Tax { public int rate() { return 7; } }"),
+            Map.of("pricing", "acme.Pricing", "tax", "acme.Tax"));
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginBundle bundle = service.loadBundle(bundleFile)) {
+            assertEquals(2, service.getPluginCount());
+            assertTrue(service.getAllPlugins().stream().noneMatch(Plugin::isResolved));
+            assertEquals(0, bundle.getDefinedClassCount());
+
+            Class<?> clazz = service.getPlugin("pricing").getPluginClass();
+            assertEquals(42, clazz.getMethod("price").invoke(clazz.getDeclaredConstructor().newInstance()));
+            // Pricing and the Rates class it needs, but not Tax
+            int defined = bundle.getDefinedClassCount();
+            assertEquals(2, defined);
+            assertEquals(1, service.getAllPlugins().stream().filter(Plugin::isResolved).count());
+            assertSame(clazz.getClassLoader(), service.getPlugin("tax").getPluginClass().getClassLoader());
+        }
+    }
+
+    @Test
+    void loadPluginClass_rejectsClassesThatDoNotMatchTheirDigest() throws Exception {
+        Path bundleFile = bundle(Map.of("Alpha.java", "public class Alpha {}", "Beta.java", "public class Beta {}"),
+            Map.of("alpha", "Alpha"));
+        try (FileSystem zip = FileSystems.newFileSystem(bundleFile)) {
+            // Swap in the bytes of another class
+            Files.write(zip.getPath("Alpha.class"), Files.readAllBytes(zip.getPath("Beta.class")));
+        }
+
+        try (PluginBundle bundle = PluginBundle.open(bundleFile, null)) {
+            assertThrows(SecurityException.class, () -> bundle.loadPluginClass("alpha"));
+        }
+    }
+
+    @Test
+    void loadBundle_verifiesBytecodeBeforeDefiningAClass() throws Exception {
+        Path bundleFile = bundle(Map.of("Reader.java",
+            "public class Reader { public Object read() { return new java.io.File(\"/etc/passwd\"); } }"),
+            Map.of("reader", "Reader"));
+        PluginLoadService service = new PluginLoadService();
+
+        try (PluginBundle bundle = service.loadBundle(bundleFile)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.getPlugin("reader").getPluginClass());
+            assertInstanceOf(SecurityException.class, e.getCause());
+            assertEquals(0, bundle.getDefinedClassCount());
+        }
+    }
+
+    @Test
+    void open_rejectsArchivesWithoutAnIndex() throws Exception {
+        Path archive = Files.createTempFile("not-a-bundle", ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("readme.txt"));
+            zip.write("hello".getBytes());
+        }
+        assertThrows(IllegalArgumentException.class, () -> PluginBundle.open(archive, null));
+        assertThrows(IllegalArgumentException.class, () -> PluginBundle.open(null, null));
+    }
+
+    @Test
+    void create_rejectsPluginsWhoseEntryClassIsMissing() throws Exception {
+        Path classes = Files.createTempDirectory("bundle-classes");
+        Path bundleFile = Files.createTempFile("bundle", ".jar");
+        assertThrows(IllegalArgumentException.class,
+            () -> PluginBundle.create(bundleFile, classes, Map.of("missing", "Missing")));
+    }
+
+    /**
+     * Compiles the sources, keyed by path, and bundles the classes with the given plugins.
+     */
+    private static Path bundle(Map<String, String> sources, Map<String, String> plugins) throws Exception {
+        Path sourceDir = Files.createTempDirectory("bundle-sources");
+        Path classes = Files.createTempDirectory("bundle-classes");
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString(), "-proc:none"));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = sourceDir.resolve(source.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            arguments.add(file.toString());
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        int status = javac.run(null, null, null, arguments.toArray(String[]::new));
+        assertEquals(0, status);
+
+        Path bundleFile = Files.createTempFile("bundle", ".jar");
+        PluginBundle.create(bundleFile, classes, plugins);
+        return bundleFile;
+    }
+}
@@ -0,0 +1,110 @@
+package org.vuong.dynamicmoduleloader.cds;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.PluginLoadService;
+import org.vuong.dynamicmoduleloader.bundle.PluginBundleBuilder;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassDataSharingTest {
+
+    @Test
+    void dump_archivesBundledPluginsForTheNextStart() throws Exception {
+        Path sources = Files.createTempDirectory("cds-sources");
+        Files.writeString(sources.resolve("Archived.java"), "public class Archived { public int answer() { return 42; } }");
+        Path bundleFile = Files.createTempFile("plugins", ".jar");
+        new PluginBundleBuilder(SecurityConfig.strict(), 1).build(sources, bundleFile);
+        String classPath = archivableClassPath();
+        Path archive = Files.createTempDirectory("cds").resolve("plugins.jsa");
+
+        ArchiveDumpResult result = ClassDataSharing.dump(archive, classPath, List.of(bundleFile));
+
+        assertEquals(archive.toAbsolutePath(), result.archive());
+        assertTrue(result.sizeBytes() > 0);
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        command.addAll(ClassDataSharing.jvmOptions(archive));
+        command.addAll(List.of("-Xlog:class+load=info", "-cp", classPath,
+            ArchiveTrainingRun.class.getName(), bundleFile.toString()));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int exitCode = process.waitFor();
+
+        assertEquals(0, exitCode, output);
+        assertTrue(output.lines().anyMatch(line -> line.contains(" Archived source: shared objects file")), output);
+        assertTrue(output.lines().anyMatch(line ->
+            line.contains(PluginLoadService.class.getName() + " source: shared objects file")), output);
+    }
+
+    @Test
+    void dump_rejectsClassPathsWithClassDirectories() throws Exception {
+        Path classes = Files.createTempDirectory("classes");
+        Files.writeString(classes.resolve("A.class"), "");
+        Path archive = Files.createTempFile("plugins", ".jsa");
+
+        assertFalse(ClassDataSharing.isArchivable(classes.toString()));
+        assertThrows(IllegalArgumentException.class, () -> ClassDataSharing.dump(archive, classes.toString(), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> ClassDataSharing.dump(null, "lib.jar", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> ClassDataSharing.dump(archive, "", List.of()));
+    }
+
+    @Test
+    void isArchivable_acceptsJarsAndEmptyDirectories() throws Exception {
+        Path empty = Files.createTempDirectory("empty");
+
+        assertTrue(ClassDataSharing.isArchivable("lib.jar" + File.pathSeparator + empty));
+    }
+
+    @Test
+    void jvmOptions_mapTheArchiveAndCreateItWhenMissing() {
+        Path archive = Path.of("app.jsa");
+
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(), "-XX:+AutoCreateSharedArchive"),
+            ClassDataSharing.jvmOptions(archive));
+        assertThrows(IllegalArgumentException.class, () -> ClassDataSharing.jvmOptions(null));
+    }
+
+    @Test
+    void status_reportsTheSharingOfThisJvm() {
+        SharingStatus status = ClassDataSharing.status();
+
+        assertEquals(System.getProperty("java.vm.info").contains("sharing"), status.enabled());
+    }
+
+    /**
+     * Returns the test class path with every class directory packed into
+     * a JAR file, as the JVM only archives classes from JAR files.
+     */
+    private static String archivableClassPath() throws Exception {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            Path path = Path.of(entry);
+            entries.add(Files.isDirectory(path) ? jar(path).toString() : entry);
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static Path jar(Path directory) throws Exception {
+        Path jar = Files.createTempFile("classes", ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(directory.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
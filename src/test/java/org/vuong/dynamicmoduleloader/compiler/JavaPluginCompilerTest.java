@@ -0,0 +1,118 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaPluginCompilerTest {
+
+    @Test
+    void compileAndLoad_skipsJavacWhenTheRecordedOutputIsUpToDate() throws Exception {
+        Path sources = Files.createTempDirectory("plugin-sources");
+        Path output = Files.createTempDirectory("plugin-output");
+        File alpha = write(sources, "Alpha", 1);
+
+        JavaPluginCompiler compiler = new JavaPluginCompiler(output, "checks");
+        assertEquals(1, value(compiler.compileAndLoad(alpha)));
+        assertEquals(1, value(compiler.compileAndLoad(alpha)));
+        assertEquals(new BuildStats(1, 1), compiler.getBuildStats());
+        assertFalse(new File(alpha.getParentFile(), "Alpha.class").exists());
+
+        // A later compiler over the same output directory, e.g. after a restart
+        JavaPluginCompiler restarted = new JavaPluginCompiler(output, "checks");
+        assertEquals(1, value(restarted.compileAndLoad(alpha)));
+        assertEquals(new BuildStats(1, 0), restarted.getBuildStats());
+    }
+
+    @Test
+    void compileAndLoad_recompilesWhenTheSourceOrTheChecksChange() throws Exception {
+        Path sources = Files.createTempDirectory("plugin-sources");
+        Path output = Files.createTempDirectory("plugin-output");
+        File alpha = write(sources, "Alpha", 1);
+        JavaPluginCompiler compiler = new JavaPluginCompiler(output, "checks");
+        compiler.compileAndLoad(alpha);
+
+        write(sources, "Alpha", 2);
+        assertEquals(2, value(compiler.compileAndLoad(alpha)));
+        assertEquals(new BuildStats(0, 2), compiler.getBuildStats());
+
+        JavaPluginCompiler stricter = new JavaPluginCompiler(output, "stricter checks");
+        stricter.compileAndLoad(alpha);
+        assertEquals(new BuildStats(0, 1), stricter.getBuildStats());
+    }
+
+    @Test
+    void compileAndLoad_recompilesWhenAClassFileWasChanged() throws Exception {
+        Path sources = Files.createTempDirectory("plugin-sources");
+        Path output = Files.createTempDirectory("plugin-output");
+        File alpha = write(sources, "Alpha", 1);
+        JavaPluginCompiler compiler = new JavaPluginCompiler(output, "checks");
+        compiler.compileAndLoad(alpha);
+
+        Path classFile;
+        try (Stream<Path> files = Files.walk(output)) {
+            classFile = files.filter(file -> file.getFileName().toString().equals("Alpha.class")).findFirst().orElseThrow();
+        }
+        Files.write(classFile, new byte[]{1, 2, 3});
+
+        assertEquals(1, value(compiler.compileAndLoad(alpha)));
+        assertEquals(new BuildStats(0, 2), compiler.getBuildStats());
+    }
+
+    @Test
+    void compileAndLoad_runsTheClassFileCheckOnUpToDateOutput() throws Exception {
+        Path sources = Files.createTempDirectory("plugin-sources");
+        Path output = Files.createTempDirectory("plugin-output");
+        File alpha = write(sources, "Alpha", 1);
+        new JavaPluginCompiler(output, "checks").compileAndLoad(alpha);
+
+        JavaPluginCompiler compiler = new JavaPluginCompiler(output, "checks");
+        ClassFileCheck rejectAll = classFile -> {
+            throw new SecurityException("rejected");
+        };
+        assertThrows(SecurityException.class, () -> compiler.compileAndLoad(alpha, null, rejectAll));
+    }
+
+    @Test
+    void compileAndLoadAll_compilesOnlyTheFilesThatChanged() throws Exception {
+        Path sources = Files.createTempDirectory("plugin-sources");
+        Path output = Files.createTempDirectory("plugin-output");
+        File alpha = write(sources, "Alpha", 1);
+        File beta = write(sources, "Beta", 2);
+        File gamma = write(sources, "Gamma", 3);
+        Map<File, Exception> failures = new HashMap<>();
+        new JavaPluginCompiler(output, "checks").compileAndLoadAll(List.of(alpha, beta, gamma), null, null, failures);
+
+        write(sources, "Beta", 20);
+        JavaPluginCompiler compiler = new JavaPluginCompiler(output, "checks");
+        Map<File, Class<?>> classes = compiler.compileAndLoadAll(List.of(alpha, beta, gamma), null, null, failures);
+
+        assertTrue(failures.isEmpty());
+        assertEquals(20, value(classes.get(beta)));
+        assertEquals(3, value(classes.get(gamma)));
+        assertEquals(new BuildStats(2, 1), compiler.getBuildStats());
+    }
+
+    @Test
+    void constructor_rejectsNullArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new JavaPluginCompiler(null, "checks"));
+        assertThrows(IllegalArgumentException.class, () -> new JavaPluginCompiler(Path.of("out"), null));
+    }
+
+    private static File write(Path directory, String className, int value) throws Exception {
+        return Files.writeString(directory.resolve(className + ".java"),
+            "public class " + className + " { public int value() { return " + value + "; } }").toFile();
+    }
+
+    private static int value(Class<?> clazz) throws Exception {
+        return (int) clazz.getMethod("value").invoke(clazz.getDeclaredConstructor().newInstance());
+    }
+}
@@ -0,0 +1,87 @@
+package org.vuong.dynamicmoduleloader.compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSourceFileTest {
+
+    @Test
+    void map_digestsAndDecodesTheFileOnce() throws Exception {
+        Path file = Files.createTempDirectory("mapped").resolve("Greeter.java");
+        String source = "public class Greeter { String greet() { return \"Grüß dich\"; } }";
+        Files.writeString(file, source);
+
+        MappedSourceFile mapped = MappedSourceFile.map(file);
+        CharBuffer first = mapped.getCharContent(false);
+        CharBuffer second = mapped.getCharContent(true);
+
+        assertEquals(BuildManifest.digest(Files.readAllBytes(file)), mapped.digest());
+        assertEquals(source, first.toString());
+        assertSame(first.array(), second.array());
+        assertEquals(Files.size(file), mapped.size());
+        assertEquals(file.toFile(), mapped.getFile());
+        assertEquals(file.toUri(), mapped.toUri());
+        try (InputStream in = mapped.openInputStream()) {
+            assertArrayEquals(Files.readAllBytes(file), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void map_keepsASnapshotWhenTheFileChangesAfterwards() throws Exception {
+        Path file = Files.createTempDirectory("mapped").resolve("Greeter.java");
+        String source = "public class Greeter { String greet() { return \"hello\"; } }";
+        Files.writeString(file, source);
+        String digest = BuildManifest.digest(Files.readAllBytes(file));
+
+        MappedSourceFile mapped = MappedSourceFile.map(file);
+        Files.writeString(file, "public class Greeter { }");
+
+        assertEquals(digest, mapped.digest());
+        assertEquals(source, mapped.getCharContent(false).toString());
+        assertEquals(source.length(), mapped.size());
+    }
+
+    @Test
+    void getCharContent_reportsMalformedInputUnlessIgnored() throws Exception {
+        Path file = Files.createTempFile("Broken", ".java");
+        Files.write(file, new byte[] {'c', 'l', 'a', 's', 's', (byte) 0xC3});
+
+        assertThrows(IOException.class, () -> MappedSourceFile.map(file).getCharContent(false));
+        assertEquals("class�", MappedSourceFile.map(file).getCharContent(true).toString());
+    }
+
+    @Test
+    void compileAndLoad_checksTheMappedSourceJavacParsed() throws Exception {
+        Path file = Files.createTempDirectory("mapped").resolve("Counter.java");
+        Files.writeString(file, "public class Counter { public int next() { return 1; } }", StandardCharsets.UTF_8);
+        List<CharSequence> parsed = new ArrayList<>();
+
+        Class<?> counter = new JavaPluginCompiler().compileAndLoad(file.toFile(), (task, unit) -> {
+            try {
+                parsed.add(unit.getSourceFile().getCharContent(true));
+                parsed.add(unit.getSourceFile().getCharContent(true));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals("Counter", counter.getName());
+        // The check sees the buffer javac parsed, not a new read of the file
+        assertSame(((CharBuffer) parsed.get(0)).array(), ((CharBuffer) parsed.get(1)).array());
+    }
+
+    @Test
+    void map_rejectsNull() {
+        assertThrows(IllegalArgumentException.class, () -> MappedSourceFile.map(null));
+    }
+}
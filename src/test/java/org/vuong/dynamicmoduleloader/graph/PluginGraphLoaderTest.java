@@ -0,0 +1,134 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.registry.InMemoryPluginRegistry;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginGraphLoaderTest {
+
+    private static final String CURRENCY = """
+        package shop;
+        public class Currency {
+            public String symbol() { return "%s"; }
+        }
+        """;
+    private static final String PRICING = """
+        package shop;
+        public class Pricing {
+            public String price(int amount) { return new Currency().symbol() + amount; }
+        }
+        """;
+    private static final String CHECKOUT = """
+        package shop;
+        public class Checkout {
+            public String total() { return new Pricing().price(42); }
+        }
+        """;
+    private static final String AUDIT = """
+        public class Audit {
+            public String name() { return "audit"; }
+        }
+        """;
+
+    @Test
+    void deploy_loadsPluginsAgainstTheirDependencies() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        PluginGraphLoader loader = new PluginGraphLoader(registry, SecurityConfig.strict(), 2);
+
+        GraphDeployResult result = loader.deploy(List.of(
+            PluginDeclaration.of("shop.Checkout", CHECKOUT, "shop.Pricing"),
+            PluginDeclaration.of("shop.Pricing", PRICING, "shop.Currency"),
+            PluginDeclaration.of("shop.Currency", CURRENCY.formatted("$")),
+            PluginDeclaration.of("Audit", AUDIT)));
+
+        assertTrue(result.isSuccessful(), result.failures().toString());
+        assertEquals(List.of("shop.Currency", "Audit", "shop.Pricing", "shop.Checkout"), result.compiled());
+        assertEquals("$42", call(registry.getPlugin("shop.Checkout"), "total"));
+        assertEquals(3, loader.getGraph().getAffected(List.of("shop.Currency")).size());
+    }
+
+    @Test
+    void deploy_doesNotLetAPluginSeeUndeclaredPlugins() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        PluginGraphLoader loader = new PluginGraphLoader(registry, SecurityConfig.strict(), 1);
+        String reachesThrough = """
+            package shop;
+            public class Checkout {
+                public String total() { return new Currency().symbol(); }
+            }
+            """;
+
+        GraphDeployResult result = loader.deploy(List.of(
+            PluginDeclaration.of("shop.Currency", CURRENCY.formatted("$")),
+            PluginDeclaration.of("shop.Pricing", PRICING, "shop.Currency"),
+            PluginDeclaration.of("shop.Checkout", reachesThrough, "shop.Pricing")));
+
+        assertEquals(List.of("shop.Currency", "shop.Pricing"), result.compiled());
+        assertInstanceOf(IllegalStateException.class, result.failures().get("shop.Checkout"));
+        assertNull(registry.getPlugin("shop.Checkout"));
+    }
+
+    @Test
+    void deploy_recompilesOnlyTheChangedPluginAndItsDependents() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        PluginGraphLoader loader = new PluginGraphLoader(registry, SecurityConfig.strict(), 2);
+        loader.deploy(List.of(
+            PluginDeclaration.of("shop.Currency", CURRENCY.formatted("$")),
+            PluginDeclaration.of("shop.Pricing", PRICING, "shop.Currency"),
+            PluginDeclaration.of("shop.Checkout", CHECKOUT, "shop.Pricing"),
+            PluginDeclaration.of("Audit", AUDIT)));
+        Class<?> audit = registry.getPlugin("audit").getPluginClass();
+        Class<?> oldCheckout = registry.getPlugin("shop.Checkout").getPluginClass();
+
+        GraphDeployResult result = loader.deploy(List.of(PluginDeclaration.of("shop.Currency", CURRENCY.formatted("€"))));
+
+        assertTrue(result.isSuccessful(), result.failures().toString());
+        assertEquals(List.of("shop.Currency", "shop.Pricing", "shop.Checkout"), result.compiled());
+        assertEquals(List.of("Audit"), result.reused());
+        assertSame(audit, registry.getPlugin("audit").getPluginClass());
+        assertEquals("€42", call(registry.getPlugin("shop.Checkout"), "total"));
+        assertEquals("$42", oldCheckout.getMethod("total").invoke(oldCheckout.getDeclaredConstructor().newInstance()));
+        assertTrue(loader.deploy(List.of(PluginDeclaration.of("Audit", AUDIT))).compiled().isEmpty());
+    }
+
+    @Test
+    void deploy_keepsThePreviousVersionsWhenADependencyFails() throws Exception {
+        InMemoryPluginRegistry registry = new InMemoryPluginRegistry();
+        PluginGraphLoader loader = new PluginGraphLoader(registry, SecurityConfig.strict(), 2);
+        loader.deploy(List.of(
+            PluginDeclaration.of("shop.Currency", CURRENCY.formatted("$")),
+            PluginDeclaration.of("shop.Pricing", PRICING, "shop.Currency")));
+
+        GraphDeployResult result = loader.deploy(List.of(
+            PluginDeclaration.of("shop.Currency", "package shop; public class Currency { broken }")));
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.compiled().isEmpty());
+        assertEquals("Dependency shop.Currency of shop.Pricing failed to load",
+            result.failures().get("shop.Pricing").getMessage());
+        assertEquals("$7", call(registry.getPlugin("shop.Pricing"), "price", 7));
+        assertEquals(CURRENCY.formatted("$"), loader.getGraph().getDeclaration("shop.Currency").javaCode());
+    }
+
+    @Test
+    void constructor_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PluginGraphLoader(null, SecurityConfig.strict(), 1));
+        assertThrows(IllegalArgumentException.class, () -> new PluginGraphLoader(new InMemoryPluginRegistry(), null, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PluginGraphLoader(new InMemoryPluginRegistry(), SecurityConfig.strict(), 0));
+    }
+
+    private static Object call(Plugin plugin, String method, Object... args) throws Exception {
+        Class<?> pluginClass = plugin.getPluginClass();
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] instanceof Integer ? int.class : args[i].getClass();
+        }
+        return pluginClass.getMethod(method, types).invoke(pluginClass.getDeclaredConstructor().newInstance(), args);
+    }
+}
@@ -0,0 +1,56 @@
+package org.vuong.dynamicmoduleloader.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginGraphTest {
+
+    private static final String CODE = "public class P { }";
+
+    @Test
+    void topologicalOrder_placesEveryPluginAfterItsDependencies() {
+        PluginGraph graph = PluginGraph.of(List.of(
+            PluginDeclaration.of("Checkout", CODE, "Pricing", "Tax"),
+            PluginDeclaration.of("Pricing", CODE, "Currency"),
+            PluginDeclaration.of("Tax", CODE, "Currency"),
+            PluginDeclaration.of("Currency", CODE)));
+
+        assertEquals(List.of("Currency", "Pricing", "Tax", "Checkout"), graph.topologicalOrder());
+        assertEquals(Set.of("Pricing", "Tax"), graph.getDependents("Currency"));
+        assertEquals(Set.of("Currency"), graph.getDependencies("Tax"));
+        assertEquals(4, graph.size());
+        assertTrue(graph.contains("Checkout"));
+    }
+
+    @Test
+    void getAffected_returnsChangedPluginsAndTheirTransitiveDependents() {
+        PluginGraph graph = PluginGraph.of(List.of(
+            PluginDeclaration.of("Currency", CODE),
+            PluginDeclaration.of("Pricing", CODE, "Currency"),
+            PluginDeclaration.of("Checkout", CODE, "Pricing"),
+            PluginDeclaration.of("Audit", CODE)));
+
+        assertEquals(List.of("Currency", "Pricing", "Checkout"), graph.getAffected(List.of("Currency")));
+        assertEquals(List.of("Audit", "Pricing", "Checkout"), graph.getAffected(List.of("Audit", "Pricing")));
+        assertThrows(IllegalArgumentException.class, () -> graph.getAffected(List.of("Unknown")));
+    }
+
+    @Test
+    void of_rejectsCyclesUndeclaredDependenciesAndDuplicates() {
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class, () -> PluginGraph.of(List.of(
+            PluginDeclaration.of("A", CODE, "B"),
+            PluginDeclaration.of("B", CODE, "C"),
+            PluginDeclaration.of("C", CODE, "A"))));
+        assertEquals("Plugin dependencies form a cycle: A -> B -> C -> A", cycle.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> PluginGraph.of(List.of(
+            PluginDeclaration.of("A", CODE, "Missing"))));
+        assertThrows(IllegalArgumentException.class, () -> PluginGraph.of(List.of(
+            PluginDeclaration.of("A", CODE), PluginDeclaration.of("A", CODE))));
+        assertThrows(IllegalArgumentException.class, () -> PluginDeclaration.of("A", CODE, "A"));
+    }
+}
@@ -3,8 +3,22 @@ package org.vuong.dynamicmoduleloader.registry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.core.PluginLease;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,4 +144,437 @@ class InMemoryPluginRegistryTest {
         assertEquals(0, registry.size());
         assertTrue(registry.getAllPlugins().isEmpty());
     }
+
+    @Test
+    void findByInterface_returnsImplementingPlugins() {
+        Plugin upper = new Plugin("upper", UpperTransformer.class);
+        Plugin lower = new Plugin("lower", LowerTransformer.class);
+        registry.register(upper);
+        registry.register(lower);
+        registry.register(testPlugin);
+
+        assertEquals(Set.of(upper, lower), registry.findByInterface(Transformer.class));
+        assertTrue(registry.findByInterface(Runnable.class).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> registry.findByInterface(String.class));
+    }
+
+    @Test
+    void findBySuperclassAnnotationAndMethod_useIndexedFeatures() {
+        Plugin upper = new Plugin("upper", UpperTransformer.class);
+        Plugin lower = new Plugin("lower", LowerTransformer.class);
+        registry.register(upper);
+        registry.register(lower);
+
+        assertEquals(Set.of(lower), registry.findBySuperclass(UpperTransformer.class));
+        assertEquals(Set.of(upper, lower), registry.findByAnnotation(Marker.class));
+        assertEquals(Set.of(upper, lower), registry.findByMethod("handle", String.class));
+        assertEquals(Set.of(lower), registry.findByMethod("reset"));
+        assertTrue(registry.findByMethod("handle", Object.class).isEmpty());
+        assertTrue(registry.findByMethod("toString").isEmpty());
+    }
+
+    @Test
+    void findQueries_reflectReplaceRemoveAndClear() {
+        Plugin upper = new Plugin("transformer", UpperTransformer.class);
+        registry.register(upper);
+        Set<Plugin> before = registry.findByInterface(Transformer.class);
+        assertSame(before, registry.findByInterface(Transformer.class));
+
+        registry.register(new Plugin("transformer", String.class));
+        assertTrue(registry.findByInterface(Transformer.class).isEmpty());
+        assertEquals(Set.of(upper), before);
+        assertThrows(UnsupportedOperationException.class, () -> before.add(testPlugin));
+
+        Plugin lower = new Plugin("lower", LowerTransformer.class);
+        registry.register(lower);
+        assertEquals(Set.of(lower), registry.findByInterface(Transformer.class));
+
+        registry.removePlugin("lower");
+        assertTrue(registry.findByInterface(Transformer.class).isEmpty());
+
+        registry.register(lower);
+        registry.clear();
+        assertTrue(registry.findByAnnotation(Marker.class).isEmpty());
+    }
+
+    @Test
+    void apply_registersReplacesAndRemovesInOrder() {
+        Plugin old = new Plugin("a", String.class);
+        registry.register(old);
+        registry.register(testPlugin);
+
+        Plugin replacement = new Plugin("a", UpperTransformer.class);
+        Plugin added = new Plugin("b", Integer.class);
+        Map<String, Plugin> previous = registry.apply(new PluginBatch()
+            .register(replacement)
+            .register(added)
+            .remove("testPlugin")
+            .remove("missing"));
+
+        assertEquals(Map.of("a", old, "testPlugin", testPlugin), previous);
+        assertSame(replacement, registry.getPlugin("a"));
+        assertSame(added, registry.getPlugin("b"));
+        assertFalse(registry.containsPlugin("testPlugin"));
+        assertEquals(Set.of(replacement), registry.findByInterface(Transformer.class));
+    }
+
+    @Test
+    void registerAllAndRemoveAll_applyAsBatches() {
+        Plugin plugin1 = new Plugin("plugin1", String.class);
+        Plugin plugin2 = new Plugin("plugin2", Integer.class);
+
+        assertTrue(registry.registerAll(List.of(plugin1, plugin2)).isEmpty());
+        assertEquals(2, registry.size());
+
+        assertEquals(Map.of("plugin1", plugin1), registry.removeAll(List.of("plugin1", "unknown")));
+        assertEquals(1, registry.size());
+
+        assertThrows(IllegalArgumentException.class, () -> registry.apply(null));
+        assertThrows(IllegalArgumentException.class, () -> new PluginBatch().remove(" "));
+    }
+
+    @Test
+    void apply_isNeverObservedHalfApplied() throws Exception {
+        int batchSize = 200;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger tornReads = new AtomicInteger();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                int count = registry.size();
+                Collection<Plugin> all = registry.getAllPlugins();
+                if ((count != 0 && count != batchSize) || (!all.isEmpty() && all.size() != batchSize)) {
+                    tornReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int round = 0; round < 50; round++) {
+                PluginBatch add = new PluginBatch();
+                PluginBatch remove = new PluginBatch();
+                for (int i = 0; i < batchSize; i++) {
+                    add.register(new Plugin("p" + i, String.class));
+                    remove.remove("p" + i);
+                }
+                registry.apply(add);
+                registry.apply(remove);
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        assertEquals(0, tornReads.get());
+    }
+
+    @Test
+    void lazyPlugin_resolvesExactlyOnceUnderConcurrentFirstAccess() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Plugin lazy = new Plugin("lazy", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return UpperTransformer.class;
+        });
+        registry.register(lazy);
+
+        assertEquals(new LazyStats(0, 1, 0, 0, 0), registry.getLazyStats());
+        assertTrue(registry.containsPlugin("lazy"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Plugin>> lookups = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> registry.getPlugin("lazy")));
+            }
+            release.countDown();
+            for (Future<Plugin> lookup : lookups) {
+                assertSame(lazy, lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertSame(UpperTransformer.class, lazy.getPluginClass());
+        LazyStats stats = registry.getLazyStats();
+        assertEquals(1, stats.resolved());
+        assertEquals(0, stats.pending());
+        assertEquals(1, stats.resolutions());
+        assertEquals(Set.of(lazy), registry.findByInterface(Transformer.class));
+    }
+
+    @Test
+    void lazyPlugin_isResolvedByQueriesAndNotByRemoval() {
+        AtomicInteger loads = new AtomicInteger();
+        Plugin lazy = new Plugin("lazy", () -> {
+            loads.incrementAndGet();
+            return LowerTransformer.class;
+        });
+        registry.register(lazy);
+
+        assertSame(lazy, registry.removePlugin("lazy"));
+        assertEquals(0, loads.get());
+
+        registry.register(lazy);
+        assertEquals(Set.of(lazy), registry.findByMethod("reset"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void lazyPlugin_failureIsReportedAndRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        registry.register(new Plugin("broken", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("does not compile");
+        }));
+
+        assertThrows(IllegalStateException.class, () -> registry.getPlugin("broken"));
+        assertTrue(registry.findByInterface(Transformer.class).isEmpty());
+        assertEquals(2, attempts.get());
+
+        LazyStats stats = registry.getLazyStats();
+        assertEquals(1, stats.pending());
+        assertEquals(2, stats.resolutionFailures());
+    }
+
+    @Test
+    void lazyPlugin_linkageErrorIsReportedLikeAnyFailure() {
+        registry.register(new Plugin("uninitializable", () -> {
+            throw new ExceptionInInitializerError("static initializer failed");
+        }));
+        registry.register(new Plugin("upper", UpperTransformer.class));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> registry.getPlugin("uninitializable"));
+        assertInstanceOf(ExceptionInInitializerError.class, failure.getCause());
+        assertEquals(1, registry.findByInterface(Transformer.class).size());
+        assertEquals(1, registry.findByMethod("handle", String.class).size());
+
+        LazyStats stats = registry.getLazyStats();
+        assertEquals(1, stats.pending());
+        assertEquals(3, stats.resolutionFailures());
+    }
+
+    @Test
+    void boundedRegistry_evictsColdPluginsAndReloadsOnAccess() {
+        InMemoryPluginRegistry bounded = new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(2));
+        AtomicInteger loads = new AtomicInteger();
+        Plugin cold = new Plugin("cold", UpperTransformer.class, () -> {
+            loads.incrementAndGet();
+            return UpperTransformer.class;
+        });
+        Plugin hot = new Plugin("hot", LowerTransformer.class, () -> LowerTransformer.class);
+        bounded.register(cold);
+        bounded.register(hot);
+        bounded.getPlugin("hot");
+        bounded.getPlugin("hot");
+
+        bounded.register(new Plugin("newcomer", String.class, () -> String.class));
+
+        assertFalse(cold.isResolved());
+        assertTrue(hot.isResolved());
+        assertTrue(bounded.containsPlugin("cold"));
+
+        assertSame(cold, bounded.getPlugin("cold"));
+        assertTrue(cold.isResolved());
+        assertEquals(1, loads.get());
+
+        CapacityStats stats = bounded.getCapacityStats();
+        assertEquals(2, stats.residentPlugins());
+        assertEquals(2, stats.evictions());
+        assertEquals(1, stats.reloads());
+    }
+
+    @Test
+    void boundedRegistry_queriesKeepEvictedPluginsWithoutReloadingThem() {
+        InMemoryPluginRegistry bounded = new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(2));
+        AtomicInteger loads = new AtomicInteger();
+        Set<Plugin> registered = new java.util.HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            Plugin plugin = new Plugin("plugin" + i, UpperTransformer.class, () -> {
+                loads.incrementAndGet();
+                return UpperTransformer.class;
+            });
+            registered.add(plugin);
+            bounded.register(plugin);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(registered, bounded.findByInterface(Transformer.class));
+            assertEquals(registered, bounded.findByMethod("handle", String.class));
+        }
+
+        assertEquals(0, loads.get());
+        CapacityStats capacity = bounded.getCapacityStats();
+        assertEquals(2, capacity.residentPlugins());
+        assertEquals(3, capacity.evictions());
+        assertEquals(0, capacity.reloads());
+        assertEquals(new LazyStats(5, 0, 0, 0, 0), bounded.getLazyStats());
+
+        bounded.getPlugin("plugin0");
+        assertEquals(1, loads.get());
+        assertEquals(1, bounded.getCapacityStats().reloads());
+        assertEquals(new LazyStats(5, 0, 0, 0, 0), bounded.getLazyStats());
+    }
+
+    @Test
+    void boundedRegistry_neverEvictsPluginsWithoutSource() {
+        InMemoryPluginRegistry bounded = new InMemoryPluginRegistry(CapacityPolicy.maxPlugins(1));
+        Plugin pinned = new Plugin("pinned", String.class);
+        bounded.register(pinned);
+        bounded.register(new Plugin("other", Integer.class));
+
+        assertTrue(pinned.isResolved());
+        assertEquals(2, bounded.getCapacityStats().residentPlugins());
+        assertEquals(0, bounded.getCapacityStats().evictions());
+    }
+
+    @Test
+    void boundedRegistry_releasesRemovedPlugins() {
+        InMemoryPluginRegistry bounded = new InMemoryPluginRegistry(new CapacityPolicy(10, 1_000, type -> 400));
+        bounded.register(new Plugin("a", String.class, () -> String.class));
+        bounded.register(new Plugin("b", Integer.class, () -> Integer.class));
+        assertEquals(800, bounded.getCapacityStats().residentBytes());
+
+        bounded.removePlugin("a");
+        assertEquals(400, bounded.getCapacityStats().residentBytes());
+
+        bounded.register(new Plugin("c", Long.class, () -> Long.class));
+        bounded.register(new Plugin("d", Short.class, () -> Short.class));
+        CapacityStats stats = bounded.getCapacityStats();
+        assertTrue(stats.residentBytes() <= 1_000);
+        assertEquals(1, stats.evictions());
+        assertThrows(IllegalArgumentException.class, () -> CapacityPolicy.maxPlugins(0));
+    }
+
+    @Test
+    void acquire_retiresReplacedVersionOnlyAfterLastLeaseCloses() {
+        List<Plugin> retired = new java.util.ArrayList<>();
+        registry.addRetirementListener(retired::add);
+        Plugin v1 = new Plugin("pricing", String.class);
+        registry.register(v1);
+
+        PluginLease first = registry.acquire("pricing");
+        PluginLease second = registry.acquire("pricing");
+        assertSame(first, second);
+        assertSame(v1, first.getPlugin());
+        assertEquals(2, first.getHolders());
+
+        Plugin v2 = new Plugin("pricing", Integer.class);
+        registry.register(v2);
+        assertTrue(first.isRetired());
+        assertSame(v2, registry.acquire("pricing").getPlugin());
+
+        first.close();
+        assertTrue(retired.isEmpty());
+        second.close();
+        assertEquals(List.of(v1), retired);
+        assertThrows(IllegalStateException.class, first::close);
+    }
+
+    @Test
+    void acquire_handlesMissingAndRemovedPlugins() {
+        List<Plugin> retired = new java.util.ArrayList<>();
+        registry.addRetirementListener(retired::add);
+
+        assertNull(registry.acquire("missing"));
+        registry.register(testPlugin);
+        registry.removePlugin("testPlugin");
+        assertEquals(List.of(testPlugin), retired);
+
+        registry.register(testPlugin);
+        try (PluginLease lease = registry.acquire("testPlugin")) {
+            assertFalse(lease.isRetired());
+            registry.clear();
+            assertEquals(1, retired.size());
+        }
+        assertEquals(List.of(testPlugin, testPlugin), retired);
+        assertThrows(IllegalArgumentException.class, () -> registry.addRetirementListener(null));
+    }
+
+    @Test
+    void acquire_releasesItsHoldWhenALazyPluginFailsToResolve() {
+        List<Plugin> retired = new java.util.ArrayList<>();
+        registry.addRetirementListener(retired::add);
+        Plugin broken = new Plugin("broken", () -> {
+            throw new IllegalStateException("does not compile");
+        });
+        registry.register(broken);
+
+        assertThrows(IllegalStateException.class, () -> registry.acquire("broken"));
+        registry.removePlugin("broken");
+
+        assertEquals(List.of(broken), retired);
+    }
+
+    @Test
+    void acquire_neverRetiresAVersionWhileItIsLeased() throws Exception {
+        Map<Plugin, AtomicInteger> inUse = new ConcurrentHashMap<>();
+        AtomicInteger violations = new AtomicInteger();
+        Set<Plugin> notified = ConcurrentHashMap.newKeySet();
+        registry.addRetirementListener(plugin -> {
+            if (inUse.get(plugin).get() != 0 || !notified.add(plugin)) {
+                violations.incrementAndGet();
+            }
+        });
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        Plugin first = new Plugin("hot", String.class);
+        inUse.put(first, new AtomicInteger());
+        registry.register(first);
+        try {
+            for (int t = 0; t < 4; t++) {
+                readers.submit(() -> {
+                    while (running.get()) {
+                        try (PluginLease lease = registry.acquire("hot")) {
+                            AtomicInteger counter = inUse.get(lease.getPlugin());
+                            counter.incrementAndGet();
+                            counter.decrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < 2_000; i++) {
+                Plugin next = new Plugin("hot", String.class);
+                inUse.put(next, new AtomicInteger());
+                registry.register(next);
+            }
+        } finally {
+            running.set(false);
+            readers.shutdown();
+            assertTrue(readers.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS));
+        }
+
+        assertEquals(0, violations.get());
+        assertEquals(2_000, notified.size());
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    public interface Transformer {
+        String handle(String input);
+    }
+
+    @Marker
+    public static class UpperTransformer implements Transformer {
+        @Override
+        public String handle(String input) {
+            return input.toUpperCase();
+        }
+    }
+
+    @Marker
+    public static class LowerTransformer extends UpperTransformer {
+        @Override
+        public String handle(String input) {
+            return input.toLowerCase();
+        }
+
+        public void reset() {
+        }
+    }
 }
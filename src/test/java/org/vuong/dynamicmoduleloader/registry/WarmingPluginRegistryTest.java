@@ -0,0 +1,57 @@
+package org.vuong.dynamicmoduleloader.registry;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+import org.vuong.dynamicmoduleloader.core.PluginBatch;
+import org.vuong.dynamicmoduleloader.warmup.PluginWarmer;
+import org.vuong.dynamicmoduleloader.warmup.WarmUpPolicy;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmingPluginRegistryTest {
+
+    public static class Greeter {
+
+        public static Object[][] warmUpSamples() {
+            return new Object[][] {{"greet", "world"}};
+        }
+
+        public String greet(String name) {
+            return "Hello, " + name;
+        }
+    }
+
+    public static class Unconstructible {
+
+        public Unconstructible() {
+            throw new IllegalStateException("No instances");
+        }
+    }
+
+    @Test
+    void register_warmsUpAPluginBeforeRegisteringIt() {
+        InMemoryPluginRegistry delegate = new InMemoryPluginRegistry();
+        WarmingPluginRegistry registry = new WarmingPluginRegistry(delegate,
+            new PluginWarmer(new WarmUpPolicy(200, 2_000, 8)));
+
+        registry.register(new Plugin("greeter", Greeter.class));
+        registry.apply(new PluginBatch().register(new Plugin("greeter2", Greeter.class)));
+
+        assertTrue(registry.getWarmer().getLastResult("greeter").invocations() >= 200);
+        assertTrue(registry.getWarmer().getLastResult("greeter2").isWarmedUp());
+        assertSame(Greeter.class, delegate.getPlugin("greeter").getPluginClass());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void apply_registersNothingWhenAWarmUpFails() {
+        InMemoryPluginRegistry delegate = new InMemoryPluginRegistry();
+        WarmingPluginRegistry registry = new WarmingPluginRegistry(delegate, new PluginWarmer());
+
+        assertThrows(IllegalStateException.class, () -> registry.registerAll(List.of(
+            new Plugin("greeter", Greeter.class), new Plugin("unconstructible", Unconstructible.class))));
+        assertEquals(0, delegate.size());
+    }
+}
@@ -0,0 +1,95 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytecodeSecurityVerifierTest {
+
+    private final BytecodeSecurityVerifier verifier = new BytecodeSecurityVerifier(SecurityConfig.strict());
+
+    @Test
+    void verify_acceptsClassesThatOnlyMentionForbiddenNamesInStrings() throws IOException {
+        assertDoesNotThrow(() -> verifier.verify(classFile(Clean.class)));
+    }
+
+    @Test
+    void verify_rejectsForbiddenClassesAndMembers() throws IOException {
+        SecurityException file = assertThrows(SecurityException.class, () -> verifier.verify(classFile(UsesFile.class)));
+        assertEquals("File operations are not allowed: java.io.File (in " + UsesFile.class.getName() + ")", file.getMessage());
+
+        SecurityException exit = assertThrows(SecurityException.class, () -> verifier.verify(classFile(UsesExit.class)));
+        assertTrue(exit.getMessage().startsWith("System operations are not allowed: java.lang.System.exit"));
+
+        // The class name is assembled at runtime, which no source scan can follow
+        SecurityException forName = assertThrows(SecurityException.class, () -> verifier.verify(classFile(UsesForName.class)));
+        assertTrue(forName.getMessage().startsWith("Reflection operations are not allowed: java.lang.Class.forName"));
+    }
+
+    @Test
+    void verify_findsTypesUsedOnlyInSignatures() throws IOException {
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> verifier.verify(classFile(GenericFileField.class)));
+
+        assertTrue(exception.getMessage().startsWith("File operations are not allowed: java.io.File"));
+    }
+
+    @Test
+    void verify_skipsRulesAllowedByConfig() throws IOException {
+        BytecodeSecurityVerifier permissive = new BytecodeSecurityVerifier(SecurityConfig.permissive());
+
+        assertDoesNotThrow(() -> permissive.verify(classFile(UsesFile.class)));
+        assertDoesNotThrow(() -> permissive.verify(classFile(UsesExit.class)));
+    }
+
+    @Test
+    void verify_rejectsInvalidClassFiles() throws IOException {
+        byte[] bytes = classFile(Clean.class);
+
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(null));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(new byte[] {1, 2, 3}));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(Arrays.copyOf(bytes, 40)));
+    }
+
+    private static byte[] classFile(Class<?> type) throws IOException {
+        try (InputStream in = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    static class Clean {
+        String describe(List<String> names) {
+            Supplier<String> joined = () -> String.join(",", names);
+            return "java.io.File java/io/File System.exit " + joined.get() + names.size();
+        }
+    }
+
+    static class UsesFile {
+        boolean exists() {
+            return new File("plugin.txt").exists();
+        }
+    }
+
+    static class UsesExit {
+        void quit() {
+            System.exit(1);
+        }
+    }
+
+    static class UsesForName {
+        Object load(String simpleName) throws ClassNotFoundException {
+            return Class.forName("java.io." + simpleName);
+        }
+    }
+
+    static class GenericFileField {
+        List<File> files;
+    }
+}
@@ -2,6 +2,10 @@ package org.vuong.dynamicmoduleloader.security;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CodeSecurityValidatorTest {
@@ -19,6 +23,28 @@ class CodeSecurityValidatorTest {
         assertDoesNotThrow(() -> CodeSecurityValidator.validate(safeCode));
     }
 
+    @Test
+    void validate_recordsPerRuleMetrics() {
+        ValidationMetrics metrics = new ValidationMetrics();
+        String safeCode = "public class SafePlugin {\n    public int add(int a, int b) { return a + b; }\n}\n";
+        String exitCode = "public class ExitPlugin {\n    void quit() { System.exit(0); }\n}\n";
+
+        CodeSecurityValidator.validate(safeCode, metrics);
+        assertThrows(SecurityException.class, () -> CodeSecurityValidator.validate(exitCode, metrics));
+        assertThrows(SecurityException.class, () -> CodeSecurityValidator.validate(" ", metrics));
+
+        ValidationMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.validations());
+        assertEquals(2, snapshot.rule("imports").evaluations());
+        // The rejecting evaluation is timed too
+        assertEquals(2, snapshot.rule("methodCalls").evaluations());
+        assertEquals(1, snapshot.rule("methodCalls").rejections());
+        assertEquals(Map.of("exit", 1L), snapshot.rule("methodCalls").rejectionReasons());
+        assertEquals(1, snapshot.rule("codeStructure").evaluations());
+        assertEquals(Map.of("empty", 1L), snapshot.rule("input").rejectionReasons());
+        assertThrows(IllegalArgumentException.class, () -> CodeSecurityValidator.validate(safeCode, null));
+    }
+
     @Test
     void validate_maliciousRuntimeCode_throwsException() {
         String maliciousCode = """
@@ -109,4 +135,108 @@ class CodeSecurityValidatorTest {
         
         assertTrue(exception.getMessage().contains("Source code cannot be null or empty"));
     }
+
+    @Test
+    void validate_suspiciousComment_throwsException() {
+        String code = "public class A { /* Runtime trick */ int value; }";
+
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> CodeSecurityValidator.validate(code));
+
+        assertTrue(exception.getMessage().contains("Suspicious content detected in comments"));
+    }
+
+    @Test
+    void validate_shortIdentifiersOnOneLine_throwsException() {
+        String code = "class A { int a = b + c + d + e + f + g + h + i + j + k + l ; }";
+
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> CodeSecurityValidator.validate(code));
+
+        assertTrue(exception.getMessage().contains("Suspicious variable naming pattern detected"));
+        assertDoesNotThrow(() -> CodeSecurityValidator.validate(code.replace("{ ", "{\n")));
+    }
+
+    @Test
+    void validate_givesSameStructureVerdictsAsRegexScans() {
+        String[] fragments = {
+            "/*", "*/", "/", "*", "x", "ab", "Q", "if", "Do", "abc1", "\"", " ", "\t", "\n", "\r",
+            "\u2028", "exec", "FILE", "Method", "{", "}", ";"
+        };
+        Random random = new Random(11);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder code = new StringBuilder("class A ");
+            int count = random.nextInt(40);
+            for (int f = 0; f < count; f++) {
+                code.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String source = code.toString();
+
+            String expected = referenceStructureVerdict(source);
+            String actual;
+            try {
+                CodeSecurityValidator.validate(source);
+                actual = "ok";
+            } catch (SecurityException e) {
+                actual = e.getMessage();
+            }
+            assertEquals(expected, actual, source);
+        }
+    }
+
+    @Test
+    void validate_adversarialInputs_finishInBoundedTime() {
+        String[] inputs = {
+            "ab1 ".repeat(50_000),
+            "class A " + "/*".repeat(100_000),
+            "class A " + "/* x ".repeat(50_000),
+            "class A { " + "ab".repeat(100_000) + " }",
+            "class A { int " + "x, ".repeat(50_000) + "y; }"
+        };
+        for (String input : inputs) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                try {
+                    CodeSecurityValidator.validate(input);
+                } catch (SecurityException e) {
+                    // Only the running time matters here
+                }
+            });
+        }
+    }
+
+    /**
+     * The structure checks as they were written with regular expressions and
+     * splits, used to confirm the single-pass version gives the same verdicts.
+     */
+    private static String referenceStructureVerdict(String sourceCode) {
+        if (sourceCode.contains("/*") && sourceCode.contains("*/")) {
+            String[] parts = sourceCode.split("/\\*");
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].contains("*/")) {
+                    String comment = parts[i].substring(0, parts[i].indexOf("*/")).toLowerCase();
+                    for (String word : new String[] {"exec", "runtime", "process", "system", "file",
+                            "socket", "url", "class", "method", "field"}) {
+                        if (comment.contains(word)) {
+                            return "Suspicious content detected in comments. Hidden code execution is not allowed.";
+                        }
+                    }
+                }
+            }
+        }
+        if (sourceCode.chars().filter(c -> c == '"').count() > 50) {
+            return "Excessive string concatenation detected. This may indicate code obfuscation.";
+        }
+        if (sourceCode.matches(".*\\b[a-zA-Z]{1,2}\\b.*")) {
+            int suspiciousVars = 0;
+            for (String word : sourceCode.split("\\s+")) {
+                if (word.matches("\\b[a-zA-Z]{1,2}\\b") && !word.equalsIgnoreCase("if") && !word.equalsIgnoreCase("do")) {
+                    suspiciousVars++;
+                }
+            }
+            if (suspiciousVars > 10) {
+                return "Suspicious variable naming pattern detected. This may indicate code obfuscation.";
+            }
+        }
+        return "ok";
+    }
 }
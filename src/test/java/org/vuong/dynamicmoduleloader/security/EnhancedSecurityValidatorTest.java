@@ -0,0 +1,345 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnhancedSecurityValidatorTest {
+
+    private static final String[] FRAGMENTS = {
+        "public ", "private ", "protected ", "publi", "c ", "java.io.File", "java.io.Fil",
+        "java.net.URL", "java.net.URLConnection", "getMethod", "getMethods", "invoke",
+        "System.gc", "System.g", "java.sql.Statement", "FileWriter", "Class.forName",
+        "int x = 1;", " ", "\n", "{", "}", "Runtime.getRuntime", "newInstance", "é"
+    };
+
+    @Test
+    void validate_reportsFirstViolatedRuleInRuleOrder() {
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(SecurityConfig.strict());
+
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> validator.validate("class A { void run() { System.exit(0); new java.io.File(\"x\"); } }"));
+
+        assertEquals("File operations are not allowed: java.io.File", exception.getMessage());
+    }
+
+    @Test
+    void validate_ignoresRulesAllowedByConfig() {
+        SecurityConfig config = new SecurityConfig(true, true, false, false, false, false, 1000, 10);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config);
+
+        assertDoesNotThrow(() -> validator.validate("class A { java.io.File f; }"));
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> validator.validate("class A { java.io.File f; java.net.Socket s; }"));
+        assertEquals("Network operations are not allowed: java.net.Socket", exception.getMessage());
+    }
+
+    @Test
+    void validate_countsMembersForComplexity() {
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false, 1000, 2);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config);
+
+        assertDoesNotThrow(() -> validator.validate("public class A { private int a; }"));
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> validator.validate("public class A { private int a; protected int b; }"));
+        assertEquals("Code complexity exceeds maximum allowed: 2 methods (found: 3)", exception.getMessage());
+    }
+
+    @Test
+    void validate_givesSameVerdictsAsPerPatternScans() {
+        SecurityConfig[] configs = {
+            SecurityConfig.strict(),
+            SecurityConfig.permissive(),
+            new SecurityConfig(true, true, false, true, false, true, 5000, 6),
+            new SecurityConfig(true, false, true, false, true, false, 5000, 3)
+        };
+        Random random = new Random(7);
+        for (SecurityConfig config : configs) {
+            EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config);
+            for (int i = 0; i < 2_000; i++) {
+                StringBuilder source = new StringBuilder("x");
+                int fragments = random.nextInt(12);
+                for (int f = 0; f < fragments; f++) {
+                    source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                }
+                String code = source.toString();
+                assertEquals(referenceVerdict(config, code), verdict(validator, code), code);
+            }
+        }
+    }
+
+    @Test
+    void validate_givesSameVerdictsForReadersAndBuffers() throws IOException {
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false, 60, 3);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config);
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder source = new StringBuilder();
+            int fragments = random.nextInt(14);
+            for (int f = 0; f < fragments; f++) {
+                source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String code = source.toString();
+            String expected = verdict(validator, code);
+
+            assertEquals(expected, verdict(validator, new TrickleReader(code, random.nextLong())), code);
+            assertEquals(expected, verdict(validator, CharBuffer.wrap("##" + code).position(2)), code);
+        }
+    }
+
+    @Test
+    void validate_findsPatternsSpanningReadChunks() throws IOException {
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(
+            new SecurityConfig(true, false, false, false, false, false, Integer.MAX_VALUE, 10));
+        // Place the pattern across the boundary of the validator's 8192-char reads
+        for (int shift = 0; shift <= "java.io.File".length(); shift++) {
+            String code = "x".repeat(8192 - shift) + "java.io.File";
+
+            assertEquals("File operations are not allowed: java.io.File",
+                verdict(validator, new StringReader(code)), "shift " + shift);
+        }
+    }
+
+    @Test
+    void validate_readsLargeSourcesInConstantMemory() throws IOException {
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(
+            new SecurityConfig(true, false, false, false, false, false, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long size = 50L * 1024 * 1024;
+
+        // Warm up, so that class loading and compilation are not counted
+        verdict(validator, new GeneratedSource(1024 * 1024));
+        long before = threads.getCurrentThreadAllocatedBytes();
+        String result = verdict(validator, new GeneratedSource(size));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals("Network operations are not allowed: java.net.Socket", result);
+        assertTrue(allocated < 1024 * 1024, "allocated " + allocated + " bytes for a " + size + " char source");
+    }
+
+    @Test
+    void validate_stopsReadingOnceTheSourceIsTooLong() throws IOException {
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(SecurityConfig.strict());
+        GeneratedSource source = new GeneratedSource(50L * 1024 * 1024);
+
+        assertEquals("Source code exceeds maximum allowed length: 500", verdict(validator, source));
+        assertTrue(source.remaining > 49L * 1024 * 1024);
+        assertEquals("Source code cannot be null or empty", verdict(validator, new StringReader(" \n".repeat(5_000))));
+    }
+
+    @Test
+    void validate_recordsPerRuleMetrics() throws IOException {
+        ValidationMetrics metrics = new ValidationMetrics();
+        SecurityConfig config = new SecurityConfig(true, false, false, false, false, false, 1000, 2);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(config, null, metrics);
+
+        validator.validate("class A { int a; }");
+        assertThrows(SecurityException.class, () -> validator.validate("class A { java.net.Socket s; java.io.File f; }"));
+        assertThrows(SecurityException.class, () -> validator.validate(new StringReader("class A { java.io.File f; }")));
+        assertThrows(SecurityException.class, () -> validator.validate("public class A { public int a; public int b; }"));
+        assertThrows(SecurityException.class, () -> validator.validate(" "));
+
+        ValidationMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(5, snapshot.validations());
+        assertEquals(5, snapshot.sampledValidations());
+        assertEquals(4, snapshot.rule("scan").evaluations());
+        assertEquals(Map.of("java.io.File", 2L), snapshot.rule("file").rejectionReasons());
+        assertEquals(2, snapshot.rule("file").hits());
+        // Matched, but the file rule is reported first
+        assertEquals(1, snapshot.rule("network").hits());
+        assertEquals(0, snapshot.rule("network").rejections());
+        assertEquals(1, snapshot.rule("complexity").rejections());
+        assertEquals(Map.of("empty", 1L), snapshot.rule("input").rejectionReasons());
+    }
+
+    @Test
+    void metrics_sampleTimingsButCountEveryRejection() {
+        ValidationMetrics metrics = new ValidationMetrics(4);
+        EnhancedSecurityValidator validator = new EnhancedSecurityValidator(SecurityConfig.strict(), null, metrics);
+
+        for (int i = 0; i < 4_000; i++) {
+            assertThrows(SecurityException.class, () -> validator.validate("class A { java.io.File f; }"));
+        }
+
+        ValidationMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(4_000, snapshot.validations());
+        assertEquals(4, snapshot.sampleInterval());
+        assertTrue(snapshot.sampledValidations() > 700 && snapshot.sampledValidations() < 1_300,
+            "sampled " + snapshot.sampledValidations());
+        assertEquals(snapshot.sampledValidations(), snapshot.rule("scan").evaluations());
+        assertEquals(snapshot.sampledValidations(), snapshot.rule("file").hits());
+        assertEquals(4_000, snapshot.rule("file").rejections());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().validations());
+        assertTrue(metrics.snapshot().rules().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new ValidationMetrics(0));
+    }
+
+    @Test
+    void matcher_countsNonOverlappingOccurrencesLikeIndexOf() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(List.of("aa", "aba", "b", "ab"));
+
+        assertArrayEquals(new int[] {2, 1, 2, 2}, matcher.count("aaaababa"));
+        assertArrayEquals(new int[] {0, 0, 0, 0}, matcher.count(""));
+    }
+
+    private static String verdict(EnhancedSecurityValidator validator, String code) {
+        try {
+            validator.validate(code);
+            return "ok";
+        } catch (SecurityException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String verdict(EnhancedSecurityValidator validator, Reader reader) throws IOException {
+        try {
+            validator.validate(reader);
+            return "ok";
+        } catch (SecurityException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String verdict(EnhancedSecurityValidator validator, CharBuffer buffer) {
+        try {
+            validator.validate(buffer);
+            return "ok";
+        } catch (SecurityException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Returns a few characters per read, so reads end at arbitrary positions.
+     */
+    private static final class TrickleReader extends Reader {
+
+        private final String text;
+        private final Random random;
+        private int position;
+
+        TrickleReader(String text, long seed) {
+            this.text = text;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, 1 + random.nextInt(9)), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Produces a source of the given length without holding it in memory,
+     * ending in a forbidden name.
+     */
+    private static final class GeneratedSource extends Reader {
+
+        private static final char[] LINE = "    int value = compute(1, 2) + 3; // filler\n".toCharArray();
+        private static final char[] TAIL = "java.net.Socket\n".toCharArray();
+
+        private long remaining;
+
+        GeneratedSource(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                long position = remaining - i;
+                buffer[offset + i] = position <= TAIL.length
+                    ? TAIL[TAIL.length - (int) position]
+                    : LINE[(int) (position % LINE.length)];
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * One containment scan per pattern, as the validator worked before it
+     * compiled its rules into a single matcher.
+     */
+    private static String referenceVerdict(SecurityConfig config, String code) {
+        String[][] rules = {
+            config.isAllowFileOperations() ? null : new String[] {"File operations are not allowed: ",
+                "java.io.File", "java.nio.file.Files", "java.nio.file.Paths",
+                "FileInputStream", "FileOutputStream", "FileReader", "FileWriter"},
+            config.isAllowNetworkOperations() ? null : new String[] {"Network operations are not allowed: ",
+                "java.net.Socket", "java.net.URL", "java.net.URLConnection",
+                "java.net.HttpURLConnection", "java.net.ServerSocket"},
+            config.isAllowReflection() ? null : new String[] {"Reflection operations are not allowed: ",
+                "java.lang.reflect", "Class.forName", "getDeclaredMethod", "getMethod", "invoke",
+                "getDeclaredField", "getField", "setAccessible", "newInstance"},
+            config.isAllowSystemOperations() ? null : new String[] {"System operations are not allowed: ",
+                "Runtime.getRuntime", "ProcessBuilder", "System.exit", "System.halt", "System.gc",
+                "System.runFinalization"},
+            config.isAllowDatabaseOperations() ? null : new String[] {"Database operations are not allowed: ",
+                "java.sql.Connection", "java.sql.DriverManager", "java.sql.Statement",
+                "java.sql.PreparedStatement"}
+        };
+        if (code.trim().isEmpty()) {
+            return "Source code cannot be null or empty";
+        }
+        if (code.length() > config.getMaxStringLength()) {
+            return "Source code exceeds maximum allowed length: " + config.getMaxStringLength();
+        }
+        for (String[] rule : rules) {
+            if (rule == null) {
+                continue;
+            }
+            for (int p = 1; p < rule.length; p++) {
+                if (code.contains(rule[p])) {
+                    return rule[0] + rule[p];
+                }
+            }
+        }
+        int methodCount = countOccurrences(code, "public ") + countOccurrences(code, "private ")
+            + countOccurrences(code, "protected ");
+        if (methodCount > config.getMaxMethodComplexity()) {
+            return "Code complexity exceeds maximum allowed: " + config.getMaxMethodComplexity()
+                + " methods (found: " + methodCount + ")";
+        }
+        return "ok";
+    }
+
+    private static int countOccurrences(String text, String substring) {
+        int count = 0;
+        int index = 0;
+        while ((index = text.indexOf(substring, index)) != -1) {
+            count++;
+            index += substring.length();
+        }
+        return count;
+    }
+}
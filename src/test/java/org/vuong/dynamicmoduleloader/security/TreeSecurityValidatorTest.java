@@ -0,0 +1,106 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeSecurityValidatorTest {
+
+    private final TreeSecurityValidator validator = new TreeSecurityValidator(SecurityConfig.moderate());
+
+    @Test
+    void validate_ignoresStringLiteralsCommentsAndLookalikeNames() {
+        String code = """
+            public class Labels {
+                // Runtime.getRuntime() and java.io.File in a comment
+                public String label() { return "System.exit(0) java.net.Socket"; }
+                public int target(int value) { return value; }
+                public int budget() { return target(3); }
+            }
+            """;
+
+        assertDoesNotThrow(() -> validator.validate(code));
+    }
+
+    @Test
+    void validate_resolvesNamesThroughImports() {
+        SecurityException wildcard = assertThrows(SecurityException.class, () -> validator.validate("""
+            import java.io.*;
+            public class Reader { Object open() { return new File("x"); } }
+            """));
+        assertEquals("File operations are not allowed: java.io.File (line 2)", wildcard.getMessage());
+
+        SecurityException staticImport = assertThrows(SecurityException.class, () -> validator.validate("""
+            import static java.lang.System.*;
+            public class Quitter {
+                void quit() { exit(1); }
+            }
+            """));
+        assertEquals("System operations are not allowed: java.lang.System.exit (line 3)", staticImport.getMessage());
+
+        SecurityException qualified = assertThrows(SecurityException.class, () -> validator.validate(
+            "public class Runner { void run() { Runtime.getRuntime().gc(); } }"));
+        assertEquals("System operations are not allowed: java.lang.Runtime.getRuntime (line 1)", qualified.getMessage());
+    }
+
+    @Test
+    void validate_rejectsReflectiveCallsAndReportsRulesInOrder() {
+        SecurityException exception = assertThrows(SecurityException.class, () -> validator.validate("""
+            public class Probe {
+                void probe() throws Exception {
+                    System.exit(0);
+                    Object.class.getMethod("toString");
+                }
+            }
+            """));
+
+        assertEquals("Reflection operations are not allowed: getMethod (line 4)", exception.getMessage());
+    }
+
+    @Test
+    void validate_skipsRulesAllowedByConfigAndCountsMembers() {
+        TreeSecurityValidator permissive = new TreeSecurityValidator(SecurityConfig.permissive());
+        assertDoesNotThrow(() -> permissive.validate("public class Io { java.io.File file; }"));
+
+        TreeSecurityValidator strict = new TreeSecurityValidator(SecurityConfig.strict());
+        SecurityException exception = assertThrows(SecurityException.class, () -> strict.validate("""
+            public class Wide {
+                public int a; private int b; protected int c; public int d; public int e;
+                String notCounted = "public private protected";
+            }
+            """));
+        assertEquals("Code complexity exceeds maximum allowed: 5 methods (found: 6)", exception.getMessage());
+    }
+
+    @Test
+    void validate_rejectsSourceThatCannotBeParsed() {
+        SecurityException exception = assertThrows(SecurityException.class,
+            () -> validator.validate("public class Broken { not java }"));
+
+        assertTrue(exception.getMessage().startsWith("Source code cannot be parsed: line 1"));
+    }
+
+    @Test
+    void validate_recordsPerRuleMetrics() {
+        ValidationMetrics metrics = new ValidationMetrics();
+        TreeSecurityValidator measured = new TreeSecurityValidator(SecurityConfig.moderate(), null, metrics);
+
+        measured.validate("public class Plain { }");
+        assertThrows(SecurityException.class, () -> measured.validate(
+            "public class Both { java.net.Socket socket; java.io.File file; }"));
+        assertThrows(SecurityException.class, () -> measured.validate("public class Broken { not java }"));
+        assertThrows(SecurityException.class, () -> measured.validate(" "));
+
+        ValidationMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.validations());
+        assertEquals(3, snapshot.rule("parse").evaluations());
+        assertEquals(2, snapshot.rule("scan").evaluations());
+        assertEquals(Map.of("java.io.File", 1L), snapshot.rule("file").rejectionReasons());
+        // Matched, but the file rule is reported first
+        assertEquals(1, snapshot.rule("network").hits());
+        assertEquals(0, snapshot.rule("network").rejections());
+        assertEquals(Map.of("empty", 1L, "syntax", 1L), snapshot.rule("input").rejectionReasons());
+    }
+}
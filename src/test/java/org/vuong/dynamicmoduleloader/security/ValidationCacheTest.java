@@ -0,0 +1,125 @@
+package org.vuong.dynamicmoduleloader.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationCacheTest {
+
+    @Test
+    void validate_cachesPassesAndFailures() {
+        ValidationCache cache = new ValidationCache(16);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.validate("class A {}", "v", runs::incrementAndGet);
+        }
+        for (int i = 0; i < 3; i++) {
+            SecurityException exception = assertThrows(SecurityException.class, () -> cache.validate("class B {}", "v", () -> {
+                runs.incrementAndGet();
+                throw new SecurityException("rejected");
+            }));
+            assertEquals("rejected", exception.getMessage());
+        }
+
+        assertEquals(2, runs.get());
+        ValidationCacheStats stats = cache.getStats();
+        assertEquals(4, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+        assertEquals(4 / 6.0, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void validate_keysOnFingerprintAndFullContent() {
+        ValidationCache cache = new ValidationCache(16);
+        AtomicInteger runs = new AtomicInteger();
+        String large = "x".repeat(10_000);
+
+        cache.validate(large, "v", runs::incrementAndGet);
+        cache.validate(large, "w", runs::incrementAndGet);
+        cache.validate(large + "y", "v", runs::incrementAndGet);
+        cache.validate("y" + large.substring(1), "v", runs::incrementAndGet);
+        cache.validate("é", "v", runs::incrementAndGet);
+        cache.validate("Ã©", "v", runs::incrementAndGet);
+        cache.validate(new StringBuilder(large), "v", runs::incrementAndGet);
+
+        assertEquals(6, runs.get());
+    }
+
+    @Test
+    void validate_evictsLeastRecentlyUsedVerdict() {
+        ValidationCache cache = new ValidationCache(2);
+        AtomicInteger runs = new AtomicInteger();
+
+        cache.validate("a", "v", runs::incrementAndGet);
+        cache.validate("b", "v", runs::incrementAndGet);
+        cache.validate("a", "v", runs::incrementAndGet);
+        cache.validate("c", "v", runs::incrementAndGet);
+        cache.validate("a", "v", runs::incrementAndGet);
+        cache.validate("b", "v", runs::incrementAndGet);
+
+        assertEquals(4, runs.get());
+        assertEquals(2, cache.getStats().evictions());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    void validate_doesNotCacheOtherExceptions() {
+        ValidationCache cache = new ValidationCache(16);
+        AtomicInteger runs = new AtomicInteger();
+        Runnable failing = () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("no compiler");
+        };
+
+        assertThrows(IllegalStateException.class, () -> cache.validate("class A {}", "v", failing));
+        assertThrows(IllegalStateException.class, () -> cache.validate("class A {}", "v", failing));
+
+        assertEquals(2, runs.get());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ValidationCache(0));
+    }
+
+    @Test
+    void validators_shareACacheWithoutMixingVerdicts() {
+        ValidationCache cache = new ValidationCache(16);
+        SecurityConfig strict = SecurityConfig.strict();
+        SecurityConfig allowFiles = new SecurityConfig(true, true, false, false, false, false, 500, 5);
+        String source = "class A { java.io.File f; }";
+
+        EnhancedSecurityValidator strictValidator = new EnhancedSecurityValidator(strict, cache);
+        EnhancedSecurityValidator allowFilesValidator = new EnhancedSecurityValidator(allowFiles, cache);
+        EnhancedSecurityValidator sameConfig = new EnhancedSecurityValidator(SecurityConfig.strict(), cache);
+
+        assertThrows(SecurityException.class, () -> strictValidator.validate(source));
+        assertDoesNotThrow(() -> allowFilesValidator.validate(source));
+        SecurityException cached = assertThrows(SecurityException.class, () -> sameConfig.validate(source));
+
+        assertEquals("File operations are not allowed: java.io.File", cached.getMessage());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(strict.fingerprint(), SecurityConfig.strict().fingerprint());
+        assertNotEquals(strict.fingerprint(), allowFiles.fingerprint());
+    }
+
+    @Test
+    void treeValidator_skipsTheParseForCachedSources() {
+        ValidationCache cache = new ValidationCache(16);
+        TreeSecurityValidator validator = new TreeSecurityValidator(SecurityConfig.strict(), cache);
+
+        validator.validate("public class A { }");
+        validator.validate("public class A { }");
+        assertThrows(SecurityException.class, () -> validator.validate("public class A {"));
+        SecurityException exception = assertThrows(SecurityException.class, () -> validator.validate("public class A {"));
+
+        assertTrue(exception.getMessage().startsWith("Source code cannot be parsed"));
+        assertEquals(2, cache.getStats().hits());
+        assertEquals(2, cache.getStats().misses());
+    }
+}
@@ -0,0 +1,95 @@
+package org.vuong.dynamicmoduleloader.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.core.Plugin;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginWarmerTest {
+
+    private static final WarmUpPolicy QUICK = new WarmUpPolicy(500, 2_000, 3);
+
+    public static class Pricing {
+
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        public static Object[][] warmUpSamples() {
+            return new Object[][] {{"price", 100}, {"price", -1}};
+        }
+
+        public int price(int amount) {
+            CALLS.incrementAndGet();
+            if (amount < 0) {
+                throw new IllegalArgumentException("Negative amount");
+            }
+            return amount * 2;
+        }
+
+        public String currency(String country) {
+            return "DE".equals(country) ? "EUR" : "USD";
+        }
+    }
+
+    public static class NoSamples {
+    }
+
+    @Test
+    void warmUp_callsProvidedAndRecordedSamplesAtLeastTheMinimum() {
+        PluginWarmer warmer = new PluginWarmer(QUICK);
+        warmer.record("pricing", "currency", "DE");
+        warmer.record("pricing", "removedMethod", 1);
+        int before = Pricing.CALLS.get();
+
+        WarmUpResult result = warmer.warmUp(new Plugin("pricing", Pricing.class));
+
+        assertEquals(3, result.samples());
+        assertTrue(result.invocations() >= 3 * 500, "invocations: " + result.invocations());
+        assertTrue(Pricing.CALLS.get() - before >= 2 * 500);
+        assertEquals(result.invocations() / 3, result.failedInvocations(), 1);
+        assertTrue(result.isWarmedUp());
+        assertEquals(1000, result.cold().count());
+        assertEquals(1000, result.warm().count());
+        assertSame(result, warmer.getLastResult("pricing"));
+    }
+
+    @Test
+    void warmUp_doesNothingWithoutSamples() {
+        WarmUpResult result = new PluginWarmer(QUICK).warmUp(new Plugin("noSamples", NoSamples.class));
+
+        assertFalse(result.isWarmedUp());
+        assertEquals(0, result.warm().count());
+    }
+
+    @Test
+    void record_keepsOnlyTheMostRecentSamples() {
+        PluginWarmer warmer = new PluginWarmer(QUICK);
+        for (int i = 0; i < 5; i++) {
+            warmer.record("pricing", "price", i);
+        }
+
+        assertEquals(List.of(WarmUpSample.of("price", 2), WarmUpSample.of("price", 3), WarmUpSample.of("price", 4)),
+            warmer.getRecordedSamples("pricing"));
+        assertTrue(warmer.getRecordedSamples("other").isEmpty());
+    }
+
+    @Test
+    void latencySummary_reportsPercentiles() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[latencies.length - 1 - i] = i + 1;
+        }
+
+        assertEquals(new LatencySummary(100, 50, 90, 99, 100), LatencySummary.of(latencies, 100));
+        assertEquals(new LatencySummary(0, 0, 0, 0, 0), LatencySummary.of(latencies, 0));
+    }
+
+    @Test
+    void constructor_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PluginWarmer(null));
+        assertThrows(IllegalArgumentException.class, () -> new WarmUpPolicy(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PluginWarmer(QUICK).warmUp(null));
+    }
+}
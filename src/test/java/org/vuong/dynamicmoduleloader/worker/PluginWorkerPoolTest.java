@@ -0,0 +1,130 @@
+package org.vuong.dynamicmoduleloader.worker;
+
+import org.junit.jupiter.api.Test;
+import org.vuong.dynamicmoduleloader.security.SecurityConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginWorkerPoolTest {
+
+    private static final String CALCULATOR =
+        "public class Calculator {"
+        + " public int sum(int a, int b) { return a + b; }"
+        + " public String greet(String name) { return \"Hello, \" + name; }"
+        + " public void nothing() { }"
+        + " public Object unsupported() { return new Object(); }"
+        + " public int fail() { throw new IllegalStateException(\"broken\"); }"
+        + "}";
+
+    private static final String CRASHER =
+        "import java.util.ArrayList;"
+        + "import java.util.List;"
+        + "public class Crasher {"
+        + " private final List<long[]> hoard = new ArrayList<>();"
+        + " public int ping() { return 1; }"
+        + " public int exhaustHeap() { while (true) { hoard.add(new long[1 << 20]); } }"
+        + " public int exit() { System.exit(3); return 0; }"
+        + "}";
+
+    @Test
+    void call_runsPluginMethodsInTheWorker() throws Exception {
+        try (PluginWorkerPool pool = new PluginWorkerPool(2, new SecurityConfig())) {
+            assertEquals("calculator", pool.deploy("Calculator", CALCULATOR));
+
+            assertEquals(5, pool.call("calculator", "sum", 2, 3));
+            assertEquals("Hello, pool", pool.call("calculator", "greet", "pool"));
+            assertNull(pool.call("calculator", "nothing"));
+
+            List<CompletableFuture<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                results.add(pool.submit("calculator", "sum", i, 1));
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i + 1, results.get(i).get());
+            }
+
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                batch.add(new Object[] {"caller " + i});
+            }
+            WorkerPoolStats before = pool.getStats();
+            List<CompletableFuture<Object>> greetings = pool.submitAll("calculator", "greet", batch);
+            for (int i = 0; i < 100; i++) {
+                assertEquals("Hello, caller " + i, greetings.get(i).get());
+            }
+            WorkerPoolStats stats = pool.getStats();
+            // The batch is sent in one write
+            assertEquals(100, stats.framesSent() - before.framesSent());
+            assertEquals(1, stats.writes() - before.writes());
+
+            assertEquals(2, stats.workers());
+            assertEquals(2, stats.liveWorkers());
+            assertEquals(1103, stats.calls());
+            assertEquals(0, stats.restarts());
+        }
+    }
+
+    @Test
+    void call_reportsFailuresOfTheWorkerToTheCaller() throws Exception {
+        try (PluginWorkerPool pool = new PluginWorkerPool(1, new SecurityConfig())) {
+            pool.deploy("Calculator", CALCULATOR);
+
+            RemotePluginException failure = assertThrows(RemotePluginException.class, () -> pool.call("calculator", "fail"));
+            assertEquals("java.lang.IllegalStateException", failure.getRemoteClassName());
+            assertEquals("java.lang.IllegalStateException: broken", failure.getMessage());
+            assertThrows(RemotePluginException.class, () -> pool.call("calculator", "unsupported"));
+            assertThrows(RemotePluginException.class, () -> pool.call("calculator", "missing"));
+
+            assertThrows(IllegalArgumentException.class, () -> pool.call("calculator", "greet", new Object()));
+            assertThrows(IllegalArgumentException.class, () -> pool.call("unknown", "sum", 1, 2));
+            assertThrows(SecurityException.class, () -> pool.deploy("Reader",
+                "public class Reader { public String read() throws Exception {"
+                + " return new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(\"/etc/passwd\"))); } }"));
+            assertThrows(RemotePluginException.class, () -> pool.deploy("Broken", "public class Broken { int x = ; }"));
+            assertThrows(IllegalArgumentException.class, () -> pool.call("broken", "sum", 1, 2));
+            // A failed replacement keeps the deployed version, also for restarts
+            assertThrows(RemotePluginException.class, () -> pool.deploy("Calculator", "public class Calculator { int x = ; }"));
+
+            assertEquals(5, pool.call("calculator", "sum", 2, 3));
+        }
+    }
+
+    @Test
+    void call_restartsWorkersThatCrashWithoutAffectingTheHost() throws Exception {
+        try (PluginWorkerPool pool = new PluginWorkerPool(1, SecurityConfig.permissive(), 64)) {
+            pool.deploy("Crasher", CRASHER);
+
+            assertThrows(IOException.class, () -> pool.call("crasher", "exhaustHeap"));
+            // The replacement worker has the plugin deployed again
+            assertEquals(1, pool.call("crasher", "ping"));
+            assertThrows(IOException.class, () -> pool.call("crasher", "exit"));
+            assertEquals(1, pool.call("crasher", "ping"));
+
+            assertEquals(2, pool.getStats().restarts());
+            assertTrue(pool.undeploy("crasher"));
+            assertFalse(pool.undeploy("crasher"));
+        }
+    }
+
+    @Test
+    void close_failsFurtherCalls() throws Exception {
+        PluginWorkerPool pool = new PluginWorkerPool(1, new SecurityConfig());
+        pool.deploy("Calculator", CALCULATOR);
+        pool.close();
+
+        assertEquals(0, pool.getStats().liveWorkers());
+        assertThrows(IllegalStateException.class, () -> pool.call("calculator", "sum", 1, 2));
+    }
+
+    @Test
+    void constructor_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PluginWorkerPool(0, new SecurityConfig()));
+        assertThrows(IllegalArgumentException.class, () -> new PluginWorkerPool(1, null));
+        assertThrows(IllegalArgumentException.class, () -> new PluginWorkerPool(1, new SecurityConfig(), 0));
+    }
+}